@@ -77,6 +77,8 @@ CREATE TABLE IF NOT EXISTS analytics.hourly_transaction_stats (
     successful_transactions INTEGER NOT NULL DEFAULT 0,
     failed_transactions INTEGER NOT NULL DEFAULT 0,
     unique_users INTEGER NOT NULL DEFAULT 0,
+    -- HyperLogLog of the hour's user ids, merged on every update; unique_users is its estimate
+    unique_users_sketch BYTEA,
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
     UNIQUE(hour_bucket)
 );
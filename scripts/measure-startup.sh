@@ -0,0 +1,52 @@
+#!/usr/bin/env bash
+# Compare time-to-ready and resident memory of the plain jar, the AOT-processed jar and the native image.
+#
+#   ./mvnw -DskipTests package                && scripts/measure-startup.sh jar
+#   ./mvnw -DskipTests -Paot package          && scripts/measure-startup.sh aot
+#   ./mvnw -DskipTests -Pnative native:compile && scripts/measure-startup.sh native
+#
+# Kafka, Postgres and Redis must be up (docker compose up -d). Time-to-ready is measured from launch
+# until /actuator/health reports UP; RSS is read from /proc once ready and again after WARM_SECONDS.
+# Arguments after the mode go to the application, e.g. --management.health.redis.enabled=false
+# when Redis is not running. AOT and native builds fix that choice at build time, so build them with
+# -Dspring-boot.aot.jvmArguments=-Dmanagement.health.redis.enabled=false instead.
+set -euo pipefail
+
+MODE=${1:-jar}
+shift $(( $# > 0 ? 1 : 0 ))
+RUNS=${RUNS:-5}
+PORT=${PORT:-8090}
+WARM_SECONDS=${WARM_SECONDS:-30}
+cd "$(dirname "$0")/.."
+
+case "$MODE" in
+  jar)    CMD=(java -jar target/Real-TimeDataPipeline-0.0.1-SNAPSHOT.jar) ;;
+  aot)    CMD=(java -Dspring.aot.enabled=true -jar target/Real-TimeDataPipeline-0.0.1-SNAPSHOT.jar) ;;
+  native) CMD=(target/Real-TimeDataPipeline) ;;
+  *)      echo "usage: $0 jar|aot|native [app-args...]" >&2; exit 1 ;;
+esac
+
+rss_mb() {
+  awk '/VmRSS/ { printf "%.1f", $2 / 1024 }' "/proc/$1/status"
+}
+
+echo "mode,run,ready_ms,rss_ready_mb,rss_warm_mb"
+for run in $(seq 1 "$RUNS"); do
+  start=$(date +%s%N)
+  "${CMD[@]}" --server.port="$PORT" "$@" > "target/startup-$MODE-$run.log" 2>&1 &
+  pid=$!
+  until curl -fs "http://localhost:$PORT/actuator/health" | grep -q '"status":"UP"'; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "run $run: process exited before becoming ready, see target/startup-$MODE-$run.log" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+  ready_ms=$(( ($(date +%s%N) - start) / 1000000 ))
+  rss_ready=$(rss_mb "$pid")
+  sleep "$WARM_SECONDS"
+  rss_warm=$(rss_mb "$pid")
+  echo "$MODE,$run,$ready_ms,$rss_ready,$rss_warm"
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+done
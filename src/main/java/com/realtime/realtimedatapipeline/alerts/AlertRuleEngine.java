@@ -0,0 +1,247 @@
+package com.realtime.realtimedatapipeline.alerts;
+
+import com.realtime.realtimedatapipeline.config.AlertProperties;
+import com.realtime.realtimedatapipeline.model.AlertEvent;
+import com.realtime.realtimedatapipeline.model.AlertRule;
+import com.realtime.realtimedatapipeline.model.AlertRule.Direction;
+import com.realtime.realtimedatapipeline.model.AlertRule.Operand;
+import com.realtime.realtimedatapipeline.model.IndicatorSnapshot;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import com.realtime.realtimedatapipeline.repository.AlertRuleRepository;
+import com.realtime.realtimedatapipeline.symbols.SymbolRegistry;
+import com.realtime.realtimedatapipeline.symbols.SymbolUniverseChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evaluates the user-registered alert rules against every processed quote. Rules are persisted in
+ * alert_rules, compiled once when loaded or created, and kept in a per-symbol {@link SymbolRuleIndex},
+ * so a tick costs a map lookup for its symbol plus the rules whose thresholds it actually reaches.
+ */
+@Service
+public class AlertRuleEngine implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertRuleEngine.class);
+
+    private final AlertRuleRepository alertRuleRepository;
+    private final AlertProperties alertProperties;
+    private final SymbolRegistry symbolRegistry;
+    private final Map<String, SymbolRuleIndex> indexes = new ConcurrentHashMap<>();
+    private final Map<Long, CompiledRule> rules = new ConcurrentHashMap<>();
+    private final AtomicLong builtInIds = new AtomicLong();
+
+    private final Timer evaluationTimer;
+    private final DistributionSummary examinedSummary;
+    private final Counter firedCounter;
+
+    public AlertRuleEngine(AlertRuleRepository alertRuleRepository,
+                           AlertProperties alertProperties,
+                           SymbolRegistry symbolRegistry,
+                           MeterRegistry meterRegistry) {
+        this.alertRuleRepository = alertRuleRepository;
+        this.alertProperties = alertProperties;
+        this.symbolRegistry = symbolRegistry;
+        this.evaluationTimer = Timer.builder("stock.alerts.evaluation")
+                .description("Time to evaluate the alert rules of one quote")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+        this.examinedSummary = DistributionSummary.builder("stock.alerts.rules.examined")
+                .description("Alert rules examined per quote after index lookup")
+                .register(meterRegistry);
+        this.firedCounter = Counter.builder("stock.alerts.fired")
+                .description("Number of alert rules fired")
+                .register(meterRegistry);
+        Gauge.builder("stock.alerts.rules.active", rules, Map::size)
+                .description("Number of compiled alert rules, built-in ones included")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Compile the persisted rules before the listener containers start consuming
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.currentTimeMillis();
+        int skipped = 0;
+        for (AlertRule rule : alertRuleRepository.findByEnabledTrue()) {
+            try {
+                register(CompiledRule.compile(rule, maxWindowSeconds()));
+            } catch (IllegalArgumentException e) {
+                skipped++;
+                logger.warn("Skipping invalid alert rule {}: {}", rule.getId(), e.getMessage());
+            }
+        }
+        registerBuiltIns(symbolRegistry.getSymbols());
+        logger.info("Compiled {} alert rules for {} symbols in {} ms ({} skipped)",
+                   rules.size(), indexes.size(), System.currentTimeMillis() - start, skipped);
+    }
+
+    /**
+     * The former hard-coded significant-move check, as rules on the daily percent change
+     */
+    private void registerBuiltIns(List<String> symbols) {
+        double threshold = alertProperties.getPriceChangeThreshold();
+        if (threshold <= 0) {
+            return;
+        }
+        for (String symbol : symbols) {
+            register(CompiledRule.builtIn(-builtInIds.incrementAndGet(), symbol, Operand.PERCENT_CHANGE,
+                    Direction.UP, threshold, "Daily change above " + threshold + "%"));
+            register(CompiledRule.builtIn(-builtInIds.incrementAndGet(), symbol, Operand.PERCENT_CHANGE,
+                    Direction.DOWN, -threshold, "Daily change below -" + threshold + "%"));
+        }
+    }
+
+    /**
+     * Give added symbols their built-in rules and drop those of removed ones. User rules of a
+     * removed symbol stay registered and fire again if it is re-added.
+     */
+    @EventListener
+    public void onSymbolUniverseChanged(SymbolUniverseChangedEvent event) {
+        registerBuiltIns(event.added());
+        if (event.removed().isEmpty()) {
+            return;
+        }
+        Set<String> removed = Set.copyOf(event.removed());
+        rules.values().removeIf(rule -> {
+            if (rule.id < 0 && removed.contains(rule.symbol)) {
+                indexes.get(rule.symbol).remove(rule);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Evaluate a persisted quote against its symbol's rules
+     * @param indicators the quote's indicators, or null if none were computed
+     * @return the alerts fired by this quote, usually empty
+     */
+    public List<AlertEvent> onQuote(StockQuoteEvent quote, IndicatorSnapshot indicators) {
+        if (!alertProperties.isEnabled() || quote.getSymbol() == null) {
+            return List.of();
+        }
+        SymbolRuleIndex index = indexes.get(quote.getSymbol());
+        Long marketTimestamp = quote.resolveMarketTimestamp();
+        if (index == null || marketTimestamp == null
+                || quote.getCurrentPrice() == null || !(quote.getCurrentPrice() > 0)) {
+            return List.of();
+        }
+
+        long start = System.nanoTime();
+        double[] values = operandValues(quote, indicators);
+        List<AlertEvent> fired = new ArrayList<>(0);
+        long firedAt = System.currentTimeMillis();
+        int examined = index.evaluate(marketTimestamp, values, (rule, direction, value, threshold) ->
+                fired.add(new AlertEvent(rule.id, rule.symbol, rule.type, direction, rule.description,
+                        quote.getCurrentPrice(), value, threshold, marketTimestamp, firedAt)));
+        evaluationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        examinedSummary.record(examined);
+        firedCounter.increment(fired.size());
+        return fired;
+    }
+
+    private static double[] operandValues(StockQuoteEvent quote, IndicatorSnapshot indicators) {
+        double[] values = new double[Operand.values().length];
+        values[Operand.PRICE.ordinal()] = quote.getCurrentPrice();
+        values[Operand.PERCENT_CHANGE.ordinal()] = orNaN(quote.getPercentChange());
+        boolean current = indicators != null;
+        values[Operand.SMA.ordinal()] = current ? orNaN(indicators.sma()) : Double.NaN;
+        values[Operand.EMA.ordinal()] = current ? orNaN(indicators.ema()) : Double.NaN;
+        values[Operand.RSI.ordinal()] = current ? orNaN(indicators.rsi()) : Double.NaN;
+        values[Operand.VWAP.ordinal()] = current ? orNaN(indicators.vwap()) : Double.NaN;
+        values[Operand.BOLLINGER_UPPER.ordinal()] = current ? orNaN(indicators.bollingerUpper()) : Double.NaN;
+        values[Operand.BOLLINGER_LOWER.ordinal()] = current ? orNaN(indicators.bollingerLower()) : Double.NaN;
+        values[Operand.VOLATILITY.ordinal()] = current ? orNaN(indicators.volatility()) : Double.NaN;
+        return values;
+    }
+
+    private static double orNaN(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    /**
+     * Validate, persist and activate a new rule
+     * @throws IllegalArgumentException if the rule is invalid
+     */
+    public AlertRule create(AlertRule rule) {
+        CompiledRule.compile(rule, maxWindowSeconds());
+        rule.setId(null);
+        rule.setSymbol(rule.getSymbol().trim().toUpperCase());
+        rule.setCreatedAt(LocalDateTime.now());
+        AlertRule saved = alertRuleRepository.save(rule);
+        if (saved.isEnabled()) {
+            register(CompiledRule.compile(saved, maxWindowSeconds()));
+        }
+        return saved;
+    }
+
+    /**
+     * Deactivate and delete a rule
+     * @return false if no such rule exists
+     */
+    public boolean delete(long id) {
+        if (!alertRuleRepository.existsById(id)) {
+            return false;
+        }
+        alertRuleRepository.deleteById(id);
+        CompiledRule compiled = rules.remove(id);
+        if (compiled != null) {
+            indexes.get(compiled.symbol).remove(compiled);
+        }
+        return true;
+    }
+
+    public Optional<AlertRule> find(long id) {
+        return alertRuleRepository.findById(id);
+    }
+
+    public List<AlertRule> findBySymbol(String symbol) {
+        return alertRuleRepository.findBySymbolOrderById(symbol.trim().toUpperCase());
+    }
+
+    private void register(CompiledRule rule) {
+        indexes.computeIfAbsent(rule.symbol, symbol -> new SymbolRuleIndex(alertProperties.getHistoryTicks()))
+                .add(rule);
+        rules.put(rule.id, rule);
+    }
+
+    private long maxWindowSeconds() {
+        return alertProperties.getMaxMoveWindow().toSeconds();
+    }
+
+    /**
+     * Get rule engine statistics
+     * @return Map with rule counts and evaluation latency
+     */
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+            "activeRules", rules.size(),
+            "builtInRules", rules.keySet().stream().filter(id -> id < 0).count(),
+            "symbols", indexes.size(),
+            "evaluations", evaluationTimer.count(),
+            "avgEvaluationMicros", evaluationTimer.mean(TimeUnit.MICROSECONDS),
+            "maxEvaluationMicros", evaluationTimer.max(TimeUnit.MICROSECONDS),
+            "avgRulesExamined", examinedSummary.mean(),
+            "firedAlerts", (long) firedCounter.count()
+        );
+    }
+}
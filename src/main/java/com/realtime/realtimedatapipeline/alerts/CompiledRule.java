@@ -0,0 +1,126 @@
+package com.realtime.realtimedatapipeline.alerts;
+
+import com.realtime.realtimedatapipeline.model.AlertRule;
+import com.realtime.realtimedatapipeline.model.AlertRule.Direction;
+import com.realtime.realtimedatapipeline.model.AlertRule.Operand;
+import com.realtime.realtimedatapipeline.model.AlertRule.Type;
+
+/**
+ * A validated rule reduced to the primitives the index evaluates. The fields that place it in the
+ * index are final; only the cooldown state changes, always under its symbol index's lock.
+ */
+final class CompiledRule {
+
+    private static final long NEVER = Long.MIN_VALUE;
+
+    final long id;
+    final String symbol;
+    final Type type;
+    final Direction direction;
+    final Operand operand;
+    final Operand reference;
+    final double level;
+    final int windowSeconds;
+    final long cooldownSeconds;
+    final String description;
+
+    private long lastFiredAt = NEVER;
+
+    private CompiledRule(long id, String symbol, Type type, Direction direction, Operand operand,
+                         Operand reference, double level, int windowSeconds, long cooldownSeconds,
+                         String description) {
+        this.id = id;
+        this.symbol = symbol;
+        this.type = type;
+        this.direction = direction;
+        this.operand = operand;
+        this.reference = reference;
+        this.level = level;
+        this.windowSeconds = windowSeconds;
+        this.cooldownSeconds = cooldownSeconds;
+        this.description = description;
+    }
+
+    /**
+     * Validate a rule and reduce it to its index form
+     * @throws IllegalArgumentException if the rule is incomplete or inconsistent
+     */
+    static CompiledRule compile(AlertRule rule, long maxWindowSeconds) {
+        if (rule.getSymbol() == null || rule.getSymbol().isBlank()) {
+            throw new IllegalArgumentException("Rule needs a symbol");
+        }
+        if (rule.getType() == null) {
+            throw new IllegalArgumentException("Rule needs a type");
+        }
+        if (rule.getCooldownSeconds() < 0) {
+            throw new IllegalArgumentException("Cooldown cannot be negative");
+        }
+        Direction direction = rule.getDirection() != null ? rule.getDirection() : Direction.EITHER;
+        long id = rule.getId() != null ? rule.getId() : 0;
+        String symbol = rule.getSymbol().trim().toUpperCase();
+
+        return switch (rule.getType()) {
+            case PRICE_CROSS -> new CompiledRule(id, symbol, Type.PRICE_CROSS, direction, Operand.PRICE, null,
+                    requireLevel(rule), 0, rule.getCooldownSeconds(), rule.getDescription());
+            case INDICATOR_CROSS -> {
+                if (rule.getOperand() == null) {
+                    throw new IllegalArgumentException("Indicator rule needs an operand");
+                }
+                if (rule.getReference() == rule.getOperand()) {
+                    throw new IllegalArgumentException("Operand and reference must differ");
+                }
+                // Finnhub's /quote carries no volume, so VWAP stays unset and such a rule could never fire
+                if (rule.getOperand() == Operand.VWAP || rule.getReference() == Operand.VWAP) {
+                    throw new IllegalArgumentException("VWAP is not available: quotes carry no volume");
+                }
+                double level = rule.getReference() != null ? Double.NaN : requireLevel(rule);
+                yield new CompiledRule(id, symbol, Type.INDICATOR_CROSS, direction, rule.getOperand(),
+                        rule.getReference(), level, 0, rule.getCooldownSeconds(), rule.getDescription());
+            }
+            case PERCENT_MOVE -> {
+                double threshold = requireLevel(rule);
+                if (!(threshold > 0)) {
+                    throw new IllegalArgumentException("Percent move threshold must be positive");
+                }
+                Integer window = rule.getWindowSeconds();
+                if (window == null || window <= 0 || window > maxWindowSeconds) {
+                    throw new IllegalArgumentException("Percent move window must be between 1 and " + maxWindowSeconds + " seconds");
+                }
+                long cooldown = rule.getCooldownSeconds() > 0 ? rule.getCooldownSeconds() : window;
+                yield new CompiledRule(id, symbol, Type.PERCENT_MOVE, direction, Operand.PRICE, null,
+                        threshold, window, cooldown, rule.getDescription());
+            }
+        };
+    }
+
+    /**
+     * A rule that is not persisted, such as the built-in percent-change rules
+     */
+    static CompiledRule builtIn(long id, String symbol, Operand operand, Direction direction, double level,
+                                String description) {
+        return new CompiledRule(id, symbol, Type.INDICATOR_CROSS, direction, operand, null, level, 0, 0, description);
+    }
+
+    private static double requireLevel(AlertRule rule) {
+        if (rule.getLevel() == null || !Double.isFinite(rule.getLevel())) {
+            throw new IllegalArgumentException(rule.getType() + " rule needs a finite level");
+        }
+        return rule.getLevel();
+    }
+
+    CompiledRule withId(long newId) {
+        return new CompiledRule(newId, symbol, type, direction, operand, reference, level, windowSeconds,
+                cooldownSeconds, description);
+    }
+
+    /**
+     * Claim the rule for a tick at the given market time, unless it is still cooling down
+     */
+    boolean tryFire(long marketTimestamp) {
+        if (lastFiredAt != NEVER && marketTimestamp - lastFiredAt < cooldownSeconds) {
+            return false;
+        }
+        lastFiredAt = marketTimestamp;
+        return true;
+    }
+}
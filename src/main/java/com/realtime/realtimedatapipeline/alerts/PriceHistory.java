@@ -0,0 +1,55 @@
+package com.realtime.realtimedatapipeline.alerts;
+
+/**
+ * Last {@code capacity} (market timestamp, price) ticks of one symbol in primitive rings, for
+ * looking up the price a window ago by binary search. Timestamps must be added in increasing order.
+ * Not thread-safe.
+ */
+final class PriceHistory {
+
+    private final long[] timestamps;
+    private final double[] prices;
+    private int head;
+    private int count;
+
+    PriceHistory(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("History needs at least two ticks: " + capacity);
+        }
+        this.timestamps = new long[capacity];
+        this.prices = new double[capacity];
+    }
+
+    void add(long timestamp, double price) {
+        timestamps[head] = timestamp;
+        prices[head] = price;
+        head = (head + 1) % timestamps.length;
+        if (count < timestamps.length) {
+            count++;
+        }
+    }
+
+    /**
+     * Price of the latest tick at or before the given timestamp, NaN if the history does not reach back that far
+     */
+    double priceAt(long timestamp) {
+        int low = 0;
+        int high = count - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[physical(middle)] <= timestamp) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found >= 0 ? prices[physical(found)] : Double.NaN;
+    }
+
+    private int physical(int logical) {
+        int oldest = count < timestamps.length ? 0 : head;
+        return (oldest + logical) % timestamps.length;
+    }
+}
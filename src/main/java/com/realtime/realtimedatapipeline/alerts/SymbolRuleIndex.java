@@ -0,0 +1,269 @@
+package com.realtime.realtimedatapipeline.alerts;
+
+import com.realtime.realtimedatapipeline.model.AlertRule.Direction;
+import com.realtime.realtimedatapipeline.model.AlertRule.Operand;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The rules of one symbol, indexed so a tick only touches rules that fire or are cooling down:
+ * <ul>
+ *   <li>level crossings sit in per-operand sorted maps keyed by level; a tick from {@code a} to
+ *       {@code b} reads only the levels in {@code (a, b]} (or {@code [b, a)} on the way down)</li>
+ *   <li>operand-vs-operand crossings are grouped by (operand, reference, direction), so the
+ *       crossing test runs once per group however many rules share it</li>
+ *   <li>percent moves are grouped by window and sorted by threshold; the move over each window is
+ *       computed once and only the thresholds at or below it are read</li>
+ * </ul>
+ * All access is serialized on the index; ticks of one symbol arrive in order from a single lane.
+ */
+final class SymbolRuleIndex {
+
+    /**
+     * Receives each rule that fired on a tick
+     */
+    @FunctionalInterface
+    interface FiredRuleSink {
+        void fired(CompiledRule rule, Direction direction, double value, double threshold);
+    }
+
+    private static final Operand[] OPERANDS = Operand.values();
+
+    private final int historyTicks;
+    private final List<NavigableMap<Double, List<CompiledRule>>> levelsUp = new ArrayList<>(OPERANDS.length);
+    private final List<NavigableMap<Double, List<CompiledRule>>> levelsDown = new ArrayList<>(OPERANDS.length);
+    private final Map<Integer, CrossingGroup> crossings = new HashMap<>();
+    private final Map<Integer, MoveGroup> moves = new HashMap<>();
+    private final double[] previous = new double[OPERANDS.length];
+
+    private PriceHistory history;
+    private long lastTimestamp = Long.MIN_VALUE;
+    private int size;
+
+    SymbolRuleIndex(int historyTicks) {
+        this.historyTicks = historyTicks;
+        for (int i = 0; i < OPERANDS.length; i++) {
+            levelsUp.add(new TreeMap<>());
+            levelsDown.add(new TreeMap<>());
+        }
+        Arrays.fill(previous, Double.NaN);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized void add(CompiledRule rule) {
+        switch (rule.type) {
+            case PRICE_CROSS, INDICATOR_CROSS -> {
+                if (rule.reference != null) {
+                    crossings.computeIfAbsent(crossingKey(rule), key -> new CrossingGroup(rule))
+                            .rules.add(rule);
+                } else {
+                    if (rule.direction != Direction.DOWN) {
+                        put(levelsUp.get(rule.operand.ordinal()), rule.level, rule);
+                    }
+                    if (rule.direction != Direction.UP) {
+                        put(levelsDown.get(rule.operand.ordinal()), rule.level, rule);
+                    }
+                }
+            }
+            case PERCENT_MOVE -> {
+                if (history == null) {
+                    history = new PriceHistory(historyTicks);
+                }
+                MoveGroup group = moves.computeIfAbsent(rule.windowSeconds, MoveGroup::new);
+                put(group.byDirection.get(rule.direction.ordinal()), rule.level, rule);
+            }
+        }
+        size++;
+    }
+
+    synchronized boolean remove(CompiledRule rule) {
+        boolean removed = false;
+        switch (rule.type) {
+            case PRICE_CROSS, INDICATOR_CROSS -> {
+                if (rule.reference != null) {
+                    CrossingGroup group = crossings.get(crossingKey(rule));
+                    if (group != null) {
+                        removed = group.rules.removeIf(candidate -> candidate.id == rule.id);
+                        if (group.rules.isEmpty()) {
+                            crossings.remove(crossingKey(rule));
+                        }
+                    }
+                } else {
+                    removed = take(levelsUp.get(rule.operand.ordinal()), rule.level, rule.id)
+                            | take(levelsDown.get(rule.operand.ordinal()), rule.level, rule.id);
+                }
+            }
+            case PERCENT_MOVE -> {
+                MoveGroup group = moves.get(rule.windowSeconds);
+                if (group != null) {
+                    removed = take(group.byDirection.get(rule.direction.ordinal()), rule.level, rule.id);
+                    if (group.isEmpty()) {
+                        moves.remove(rule.windowSeconds);
+                    }
+                }
+            }
+        }
+        if (removed) {
+            size--;
+        }
+        return removed;
+    }
+
+    /**
+     * Evaluate one tick. {@code values} holds the current value of every operand by ordinal,
+     * NaN where unknown. Ticks at or before the last evaluated market timestamp are ignored,
+     * so redelivered quotes never fire twice.
+     * @return the number of rules examined
+     */
+    synchronized int evaluate(long marketTimestamp, double[] values, FiredRuleSink sink) {
+        if (marketTimestamp <= lastTimestamp) {
+            return 0;
+        }
+        lastTimestamp = marketTimestamp;
+        int examined = 0;
+
+        for (int o = 0; o < OPERANDS.length; o++) {
+            double before = previous[o];
+            double now = values[o];
+            if (Double.isNaN(before) || Double.isNaN(now)) {
+                continue;
+            }
+            if (now > before) {
+                examined += fireLevels(levelsUp.get(o).subMap(before, false, now, true),
+                        Direction.UP, now, marketTimestamp, sink);
+            } else if (now < before) {
+                examined += fireLevels(levelsDown.get(o).subMap(now, true, before, false),
+                        Direction.DOWN, now, marketTimestamp, sink);
+            }
+        }
+
+        for (CrossingGroup group : crossings.values()) {
+            int a = group.operand.ordinal();
+            int b = group.reference.ordinal();
+            double spreadBefore = previous[a] - previous[b];
+            double spreadNow = values[a] - values[b];
+            Direction crossed = spreadBefore < 0 && spreadNow >= 0 ? Direction.UP
+                    : spreadBefore > 0 && spreadNow <= 0 ? Direction.DOWN : null;
+            if (crossed != null && (group.direction == Direction.EITHER || group.direction == crossed)) {
+                for (CompiledRule rule : group.rules) {
+                    examined++;
+                    if (rule.tryFire(marketTimestamp)) {
+                        sink.fired(rule, crossed, values[a], values[b]);
+                    }
+                }
+            }
+        }
+
+        if (history != null) {
+            double price = values[Operand.PRICE.ordinal()];
+            for (MoveGroup group : moves.values()) {
+                double reference = history.priceAt(marketTimestamp - group.windowSeconds);
+                if (reference > 0) {
+                    examined += group.fire((price / reference - 1) * 100, marketTimestamp, sink);
+                }
+            }
+            history.add(marketTimestamp, price);
+        }
+
+        System.arraycopy(values, 0, previous, 0, previous.length);
+        return examined;
+    }
+
+    private static int fireLevels(NavigableMap<Double, List<CompiledRule>> crossed, Direction direction,
+                                  double value, long marketTimestamp, FiredRuleSink sink) {
+        int examined = 0;
+        for (List<CompiledRule> rules : crossed.values()) {
+            for (CompiledRule rule : rules) {
+                examined++;
+                if (rule.tryFire(marketTimestamp)) {
+                    sink.fired(rule, direction, value, rule.level);
+                }
+            }
+        }
+        return examined;
+    }
+
+    private static void put(NavigableMap<Double, List<CompiledRule>> map, double key, CompiledRule rule) {
+        map.computeIfAbsent(key, k -> new ArrayList<>(1)).add(rule);
+    }
+
+    private static boolean take(NavigableMap<Double, List<CompiledRule>> map, double key, long id) {
+        List<CompiledRule> rules = map.get(key);
+        if (rules == null || !rules.removeIf(candidate -> candidate.id == id)) {
+            return false;
+        }
+        if (rules.isEmpty()) {
+            map.remove(key);
+        }
+        return true;
+    }
+
+    private static int crossingKey(CompiledRule rule) {
+        return (rule.operand.ordinal() * OPERANDS.length + rule.reference.ordinal()) * Direction.values().length
+                + rule.direction.ordinal();
+    }
+
+    private static final class CrossingGroup {
+
+        final Operand operand;
+        final Operand reference;
+        final Direction direction;
+        final List<CompiledRule> rules = new ArrayList<>();
+
+        CrossingGroup(CompiledRule first) {
+            this.operand = first.operand;
+            this.reference = first.reference;
+            this.direction = first.direction;
+        }
+    }
+
+    /**
+     * Percent-move rules sharing one window, one threshold map per direction
+     */
+    private static final class MoveGroup {
+
+        final int windowSeconds;
+        final List<NavigableMap<Double, List<CompiledRule>>> byDirection = new ArrayList<>(3);
+
+        MoveGroup(int windowSeconds) {
+            this.windowSeconds = windowSeconds;
+            for (int i = 0; i < Direction.values().length; i++) {
+                byDirection.add(new TreeMap<>());
+            }
+        }
+
+        int fire(double move, long marketTimestamp, FiredRuleSink sink) {
+            Direction direction = move >= 0 ? Direction.UP : Direction.DOWN;
+            double magnitude = Math.abs(move);
+            return fire(byDirection.get(direction.ordinal()).headMap(magnitude, true), direction, move, marketTimestamp, sink)
+                    + fire(byDirection.get(Direction.EITHER.ordinal()).headMap(magnitude, true), direction, move, marketTimestamp, sink);
+        }
+
+        private static int fire(NavigableMap<Double, List<CompiledRule>> reached, Direction direction, double move,
+                                long marketTimestamp, FiredRuleSink sink) {
+            int examined = 0;
+            for (List<CompiledRule> rules : reached.values()) {
+                for (CompiledRule rule : rules) {
+                    examined++;
+                    if (rule.tryFire(marketTimestamp)) {
+                        sink.fired(rule, direction, move, rule.level);
+                    }
+                }
+            }
+            return examined;
+        }
+
+        boolean isEmpty() {
+            return byDirection.stream().allMatch(Map::isEmpty);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.realtime.realtimedatapipeline.analytics;
+
+import com.realtime.realtimedatapipeline.config.AnalyticsProperties;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import com.realtime.realtimedatapipeline.symbols.SymbolRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Rolling pairwise correlation and covariance of log returns across the tracked symbols.
+ * Quotes only record each symbol's latest price. A return vector is folded into the matrix once
+ * every quoting symbol has a new price since the previous vector, so a symbol that missed an interval
+ * delays the vector instead of contributing a zero return. A symbol still without a new price after
+ * {@code max-missed-samples} intervals counts as idle: its last price is carried forward (a zero
+ * return) until it quotes again, so a halted symbol goes flat rather than stalling the matrix.
+ * <p>
+ * Series are indexed by the registry's dense symbol ids, and the matrix covers the ids below
+ * {@code max-symbols} that were assigned at startup. Symbols given a higher id at runtime join after
+ * a restart; a removed symbol stops ticking and keeps its series, which it resumes if re-added.
+ */
+@Service
+public class CorrelationEngine implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(CorrelationEngine.class);
+
+    private final AnalyticsProperties analyticsProperties;
+    private final SymbolRegistry symbolRegistry;
+    // Series i is the symbol with registry id i
+    private final int size;
+
+    // Written by consumer lanes, read by the sampler; raw double bits so updates are atomic
+    private final AtomicLongArray latestPrices;
+    private final AtomicIntegerArray fresh;
+    private final AtomicBoolean ticked = new AtomicBoolean();
+    // Sampler state, guarded by the write lock
+    private final double[] sampledPrices;
+    private final int[] missedSamples;
+    private final double[] returns;
+    private int idleSymbols;
+
+    private final ForkJoinPool pool;
+    private final RollingCorrelationMatrix matrix;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Timer stepTimer;
+    private volatile long lastSampleMillis;
+
+    public CorrelationEngine(AnalyticsProperties analyticsProperties,
+                             SymbolRegistry symbolRegistry,
+                             MeterRegistry meterRegistry) {
+        this.analyticsProperties = analyticsProperties;
+        this.symbolRegistry = symbolRegistry;
+        this.size = Math.min(symbolRegistry.capacity(), analyticsProperties.getCorrelation().getMaxSymbols());
+        this.latestPrices = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            latestPrices.set(i, Double.doubleToRawLongBits(Double.NaN));
+        }
+        this.fresh = new AtomicIntegerArray(size);
+        this.sampledPrices = new double[size];
+        Arrays.fill(sampledPrices, Double.NaN);
+        this.missedSamples = new int[size];
+        this.returns = new double[size];
+
+        this.pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        this.matrix = new RollingCorrelationMatrix(Math.max(1, size),
+                analyticsProperties.getCorrelation().getWindow(), pool);
+        this.stepTimer = Timer.builder("stock.correlation.step")
+                .description("Time to fold one aligned return vector into the correlation matrix")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        logger.info("Correlation engine tracking {} symbols ({} pairs) over {} samples",
+                   size, (long) size * (size - 1) / 2,
+                   analyticsProperties.getCorrelation().getWindow());
+    }
+
+    /**
+     * Record a persisted quote's price for the next sample
+     */
+    public void onQuote(StockQuoteEvent quote) {
+        int index = indexOf(quote.getSymbol());
+        if (index < 0 || quote.getCurrentPrice() == null || !(quote.getCurrentPrice() > 0)) {
+            return;
+        }
+        latestPrices.set(index, Double.doubleToRawLongBits(quote.getCurrentPrice()));
+        fresh.set(index, 1);
+        ticked.set(true);
+    }
+
+    /**
+     * Align the latest prices into one return vector and fold it in. Skipped when no quote
+     * arrived since the last vector, so closed markets do not fill the window with zeros, and
+     * deferred while a quoting symbol that is not yet idle still waits for its next price.
+     */
+    @Scheduled(fixedRateString = "${app.analytics.correlation.sample-interval:PT10S}")
+    public void sample() {
+        if (!analyticsProperties.getCorrelation().isEnabled() || size == 0 || !ticked.get()) {
+            return;
+        }
+        long start = System.nanoTime();
+        boolean folded;
+        lock.writeLock().lock();
+        try {
+            if (awaitingQuotes()) {
+                return;
+            }
+            ticked.set(false);
+            folded = false;
+            int idle = 0;
+            for (int i = 0; i < returns.length; i++) {
+                double previous = sampledPrices[i];
+                if (fresh.getAndSet(i, 0) == 1) {
+                    double price = Double.longBitsToDouble(latestPrices.get(i));
+                    // A symbol's first price only sets its baseline
+                    returns[i] = previous > 0 ? Math.log(price / previous) : 0.0;
+                    folded |= previous > 0;
+                    sampledPrices[i] = price;
+                    missedSamples[i] = 0;
+                } else {
+                    // Idle or never quoted: the last price carries forward
+                    returns[i] = 0.0;
+                    if (previous > 0) {
+                        idle++;
+                    }
+                }
+            }
+            idleSymbols = idle;
+            if (folded) {
+                matrix.add(returns);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (folded) {
+            stepTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            lastSampleMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Whether a quoting symbol without a new price has not yet missed enough intervals to count
+     * as idle; counts the interval against every such symbol
+     */
+    private boolean awaitingQuotes() {
+        int maxMissed = analyticsProperties.getCorrelation().getMaxMissedSamples();
+        boolean awaiting = false;
+        for (int i = 0; i < missedSamples.length; i++) {
+            if (fresh.get(i) == 0 && sampledPrices[i] > 0 && missedSamples[i] < maxMissed) {
+                missedSamples[i]++;
+                awaiting = true;
+            }
+        }
+        return awaiting;
+    }
+
+    /**
+     * Correlation and covariance matrices for the requested symbols, or the first tracked ones if
+     * none are requested; at most {@code snapshot-symbols} either way. Unknown symbols are left out;
+     * undefined entries (flat series, too few samples) are null.
+     */
+    public Map<String, Object> getSnapshot(List<String> requested) {
+        int limit = analyticsProperties.getCorrelation().getSnapshotSymbols();
+        List<String> selected = new ArrayList<>();
+        if (requested == null || requested.isEmpty()) {
+            for (int i = 0; i < size && selected.size() < limit; i++) {
+                String symbol = symbolRegistry.symbolOf(i);
+                if (symbol != null) {
+                    selected.add(symbol);
+                }
+            }
+        } else {
+            for (String symbol : requested) {
+                if (selected.size() < limit && indexOf(symbol) >= 0 && !selected.contains(symbol)) {
+                    selected.add(symbol);
+                }
+            }
+        }
+        int[] indices = selected.stream().mapToInt(this::indexOf).toArray();
+        int n = indices.length;
+        // Packed upper triangles copied under the lock; boxing happens after it is released
+        double[] correlations = new double[n * (n + 1) / 2];
+        double[] covariances = new double[correlations.length];
+        int samples;
+        int idle;
+        lock.readLock().lock();
+        try {
+            samples = matrix.samples();
+            idle = idleSymbols;
+            for (int a = 0, k = 0; a < n; a++) {
+                for (int b = a; b < n; b++, k++) {
+                    correlations[k] = matrix.correlation(indices[a], indices[b]);
+                    covariances[k] = matrix.covariance(indices[a], indices[b]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Double[][] correlation = new Double[n][n];
+        Double[][] covariance = new Double[n][n];
+        for (int a = 0, k = 0; a < n; a++) {
+            for (int b = a; b < n; b++, k++) {
+                correlation[a][b] = correlation[b][a] = finite(correlations[k]);
+                covariance[a][b] = covariance[b][a] = finite(covariances[k]);
+            }
+        }
+        return Map.of(
+            "symbols", selected,
+            "samples", samples,
+            "window", analyticsProperties.getCorrelation().getWindow(),
+            "lastSampleMillis", lastSampleMillis,
+            "idleSymbols", idle,
+            "correlation", correlation,
+            "covariance", covariance
+        );
+    }
+
+    /**
+     * The symbols most strongly correlated (by absolute correlation) with the given one
+     */
+    public Map<String, Double> getTopCorrelations(String symbol, int limit) {
+        int index = indexOf(symbol);
+        if (index < 0) {
+            return Map.of();
+        }
+        List<Map.Entry<String, Double>> entries = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int j = 0; j < size; j++) {
+                double correlation = matrix.correlation(index, j);
+                String other = symbolRegistry.symbolOf(j);
+                if (j != index && other != null && !Double.isNaN(correlation)) {
+                    entries.add(Map.entry(other, correlation));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<String, Double> top = new LinkedHashMap<>();
+        entries.stream()
+                .sorted(Comparator.comparingDouble((Map.Entry<String, Double> entry) -> -Math.abs(entry.getValue())))
+                .limit(limit)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+
+    /**
+     * Series of an active symbol, or -1 if it is untracked or its id is outside the matrix
+     */
+    private int indexOf(String symbol) {
+        int id = symbolRegistry.idOf(symbol);
+        return id < size ? id : -1;
+    }
+
+    private static Double finite(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,104 @@
+package com.realtime.realtimedatapipeline.analytics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog distinct-count sketch with 2^14 one-byte registers (16 KB, about 0.8% standard error).
+ * Two sketches merge by taking the register-wise maximum, so per-hour sketches can be combined into
+ * the distinct count of any range of hours, and a sketch can be updated without seeing past items.
+ */
+public final class HyperLogLog {
+
+    static final int PRECISION = 14;
+    static final int REGISTERS = 1 << PRECISION;
+
+    private static final byte FORMAT = 1;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this.registers = new byte[REGISTERS];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    public void add(String item) {
+        long hash = hash(item);
+        int index = (int) (hash >>> (64 - PRECISION));
+        // Position of the first 1-bit in the remaining 50 bits; the sentinel bit caps it at 51
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Estimated number of distinct items added, with linear counting for small cardinalities
+     */
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[REGISTERS + 1];
+        bytes[0] = FORMAT;
+        System.arraycopy(registers, 0, bytes, 1, REGISTERS);
+        return bytes;
+    }
+
+    /**
+     * @param bytes a serialized sketch, or null for an empty one
+     * @throws IllegalArgumentException if the bytes are not a sketch of this format
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null) {
+            return new HyperLogLog();
+        }
+        if (bytes.length != REGISTERS + 1 || bytes[0] != FORMAT) {
+            throw new IllegalArgumentException("Not a HyperLogLog sketch of format " + FORMAT);
+        }
+        return new HyperLogLog(Arrays.copyOfRange(bytes, 1, bytes.length));
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer so every output bit
+     * depends on every input bit; String.hashCode's 32 bits would collide well within our cardinalities
+     */
+    static long hash(String item) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : item.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,80 @@
+package com.realtime.realtimedatapipeline.analytics;
+
+import com.realtime.realtimedatapipeline.config.AnalyticsProperties;
+import com.realtime.realtimedatapipeline.model.IndicatorSnapshot;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import com.realtime.realtimedatapipeline.symbols.SymbolUniverseChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains SMA, EMA, RSI, rolling VWAP, Bollinger bands and rolling volatility for every symbol
+ * from the stream of processed quotes, in constant time per quote and without querying stock_quotes
+ */
+@Service
+public class IndicatorEngine {
+    
+    private final AnalyticsProperties analyticsProperties;
+    private final Map<String, SymbolIndicators> symbols = new ConcurrentHashMap<>();
+    
+    public IndicatorEngine(AnalyticsProperties analyticsProperties, MeterRegistry meterRegistry) {
+        this.analyticsProperties = analyticsProperties;
+        Gauge.builder("stock.indicators.symbols", symbols, Map::size)
+                .description("Number of symbols with incremental indicator state")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Fold a persisted quote into its symbol's indicators
+     * @return the updated indicators, or null if analytics are disabled or the quote was ignored
+     */
+    public IndicatorSnapshot onQuote(StockQuoteEvent quote) {
+        if (!analyticsProperties.isEnabled() || quote.getSymbol() == null || quote.getCurrentPrice() == null) {
+            return null;
+        }
+        Long marketTimestamp = quote.resolveMarketTimestamp();
+        if (marketTimestamp == null) {
+            return null;
+        }
+        double volume = quote.getVolume() != null ? quote.getVolume() : Double.NaN;
+        return symbols.computeIfAbsent(quote.getSymbol(),
+                        symbol -> new SymbolIndicators(symbol, analyticsProperties.getIndicators()))
+                .update(marketTimestamp, quote.getCurrentPrice(), volume);
+    }
+    
+    /**
+     * Drop the indicator state of symbols removed from the registry
+     */
+    @EventListener
+    public void onSymbolUniverseChanged(SymbolUniverseChangedEvent event) {
+        event.removed().forEach(symbols::remove);
+    }
+    
+    /**
+     * Latest indicators for a symbol, or null if no quote has been seen for it
+     */
+    public IndicatorSnapshot getSnapshot(String symbol) {
+        SymbolIndicators indicators = symbols.get(symbol);
+        return indicators != null ? indicators.latest() : null;
+    }
+    
+    /**
+     * Latest indicators for every symbol, ordered by symbol
+     */
+    public Map<String, IndicatorSnapshot> getSnapshots() {
+        Map<String, IndicatorSnapshot> snapshots = new TreeMap<>();
+        symbols.forEach((symbol, indicators) -> {
+            IndicatorSnapshot snapshot = indicators.latest();
+            if (snapshot != null) {
+                snapshots.put(symbol, snapshot);
+            }
+        });
+        return snapshots;
+    }
+}
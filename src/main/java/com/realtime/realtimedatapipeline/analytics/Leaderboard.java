@@ -0,0 +1,89 @@
+package com.realtime.realtimedatapipeline.analytics;
+
+import com.realtime.realtimedatapipeline.model.LeaderboardEntry;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Entries ranked by a score, highest first and ties by symbol, in a concurrent skip list: an update
+ * is a remove and an insert in O(log n), and a query walks k entries from a position found in
+ * O(log n). Entries without a score are left off the board. Callers serialize updates per symbol;
+ * readers never block and may miss a symbol that is being moved.
+ */
+final class Leaderboard {
+
+    private final Function<LeaderboardEntry, Double> score;
+    private final ConcurrentSkipListSet<Ranked> ranked = new ConcurrentSkipListSet<>();
+
+    Leaderboard(Function<LeaderboardEntry, Double> score) {
+        this.score = score;
+    }
+
+    /**
+     * Move a symbol from its previous entry to its next one
+     * @param previous the entry currently on the board, or null
+     * @param next     the replacing entry, or null to drop the symbol
+     */
+    void update(LeaderboardEntry previous, LeaderboardEntry next) {
+        // Removed even when the score is unchanged, so the board returns the newer entry
+        Ranked from = rank(previous);
+        if (from != null) {
+            ranked.remove(from);
+        }
+        Ranked to = rank(next);
+        if (to != null) {
+            ranked.add(to);
+        }
+    }
+
+    /**
+     * The {@code limit} highest entries, or lowest when {@code ascending}
+     */
+    List<LeaderboardEntry> top(int limit, boolean ascending) {
+        return collect(ascending ? ranked.descendingIterator() : ranked.iterator(), limit);
+    }
+
+    /**
+     * Up to {@code limit} entries scoring at least {@code threshold}, highest first
+     */
+    List<LeaderboardEntry> atLeast(double threshold, int limit) {
+        // Everything ranked ahead of the largest score below the threshold; no symbol sorts before ""
+        return collect(ranked.headSet(new Ranked(Math.nextDown(threshold), "", null), false).iterator(), limit);
+    }
+
+    /**
+     * Entries on the board; walks the skip list
+     */
+    int size() {
+        return ranked.size();
+    }
+
+    private Ranked rank(LeaderboardEntry entry) {
+        if (entry == null) {
+            return null;
+        }
+        Double value = score.apply(entry);
+        return value != null && !value.isNaN() ? new Ranked(value, entry.symbol(), entry) : null;
+    }
+
+    private static List<LeaderboardEntry> collect(Iterator<Ranked> iterator, int limit) {
+        List<LeaderboardEntry> entries = new ArrayList<>(Math.min(Math.max(limit, 0), 64));
+        while (entries.size() < limit && iterator.hasNext()) {
+            entries.add(iterator.next().entry());
+        }
+        return entries;
+    }
+
+    private record Ranked(double score, String symbol, LeaderboardEntry entry) implements Comparable<Ranked> {
+
+        @Override
+        public int compareTo(Ranked other) {
+            int byScore = Double.compare(other.score, score);
+            return byScore != 0 ? byScore : symbol.compareTo(other.symbol);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.realtime.realtimedatapipeline.analytics;
+
+import com.realtime.realtimedatapipeline.model.LeaderboardEntry;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import com.realtime.realtimedatapipeline.symbols.SymbolUniverseChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Ranks every symbol's latest quote by percent change, absolute percent change and price, updated
+ * from the stream of processed quotes. Top-N and threshold queries are answered from memory in
+ * O(log n + k) instead of scanning stock_quotes.
+ */
+@Service
+public class LeaderboardService {
+
+    public enum Board {
+        PERCENT_CHANGE(LeaderboardEntry::percentChange),
+        MOVE(entry -> entry.percentChange() != null ? Math.abs(entry.percentChange()) : null),
+        PRICE(LeaderboardEntry::price);
+
+        private final Function<LeaderboardEntry, Double> score;
+
+        Board(Function<LeaderboardEntry, Double> score) {
+            this.score = score;
+        }
+
+        /**
+         * Board for a path segment: percent-change, move or price
+         * @throws IllegalArgumentException for any other name
+         */
+        public static Board fromName(String name) {
+            try {
+                return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown leaderboard " + name + "; expected percent-change, move or price");
+            }
+        }
+    }
+
+    // Latest entry per symbol; updating it under compute serializes the board moves of one symbol
+    private final Map<String, LeaderboardEntry> latest = new ConcurrentHashMap<>();
+    private final Map<Board, Leaderboard> boards = new EnumMap<>(Board.class);
+
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder outOfOrder = new LongAdder();
+
+    public LeaderboardService(MeterRegistry meterRegistry) {
+        for (Board board : Board.values()) {
+            boards.put(board, new Leaderboard(board.score));
+        }
+        Gauge.builder("stock.leaderboard.symbols", latest, Map::size)
+                .description("Number of symbols ranked on the in-memory leaderboards")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Rank a processed quote; a quote older than the symbol's current entry is ignored
+     */
+    public void onQuote(StockQuoteEvent quote) {
+        if (quote == null || quote.getSymbol() == null) {
+            return;
+        }
+        LeaderboardEntry next = LeaderboardEntry.of(quote);
+        latest.compute(quote.getSymbol(), (symbol, previous) -> {
+            if (previous != null && isOlder(next, previous)) {
+                outOfOrder.increment();
+                return previous;
+            }
+            for (Leaderboard board : boards.values()) {
+                board.update(previous, next);
+            }
+            updates.increment();
+            return next;
+        });
+    }
+
+    /**
+     * Take symbols removed from the registry off the boards
+     */
+    @EventListener
+    public void onSymbolUniverseChanged(SymbolUniverseChangedEvent event) {
+        for (String symbol : event.removed()) {
+            latest.computeIfPresent(symbol, (key, previous) -> {
+                for (Leaderboard board : boards.values()) {
+                    board.update(previous, null);
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * The {@code limit} highest-ranked symbols on a board, or the lowest when {@code ascending}
+     */
+    public List<LeaderboardEntry> top(Board board, int limit, boolean ascending) {
+        return boards.get(board).top(limit, ascending);
+    }
+
+    /**
+     * Up to {@code limit} symbols scoring at least {@code threshold} on a board, highest first
+     */
+    public List<LeaderboardEntry> atLeast(Board board, double threshold, int limit) {
+        return boards.get(board).atLeast(threshold, limit);
+    }
+
+    /**
+     * Get leaderboard statistics
+     */
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+            "symbols", latest.size(),
+            "percentChangeEntries", boards.get(Board.PERCENT_CHANGE).size(),
+            "priceEntries", boards.get(Board.PRICE).size(),
+            "updates", updates.sum(),
+            "outOfOrderQuotes", outOfOrder.sum()
+        );
+    }
+
+    private static boolean isOlder(LeaderboardEntry next, LeaderboardEntry previous) {
+        return next.marketTimestamp() != null && previous.marketTimestamp() != null
+                && next.marketTimestamp() < previous.marketTimestamp();
+    }
+}
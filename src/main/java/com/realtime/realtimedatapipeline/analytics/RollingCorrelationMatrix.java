@@ -0,0 +1,210 @@
+package com.realtime.realtimedatapipeline.analytics;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Rolling covariance and correlation over the last {@code window} aligned return vectors of
+ * {@code size} series. Per-series sums and the packed upper triangle of cross-product sums
+ * (diagonal included) live in primitive arrays; adding a vector adds the new products and subtracts
+ * the evicted ones, O(size^2) per step with no allocation. The pair update is split into row blocks
+ * of equal pair count and run on a fork-join pool. Sums are recomputed from the stored vectors each
+ * time the ring wraps, which bounds floating-point drift. Not thread-safe: callers serialize
+ * {@link #add} against readers.
+ */
+final class RollingCorrelationMatrix {
+
+    // Below this many series one thread finishes a step faster than forking would
+    private static final int PARALLEL_THRESHOLD = 64;
+
+    private final int size;
+    private final int window;
+    private final double[][] vectors;
+    private final double[] sums;
+    private final double[] products;
+    private final int[] rowOffsets;
+    private final int[] blockStarts;
+    private final ForkJoinPool pool;
+
+    private int head;
+    private int samples;
+
+    RollingCorrelationMatrix(int size, int window, ForkJoinPool pool) {
+        if (size < 1 || window < 2) {
+            throw new IllegalArgumentException("Need at least one series and a window of two: " + size + ", " + window);
+        }
+        this.size = size;
+        this.window = window;
+        this.pool = pool;
+        this.vectors = new double[window][size];
+        this.sums = new double[size];
+        this.products = new double[size * (size + 1) / 2];
+        this.rowOffsets = new int[size];
+        for (int i = 0, offset = 0; i < size; offset += size - i, i++) {
+            // Row i holds pairs (i, i..size-1); shifting by -i lets index(i, j) = rowOffsets[i] + j
+            rowOffsets[i] = offset - i;
+        }
+        this.blockStarts = size < PARALLEL_THRESHOLD ? new int[] {0, size} : balancedBlocks(size, pool.getParallelism() * 4);
+    }
+
+    /**
+     * Row boundaries that give every block roughly the same number of pairs; row i has size - i pairs
+     */
+    private static int[] balancedBlocks(int size, int blocks) {
+        long perBlock = Math.max(1, ((long) size * (size + 1) / 2) / blocks);
+        int[] starts = new int[blocks + 1];
+        int block = 1;
+        long pairs = 0;
+        for (int row = 0; row < size && block < blocks; row++) {
+            pairs += size - row;
+            if (pairs >= perBlock * block) {
+                starts[block++] = row + 1;
+            }
+        }
+        while (block <= blocks) {
+            starts[block++] = size;
+        }
+        return starts;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int samples() {
+        return samples;
+    }
+
+    /**
+     * Add one aligned vector (one value per series), evicting the oldest once the window is full
+     */
+    void add(double[] vector) {
+        double[] evicted = samples == window ? vectors[head] : null;
+        for (int i = 0; i < size; i++) {
+            sums[i] += evicted != null ? vector[i] - evicted[i] : vector[i];
+        }
+        runBlocks((from, to) -> updateRows(from, to, vector, evicted));
+        System.arraycopy(vector, 0, vectors[head], 0, size);
+
+        if (samples < window) {
+            samples++;
+        }
+        if (++head == window) {
+            head = 0;
+            recompute();
+        }
+    }
+
+    private void updateRows(int fromRow, int toRow, double[] vector, double[] evicted) {
+        for (int i = fromRow; i < toRow; i++) {
+            int base = rowOffsets[i];
+            double xi = vector[i];
+            if (evicted == null) {
+                for (int j = i; j < size; j++) {
+                    products[base + j] += xi * vector[j];
+                }
+            } else {
+                double oi = evicted[i];
+                for (int j = i; j < size; j++) {
+                    products[base + j] += xi * vector[j] - oi * evicted[j];
+                }
+            }
+        }
+    }
+
+    private void recompute() {
+        for (int i = 0; i < size; i++) {
+            double sum = 0;
+            for (int t = 0; t < samples; t++) {
+                sum += vectors[t][i];
+            }
+            sums[i] = sum;
+        }
+        runBlocks(this::recomputeRows);
+    }
+
+    private void recomputeRows(int fromRow, int toRow) {
+        for (int i = fromRow; i < toRow; i++) {
+            int base = rowOffsets[i];
+            for (int j = i; j < size; j++) {
+                products[base + j] = 0;
+            }
+            for (int t = 0; t < samples; t++) {
+                double[] vector = vectors[t];
+                double xi = vector[i];
+                for (int j = i; j < size; j++) {
+                    products[base + j] += xi * vector[j];
+                }
+            }
+        }
+    }
+
+    private void runBlocks(RowTask task) {
+        if (blockStarts.length == 2) {
+            task.run(0, size);
+        } else {
+            pool.invoke(new RowBlocks(task, 0, blockStarts.length - 1));
+        }
+    }
+
+    /**
+     * Sample covariance of series i and j over the window, NaN with fewer than two samples
+     */
+    double covariance(int i, int j) {
+        if (samples < 2) {
+            return Double.NaN;
+        }
+        return (products[index(i, j)] - sums[i] * sums[j] / samples) / (samples - 1);
+    }
+
+    /**
+     * Pearson correlation of series i and j over the window, NaN if either series is flat
+     */
+    double correlation(int i, int j) {
+        double varianceI = covariance(i, i);
+        double varianceJ = covariance(j, j);
+        if (!(varianceI > 0) || !(varianceJ > 0)) {
+            return Double.NaN;
+        }
+        double correlation = covariance(i, j) / Math.sqrt(varianceI * varianceJ);
+        return Math.max(-1.0, Math.min(1.0, correlation));
+    }
+
+    private int index(int i, int j) {
+        return i <= j ? rowOffsets[i] + j : rowOffsets[j] + i;
+    }
+
+    @FunctionalInterface
+    private interface RowTask {
+        void run(int fromRow, int toRow);
+    }
+
+    /**
+     * Splits the row blocks in halves until a single block is left, then runs it
+     */
+    private final class RowBlocks extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        // Fork/join tasks are never serialized
+        private final transient RowTask task;
+        private final int fromBlock;
+        private final int toBlock;
+
+        RowBlocks(RowTask task, int fromBlock, int toBlock) {
+            this.task = task;
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+        }
+
+        @Override
+        protected void compute() {
+            if (toBlock - fromBlock == 1) {
+                task.run(blockStarts[fromBlock], blockStarts[toBlock]);
+                return;
+            }
+            int middle = (fromBlock + toBlock) >>> 1;
+            invokeAll(new RowBlocks(task, fromBlock, middle), new RowBlocks(task, middle, toBlock));
+        }
+    }
+}
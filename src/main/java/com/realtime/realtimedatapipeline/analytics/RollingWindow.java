@@ -0,0 +1,87 @@
+package com.realtime.realtimedatapipeline.analytics;
+
+/**
+ * Fixed-size window of doubles in a primitive ring buffer with running sum and sum of squares.
+ * Adding a value is O(1); the sums are recomputed from the buffer each time the ring wraps, which
+ * bounds floating-point drift at an amortized O(1) cost. Not thread-safe.
+ */
+final class RollingWindow {
+
+    private final double[] values;
+    private int head;
+    private int size;
+    private double sum;
+    private double sumOfSquares;
+
+    RollingWindow(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Window capacity must be positive: " + capacity);
+        }
+        this.values = new double[capacity];
+    }
+
+    void add(double value) {
+        if (size == values.length) {
+            double evicted = values[head];
+            sum -= evicted;
+            sumOfSquares -= evicted * evicted;
+        } else {
+            size++;
+        }
+        values[head] = value;
+        sum += value;
+        sumOfSquares += value * value;
+        if (++head == values.length) {
+            head = 0;
+            resum();
+        }
+    }
+
+    private void resum() {
+        double newSum = 0;
+        double newSumOfSquares = 0;
+        for (int i = 0; i < size; i++) {
+            newSum += values[i];
+            newSumOfSquares += values[i] * values[i];
+        }
+        sum = newSum;
+        sumOfSquares = newSumOfSquares;
+    }
+
+    boolean isFull() {
+        return size == values.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    double sum() {
+        return sum;
+    }
+
+    double mean() {
+        return size == 0 ? Double.NaN : sum / size;
+    }
+
+    /**
+     * Population standard deviation of the values in the window
+     */
+    double populationStdDev() {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        double mean = sum / size;
+        return Math.sqrt(Math.max(0.0, sumOfSquares / size - mean * mean));
+    }
+
+    /**
+     * Sample (n - 1) standard deviation of the values in the window
+     */
+    double sampleStdDev() {
+        if (size < 2) {
+            return Double.NaN;
+        }
+        return Math.sqrt(Math.max(0.0, (sumOfSquares - sum * sum / size) / (size - 1)));
+    }
+}
@@ -0,0 +1,112 @@
+package com.realtime.realtimedatapipeline.analytics;
+
+import com.realtime.realtimedatapipeline.config.AnalyticsProperties;
+import com.realtime.realtimedatapipeline.model.IndicatorSnapshot;
+
+/**
+ * Incremental indicators for one symbol; every tick is folded in with O(1) work on primitive
+ * ring buffers. Updates for a symbol normally come from a single consumer lane, but retries can
+ * arrive from another thread, so updates and reads are synchronized on the instance.
+ */
+final class SymbolIndicators {
+
+    private final String symbol;
+    private final double emaAlpha;
+    private final int rsiPeriod;
+    private final double bollingerWidth;
+
+    private final RollingWindow prices;
+    private final RollingWindow logReturns;
+    private final RollingWindow priceVolume;
+    private final RollingWindow volumes;
+
+    private long ticks;
+    private long lastMarketTimestamp = Long.MIN_VALUE;
+    private double lastPrice = Double.NaN;
+    private double ema = Double.NaN;
+
+    // RSI: plain averages over the first period, Wilder smoothing afterwards
+    private int rsiSamples;
+    private double averageGain;
+    private double averageLoss;
+
+    private IndicatorSnapshot latest;
+
+    SymbolIndicators(String symbol, AnalyticsProperties.Indicators settings) {
+        this.symbol = symbol;
+        this.emaAlpha = 2.0 / (settings.getEmaPeriod() + 1);
+        this.rsiPeriod = settings.getRsiPeriod();
+        this.bollingerWidth = settings.getBollingerWidth();
+        this.prices = new RollingWindow(settings.getWindow());
+        this.logReturns = new RollingWindow(settings.getWindow());
+        this.priceVolume = new RollingWindow(settings.getWindow());
+        this.volumes = new RollingWindow(settings.getWindow());
+    }
+
+    /**
+     * Fold in one tick. Ticks at or before the last market timestamp (replays, late retries)
+     * are ignored so they cannot distort the windows.
+     * @param volume traded volume, or NaN if the quote carries none
+     * @return the updated snapshot, or null if the tick was ignored
+     */
+    synchronized IndicatorSnapshot update(long marketTimestamp, double price, double volume) {
+        if (marketTimestamp <= lastMarketTimestamp || !(price > 0)) {
+            return null;
+        }
+        lastMarketTimestamp = marketTimestamp;
+        ticks++;
+
+        prices.add(price);
+        if (!Double.isNaN(volume)) {
+            priceVolume.add(price * volume);
+            volumes.add(volume);
+        }
+        ema = Double.isNaN(ema) ? price : ema + emaAlpha * (price - ema);
+
+        if (!Double.isNaN(lastPrice)) {
+            logReturns.add(Math.log(price / lastPrice));
+            updateRsi(price - lastPrice);
+        }
+        lastPrice = price;
+
+        latest = snapshot(marketTimestamp, price);
+        return latest;
+    }
+
+    private void updateRsi(double change) {
+        double gain = Math.max(change, 0.0);
+        double loss = Math.max(-change, 0.0);
+        if (rsiSamples < rsiPeriod) {
+            averageGain += gain / rsiPeriod;
+            averageLoss += loss / rsiPeriod;
+            rsiSamples++;
+        } else {
+            averageGain = (averageGain * (rsiPeriod - 1) + gain) / rsiPeriod;
+            averageLoss = (averageLoss * (rsiPeriod - 1) + loss) / rsiPeriod;
+        }
+    }
+
+    private IndicatorSnapshot snapshot(long marketTimestamp, double price) {
+        Double sma = null;
+        Double upper = null;
+        Double lower = null;
+        if (prices.isFull()) {
+            double mean = prices.mean();
+            double band = bollingerWidth * prices.populationStdDev();
+            sma = mean;
+            upper = mean + band;
+            lower = mean - band;
+        }
+        Double rsi = null;
+        if (rsiSamples >= rsiPeriod) {
+            rsi = averageLoss == 0.0 ? 100.0 : 100.0 - 100.0 / (1.0 + averageGain / averageLoss);
+        }
+        Double vwap = volumes.isFull() && volumes.sum() > 0 ? priceVolume.sum() / volumes.sum() : null;
+        Double volatility = logReturns.isFull() ? logReturns.sampleStdDev() : null;
+        return new IndicatorSnapshot(symbol, marketTimestamp, price, ticks, sma, ema, rsi, vwap, upper, lower, volatility);
+    }
+
+    synchronized IndicatorSnapshot latest() {
+        return latest;
+    }
+}
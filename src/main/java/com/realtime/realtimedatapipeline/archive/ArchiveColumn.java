@@ -0,0 +1,31 @@
+package com.realtime.realtimedatapipeline.archive;
+
+/**
+ * The stock_quotes columns stored in an archive block, in on-disk order. The symbol is stored once
+ * per block and the id is not stored: it is the natural id of (symbol, market timestamp).
+ * Date-times are stored as epoch microseconds of the zone-less value.
+ */
+enum ArchiveColumn {
+    STOCK_NAME(Kind.STRING),
+    CURRENT_PRICE(Kind.DOUBLE),
+    PERCENT_CHANGE(Kind.DOUBLE),
+    CHANGE_AMOUNT(Kind.DOUBLE),
+    DAY_HIGH(Kind.DOUBLE),
+    DAY_LOW(Kind.DOUBLE),
+    OPEN_PRICE(Kind.DOUBLE),
+    PREVIOUS_CLOSE(Kind.DOUBLE),
+    VOLUME(Kind.LONG),
+    TIMESTAMP(Kind.LONG),
+    MARKET_TIMESTAMP(Kind.LONG),
+    CREATED_AT(Kind.LONG);
+
+    enum Kind { STRING, DOUBLE, LONG }
+
+    static final ArchiveColumn[] ALL = values();
+
+    final Kind kind;
+
+    ArchiveColumn(Kind kind) {
+        this.kind = kind;
+    }
+}
@@ -0,0 +1,42 @@
+package com.realtime.realtimedatapipeline.archive;
+
+/**
+ * Footer entry of one archive block: its symbol, row count, min/max stats used to skip it,
+ * and where each compressed column chunk lives in the file
+ *
+ * @param symbol       Symbol of every row in the block
+ * @param rows         Number of rows
+ * @param minTimestamp Smallest quote timestamp (epoch micros), Long.MAX_VALUE if none
+ * @param maxTimestamp Largest quote timestamp (epoch micros), Long.MIN_VALUE if none
+ * @param minPrice     Smallest current price
+ * @param maxPrice     Largest current price
+ * @param sumPrice     Sum of current prices, so blocks wholly inside a range aggregate without decoding
+ * @param completeRows Rows with both a price and a timestamp; the price stats cover only these
+ * @param offsets      File offset of each column chunk, by {@link ArchiveColumn} ordinal
+ * @param lengths      Compressed length of each column chunk
+ * @param rawLengths   Uncompressed length of each column chunk
+ */
+record BlockMeta(
+        String symbol,
+        int rows,
+        long minTimestamp,
+        long maxTimestamp,
+        double minPrice,
+        double maxPrice,
+        double sumPrice,
+        int completeRows,
+        long[] offsets,
+        int[] lengths,
+        int[] rawLengths) {
+
+    boolean overlaps(long fromMicros, long toMicros) {
+        return minTimestamp <= toMicros && maxTimestamp >= fromMicros;
+    }
+
+    /**
+     * Every row lies inside the range and has a timestamp, so the stats answer for the whole block
+     */
+    boolean within(long fromMicros, long toMicros) {
+        return minTimestamp >= fromMicros && maxTimestamp <= toMicros && completeRows == rows;
+    }
+}
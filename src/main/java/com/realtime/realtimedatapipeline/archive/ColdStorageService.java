@@ -0,0 +1,392 @@
+package com.realtime.realtimedatapipeline.archive;
+
+import com.realtime.realtimedatapipeline.config.ArchiveProperties;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The cold tier of stock_quotes: one columnar segment file per archived quote day. Queries pick the
+ * segments of the days in range, then within each only the blocks of the symbol whose time stats
+ * overlap the range; blocks wholly inside the range answer aggregates from their stats.
+ * <p>
+ * Segments are swapped in with a backup of the previous version ({@code .prev}) that is dropped
+ * once the Postgres delete has committed, or restored if it rolled back. A run that fails before
+ * its swap leaves the day's segment as it was.
+ */
+@Service
+public class ColdStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColdStorageService.class);
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("stock_quotes-(\\d{4}-\\d{2}-\\d{2})\\.sqc");
+    private static final Set<ArchiveColumn> AGGREGATE_COLUMNS = EnumSet.of(ArchiveColumn.CURRENT_PRICE, ArchiveColumn.TIMESTAMP);
+
+    private final Path directory;
+    private final NavigableMap<LocalDate, QuoteSegment> segments = new ConcurrentSkipListMap<>();
+    // Days swapped in but not yet committed or rolled back, and whether a previous version was backed up
+    private final Map<LocalDate, Boolean> swapped = new ConcurrentHashMap<>();
+
+    private final LongAdder blocksRead = new LongAdder();
+    private final LongAdder blocksSkipped = new LongAdder();
+    private final LongAdder blocksFromStats = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+
+    public ColdStorageService(ArchiveProperties archiveProperties) throws IOException {
+        this.directory = Paths.get(archiveProperties.getDirectory()).toAbsolutePath();
+        Files.createDirectories(directory);
+        load();
+    }
+
+    private void load() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    // A staged segment whose archive run never finished; its rows are still in Postgres
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(".prev")) {
+                    // The swap happened but the run died before cleaning up; the new segment holds
+                    // every row of the old one, so it is kept either way
+                    Path current = file.resolveSibling(name.substring(0, name.length() - ".prev".length()));
+                    if (Files.exists(current)) {
+                        Files.delete(file);
+                    } else {
+                        Files.move(file, current, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                }
+            }
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "stock_quotes-*.sqc")) {
+            for (Path file : files) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                try {
+                    segments.put(LocalDate.parse(matcher.group(1)), QuoteSegment.open(file));
+                } catch (IOException e) {
+                    logger.error("Ignoring unreadable archive segment {}: {}", file, e.getMessage());
+                }
+            }
+        }
+        logger.info("Cold storage at {} holds {} archived days", directory, segments.size());
+    }
+
+    Path segmentPath(LocalDate day) {
+        return directory.resolve("stock_quotes-" + day + ".sqc");
+    }
+
+    Path stagingPath(LocalDate day) {
+        return directory.resolve("stock_quotes-" + day + ".sqc.tmp");
+    }
+
+    private Path backupPath(LocalDate day) {
+        return directory.resolve("stock_quotes-" + day + ".sqc.prev");
+    }
+
+    QuoteSegment segment(LocalDate day) {
+        return segments.get(day);
+    }
+
+    /**
+     * Split [from, to] into runs of archived days and the stretches between them, oldest first.
+     * A day is served by its segment alone from the moment it is swapped in, so rows the archiver
+     * is still deleting, or late rows for an archived day, are not read from both tiers; late rows
+     * show up once the next run merges them into the segment.
+     */
+    public List<TierRange> split(LocalDateTime from, LocalDateTime to) {
+        List<TierRange> ranges = new ArrayList<>();
+        LocalDateTime start = from;
+        LocalDate runStart = null;
+        LocalDate runEnd = null;
+        for (LocalDate day : segments.subMap(from.toLocalDate(), true, to.toLocalDate(), true).keySet()) {
+            if (runEnd != null && !day.equals(runEnd.plusDays(1))) {
+                ranges.add(archivedRun(runStart, runEnd, from, to));
+                runStart = null;
+            }
+            if (runStart == null) {
+                if (start.isBefore(day.atStartOfDay())) {
+                    ranges.add(new TierRange(false, start, lastMicroBefore(day)));
+                }
+                runStart = day;
+            }
+            runEnd = day;
+            start = runEnd.plusDays(1).atStartOfDay();
+        }
+        if (runStart != null) {
+            ranges.add(archivedRun(runStart, runEnd, from, to));
+        }
+        if (!start.isAfter(to)) {
+            ranges.add(new TierRange(false, start, to));
+        }
+        return ranges;
+    }
+
+    private static TierRange archivedRun(LocalDate first, LocalDate last, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime runFrom = first.atStartOfDay();
+        LocalDateTime runTo = lastMicroBefore(last.plusDays(1));
+        return new TierRange(true, runFrom.isBefore(from) ? from : runFrom, runTo.isAfter(to) ? to : runTo);
+    }
+
+    private static LocalDateTime lastMicroBefore(LocalDate day) {
+        return day.atStartOfDay().minus(1, ChronoUnit.MICROS);
+    }
+
+    /**
+     * Move a staged segment into place, keeping the previous version until {@link #commit}
+     */
+    void swapIn(LocalDate day, Path staged) throws IOException {
+        Path current = segmentPath(day);
+        Path backup = backupPath(day);
+        boolean backedUp = Files.exists(current);
+        if (backedUp) {
+            Files.move(current, backup, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        try {
+            Files.move(staged, current, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (backedUp) {
+                Files.move(backup, current, StandardCopyOption.ATOMIC_MOVE);
+            }
+            throw e;
+        }
+        swapped.put(day, backedUp);
+        segments.put(day, QuoteSegment.open(current));
+    }
+
+    /**
+     * The rows of the swapped-in segment are gone from Postgres; drop the previous version
+     */
+    void commit(LocalDate day) throws IOException {
+        swapped.remove(day);
+        Files.deleteIfExists(backupPath(day));
+    }
+
+    /**
+     * The Postgres delete did not commit; undo the swap of this run, if it got that far, by putting
+     * the previous version back or removing the segment it created
+     */
+    void rollback(LocalDate day) throws IOException {
+        Boolean backedUp = swapped.remove(day);
+        if (backedUp == null) {
+            // Failed before the swap: the segment on disk is an earlier run's and its rows are gone from Postgres
+            return;
+        }
+        Path current = segmentPath(day);
+        if (backedUp) {
+            Files.move(backupPath(day), current, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            segments.put(day, QuoteSegment.open(current));
+        } else {
+            Files.deleteIfExists(current);
+            segments.remove(day);
+        }
+    }
+
+    /**
+     * Archived quotes of a symbol with a timestamp in [from, to], read newest day first and stopping
+     * after the day that brings the result to {@code limit}; unsorted within a day
+     */
+    public List<StockQuoteEvent> scan(String symbol, LocalDateTime from, LocalDateTime to, int limit) {
+        queries.increment();
+        long fromMicros = ColumnBlock.toMicros(from);
+        long toMicros = ColumnBlock.toMicros(to);
+        List<StockQuoteEvent> quotes = new ArrayList<>();
+        for (QuoteSegment segment : segments.subMap(from.toLocalDate(), true, to.toLocalDate(), true).descendingMap().values()) {
+            try (FileChannel channel = segment.openChannel()) {
+                for (BlockMeta meta : segment.blocks()) {
+                    if (!meta.symbol().equals(symbol)) {
+                        continue;
+                    }
+                    if (!meta.overlaps(fromMicros, toMicros)) {
+                        blocksSkipped.increment();
+                        continue;
+                    }
+                    blocksRead.increment();
+                    ColumnBlock block = segment.read(channel, meta, EnumSet.allOf(ArchiveColumn.class));
+                    boolean[] hasTimestamp = block.present[ArchiveColumn.TIMESTAMP.ordinal()];
+                    long[] timestamps = block.longs[ArchiveColumn.TIMESTAMP.ordinal()];
+                    for (int row = 0; row < block.rows; row++) {
+                        if (hasTimestamp[row] && timestamps[row] >= fromMicros && timestamps[row] <= toMicros) {
+                            quotes.add(block.toQuote(symbol, row));
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read archive segment " + segment.path(), e);
+            }
+            if (quotes.size() >= limit) {
+                break;
+            }
+        }
+        return quotes;
+    }
+
+    /**
+     * Price aggregate of a symbol's archived quotes with a timestamp in [from, to]. Only the price
+     * and timestamp columns of partially covered blocks are decoded.
+     */
+    public PriceAggregate aggregate(String symbol, LocalDateTime from, LocalDateTime to) {
+        queries.increment();
+        long fromMicros = ColumnBlock.toMicros(from);
+        long toMicros = ColumnBlock.toMicros(to);
+        long count = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        int read = 0;
+        int skipped = 0;
+        int fromStats = 0;
+        for (QuoteSegment segment : segments.subMap(from.toLocalDate(), true, to.toLocalDate(), true).values()) {
+            FileChannel channel = null;
+            try {
+                for (BlockMeta meta : segment.blocks()) {
+                    if (!meta.symbol().equals(symbol)) {
+                        continue;
+                    }
+                    if (!meta.overlaps(fromMicros, toMicros)) {
+                        skipped++;
+                    } else if (meta.within(fromMicros, toMicros)) {
+                        fromStats++;
+                        count += meta.completeRows();
+                        min = Math.min(min, meta.minPrice());
+                        max = Math.max(max, meta.maxPrice());
+                        sum += meta.sumPrice();
+                    } else {
+                        read++;
+                        if (channel == null) {
+                            channel = segment.openChannel();
+                        }
+                        ColumnBlock block = segment.read(channel, meta, AGGREGATE_COLUMNS);
+                        boolean[] hasPrice = block.present[ArchiveColumn.CURRENT_PRICE.ordinal()];
+                        boolean[] hasTimestamp = block.present[ArchiveColumn.TIMESTAMP.ordinal()];
+                        double[] prices = block.doubles[ArchiveColumn.CURRENT_PRICE.ordinal()];
+                        long[] timestamps = block.longs[ArchiveColumn.TIMESTAMP.ordinal()];
+                        for (int row = 0; row < block.rows; row++) {
+                            if (hasPrice[row] && hasTimestamp[row]
+                                    && timestamps[row] >= fromMicros && timestamps[row] <= toMicros) {
+                                count++;
+                                min = Math.min(min, prices[row]);
+                                max = Math.max(max, prices[row]);
+                                sum += prices[row];
+                            }
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read archive segment " + segment.path(), e);
+            } finally {
+                closeQuietly(channel);
+            }
+        }
+        blocksRead.add(read);
+        blocksSkipped.add(skipped);
+        blocksFromStats.add(fromStats);
+        return count == 0
+                ? new PriceAggregate(0, Double.NaN, Double.NaN, 0, read, skipped, fromStats)
+                : new PriceAggregate(count, min, max, sum, read, skipped, fromStats);
+    }
+
+    /**
+     * Hand the archived rows of a symbol with a timestamp in [from, to] to {@code sink} block by block,
+     * oldest day first, with only the requested columns decoded. Blocks wholly inside the range are
+     * passed as read; the others are cut down to the rows in range first.
+     */
+    void forEachBlock(String symbol, LocalDateTime from, LocalDateTime to, Set<ArchiveColumn> columns,
+                      BlockSink sink) throws IOException {
+        queries.increment();
+        long fromMicros = ColumnBlock.toMicros(from);
+        long toMicros = ColumnBlock.toMicros(to);
+        Set<ArchiveColumn> withTimestamp = EnumSet.copyOf(columns);
+        withTimestamp.add(ArchiveColumn.TIMESTAMP);
+        for (QuoteSegment segment : segments.subMap(from.toLocalDate(), true, to.toLocalDate(), true).values()) {
+            try (FileChannel channel = segment.openChannel()) {
+                for (BlockMeta meta : segment.blocks()) {
+                    if (!meta.symbol().equals(symbol)) {
+                        continue;
+                    }
+                    if (!meta.overlaps(fromMicros, toMicros)) {
+                        blocksSkipped.increment();
+                        continue;
+                    }
+                    blocksRead.increment();
+                    ColumnBlock block = meta.within(fromMicros, toMicros)
+                            ? segment.read(channel, meta, columns)
+                            : segment.read(channel, meta, withTimestamp).filter(columns, fromMicros, toMicros);
+                    if (block.rows > 0) {
+                        sink.accept(block);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Receiver of the blocks of {@link #forEachBlock}
+     */
+    @FunctionalInterface
+    interface BlockSink {
+        void accept(ColumnBlock block) throws IOException;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Could not close archive segment channel: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get cold storage statistics
+     * @return Map with segment sizes and block visit counts
+     */
+    public Map<String, Object> getStatistics() {
+        long bytes = 0;
+        long rows = 0;
+        long blocks = 0;
+        for (QuoteSegment segment : segments.values()) {
+            bytes += segment.sizeBytes();
+            rows += segment.rows();
+            blocks += segment.blocks().size();
+        }
+        return Map.of(
+            "directory", directory.toString(),
+            "days", segments.size(),
+            "dayRange", segments.isEmpty() ? "" : segments.firstKey() + ".." + segments.lastKey(),
+            "rows", rows,
+            "bytes", bytes,
+            "blocks", blocks,
+            "queries", queries.sum(),
+            "blocksRead", blocksRead.sum(),
+            "blocksSkipped", blocksSkipped.sum(),
+            "blocksFromStats", blocksFromStats.sum()
+        );
+    }
+}
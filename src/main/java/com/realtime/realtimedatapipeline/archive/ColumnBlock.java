@@ -0,0 +1,141 @@
+package com.realtime.realtimedatapipeline.archive;
+
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Set;
+
+/**
+ * One block of quotes of a single symbol held column by column: a primitive array per column plus
+ * a presence flag per row for nullable values. Used as the write buffer and as the decode target;
+ * a decoded block only has the columns that were asked for.
+ */
+final class ColumnBlock {
+
+    final int capacity;
+    final String[] names;
+    final double[][] doubles = new double[ArchiveColumn.ALL.length][];
+    final long[][] longs = new long[ArchiveColumn.ALL.length][];
+    final boolean[][] present = new boolean[ArchiveColumn.ALL.length][];
+    int rows;
+
+    ColumnBlock(int capacity) {
+        this.capacity = capacity;
+        this.names = new String[capacity];
+        for (ArchiveColumn column : ArchiveColumn.ALL) {
+            present[column.ordinal()] = new boolean[capacity];
+            switch (column.kind) {
+                case DOUBLE -> doubles[column.ordinal()] = new double[capacity];
+                case LONG -> longs[column.ordinal()] = new long[capacity];
+                case STRING -> { }
+            }
+        }
+    }
+
+    boolean isFull() {
+        return rows == capacity;
+    }
+
+    void add(StockQuoteEvent quote) {
+        int row = rows++;
+        names[row] = quote.getStockName();
+        present[ArchiveColumn.STOCK_NAME.ordinal()][row] = quote.getStockName() != null;
+        setDouble(ArchiveColumn.CURRENT_PRICE, row, quote.getCurrentPrice());
+        setDouble(ArchiveColumn.PERCENT_CHANGE, row, quote.getPercentChange());
+        setDouble(ArchiveColumn.CHANGE_AMOUNT, row, quote.getChangeAmount());
+        setDouble(ArchiveColumn.DAY_HIGH, row, quote.getDayHigh());
+        setDouble(ArchiveColumn.DAY_LOW, row, quote.getDayLow());
+        setDouble(ArchiveColumn.OPEN_PRICE, row, quote.getOpenPrice());
+        setDouble(ArchiveColumn.PREVIOUS_CLOSE, row, quote.getPreviousClose());
+        setLong(ArchiveColumn.VOLUME, row, quote.getVolume());
+        setLong(ArchiveColumn.TIMESTAMP, row, toMicros(quote.getTimestamp()));
+        setLong(ArchiveColumn.MARKET_TIMESTAMP, row, quote.getMarketTimestamp());
+        setLong(ArchiveColumn.CREATED_AT, row, toMicros(quote.getCreatedAt()));
+    }
+
+    /**
+     * Rebuild the quote at a row; needs every column to have been decoded
+     */
+    StockQuoteEvent toQuote(String symbol, int row) {
+        Long marketTimestamp = getLong(ArchiveColumn.MARKET_TIMESTAMP, row);
+        StockQuoteEvent quote = StockQuoteEvent.builder()
+                .symbol(symbol)
+                .stockName(present[ArchiveColumn.STOCK_NAME.ordinal()][row] ? names[row] : null)
+                .currentPrice(getDouble(ArchiveColumn.CURRENT_PRICE, row))
+                .percentChange(getDouble(ArchiveColumn.PERCENT_CHANGE, row))
+                .changeAmount(getDouble(ArchiveColumn.CHANGE_AMOUNT, row))
+                .dayHigh(getDouble(ArchiveColumn.DAY_HIGH, row))
+                .dayLow(getDouble(ArchiveColumn.DAY_LOW, row))
+                .openPrice(getDouble(ArchiveColumn.OPEN_PRICE, row))
+                .previousClose(getDouble(ArchiveColumn.PREVIOUS_CLOSE, row))
+                .volume(getLong(ArchiveColumn.VOLUME, row))
+                .timestamp(fromMicros(getLong(ArchiveColumn.TIMESTAMP, row)))
+                .marketTimestamp(marketTimestamp)
+                .build();
+        if (marketTimestamp != null) {
+            quote.setId(StockQuoteEvent.naturalId(symbol, marketTimestamp));
+        }
+        quote.setCreatedAt(fromMicros(getLong(ArchiveColumn.CREATED_AT, row)));
+        return quote;
+    }
+
+    /**
+     * A new block with the given columns of the rows whose timestamp lies in [fromMicros, toMicros];
+     * needs the timestamp and those columns to have been decoded
+     */
+    ColumnBlock filter(Set<ArchiveColumn> columns, long fromMicros, long toMicros) {
+        boolean[] hasTimestamp = present[ArchiveColumn.TIMESTAMP.ordinal()];
+        long[] timestamps = longs[ArchiveColumn.TIMESTAMP.ordinal()];
+        ColumnBlock kept = new ColumnBlock(rows);
+        for (int row = 0; row < rows; row++) {
+            if (!hasTimestamp[row] || timestamps[row] < fromMicros || timestamps[row] > toMicros) {
+                continue;
+            }
+            int target = kept.rows++;
+            for (ArchiveColumn column : columns) {
+                int c = column.ordinal();
+                kept.present[c][target] = present[c][row];
+                switch (column.kind) {
+                    case STRING -> kept.names[target] = names[row];
+                    case DOUBLE -> kept.doubles[c][target] = doubles[c][row];
+                    case LONG -> kept.longs[c][target] = longs[c][row];
+                }
+            }
+        }
+        return kept;
+    }
+
+    private void setDouble(ArchiveColumn column, int row, Double value) {
+        present[column.ordinal()][row] = value != null;
+        doubles[column.ordinal()][row] = value != null ? value : 0.0;
+    }
+
+    private void setLong(ArchiveColumn column, int row, Long value) {
+        present[column.ordinal()][row] = value != null;
+        longs[column.ordinal()][row] = value != null ? value : 0L;
+    }
+
+    private Double getDouble(ArchiveColumn column, int row) {
+        return present[column.ordinal()][row] ? doubles[column.ordinal()][row] : null;
+    }
+
+    private Long getLong(ArchiveColumn column, int row) {
+        return present[column.ordinal()][row] ? longs[column.ordinal()][row] : null;
+    }
+
+    static Long toMicros(LocalDateTime time) {
+        if (time == null) {
+            return null;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(Long micros) {
+        if (micros == null) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
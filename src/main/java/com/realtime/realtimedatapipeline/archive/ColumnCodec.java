@@ -0,0 +1,276 @@
+package com.realtime.realtimedatapipeline.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes one column of a {@link ColumnBlock} into a chunk, choosing the encoding per chunk:
+ * <ul>
+ *   <li>strings: a dictionary plus run-lengths of dictionary indices (a block usually has one name)</li>
+ *   <li>longs: zig-zag varint deltas, so sorted timestamps take one or two bytes a row</li>
+ *   <li>doubles: scaled to integers and delta-encoded like longs when every value survives the
+ *       round trip at 0, 2, 4 or 6 decimals, raw IEEE bits otherwise</li>
+ * </ul>
+ * A chunk is {@code [encoding][null flag][presence bitmap if any null][values of present rows]}.
+ * Encodings are lossless; compression of the chunk is left to the segment writer.
+ */
+final class ColumnCodec {
+
+    static final byte RAW = 0;
+    static final byte DELTA_VARINT = 1;
+    static final byte SCALED_DELTA_VARINT = 2;
+    static final byte DICTIONARY = 3;
+
+    private static final long[] SCALES = {1L, 100L, 10_000L, 1_000_000L};
+
+    private ColumnCodec() {
+    }
+
+    static byte[] encode(ColumnBlock block, ArchiveColumn column) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(block.rows * 2 + 16);
+        boolean[] present = block.present[column.ordinal()];
+        int rows = block.rows;
+        switch (column.kind) {
+            case STRING -> {
+                out.write(DICTIONARY);
+                writePresence(out, present, rows);
+                encodeStrings(out, block.names, present, rows);
+            }
+            case LONG -> {
+                out.write(DELTA_VARINT);
+                writePresence(out, present, rows);
+                encodeDeltas(out, block.longs[column.ordinal()], present, rows);
+            }
+            case DOUBLE -> {
+                double[] values = block.doubles[column.ordinal()];
+                int scale = commonScale(values, present, rows);
+                out.write(scale >= 0 ? SCALED_DELTA_VARINT : RAW);
+                writePresence(out, present, rows);
+                if (scale >= 0) {
+                    out.write(scale);
+                    long[] scaled = new long[rows];
+                    for (int row = 0; row < rows; row++) {
+                        scaled[row] = present[row] ? Math.round(values[row] * SCALES[scale]) : 0L;
+                    }
+                    encodeDeltas(out, scaled, present, rows);
+                } else {
+                    ByteBuffer raw = ByteBuffer.allocate(8);
+                    for (int row = 0; row < rows; row++) {
+                        if (present[row]) {
+                            out.write(raw.putDouble(0, values[row]).array(), 0, 8);
+                        }
+                    }
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    static void decode(ByteBuffer in, ArchiveColumn column, ColumnBlock block) {
+        int rows = block.rows;
+        byte encoding = in.get();
+        boolean[] present = block.present[column.ordinal()];
+        readPresence(in, present, rows);
+        switch (encoding) {
+            case DICTIONARY -> decodeStrings(in, block.names, present, rows);
+            case DELTA_VARINT -> decodeDeltas(in, block.longs[column.ordinal()], present, rows);
+            case SCALED_DELTA_VARINT -> {
+                long scale = SCALES[in.get()];
+                long[] scaled = new long[rows];
+                decodeDeltas(in, scaled, present, rows);
+                double[] values = block.doubles[column.ordinal()];
+                for (int row = 0; row < rows; row++) {
+                    values[row] = present[row] ? (double) scaled[row] / scale : 0.0;
+                }
+            }
+            case RAW -> {
+                double[] values = block.doubles[column.ordinal()];
+                for (int row = 0; row < rows; row++) {
+                    values[row] = present[row] ? in.getDouble() : 0.0;
+                }
+            }
+            default -> throw new IllegalStateException("Unknown column encoding " + encoding + " for " + column);
+        }
+    }
+
+    /**
+     * Smallest decimal scale at which every present value is an exact, round-trippable integer; -1 if none
+     */
+    private static int commonScale(double[] values, boolean[] present, int rows) {
+        int scale = 0;
+        for (int row = 0; row < rows && scale < SCALES.length; row++) {
+            if (!present[row]) {
+                continue;
+            }
+            while (scale < SCALES.length && !exactAt(values[row], SCALES[scale])) {
+                scale++;
+            }
+        }
+        return scale < SCALES.length ? scale : -1;
+    }
+
+    private static boolean exactAt(double value, long scale) {
+        double scaled = value * scale;
+        // Keep deltas far from long overflow; anything this large is stored raw
+        if (!(Math.abs(scaled) < 1e15)) {
+            return false;
+        }
+        // Bitwise comparison, so -0.0 is not folded into 0.0
+        return Double.doubleToLongBits((double) Math.round(scaled) / scale) == Double.doubleToLongBits(value);
+    }
+
+    private static void writePresence(ByteArrayOutputStream out, boolean[] present, int rows) {
+        boolean anyNull = false;
+        for (int row = 0; row < rows && !anyNull; row++) {
+            anyNull = !present[row];
+        }
+        out.write(anyNull ? 1 : 0);
+        if (anyNull) {
+            byte[] bitmap = new byte[(rows + 7) >>> 3];
+            for (int row = 0; row < rows; row++) {
+                if (present[row]) {
+                    bitmap[row >>> 3] |= (byte) (1 << (row & 7));
+                }
+            }
+            out.write(bitmap, 0, bitmap.length);
+        }
+    }
+
+    private static void readPresence(ByteBuffer in, boolean[] present, int rows) {
+        if (in.get() == 0) {
+            for (int row = 0; row < rows; row++) {
+                present[row] = true;
+            }
+            return;
+        }
+        byte[] bitmap = new byte[(rows + 7) >>> 3];
+        in.get(bitmap);
+        for (int row = 0; row < rows; row++) {
+            present[row] = (bitmap[row >>> 3] & (1 << (row & 7))) != 0;
+        }
+    }
+
+    private static void encodeDeltas(ByteArrayOutputStream out, long[] values, boolean[] present, int rows) {
+        long previous = 0;
+        for (int row = 0; row < rows; row++) {
+            if (present[row]) {
+                writeVarLong(out, zigZag(values[row] - previous));
+                previous = values[row];
+            }
+        }
+    }
+
+    private static void decodeDeltas(ByteBuffer in, long[] values, boolean[] present, int rows) {
+        long previous = 0;
+        for (int row = 0; row < rows; row++) {
+            if (present[row]) {
+                previous += unZigZag(readVarLong(in));
+                values[row] = previous;
+            } else {
+                values[row] = 0L;
+            }
+        }
+    }
+
+    private static void encodeStrings(ByteArrayOutputStream out, String[] values, boolean[] present, int rows) {
+        Map<String, Integer> indices = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        int[] codes = new int[rows];
+        int runs = 0;
+        for (int row = 0, count = 0; row < rows; row++) {
+            if (present[row]) {
+                codes[count] = indices.computeIfAbsent(values[row], value -> {
+                    dictionary.add(value);
+                    return dictionary.size() - 1;
+                });
+                if (count == 0 || codes[count] != codes[count - 1]) {
+                    runs++;
+                }
+                count++;
+            }
+        }
+        writeVarLong(out, dictionary.size());
+        for (String entry : dictionary) {
+            byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+        writeVarLong(out, runs);
+        int count = indices.isEmpty() ? 0 : countPresent(present, rows);
+        for (int start = 0; start < count; ) {
+            int end = start + 1;
+            while (end < count && codes[end] == codes[start]) {
+                end++;
+            }
+            writeVarLong(out, codes[start]);
+            writeVarLong(out, end - start);
+            start = end;
+        }
+    }
+
+    private static void decodeStrings(ByteBuffer in, String[] values, boolean[] present, int rows) {
+        String[] dictionary = new String[(int) readVarLong(in)];
+        for (int i = 0; i < dictionary.length; i++) {
+            byte[] bytes = new byte[(int) readVarLong(in)];
+            in.get(bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        long runs = readVarLong(in);
+        int row = 0;
+        for (long run = 0; run < runs; run++) {
+            String value = dictionary[(int) readVarLong(in)];
+            long length = readVarLong(in);
+            for (long i = 0; i < length; i++) {
+                while (!present[row]) {
+                    values[row++] = null;
+                }
+                values[row++] = value;
+            }
+        }
+        while (row < rows) {
+            values[row++] = null;
+        }
+    }
+
+    private static int countPresent(boolean[] present, int rows) {
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            if (present[row]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.realtime.realtimedatapipeline.archive;
+
+/**
+ * Price aggregate over a set of quotes, plus how the archive blocks behind it were visited
+ *
+ * @param count           Number of quotes
+ * @param min             Lowest price, NaN when empty
+ * @param max             Highest price, NaN when empty
+ * @param sum             Sum of prices
+ * @param blocksRead      Archive blocks decoded to answer the query
+ * @param blocksSkipped   Archive blocks of the symbol ruled out by their time stats
+ * @param blocksFromStats Archive blocks answered from their stats alone
+ */
+public record PriceAggregate(
+        long count,
+        double min,
+        double max,
+        double sum,
+        int blocksRead,
+        int blocksSkipped,
+        int blocksFromStats) {
+
+    public static PriceAggregate empty() {
+        return new PriceAggregate(0, Double.NaN, Double.NaN, 0, 0, 0, 0);
+    }
+
+    public static PriceAggregate of(long count, double min, double max, double sum) {
+        return count == 0 ? empty() : new PriceAggregate(count, min, max, sum, 0, 0, 0);
+    }
+
+    public PriceAggregate merge(PriceAggregate other) {
+        return new PriceAggregate(count + other.count,
+                count == 0 ? other.min : other.count == 0 ? min : Math.min(min, other.min),
+                count == 0 ? other.max : other.count == 0 ? max : Math.max(max, other.max),
+                sum + other.sum,
+                blocksRead + other.blocksRead,
+                blocksSkipped + other.blocksSkipped,
+                blocksFromStats + other.blocksFromStats);
+    }
+
+    public double average() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+}
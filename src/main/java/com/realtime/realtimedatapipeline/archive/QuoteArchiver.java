@@ -0,0 +1,239 @@
+package com.realtime.realtimedatapipeline.archive;
+
+import com.realtime.realtimedatapipeline.config.ArchiveProperties;
+import com.realtime.realtimedatapipeline.metrics.QuoteCountService;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tiering job that moves quote days older than {@code app.archive.hot-days} out of stock_quotes into
+ * columnar segments. Each day is exported and deleted in one REPEATABLE READ transaction: the file
+ * holds exactly the rows of the snapshot the delete works on, a row updated concurrently aborts the
+ * run for that day, and rows inserted meanwhile stay in Postgres for the next run, which merges
+ * them into the existing segment.
+ */
+@Service
+public class QuoteArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuoteArchiver.class);
+
+    private static final String COLUMNS = "symbol, stock_name, current_price, percent_change, change_amount, " +
+            "day_high, day_low, open_price, previous_close, volume, timestamp, market_timestamp, created_at";
+
+    // Sorted so each symbol's rows form contiguous blocks with ascending timestamps
+    private static final String SELECT_DAY = "SELECT " + COLUMNS + " FROM stock_quotes " +
+            "WHERE timestamp >= ? AND timestamp < ? ORDER BY symbol, timestamp, market_timestamp";
+
+    private static final String DELETE_DAY = "DELETE FROM stock_quotes WHERE timestamp >= ? AND timestamp < ?";
+
+    private static final String COLD_DAYS = "SELECT DISTINCT CAST(timestamp AS date) AS day FROM stock_quotes " +
+            "WHERE timestamp < ? ORDER BY day LIMIT ?";
+
+    private static final Comparator<StockQuoteEvent> SEGMENT_ORDER = Comparator
+            .comparing(StockQuoteEvent::getSymbol)
+            .thenComparing(StockQuoteEvent::getTimestamp, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(StockQuoteEvent::getMarketTimestamp, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private static final RowMapper<StockQuoteEvent> ROW_MAPPER = (rs, rowNum) -> {
+        StockQuoteEvent quote = StockQuoteEvent.builder()
+                .symbol(rs.getString("symbol"))
+                .stockName(rs.getString("stock_name"))
+                .currentPrice(rs.getObject("current_price", Double.class))
+                .percentChange(rs.getObject("percent_change", Double.class))
+                .changeAmount(rs.getObject("change_amount", Double.class))
+                .dayHigh(rs.getObject("day_high", Double.class))
+                .dayLow(rs.getObject("day_low", Double.class))
+                .openPrice(rs.getObject("open_price", Double.class))
+                .previousClose(rs.getObject("previous_close", Double.class))
+                .volume(rs.getObject("volume", Long.class))
+                .timestamp(rs.getObject("timestamp", LocalDateTime.class))
+                .marketTimestamp(rs.getObject("market_timestamp", Long.class))
+                .build();
+        quote.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        return quote;
+    };
+
+    private final ArchiveProperties archiveProperties;
+    private final ColdStorageService coldStorageService;
+    private final QuoteCountService quoteCountService;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final DefaultTransactionDefinition archiveTransaction;
+
+    private final LongAdder archivedDays = new LongAdder();
+    private final LongAdder archivedRows = new LongAdder();
+    private final LongAdder failedDays = new LongAdder();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+
+    public QuoteArchiver(ArchiveProperties archiveProperties,
+                         ColdStorageService coldStorageService,
+                         QuoteCountService quoteCountService,
+                         JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager) {
+        this.archiveProperties = archiveProperties;
+        this.coldStorageService = coldStorageService;
+        this.quoteCountService = quoteCountService;
+        this.jdbcTemplate = jdbcTemplate;
+        // Postgres only streams a result set inside a transaction with a fetch size set
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(5000);
+        this.transactionManager = transactionManager;
+        this.archiveTransaction = new DefaultTransactionDefinition();
+        this.archiveTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @Scheduled(initialDelayString = "${app.archive.initial-delay:PT5M}",
+               fixedDelayString = "${app.archive.interval:PT6H}")
+    public void archiveColdDays() {
+        if (!archiveProperties.isEnabled()) {
+            return;
+        }
+        LocalDate cutoff = LocalDate.now().minusDays(archiveProperties.getHotDays());
+        List<LocalDate> days = jdbcTemplate.query(COLD_DAYS,
+                (rs, rowNum) -> rs.getObject("day", LocalDate.class),
+                cutoff.atStartOfDay(), archiveProperties.getMaxDaysPerRun());
+        for (LocalDate day : days) {
+            long start = System.currentTimeMillis();
+            try {
+                long rows = archiveDay(day);
+                archivedDays.increment();
+                archivedRows.add(rows);
+                logger.info("Archived {} stock quotes of {} to cold storage in {} ms",
+                           rows, day, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                failedDays.increment();
+                logger.warn("Could not archive stock quotes of {}, will retry next run: {}", day, e.getMessage());
+            }
+        }
+        lastRunMillis.set(System.currentTimeMillis());
+    }
+
+    /**
+     * Export one day to a segment, delete it from Postgres, and swap the segment in before the commit
+     * @return rows moved out of Postgres
+     */
+    long archiveDay(LocalDate day) throws IOException {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.plusDays(1).atStartOfDay();
+        Path staged = coldStorageService.stagingPath(day);
+        Files.deleteIfExists(staged);
+        try {
+            Map<String, Long> deletedBySymbol = new HashMap<>();
+            TransactionStatus status = transactionManager.getTransaction(archiveTransaction);
+            long rows;
+            try {
+                rows = exportAndDelete(day, from, to, staged, deletedBySymbol);
+            } catch (RuntimeException e) {
+                transactionManager.rollback(status);
+                throw e;
+            }
+            // Only the commit and the count update go together: a reconcile pins its snapshot before or
+            // after both, and neither it nor the upserts wait on the export and delete
+            quoteCountService.recording(() -> {
+                transactionManager.commit(status);
+                quoteCountService.recordDeleted(day, deletedBySymbol);
+                return null;
+            });
+            coldStorageService.commit(day);
+            return rows;
+        } catch (RuntimeException e) {
+            coldStorageService.rollback(day);
+            Files.deleteIfExists(staged);
+            throw e;
+        }
+    }
+
+    private long exportAndDelete(LocalDate day, LocalDateTime from, LocalDateTime to, Path staged,
+                                 Map<String, Long> deletedBySymbol) {
+        try {
+            QuoteSegment existing = coldStorageService.segment(day);
+            long exported;
+            try (QuoteSegmentWriter writer = new QuoteSegmentWriter(staged, archiveProperties.getBlockRows())) {
+                if (existing == null) {
+                    streamingJdbcTemplate.query(SELECT_DAY, rs -> {
+                        try {
+                            StockQuoteEvent quote = ROW_MAPPER.mapRow(rs, 0);
+                            deletedBySymbol.merge(quote.getSymbol(), 1L, Long::sum);
+                            writer.append(quote);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }, from, to);
+                    exported = writer.rows();
+                } else {
+                    // Late rows for an archived day: rewrite the segment with both, Postgres winning
+                    List<StockQuoteEvent> late = streamingJdbcTemplate.query(SELECT_DAY, ROW_MAPPER, from, to);
+                    Map<String, StockQuoteEvent> merged = new LinkedHashMap<>();
+                    for (StockQuoteEvent quote : existing.readAll()) {
+                        merged.put(mergeKey(quote), quote);
+                    }
+                    for (StockQuoteEvent quote : late) {
+                        merged.put(mergeKey(quote), quote);
+                        deletedBySymbol.merge(quote.getSymbol(), 1L, Long::sum);
+                    }
+                    List<StockQuoteEvent> sorted = new ArrayList<>(merged.values());
+                    sorted.sort(SEGMENT_ORDER);
+                    for (StockQuoteEvent quote : sorted) {
+                        writer.append(quote);
+                    }
+                    exported = late.size();
+                }
+            }
+
+            int deleted = jdbcTemplate.update(DELETE_DAY, from, to);
+            if (deleted != exported) {
+                throw new IllegalStateException("Exported " + exported + " rows of " + day + " but would delete " + deleted);
+            }
+            coldStorageService.swapIn(day, staged);
+            return deleted;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write archive segment for " + day, e);
+        }
+    }
+
+    private static String mergeKey(StockQuoteEvent quote) {
+        return quote.getMarketTimestamp() != null
+                ? quote.getSymbol() + ":" + quote.getMarketTimestamp()
+                : quote.getSymbol() + "@" + quote.getTimestamp();
+    }
+
+    /**
+     * Get archiver statistics
+     * @return Map with archived days and rows
+     */
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+            "enabled", archiveProperties.isEnabled(),
+            "hotDays", archiveProperties.getHotDays(),
+            "archivedDays", archivedDays.sum(),
+            "archivedRows", archivedRows.sum(),
+            "failedDays", failedDays.sum(),
+            "lastRunMillis", lastRunMillis.get()
+        );
+    }
+}
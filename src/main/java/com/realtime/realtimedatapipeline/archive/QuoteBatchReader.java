@@ -0,0 +1,149 @@
+package com.realtime.realtimedatapipeline.archive;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads a stream written by {@link QuoteExporter} a batch at a time, decoding each column chunk
+ * into a primitive array. Values are addressed by the column's position in {@link #columns()} and
+ * the row within the current batch:
+ * <pre>
+ *   try (QuoteBatchReader reader = new QuoteBatchReader(in)) {
+ *       int price = reader.columns().indexOf("current_price");
+ *       while (reader.next()) {
+ *           for (int row = 0; row &lt; reader.rows(); row++) {
+ *               if (!reader.isNull(price, row)) {
+ *                   sum += reader.getDouble(price, row);
+ *               }
+ *           }
+ *       }
+ *   }
+ * </pre>
+ * Date-time columns read as epoch microseconds with {@link #getLong} or as values with {@link #getDateTime}.
+ */
+public class QuoteBatchReader implements Closeable {
+
+    private final DataInputStream in;
+    private final String symbol;
+    private final List<ArchiveColumn> columns = new ArrayList<>();
+    private ColumnBlock block = new ColumnBlock(0);
+    private boolean ended;
+
+    /**
+     * Read the stream header
+     * @throws IOException if the stream is not a quote batch stream of a supported version
+     */
+    public QuoteBatchReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        if (this.in.readInt() != QuoteExporter.MAGIC) {
+            throw new IOException("Not a quote batch stream");
+        }
+        int version = this.in.readUnsignedByte();
+        if (version != QuoteExporter.VERSION) {
+            throw new IOException("Unsupported quote batch stream version " + version);
+        }
+        this.symbol = this.in.readUTF();
+        int count = this.in.readUnsignedByte();
+        for (int i = 0; i < count; i++) {
+            String name = this.in.readUTF();
+            int kind = this.in.readUnsignedByte();
+            ArchiveColumn column = ArchiveColumn.valueOf(name.toUpperCase(Locale.ROOT));
+            if (column.kind.ordinal() != kind) {
+                throw new IOException("Column " + name + " has kind " + kind + ", expected " + column.kind);
+            }
+            columns.add(column);
+        }
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    /**
+     * stock_quotes column names in stream order
+     */
+    public List<String> columns() {
+        return columns.stream().map(QuoteExporter::columnName).toList();
+    }
+
+    /**
+     * Decode the next batch
+     * @return false once the end of the stream is reached
+     */
+    public boolean next() throws IOException {
+        if (ended) {
+            return false;
+        }
+        int rows = in.readInt();
+        if (rows == 0) {
+            ended = true;
+            return false;
+        }
+        if (rows > block.capacity) {
+            block = new ColumnBlock(rows);
+        }
+        block.rows = rows;
+        for (ArchiveColumn column : columns) {
+            byte[] chunk = new byte[in.readInt()];
+            in.readFully(chunk);
+            ColumnCodec.decode(ByteBuffer.wrap(chunk), column, block);
+        }
+        return true;
+    }
+
+    /**
+     * Rows in the current batch
+     */
+    public int rows() {
+        return block.rows;
+    }
+
+    public boolean isNull(int column, int row) {
+        return !block.present[columns.get(column).ordinal()][row];
+    }
+
+    public String getString(int column, int row) {
+        checkKind(column, ArchiveColumn.Kind.STRING);
+        return block.names[row];
+    }
+
+    /**
+     * @return the value, or 0 for a null
+     */
+    public double getDouble(int column, int row) {
+        checkKind(column, ArchiveColumn.Kind.DOUBLE);
+        return block.doubles[columns.get(column).ordinal()][row];
+    }
+
+    /**
+     * @return the value, epoch microseconds for a date-time, or 0 for a null
+     */
+    public long getLong(int column, int row) {
+        checkKind(column, ArchiveColumn.Kind.LONG);
+        return block.longs[columns.get(column).ordinal()][row];
+    }
+
+    public LocalDateTime getDateTime(int column, int row) {
+        return isNull(column, row) ? null : ColumnBlock.fromMicros(getLong(column, row));
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void checkKind(int column, ArchiveColumn.Kind kind) {
+        ArchiveColumn archiveColumn = columns.get(column);
+        if (archiveColumn.kind != kind) {
+            throw new IllegalArgumentException(QuoteExporter.columnName(archiveColumn) + " is not a " +
+                    kind.name().toLowerCase(Locale.ROOT) + " column");
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.realtime.realtimedatapipeline.archive;
+
+import com.realtime.realtimedatapipeline.config.ArchiveProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streams a symbol's quotes in a time range as columnar record batches, without building a quote
+ * object per row. Each day is read from one tier, as split by {@link ColdStorageService#split}:
+ * archived days from their segment, the rest from Postgres through a server-side cursor. All cursors
+ * of one export read the same REPEATABLE READ snapshot. Only the requested columns are selected,
+ * decoded and written. Each batch holds one {@link ColumnCodec} chunk per column, the same lossless
+ * encodings as the archive, and {@link QuoteBatchReader} decodes the stream:
+ * <pre>
+ *   int   magic "RTQX", byte version
+ *   UTF   symbol
+ *   byte  column count, then per column: UTF name (stock_quotes column), byte kind (0 string, 1 double, 2 long)
+ *   per batch: int rows (&gt; 0), then per column: int chunk length, chunk bytes
+ *   int   0 to end the stream
+ * </pre>
+ * Date-times are epoch microseconds of the zone-less value. Batches are in ascending timestamp order.
+ */
+@Service
+public class QuoteExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuoteExporter.class);
+
+    public static final String CONTENT_TYPE = "application/vnd.realtime.quote-batches";
+
+    static final int MAGIC = 0x52545158; // "RTQX"
+    static final int VERSION = 1;
+
+    // Stored as epoch micros; the other long columns are read as they are
+    private static final Set<ArchiveColumn> DATE_TIMES = EnumSet.of(ArchiveColumn.TIMESTAMP, ArchiveColumn.CREATED_AT);
+
+    private final ColdStorageService coldStorageService;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int batchRows;
+
+    private final LongAdder exports = new LongAdder();
+    private final LongAdder exportedRows = new LongAdder();
+    private final LongAdder exportedBytes = new LongAdder();
+
+    public QuoteExporter(ColdStorageService coldStorageService,
+                         JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         ArchiveProperties archiveProperties) {
+        this.coldStorageService = coldStorageService;
+        this.batchRows = archiveProperties.getBlockRows();
+        // Postgres only streams a result set inside a transaction with a fetch size set
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(batchRows);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * Resolve stock_quotes column names; null or empty means every column
+     * @throws IllegalArgumentException for a column that cannot be exported
+     */
+    public static List<String> resolveColumns(List<String> names) {
+        return toColumns(names).stream().map(QuoteExporter::columnName).toList();
+    }
+
+    /**
+     * Write the quotes of a symbol with a timestamp in [from, to] to {@code out}
+     * @param columns stock_quotes column names, as accepted by {@link #resolveColumns}
+     * @return rows written
+     */
+    public long export(String symbol, LocalDateTime from, LocalDateTime to, List<String> columns,
+                       OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        Set<ArchiveColumn> projection = toColumns(columns);
+        CountingOutputStream counting = new CountingOutputStream(out);
+        BatchWriter writer = new BatchWriter(new DataOutputStream(counting), projection, batchRows);
+        writer.writeHeader(symbol);
+
+        String sql = "SELECT " + String.join(", ", projection.stream().map(QuoteExporter::columnName).toList()) +
+                " FROM stock_quotes WHERE symbol = ? AND timestamp >= ? AND timestamp <= ? ORDER BY timestamp";
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try {
+                    for (TierRange range : coldStorageService.split(from, to)) {
+                        if (range.archived()) {
+                            coldStorageService.forEachBlock(symbol, range.from(), range.to(), projection,
+                                    writer::writeBatch);
+                        } else {
+                            streamingJdbcTemplate.query(sql, rs -> {
+                                try {
+                                    writer.addRow(rs);
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+                            }, symbol, range.from(), range.to());
+                            // Keep batches in timestamp order ahead of the next archived run
+                            writer.flush();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+
+        exports.increment();
+        exportedRows.add(writer.rows);
+        exportedBytes.add(counting.count);
+        logger.debug("Exported {} quotes of {} ({} columns, {} bytes) in {} ms", writer.rows, symbol,
+                projection.size(), counting.count, (System.nanoTime() - start) / 1_000_000);
+        return writer.rows;
+    }
+
+    /**
+     * Get export statistics
+     */
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+            "exports", exports.sum(),
+            "exportedRows", exportedRows.sum(),
+            "exportedBytes", exportedBytes.sum(),
+            "batchRows", batchRows
+        );
+    }
+
+    static Set<ArchiveColumn> toColumns(List<String> names) {
+        if (names == null || names.isEmpty()) {
+            return EnumSet.allOf(ArchiveColumn.class);
+        }
+        Set<ArchiveColumn> columns = EnumSet.noneOf(ArchiveColumn.class);
+        for (String name : names) {
+            try {
+                columns.add(ArchiveColumn.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown column " + name + "; expected one of " +
+                        EnumSet.allOf(ArchiveColumn.class).stream().map(QuoteExporter::columnName).toList());
+            }
+        }
+        return columns;
+    }
+
+    static String columnName(ArchiveColumn column) {
+        return column.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Writes the header and batches of one export; cursor rows are buffered into a column block
+     * and written whenever it fills up
+     */
+    static final class BatchWriter {
+
+        private final DataOutputStream out;
+        private final List<ArchiveColumn> columns;
+        private final ColumnBlock buffer;
+        long rows;
+
+        BatchWriter(DataOutputStream out, Set<ArchiveColumn> columns, int batchRows) {
+            this.out = out;
+            this.columns = new ArrayList<>(columns);
+            this.buffer = new ColumnBlock(batchRows);
+        }
+
+        void writeHeader(String symbol) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeUTF(symbol);
+            out.writeByte(columns.size());
+            for (ArchiveColumn column : columns) {
+                out.writeUTF(columnName(column));
+                out.writeByte(column.kind.ordinal());
+            }
+        }
+
+        /**
+         * Buffer the current row of a result set selecting the columns in projection order
+         */
+        void addRow(ResultSet rs) throws SQLException, IOException {
+            int row = buffer.rows++;
+            for (int i = 0; i < columns.size(); i++) {
+                ArchiveColumn column = columns.get(i);
+                int c = column.ordinal();
+                switch (column.kind) {
+                    case STRING -> {
+                        buffer.names[row] = rs.getString(i + 1);
+                        buffer.present[c][row] = buffer.names[row] != null;
+                    }
+                    case DOUBLE -> {
+                        buffer.doubles[c][row] = rs.getDouble(i + 1);
+                        buffer.present[c][row] = !rs.wasNull();
+                    }
+                    case LONG -> {
+                        Long value = DATE_TIMES.contains(column)
+                                ? ColumnBlock.toMicros(rs.getObject(i + 1, LocalDateTime.class))
+                                : rs.getObject(i + 1, Long.class);
+                        buffer.longs[c][row] = value != null ? value : 0L;
+                        buffer.present[c][row] = value != null;
+                    }
+                }
+            }
+            if (buffer.isFull()) {
+                writeBatch(buffer);
+                buffer.rows = 0;
+            }
+        }
+
+        void writeBatch(ColumnBlock block) throws IOException {
+            out.writeInt(block.rows);
+            for (ArchiveColumn column : columns) {
+                byte[] chunk = ColumnCodec.encode(block, column);
+                out.writeInt(chunk.length);
+                out.write(chunk);
+            }
+            rows += block.rows;
+        }
+
+        /**
+         * Write the buffered cursor rows, if any, as a batch
+         */
+        void flush() throws IOException {
+            if (buffer.rows > 0) {
+                writeBatch(buffer);
+                buffer.rows = 0;
+            }
+        }
+
+        void finish() throws IOException {
+            flush();
+            out.writeInt(0);
+            out.flush();
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
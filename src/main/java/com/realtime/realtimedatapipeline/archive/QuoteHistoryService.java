@@ -0,0 +1,88 @@
+package com.realtime.realtimedatapipeline.archive;
+
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import com.realtime.realtimedatapipeline.repository.StockQuoteRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Quote history and price aggregates over both tiers: Postgres for recent days and the columnar
+ * archive for days the tiering job moved out. The range is split at archived days, so each day is
+ * read from exactly one tier and the archive is only touched when the range reaches one.
+ */
+@Service
+public class QuoteHistoryService {
+
+    private static final Comparator<StockQuoteEvent> NEWEST_FIRST = Comparator.comparing(
+            StockQuoteEvent::getTimestamp, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final StockQuoteRepository stockQuoteRepository;
+    private final ColdStorageService coldStorageService;
+
+    public QuoteHistoryService(StockQuoteRepository stockQuoteRepository, ColdStorageService coldStorageService) {
+        this.stockQuoteRepository = stockQuoteRepository;
+        this.coldStorageService = coldStorageService;
+    }
+
+    /**
+     * Quotes of a symbol with a timestamp in [from, to], newest first, at most {@code limit}.
+     * Stretches are read newest first, each only for the rows still missing.
+     */
+    public List<StockQuoteEvent> getHistory(String symbol, LocalDateTime from, LocalDateTime to, int limit) {
+        List<TierRange> ranges = coldStorageService.split(from, to);
+        List<StockQuoteEvent> quotes = new ArrayList<>();
+        for (int i = ranges.size() - 1; i >= 0 && quotes.size() < limit; i--) {
+            TierRange range = ranges.get(i);
+            int remaining = limit - quotes.size();
+            if (range.archived()) {
+                List<StockQuoteEvent> cold = new ArrayList<>(coldStorageService.scan(symbol, range.from(), range.to(), remaining));
+                cold.sort(NEWEST_FIRST);
+                quotes.addAll(cold.size() > remaining ? cold.subList(0, remaining) : cold);
+            } else {
+                quotes.addAll(stockQuoteRepository.findBySymbolAndTimestampBetween(
+                        symbol, range.from(), range.to(), PageRequest.of(0, remaining)));
+            }
+        }
+        return quotes;
+    }
+
+    /**
+     * Count, min, max and average price of a symbol with a timestamp in [from, to]
+     */
+    public Map<String, Object> getAggregate(String symbol, LocalDateTime from, LocalDateTime to) {
+        PriceAggregate hot = PriceAggregate.empty();
+        PriceAggregate cold = PriceAggregate.empty();
+        for (TierRange range : coldStorageService.split(from, to)) {
+            if (range.archived()) {
+                cold = cold.merge(coldStorageService.aggregate(symbol, range.from(), range.to()));
+            } else {
+                Object[] row = stockQuoteRepository.aggregatePriceForSymbolInPeriod(symbol, range.from(), range.to()).get(0);
+                long count = ((Number) row[0]).longValue();
+                if (count > 0) {
+                    hot = hot.merge(PriceAggregate.of(count, ((Number) row[1]).doubleValue(),
+                            ((Number) row[2]).doubleValue(), ((Number) row[3]).doubleValue()));
+                }
+            }
+        }
+        PriceAggregate total = hot.merge(cold);
+
+        return Map.of(
+            "symbol", symbol,
+            "count", total.count(),
+            "min", total.min(),
+            "max", total.max(),
+            "avg", total.average(),
+            "hotRows", hot.count(),
+            "coldRows", cold.count(),
+            "blocksRead", cold.blocksRead(),
+            "blocksSkipped", cold.blocksSkipped(),
+            "blocksFromStats", cold.blocksFromStats()
+        );
+    }
+}
@@ -0,0 +1,160 @@
+package com.realtime.realtimedatapipeline.archive;
+
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A read-only archive segment written by {@link QuoteSegmentWriter}. The footer is read once on open
+ * and kept in memory; column chunks are read and inflated on demand, only for the blocks and
+ * columns a query needs.
+ */
+final class QuoteSegment {
+
+    private static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+
+    private final Path path;
+    private final long sizeBytes;
+    private final long rows;
+    private final List<BlockMeta> blocks;
+
+    private QuoteSegment(Path path, long sizeBytes, long rows, List<BlockMeta> blocks) {
+        this.path = path;
+        this.sizeBytes = sizeBytes;
+        this.rows = rows;
+        this.blocks = blocks;
+    }
+
+    static QuoteSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < Integer.BYTES + TRAILER_BYTES || readFully(channel, 0, Integer.BYTES).getInt() != QuoteSegmentWriter.MAGIC) {
+                throw new IOException("Not an archive segment: " + path);
+            }
+            ByteBuffer trailer = readFully(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+            long footerOffset = trailer.getLong();
+            if (trailer.getInt() != QuoteSegmentWriter.MAGIC || footerOffset < Integer.BYTES || footerOffset > size - TRAILER_BYTES) {
+                throw new IOException("Truncated archive segment: " + path);
+            }
+            ByteBuffer footerBytes = readFully(channel, footerOffset, (int) (size - TRAILER_BYTES - footerOffset));
+            DataInputStream footer = new DataInputStream(
+                    new ByteArrayInputStream(footerBytes.array(), 0, footerBytes.limit()));
+
+            int version = footer.readInt();
+            int columns = footer.readInt();
+            if (version != QuoteSegmentWriter.VERSION || columns != ArchiveColumn.ALL.length) {
+                throw new IOException("Unsupported archive segment version " + version + " in " + path);
+            }
+            long rows = footer.readLong();
+            int blockCount = footer.readInt();
+            List<BlockMeta> blocks = new ArrayList<>(blockCount);
+            for (int b = 0; b < blockCount; b++) {
+                String symbol = footer.readUTF();
+                int blockRows = footer.readInt();
+                long minTimestamp = footer.readLong();
+                long maxTimestamp = footer.readLong();
+                double minPrice = footer.readDouble();
+                double maxPrice = footer.readDouble();
+                double sumPrice = footer.readDouble();
+                int completeRows = footer.readInt();
+                long[] offsets = new long[columns];
+                int[] lengths = new int[columns];
+                int[] rawLengths = new int[columns];
+                for (int c = 0; c < columns; c++) {
+                    offsets[c] = footer.readLong();
+                    lengths[c] = footer.readInt();
+                    rawLengths[c] = footer.readInt();
+                }
+                blocks.add(new BlockMeta(symbol, blockRows, minTimestamp, maxTimestamp, minPrice, maxPrice,
+                        sumPrice, completeRows, offsets, lengths, rawLengths));
+            }
+            return new QuoteSegment(path, size, rows, List.copyOf(blocks));
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long sizeBytes() {
+        return sizeBytes;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    List<BlockMeta> blocks() {
+        return blocks;
+    }
+
+    FileChannel openChannel() throws IOException {
+        return FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /**
+     * Decode the requested columns of one block; other columns are left empty
+     */
+    ColumnBlock read(FileChannel channel, BlockMeta meta, Set<ArchiveColumn> columns) throws IOException {
+        ColumnBlock block = new ColumnBlock(meta.rows());
+        block.rows = meta.rows();
+        Inflater inflater = new Inflater();
+        try {
+            for (ArchiveColumn column : columns) {
+                int c = column.ordinal();
+                ByteBuffer compressed = readFully(channel, meta.offsets()[c], meta.lengths()[c]);
+                byte[] raw = new byte[meta.rawLengths()[c]];
+                inflater.reset();
+                inflater.setInput(compressed.array(), 0, compressed.limit());
+                int inflated = inflater.inflate(raw);
+                if (inflated != raw.length) {
+                    throw new IOException("Corrupt " + column + " chunk in " + path);
+                }
+                ColumnCodec.decode(ByteBuffer.wrap(raw), column, block);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt column chunk in " + path, e);
+        } finally {
+            inflater.end();
+        }
+        return block;
+    }
+
+    /**
+     * Every row of the segment, in file order
+     */
+    List<StockQuoteEvent> readAll() throws IOException {
+        List<StockQuoteEvent> quotes = new ArrayList<>((int) Math.min(rows, Integer.MAX_VALUE));
+        try (FileChannel channel = openChannel()) {
+            for (BlockMeta meta : blocks) {
+                ColumnBlock block = read(channel, meta, EnumSet.allOf(ArchiveColumn.class));
+                for (int row = 0; row < block.rows; row++) {
+                    quotes.add(block.toQuote(meta.symbol(), row));
+                }
+            }
+        }
+        return quotes;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of archive segment");
+            }
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,155 @@
+package com.realtime.realtimedatapipeline.archive;
+
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Streams quotes, sorted by symbol and time, into a columnar segment file:
+ * <pre>
+ * magic | block column chunks (deflated) ... | footer | footer offset (long) | magic
+ * </pre>
+ * A block is cut when it is full or the symbol changes. Only one block is buffered at a time,
+ * so memory stays flat however many rows a day holds. The file is forced to disk on close.
+ */
+final class QuoteSegmentWriter implements Closeable {
+
+    static final int MAGIC = 0x53514331; // "SQC1"
+    static final int VERSION = 1;
+
+    private final FileChannel channel;
+    private final DataOutputStream out;
+    private final ColumnBlock block;
+    private final List<BlockMeta> blocks = new ArrayList<>();
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final byte[] deflateBuffer = new byte[64 * 1024];
+
+    private String symbol;
+    private long position;
+    private long rows;
+
+    QuoteSegmentWriter(Path path, int blockRows) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 256 * 1024));
+        this.block = new ColumnBlock(blockRows);
+        out.writeInt(MAGIC);
+        position = Integer.BYTES;
+    }
+
+    void append(StockQuoteEvent quote) throws IOException {
+        if (block.rows > 0 && (block.isFull() || !quote.getSymbol().equals(symbol))) {
+            flushBlock();
+        }
+        symbol = quote.getSymbol();
+        block.add(quote);
+        rows++;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    private void flushBlock() throws IOException {
+        int columns = ArchiveColumn.ALL.length;
+        long[] offsets = new long[columns];
+        int[] lengths = new int[columns];
+        int[] rawLengths = new int[columns];
+        for (ArchiveColumn column : ArchiveColumn.ALL) {
+            byte[] raw = ColumnCodec.encode(block, column);
+            offsets[column.ordinal()] = position;
+            rawLengths[column.ordinal()] = raw.length;
+            lengths[column.ordinal()] = deflate(raw);
+            position += lengths[column.ordinal()];
+        }
+
+        boolean[] hasPrice = block.present[ArchiveColumn.CURRENT_PRICE.ordinal()];
+        boolean[] hasTimestamp = block.present[ArchiveColumn.TIMESTAMP.ordinal()];
+        double[] prices = block.doubles[ArchiveColumn.CURRENT_PRICE.ordinal()];
+        long[] timestamps = block.longs[ArchiveColumn.TIMESTAMP.ordinal()];
+        long minTimestamp = Long.MAX_VALUE;
+        long maxTimestamp = Long.MIN_VALUE;
+        double minPrice = Double.NaN;
+        double maxPrice = Double.NaN;
+        double sumPrice = 0;
+        int complete = 0;
+        for (int row = 0; row < block.rows; row++) {
+            if (hasTimestamp[row]) {
+                minTimestamp = Math.min(minTimestamp, timestamps[row]);
+                maxTimestamp = Math.max(maxTimestamp, timestamps[row]);
+                if (hasPrice[row]) {
+                    double price = prices[row];
+                    minPrice = complete == 0 ? price : Math.min(minPrice, price);
+                    maxPrice = complete == 0 ? price : Math.max(maxPrice, price);
+                    sumPrice += price;
+                    complete++;
+                }
+            }
+        }
+        blocks.add(new BlockMeta(symbol, block.rows, minTimestamp, maxTimestamp, minPrice, maxPrice, sumPrice,
+                complete, offsets, lengths, rawLengths));
+        block.rows = 0;
+    }
+
+    private int deflate(byte[] raw) throws IOException {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        int written = 0;
+        while (!deflater.finished()) {
+            int n = deflater.deflate(deflateBuffer);
+            out.write(deflateBuffer, 0, n);
+            written += n;
+        }
+        return written;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (block.rows > 0) {
+                flushBlock();
+            }
+            long footerOffset = position;
+            ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+            DataOutputStream footer = new DataOutputStream(footerBytes);
+            footer.writeInt(VERSION);
+            footer.writeInt(ArchiveColumn.ALL.length);
+            footer.writeLong(rows);
+            footer.writeInt(blocks.size());
+            for (BlockMeta meta : blocks) {
+                footer.writeUTF(meta.symbol());
+                footer.writeInt(meta.rows());
+                footer.writeLong(meta.minTimestamp());
+                footer.writeLong(meta.maxTimestamp());
+                footer.writeDouble(meta.minPrice());
+                footer.writeDouble(meta.maxPrice());
+                footer.writeDouble(meta.sumPrice());
+                footer.writeInt(meta.completeRows());
+                for (int c = 0; c < ArchiveColumn.ALL.length; c++) {
+                    footer.writeLong(meta.offsets()[c]);
+                    footer.writeInt(meta.lengths()[c]);
+                    footer.writeInt(meta.rawLengths()[c]);
+                }
+            }
+            out.write(footerBytes.toByteArray());
+            out.writeLong(footerOffset);
+            out.writeInt(MAGIC);
+            out.flush();
+            channel.force(true);
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.realtime.realtimedatapipeline.archive;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stretch of a query range served by one tier: a run of consecutive archived days, or the time
+ * between archived days that only Postgres holds
+ *
+ * @param archived Whether the stretch is made of archived days
+ * @param from     Inclusive start
+ * @param to       Inclusive end, to the microsecond the timestamps are stored with
+ */
+public record TierRange(boolean archived, LocalDateTime from, LocalDateTime to) {
+}
@@ -0,0 +1,123 @@
+package com.realtime.realtimedatapipeline.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Count-based circuit breaker fed by real request outcomes.
+ * CLOSED lets everything through; OPEN rejects until the open duration has passed;
+ * HALF_OPEN lets a few trial requests through and closes again only if all of them succeed.
+ * Slow calls count as failures.
+ */
+public class CircuitBreaker {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+    
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+    
+    private final String name;
+    private final RequestOutcomeWindow window;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    
+    private volatile State state = State.CLOSED;
+    private long openedAtNanos;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+    
+    public CircuitBreaker(String name, RequestOutcomeWindow window, double failureRateThreshold, int minimumCalls,
+                          Duration slowCallThreshold, Duration openDuration, int halfOpenCalls) {
+        this.name = name;
+        this.window = window;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+    }
+    
+    /**
+     * Ask for permission to make a call. Callers that get true must report the outcome via {@link #onResult}.
+     */
+    public boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAtNanos < openNanos) {
+                    return false;
+                }
+                transition(State.HALF_OPEN);
+                halfOpenPermits = halfOpenCalls;
+                halfOpenSuccesses = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenPermits <= 0) {
+                    return false;
+                }
+                halfOpenPermits--;
+            }
+            return true;
+        }
+    }
+    
+    public void onResult(boolean success, long latencyNanos) {
+        boolean ok = success && latencyNanos <= slowCallNanos;
+        window.record(ok, latencyNanos);
+        
+        if (state == State.CLOSED) {
+            if (!ok && window.size() >= minimumCalls && window.failureRate() >= failureRateThreshold) {
+                synchronized (this) {
+                    if (state == State.CLOSED) {
+                        open();
+                    }
+                }
+            }
+            return;
+        }
+        
+        synchronized (this) {
+            if (state != State.HALF_OPEN) {
+                return;
+            }
+            if (!ok) {
+                open();
+            } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                window.reset();
+                transition(State.CLOSED);
+            }
+        }
+    }
+    
+    public State getState() {
+        return state;
+    }
+    
+    public boolean isOpen() {
+        return state == State.OPEN;
+    }
+    
+    private void open() {
+        openedAtNanos = System.nanoTime();
+        transition(State.OPEN);
+    }
+    
+    private void transition(State target) {
+        State previous = state;
+        state = target;
+        if (previous != target) {
+            logger.warn("Circuit breaker '{}' {} -> {} (failure rate {})", name, previous, target,
+                       String.format("%.2f", window.failureRate()));
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.realtime.realtimedatapipeline.client;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.realtime.realtimedatapipeline.config.FinnhubProperties;
+import com.realtime.realtimedatapipeline.model.CompanyProfile;
+import com.realtime.realtimedatapipeline.repository.CompanyProfileRepository;
+import com.realtime.realtimedatapipeline.snapshot.SnapshotHeader;
+import com.realtime.realtimedatapipeline.snapshot.SnapshotParticipant;
+import com.realtime.realtimedatapipeline.symbols.SymbolUniverseChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Company names by symbol: size-bounded, refreshed ahead of expiry in the background and
+ * persisted to company_profiles. Concurrent lookups of a missing symbol share one in-flight load,
+ * and no caller ever holds a lock while the profile API is called.
+ */
+@Component
+public class CompanyProfileCache implements SnapshotParticipant {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompanyProfileCache.class);
+
+    private final FinnhubApiClient finnhubClient;
+    private final CompanyProfileRepository profileRepository;
+    private final FinnhubProperties.ProfileCache properties;
+    private final AsyncLoadingCache<String, String> names;
+
+    private final LongAdder apiLoads = new LongAdder();
+    private final LongAdder restored = new LongAdder();
+    private final LongAdder restoredFromSnapshot = new LongAdder();
+    private volatile long lastWarmupMillis = -1;
+
+    public CompanyProfileCache(FinnhubApiClient finnhubClient,
+                               CompanyProfileRepository profileRepository,
+                               FinnhubProperties finnhubProperties,
+                               MeterRegistry meterRegistry) {
+        this.finnhubClient = finnhubClient;
+        this.profileRepository = profileRepository;
+        this.properties = finnhubProperties.getProfileCache();
+        this.names = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .refreshAfterWrite(properties.getRefreshAfter())
+                .expireAfterWrite(properties.getExpireAfter())
+                .recordStats()
+                .buildAsync(this::load);
+        CaffeineCacheMetrics.monitor(meterRegistry, names.synchronous(), "company-profiles");
+    }
+
+    /**
+     * Company name for a symbol. Hits return immediately (a stale entry is returned while it is
+     * reloaded); a miss waits for the shared load up to the lookup timeout.
+     * @return Company name, or the symbol itself if it cannot be resolved in time
+     */
+    public String getName(String symbol) {
+        try {
+            return names.get(symbol).get(properties.getLookupTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.debug("Company name for {} not available yet: {}", symbol, e.toString());
+        }
+        return symbol;
+    }
+
+    /**
+     * Seed the cache from company_profiles, then load missing symbols and refresh out-of-date
+     * ones in parallel, bounded by the warm-up concurrency. The database is not read when the
+     * startup snapshot already covered every symbol.
+     * @return completes when every symbol has been loaded or has failed
+     */
+    public CompletableFuture<Void> warmUp(Collection<String> symbols) {
+        long start = System.currentTimeMillis();
+        LocalDateTime refreshBefore = LocalDateTime.now().minus(properties.getRefreshAfter());
+
+        List<String> stale = new ArrayList<>();
+        boolean coveredBySnapshot = restoredFromSnapshot.sum() > 0
+                && symbols.stream().allMatch(symbol -> names.getIfPresent(symbol) != null);
+        if (!coveredBySnapshot) {
+            seedFromDatabase(refreshBefore, stale);
+        }
+        List<String> missing = symbols.stream()
+                .filter(symbol -> names.getIfPresent(symbol) == null)
+                .toList();
+
+        logger.info("Company profile cache restored {} entries ({} from snapshot); loading {} missing and refreshing {} stale",
+                   restored.sum(), restoredFromSnapshot.sum(), missing.size(), stale.size());
+
+        Flux<String> loads = Flux.fromIterable(missing)
+                .flatMap(symbol -> Mono.fromFuture(() -> names.get(symbol))
+                        .onErrorResume(e -> Mono.empty()), properties.getWarmupConcurrency());
+        Flux<String> refreshes = Flux.fromIterable(stale)
+                // A refresh future can complete before Caffeine swaps the new value in; put it
+                // ourselves so the names are current once the warm-up completes
+                .flatMap(symbol -> Mono.fromFuture(() -> names.synchronous().refresh(symbol))
+                        .doOnNext(name -> names.synchronous().put(symbol, name))
+                        .onErrorResume(e -> Mono.empty()), properties.getWarmupConcurrency());
+
+        return loads.concatWith(refreshes)
+                .then()
+                .doFinally(signal -> {
+                    lastWarmupMillis = System.currentTimeMillis() - start;
+                    logger.info("Company profile cache warmed in {} ms ({} entries)",
+                               lastWarmupMillis, names.synchronous().estimatedSize());
+                })
+                .toFuture();
+    }
+
+    /**
+     * Load names of symbols added at runtime ahead of their first quotes, bounded by the warm-up
+     * concurrency, and drop those of removed symbols
+     */
+    @EventListener
+    public void onSymbolUniverseChanged(SymbolUniverseChangedEvent event) {
+        names.synchronous().invalidateAll(event.removed());
+        Flux.fromIterable(event.added())
+                .filter(symbol -> names.getIfPresent(symbol) == null)
+                .flatMap(symbol -> Mono.fromFuture(() -> names.get(symbol))
+                        .onErrorResume(e -> Mono.empty()), properties.getWarmupConcurrency())
+                .subscribe();
+    }
+
+    /**
+     * Put every persisted profile into the cache, collecting those fetched before {@code refreshBefore}
+     */
+    private void seedFromDatabase(LocalDateTime refreshBefore, List<String> stale) {
+        try {
+            PageRequest newestFirst = PageRequest.of(0, (int) Math.min(properties.getMaximumSize(), Integer.MAX_VALUE),
+                    Sort.by(Sort.Direction.DESC, "fetchedAt"));
+            for (CompanyProfile profile : profileRepository.findAll(newestFirst)) {
+                names.put(profile.getSymbol(), CompletableFuture.completedFuture(profile.getName()));
+                restored.increment();
+                if (profile.getFetchedAt().isBefore(refreshBefore)) {
+                    stale.add(profile.getSymbol());
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Could not restore company profiles: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Cache loader, also used for refresh-ahead. A profile without a name is cached as the symbol
+     * until its next refresh; a failed call is not cached, so the next lookup retries.
+     */
+    private CompletableFuture<String> load(String symbol, Executor executor) {
+        apiLoads.increment();
+        return finnhubClient.fetchStockName(symbol)
+                .defaultIfEmpty(symbol)
+                .toFuture()
+                // Persist off the HTTP event loop
+                .thenApplyAsync(name -> {
+                    persist(symbol, name);
+                    return name;
+                }, executor);
+    }
+
+    private void persist(String symbol, String name) {
+        try {
+            profileRepository.save(new CompanyProfile(symbol, name, LocalDateTime.now()));
+        } catch (Exception e) {
+            logger.warn("Could not persist company profile for {}: {}", symbol, e.getMessage());
+        }
+    }
+
+    @Override
+    public String snapshotSection() {
+        return "company-profiles";
+    }
+
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        Map<String, String> entries = new HashMap<>(names.synchronous().asMap());
+        out.writeInt(entries.size());
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+    }
+
+    /**
+     * Restored names count as freshly written, so their next background refresh is up to one
+     * snapshot max-age later than it would have been
+     */
+    @Override
+    public void restoreSnapshot(DataInput in, SnapshotHeader header) throws IOException {
+        Map<String, String> entries = new HashMap<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            entries.put(in.readUTF(), in.readUTF());
+        }
+        entries.forEach((symbol, name) -> names.put(symbol, CompletableFuture.completedFuture(name)));
+        restoredFromSnapshot.add(entries.size());
+    }
+
+    /**
+     * Cache statistics
+     * @return Map with size, hit rate, load and warm-up figures
+     */
+    public Map<String, Object> getStatistics() {
+        CacheStats stats = names.synchronous().stats();
+        return Map.of(
+            "size", names.synchronous().estimatedSize(),
+            "maximumSize", properties.getMaximumSize(),
+            "hitRate", stats.hitRate(),
+            "apiLoads", apiLoads.sum(),
+            "loadFailures", stats.loadFailureCount(),
+            "evictions", stats.evictionCount(),
+            "restoredFromDatabase", restored.sum(),
+            "restoredFromSnapshot", restoredFromSnapshot.sum(),
+            "lastWarmupMillis", lastWarmupMillis
+        );
+    }
+}
@@ -2,158 +2,435 @@ package com.realtime.realtimedatapipeline.client;
 
 import com.realtime.realtimedatapipeline.config.FinnhubProperties;
 import com.realtime.realtimedatapipeline.model.FinnhubQuoteResponse;
+import com.realtime.realtimedatapipeline.profiling.PipelineStageEvent;
+import com.realtime.realtimedatapipeline.snapshot.SnapshotHeader;
+import com.realtime.realtimedatapipeline.snapshot.SnapshotParticipant;
+import com.realtime.realtimedatapipeline.symbols.SymbolUniverseChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.channel.ChannelOption;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 import reactor.util.retry.Retry;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Duration;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * REST client for Finnhub API
- * Handles rate limiting, retries, and metrics collection
+ * Handles rate limiting, retries, hedging, and metrics collection
  */
 @Component
-public class FinnhubApiClient {
+public class FinnhubApiClient implements DisposableBean, SnapshotParticipant, MeterBinder {
     
     private static final Logger logger = LoggerFactory.getLogger(FinnhubApiClient.class);
     
     private final WebClient webClient;
+    private final ConnectionProvider connectionProvider;
     private final FinnhubProperties finnhubProperties;
     
-    // Simple counters
-    private long requestCount = 0;
-    private long errorCount = 0;
+    // Striped counters: updated concurrently by every fetch thread
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder hedgedCount = new LongAdder();
+    private final LongAdder hedgeWinCount = new LongAdder();
     
-    // Cache for stock company profiles (to get company names)
-    private final Map<String, String> stockNameCache = new ConcurrentHashMap<>();
+    // Transport: requests sent vs. connections opened gives the pool's reuse rate
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder connectionCount = new LongAdder();
+    private final LongAdder decodeCount = new LongAdder();
+    private final LongAdder decodeNanos = new LongAdder();
+    
+    // Hedging: per-attempt latencies set the hedge delay, the budget caps extra requests
+    private final RequestOutcomeWindow attemptWindow;
+    private final HedgeBudget hedgeBudget;
+    
+    // Passive health: every real request feeds the window, which drives the circuit breaker
+    private final RequestOutcomeWindow outcomeWindow;
+    private final CircuitBreaker circuitBreaker;
+    
+    // Last successful quote per symbol, served (flagged stale) while the circuit is open
+    private final Map<String, FinnhubQuoteResponse> lastKnownQuotes = new ConcurrentHashMap<>();
     
     public FinnhubApiClient(FinnhubProperties finnhubProperties) {
         this.finnhubProperties = finnhubProperties;
         
-        // Initialize WebClient with base configuration
+        FinnhubProperties.CircuitBreaker breakerProperties = finnhubProperties.getCircuitBreaker();
+        this.outcomeWindow = new RequestOutcomeWindow(breakerProperties.getWindowSize());
+        this.circuitBreaker = new CircuitBreaker("finnhub", outcomeWindow,
+                breakerProperties.getFailureRateThreshold(),
+                breakerProperties.getMinimumCalls(),
+                breakerProperties.getSlowCallThreshold(),
+                breakerProperties.getOpenDuration(),
+                breakerProperties.getHalfOpenCalls());
+        
+        FinnhubProperties.Hedging hedging = finnhubProperties.getHedging();
+        this.attemptWindow = new RequestOutcomeWindow(breakerProperties.getWindowSize());
+        this.hedgeBudget = new HedgeBudget(hedging.getMaxRatio(), hedging.getBurst());
+        
+        FinnhubProperties.Transport transport = finnhubProperties.getTransport();
+        this.connectionProvider = ConnectionProvider.builder("finnhub")
+                .maxConnections(transport.getMaxConnections())
+                .pendingAcquireMaxCount(transport.getMaxPendingAcquires())
+                .pendingAcquireTimeout(transport.getPendingAcquireTimeout())
+                .maxIdleTime(transport.getMaxIdleTime())
+                .maxLifeTime(transport.getMaxLifeTime())
+                .evictInBackground(transport.getEvictInterval())
+                // Most recently used first: a few hot connections serve the load and the rest age out
+                .lifo()
+                .metrics(true)
+                .build();
+        
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .keepAlive(true)
+                .compress(transport.isCompression())
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) transport.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(finnhubProperties.getTimeout())
+                .doOnChannelInit((observer, channel, remoteAddress) -> connectionCount.increment());
+        // HTTP/2 needs ALPN, so it is only offered over TLS; plain-HTTP stubs stay on HTTP/1.1
+        if (transport.isHttp2() && finnhubProperties.getBaseUrl().startsWith("https")) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        
         this.webClient = WebClient.builder()
                 .baseUrl(finnhubProperties.getBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .build();
         
-        logger.info("Finnhub API Client initialized with base URL: {}", finnhubProperties.getBaseUrl());
+        logger.info("Finnhub API Client initialized with base URL: {} (max {} connections)",
+                   finnhubProperties.getBaseUrl(), transport.getMaxConnections());
     }
     
     /**
-     * Fetch stock quote for a given symbol
+     * Fetch stock quote for a given symbol. While the circuit is open no request is made and
+     * the last known quote for the symbol is returned, flagged as stale.
      * @param symbol Stock symbol (e.g., "AAPL")
-     * @return FinnhubQuoteResponse or null if error
+     * @return FinnhubQuoteResponse, a stale last-known quote, or null if neither is available
      */
     public FinnhubQuoteResponse getStockQuote(String symbol) {
+        if (!circuitBreaker.tryAcquire()) {
+            rejectedCount.increment();
+            FinnhubQuoteResponse lastKnown = lastKnownQuotes.get(symbol);
+            logger.debug("Circuit open, serving last known quote for {}: {}", symbol, lastKnown);
+            return lastKnown != null ? lastKnown.asStale() : null;
+        }
+        
+        long start = System.nanoTime();
+        boolean success = false;
+        PipelineStageEvent fetchEvent = PipelineStageEvent.start(PipelineStageEvent.Stage.FETCH, symbol);
         try {
-            requestCount++;
+            requestCount.increment();
             
             logger.debug("Fetching quote for symbol: {}", symbol);
             
-            FinnhubQuoteResponse response = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/quote")
-                            .queryParam("symbol", symbol)
-                            .queryParam("token", finnhubProperties.getApiKey())
-                            .build())
-                    .retrieve()
-                    .bodyToMono(FinnhubQuoteResponse.class)
-                    .timeout(finnhubProperties.getTimeout())
-                    .block();
+            FinnhubQuoteResponse response = quoteCall(symbol).block();
             
             if (response != null && response.getCurrentPrice() != null) {
                 logger.debug("Successfully fetched quote for {}: ${}", symbol, response.getCurrentPrice());
+                success = true;
+                lastKnownQuotes.put(symbol, response);
                 return response;
             } else {
                 logger.warn("Received empty or invalid response for symbol: {}", symbol);
-                errorCount++;
+                errorCount.increment();
                 return null;
             }
             
         } catch (Exception e) {
             logger.error("Error fetching stock quote for symbol {}: {}", symbol, e.getMessage());
-            errorCount++;
+            errorCount.increment();
             return null;
+        } finally {
+            circuitBreaker.onResult(success, System.nanoTime() - start);
+            fetchEvent.finish(success ? 1 : 0);
         }
     }
     
     /**
-     * Get company name for a stock symbol (cached)
-     * @param symbol Stock symbol
-     * @return Company name or symbol if not found
-     */
-    public String getStockName(String symbol) {
-        return stockNameCache.computeIfAbsent(symbol, this::fetchStockName);
-    }
-    
-    /**
-     * Fetch company profile from Finnhub API
-     * @param symbol Stock symbol
-     * @return Company name or symbol as fallback
+     * A single /quote request. Its latency feeds the attempt window that drives the hedge delay;
+     * an attempt cancelled because a hedge won is recorded with its elapsed time as a lower bound.
      */
-    private String fetchStockName(String symbol) {
-        try {
-            logger.debug("Fetching company profile for symbol: {}", symbol);
-            
-            @SuppressWarnings("unchecked")
-            Map<String, Object> profile = webClient.get()
+    private Mono<FinnhubQuoteResponse> quoteAttempt(String symbol) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            sentCount.increment();
+            return webClient.get()
                     .uri(uriBuilder -> uriBuilder
-                            .path("/stock/profile2")
+                            .path("/quote")
                             .queryParam("symbol", symbol)
                             .queryParam("token", finnhubProperties.getApiKey())
                             .build())
                     .retrieve()
-                    .bodyToMono(Map.class)
-                    .timeout(finnhubProperties.getTimeout())
-                    .retryWhen(Retry.backoff(2, Duration.ofSeconds(1)))
-                    .block();
-            
-            if (profile != null && profile.containsKey("name")) {
-                String companyName = (String) profile.get("name");
-                logger.debug("Found company name for {}: {}", symbol, companyName);
-                return companyName;
-            }
-            
-        } catch (Exception e) {
-            logger.warn("Could not fetch company name for symbol {}: {}", symbol, e.getMessage());
+                    .bodyToMono(DataBuffer.class)
+                    .map(body -> decode(symbol, body, FinnhubResponseDecoder::decodeQuote))
+                    .doOnSuccess(response -> attemptWindow.record(true, System.nanoTime() - start))
+                    .doOnError(error -> attemptWindow.record(false, System.nanoTime() - start))
+                    .doOnCancel(() -> attemptWindow.record(true, System.nanoTime() - start));
+        });
+    }
+    
+    /**
+     * The quote request for one symbol, hedged if enabled, bounded by the configured timeout
+     */
+    Mono<FinnhubQuoteResponse> quoteCall(String symbol) {
+        Mono<FinnhubQuoteResponse> primary = quoteAttempt(symbol);
+        Mono<FinnhubQuoteResponse> call = finnhubProperties.getHedging().isEnabled()
+                ? hedged(symbol, primary)
+                : primary;
+        return call.timeout(finnhubProperties.getTimeout());
+    }
+    
+    /**
+     * Race the primary attempt against a hedge that is only sent if the primary is still outstanding
+     * after the current hedge delay and the hedge budget allows it. The first response wins and
+     * the loser is cancelled. A primary that fails before the hedge is sent fails the call at once,
+     * so an error response is never retried as a hedge; when no attempt succeeds the caller gets
+     * the primary's error.
+     */
+    private Mono<FinnhubQuoteResponse> hedged(String symbol, Mono<FinnhubQuoteResponse> primary) {
+        return Mono.defer(() -> {
+            hedgeBudget.onRequest();
+            AtomicReference<Throwable> primaryError = new AtomicReference<>();
+            Sinks.One<Throwable> primaryFailed = Sinks.one();
+            Mono<FinnhubQuoteResponse> tracked = primary.doOnError(error -> {
+                primaryError.set(error);
+                primaryFailed.tryEmitValue(error);
+            });
+            Mono<FinnhubQuoteResponse> hedge = Mono.delay(Duration.ofNanos(hedgeDelayNanos()))
+                    .takeUntilOther(primaryFailed.asMono())
+                    .filter(tick -> hedgeBudget.tryAcquire())
+                    .flatMap(tick -> {
+                        hedgedCount.increment();
+                        logger.debug("Hedging slow quote request for {}", symbol);
+                        return quoteAttempt(symbol).doOnNext(response -> hedgeWinCount.increment());
+                    });
+            return Mono.firstWithValue(tracked, hedge)
+                    .onErrorMap(NoSuchElementException.class,
+                            error -> primaryError.get() != null ? primaryError.get() : error);
+        });
+    }
+    
+    /**
+     * Current hedge delay: the configured percentile of recent attempt latencies,
+     * or the initial delay until enough attempts have been observed
+     */
+    long hedgeDelayNanos() {
+        FinnhubProperties.Hedging hedging = finnhubProperties.getHedging();
+        if (attemptWindow.size() < hedging.getMinSamples()) {
+            return hedging.getInitialDelay().toNanos();
+        }
+        return Math.max(hedging.getMinDelay().toNanos(), attemptWindow.latencyPercentileNanos(hedging.getPercentile()));
+    }
+    
+    /**
+     * Fetch the company name from the Finnhub profile API without blocking. Caching is left to
+     * {@link CompanyProfileCache}.
+     * @param symbol Stock symbol
+     * @return Company name, empty if the profile has none; fails while the circuit is open
+     */
+    public Mono<String> fetchStockName(String symbol) {
+        if (circuitBreaker.isOpen()) {
+            return Mono.error(new IllegalStateException("Finnhub circuit is open"));
+        }
+        return Mono.defer(() -> {
+                    logger.debug("Fetching company profile for symbol: {}", symbol);
+                    sentCount.increment();
+                    return webClient.get()
+                            .uri(uriBuilder -> uriBuilder
+                                    .path("/stock/profile2")
+                                    .queryParam("symbol", symbol)
+                                    .queryParam("token", finnhubProperties.getApiKey())
+                                    .build())
+                            .retrieve()
+                            .bodyToMono(DataBuffer.class);
+                })
+                .mapNotNull(body -> decode(symbol, body, FinnhubResponseDecoder::decodeProfileName))
+                .timeout(finnhubProperties.getTimeout())
+                .retryWhen(Retry.backoff(2, Duration.ofSeconds(1)))
+                .doOnError(e -> logger.warn("Could not fetch company name for symbol {}: {}", symbol, e.getMessage()));
+    }
+    
+    /**
+     * Decode a pooled response buffer with the streaming decoder and release it; the time spent
+     * is accumulated as the per-response decode cost
+     */
+    private <T> T decode(String symbol, DataBuffer body, FinnhubResponseDecoder.BodyReader<T> reader) {
+        long start = System.nanoTime();
+        PipelineStageEvent decodeEvent = PipelineStageEvent.start(PipelineStageEvent.Stage.DECODE, symbol);
+        int bytes = body.readableByteCount();
+        try (InputStream in = body.asInputStream()) {
+            return reader.read(in);
+        } catch (IOException e) {
+            throw new DecodingException("Could not decode Finnhub response: " + e.getMessage(), e);
+        } finally {
+            DataBufferUtils.release(body);
+            decodeNanos.add(System.nanoTime() - start);
+            decodeCount.increment();
+            decodeEvent.finish(bytes);
         }
-        
-        // Fallback to symbol if company name not found
-        return symbol;
     }
     
     /**
-     * Check if API client is healthy
-     * @return true if API is accessible
+     * Check if API client is healthy. Derived passively from the outcomes of real requests,
+     * so it never spends API quota on probes.
+     * @return true if the circuit is not open and recent requests mostly succeed
      */
     public boolean isHealthy() {
-        try {
-            // Try to fetch a quote for a reliable stock (AAPL)
-            FinnhubQuoteResponse response = getStockQuote("AAPL");
-            return response != null && response.getCurrentPrice() != null;
-        } catch (Exception e) {
-            logger.error("Health check failed: {}", e.getMessage());
-            return false;
+        return !circuitBreaker.isOpen()
+                && outcomeWindow.failureRate() < finnhubProperties.getCircuitBreaker().getFailureRateThreshold();
+    }
+    
+    /**
+     * Health details derived from the sliding window of recent requests
+     * @return Map with circuit state, failure rate and latency percentiles
+     */
+    public Map<String, Object> getHealth() {
+        return Map.of(
+            "healthy", isHealthy(),
+            "circuitState", circuitBreaker.getState().name(),
+            "windowSize", outcomeWindow.size(),
+            "failureRate", outcomeWindow.failureRate(),
+            "p50LatencyMs", outcomeWindow.latencyPercentileNanos(0.50) / 1_000_000.0,
+            "p95LatencyMs", outcomeWindow.latencyPercentileNanos(0.95) / 1_000_000.0,
+            "lastSuccessMillis", outcomeWindow.getLastSuccessMillis(),
+            "lastFailureMillis", outcomeWindow.getLastFailureMillis(),
+            "rejectedRequests", rejectedCount.sum()
+        );
+    }
+    
+    /**
+     * Whether quotes are currently being served from the last-known cache
+     */
+    public boolean isServingStale() {
+        return circuitBreaker.getState() != CircuitBreaker.State.CLOSED;
+    }
+    
+    /**
+     * Stop holding last-known quotes for symbols removed from the registry
+     */
+    @EventListener
+    public void onSymbolUniverseChanged(SymbolUniverseChangedEvent event) {
+        event.removed().forEach(lastKnownQuotes::remove);
+    }
+    
+    @Override
+    public String snapshotSection() {
+        return "finnhub-client";
+    }
+    
+    /**
+     * Cumulative counters only; the outcome windows and the circuit state describe the API's health
+     * right now and start fresh
+     */
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        for (LongAdder counter : snapshotCounters()) {
+            out.writeLong(counter.sum());
+        }
+    }
+    
+    @Override
+    public void restoreSnapshot(DataInput in, SnapshotHeader header) throws IOException {
+        LongAdder[] counters = snapshotCounters();
+        long[] values = new long[counters.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readLong();
+        }
+        for (int i = 0; i < values.length; i++) {
+            counters[i].add(values[i]);
         }
     }
     
+    // Order is the section layout: append only, or bump snapshotVersion()
+    private LongAdder[] snapshotCounters() {
+        return new LongAdder[] {requestCount, errorCount, rejectedCount, hedgedCount, hedgeWinCount,
+                sentCount, connectionCount, decodeCount, decodeNanos};
+    }
+    
+    /**
+     * Hedge counters for the registry; bound by Spring Boot since the client is a MeterBinder bean
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("finnhub.requests.hedged", hedgedCount, LongAdder::sum)
+                .description("Hedge attempts sent for quote requests still outstanding after the hedge delay")
+                .register(registry);
+        FunctionCounter.builder("finnhub.requests.hedge.wins", hedgeWinCount, LongAdder::sum)
+                .description("Hedge attempts that answered before their primary request")
+                .register(registry);
+    }
+    
     /**
      * Get current request statistics
      * @return Map with request metrics
      */
     public Map<String, Object> getStatistics() {
+        long requests = requestCount.sum();
+        long errors = errorCount.sum();
         return Map.of(
-            "totalRequests", requestCount,
-            "totalErrors", errorCount,
-            "successRate", calculateSuccessRate()
+            "totalRequests", requests,
+            "totalErrors", errors,
+            "rejectedRequests", rejectedCount.sum(),
+            "hedgedRequests", hedgedCount.sum(),
+            "hedgeWins", hedgeWinCount.sum(),
+            "hedgeDelayMs", hedgeDelayNanos() / 1_000_000.0,
+            "circuitState", circuitBreaker.getState().name(),
+            "successRate", calculateSuccessRate(requests, errors),
+            "transport", getTransportStatistics()
         );
     }
     
-    private double calculateSuccessRate() {
-        if (requestCount == 0) return 0.0;
-        return ((requestCount - errorCount) / (double) requestCount) * 100.0;
+    /**
+     * Connection reuse and decode cost. Reuse rate is the share of sent requests (hedges and
+     * profile lookups included) that did not need a new connection.
+     * @return Map with transport metrics
+     */
+    public Map<String, Object> getTransportStatistics() {
+        long sent = sentCount.sum();
+        long connections = connectionCount.sum();
+        long decoded = decodeCount.sum();
+        return Map.of(
+            "requestsSent", sent,
+            "connectionsOpened", connections,
+            "connectionReuseRate", sent == 0 ? 0.0 : Math.max(0.0, 1.0 - connections / (double) sent),
+            "responsesDecoded", decoded,
+            "avgDecodeMicros", decoded == 0 ? 0.0 : decodeNanos.sum() / (double) decoded / 1_000.0,
+            "maxConnections", finnhubProperties.getTransport().getMaxConnections(),
+            "compression", finnhubProperties.getTransport().isCompression()
+        );
+    }
+    
+    @Override
+    public void destroy() {
+        connectionProvider.disposeLater().block(Duration.ofSeconds(5));
+    }
+    
+    private double calculateSuccessRate(long requests, long errors) {
+        if (requests == 0) return 0.0;
+        return ((requests - errors) / (double) requests) * 100.0;
     }
 }
@@ -0,0 +1,104 @@
+package com.realtime.realtimedatapipeline.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.realtime.realtimedatapipeline.model.FinnhubQuoteResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Token-level decoder for Finnhub responses. Reads only the fields the pipeline uses, straight into
+ * primitives, and skips everything else without building a tree, a map or boxed values.
+ */
+final class FinnhubResponseDecoder {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Reads a decoded value from a response body
+     */
+    @FunctionalInterface
+    interface BodyReader<T> {
+        T read(InputStream body) throws IOException;
+    }
+
+    private FinnhubResponseDecoder() {
+    }
+
+    /**
+     * Decode a /quote body; absent or null fields stay unset (NaN / {@link FinnhubQuoteResponse#NO_TIMESTAMP})
+     */
+    static FinnhubQuoteResponse decodeQuote(InputStream body) throws IOException {
+        double currentPrice = Double.NaN;
+        double change = Double.NaN;
+        double percentChange = Double.NaN;
+        double highPrice = Double.NaN;
+        double lowPrice = Double.NaN;
+        double openPrice = Double.NaN;
+        double previousClose = Double.NaN;
+        long timestamp = FinnhubQuoteResponse.NO_TIMESTAMP;
+
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            expectObject(parser);
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "c" -> currentPrice = readDouble(parser, value);
+                    case "d" -> change = readDouble(parser, value);
+                    case "dp" -> percentChange = readDouble(parser, value);
+                    case "h" -> highPrice = readDouble(parser, value);
+                    case "l" -> lowPrice = readDouble(parser, value);
+                    case "o" -> openPrice = readDouble(parser, value);
+                    case "pc" -> previousClose = readDouble(parser, value);
+                    case "t" -> timestamp = value.isNumeric() ? parser.getLongValue() : skip(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+
+        return FinnhubQuoteResponse.of(currentPrice, change, percentChange, highPrice, lowPrice,
+                openPrice, previousClose, timestamp);
+    }
+
+    /**
+     * Decode the company name from a /stock/profile2 body
+     * @return the name, or null if the profile is empty or has no name
+     */
+    static String decodeProfileName(InputStream body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            expectObject(parser);
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                JsonToken value = parser.nextToken();
+                if ("name".equals(field) && value == JsonToken.VALUE_STRING) {
+                    return parser.getText();
+                }
+                parser.skipChildren();
+            }
+        }
+        return null;
+    }
+
+    private static void expectObject(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object");
+        }
+    }
+
+    private static double readDouble(JsonParser parser, JsonToken value) throws IOException {
+        if (value.isNumeric()) {
+            return parser.getDoubleValue();
+        }
+        parser.skipChildren();
+        return Double.NaN;
+    }
+
+    private static long skip(JsonParser parser) throws IOException {
+        parser.skipChildren();
+        return FinnhubQuoteResponse.NO_TIMESTAMP;
+    }
+}
@@ -0,0 +1,37 @@
+package com.realtime.realtimedatapipeline.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket that caps hedged requests at a fraction of primary requests.
+ * Every primary request deposits {@code ratio} of a token (up to {@code burst} tokens);
+ * a hedge may only be sent if it can take a whole token.
+ */
+public class HedgeBudget {
+    
+    private static final long TOKEN = 1_000;
+    
+    private final long depositPerRequest;
+    private final long capacity;
+    private final AtomicLong balance = new AtomicLong();
+    
+    public HedgeBudget(double ratio, int burst) {
+        this.depositPerRequest = Math.round(ratio * TOKEN);
+        this.capacity = Math.max(1, burst) * TOKEN;
+    }
+    
+    public void onRequest() {
+        balance.updateAndGet(current -> Math.min(capacity, current + depositPerRequest));
+    }
+    
+    public boolean tryAcquire() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+}
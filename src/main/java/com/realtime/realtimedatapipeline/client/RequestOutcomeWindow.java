@@ -0,0 +1,83 @@
+package com.realtime.realtimedatapipeline.client;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size sliding window over the most recent request outcomes and latencies.
+ * Writes are O(1); percentiles are computed on read over a copy of the window.
+ */
+public class RequestOutcomeWindow {
+    
+    private final boolean[] failed;
+    private final long[] latencyNanos;
+    private int next;
+    private int size;
+    private int failures;
+    private long lastSuccessMillis;
+    private long lastFailureMillis;
+    
+    public RequestOutcomeWindow(int capacity) {
+        this.failed = new boolean[capacity];
+        this.latencyNanos = new long[capacity];
+    }
+    
+    public synchronized void record(boolean success, long latency) {
+        if (size == failed.length) {
+            if (failed[next]) {
+                failures--;
+            }
+        } else {
+            size++;
+        }
+        failed[next] = !success;
+        latencyNanos[next] = latency;
+        if (!success) {
+            failures++;
+            lastFailureMillis = System.currentTimeMillis();
+        } else {
+            lastSuccessMillis = System.currentTimeMillis();
+        }
+        next = (next + 1) % failed.length;
+    }
+    
+    public synchronized void reset() {
+        next = 0;
+        size = 0;
+        failures = 0;
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+    
+    /**
+     * Share of failed requests in the window, 0.0 - 1.0
+     */
+    public synchronized double failureRate() {
+        return size == 0 ? 0.0 : failures / (double) size;
+    }
+    
+    /**
+     * Latency at the given quantile (e.g. 0.95) over the window, or -1 if no requests were recorded
+     */
+    public long latencyPercentileNanos(double quantile) {
+        long[] copy;
+        synchronized (this) {
+            if (size == 0) {
+                return -1;
+            }
+            copy = Arrays.copyOf(latencyNanos, size);
+        }
+        Arrays.sort(copy);
+        int index = (int) Math.ceil(quantile * copy.length) - 1;
+        return copy[Math.max(0, Math.min(index, copy.length - 1))];
+    }
+    
+    public synchronized long getLastSuccessMillis() {
+        return lastSuccessMillis;
+    }
+    
+    public synchronized long getLastFailureMillis() {
+        return lastFailureMillis;
+    }
+}
@@ -0,0 +1,50 @@
+package com.realtime.realtimedatapipeline.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "app.alerts")
+public class AlertProperties {
+
+    private boolean enabled = true;
+    // Built-in rule per tracked symbol on the daily percent change; 0 turns it off
+    private double priceChangeThreshold = 5.0;
+    // Ticks of price history kept per symbol with percent-move rules
+    private int historyTicks = 1024;
+    private Duration maxMoveWindow = Duration.ofHours(24);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getPriceChangeThreshold() {
+        return priceChangeThreshold;
+    }
+
+    public void setPriceChangeThreshold(double priceChangeThreshold) {
+        this.priceChangeThreshold = priceChangeThreshold;
+    }
+
+    public int getHistoryTicks() {
+        return historyTicks;
+    }
+
+    public void setHistoryTicks(int historyTicks) {
+        this.historyTicks = historyTicks;
+    }
+
+    public Duration getMaxMoveWindow() {
+        return maxMoveWindow;
+    }
+
+    public void setMaxMoveWindow(Duration maxMoveWindow) {
+        this.maxMoveWindow = maxMoveWindow;
+    }
+}
@@ -0,0 +1,156 @@
+package com.realtime.realtimedatapipeline.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "app.analytics")
+public class AnalyticsProperties {
+    
+    private boolean enabled = true;
+    private Duration calculationWindow = Duration.ofHours(1);
+    private Indicators indicators = new Indicators();
+    private Correlation correlation = new Correlation();
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public Duration getCalculationWindow() {
+        return calculationWindow;
+    }
+    
+    public void setCalculationWindow(Duration calculationWindow) {
+        this.calculationWindow = calculationWindow;
+    }
+    
+    public Indicators getIndicators() {
+        return indicators;
+    }
+    
+    public void setIndicators(Indicators indicators) {
+        this.indicators = indicators;
+    }
+    
+    public Correlation getCorrelation() {
+        return correlation;
+    }
+    
+    public void setCorrelation(Correlation correlation) {
+        this.correlation = correlation;
+    }
+    
+    /**
+     * Per-symbol technical indicators, all measured in ticks (processed quotes)
+     */
+    public static class Indicators {
+        
+        private int window = 20;
+        private int emaPeriod = 20;
+        private int rsiPeriod = 14;
+        private double bollingerWidth = 2.0;
+        
+        public int getWindow() {
+            return window;
+        }
+        
+        public void setWindow(int window) {
+            this.window = window;
+        }
+        
+        public int getEmaPeriod() {
+            return emaPeriod;
+        }
+        
+        public void setEmaPeriod(int emaPeriod) {
+            this.emaPeriod = emaPeriod;
+        }
+        
+        public int getRsiPeriod() {
+            return rsiPeriod;
+        }
+        
+        public void setRsiPeriod(int rsiPeriod) {
+            this.rsiPeriod = rsiPeriod;
+        }
+        
+        public double getBollingerWidth() {
+            return bollingerWidth;
+        }
+        
+        public void setBollingerWidth(double bollingerWidth) {
+            this.bollingerWidth = bollingerWidth;
+        }
+    }
+    
+    /**
+     * Rolling cross-symbol correlation: one aligned return vector per sample interval,
+     * correlations over the last window samples
+     */
+    public static class Correlation {
+        
+        private boolean enabled = true;
+        private int window = 60;
+        private Duration sampleInterval = Duration.ofSeconds(10);
+        // The matrix is quadratic in symbols: only registry ids below this, assigned by startup, take part
+        private int maxSymbols = 2000;
+        // Sample intervals a vector waits for a symbol's next quote before the symbol counts as idle
+        private int maxMissedSamples = 3;
+        // Symbols in a full-matrix snapshot: the default selection and the cap on a requested one
+        private int snapshotSymbols = 50;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getWindow() {
+            return window;
+        }
+        
+        public void setWindow(int window) {
+            this.window = window;
+        }
+        
+        public Duration getSampleInterval() {
+            return sampleInterval;
+        }
+        
+        public void setSampleInterval(Duration sampleInterval) {
+            this.sampleInterval = sampleInterval;
+        }
+        
+        public int getMaxSymbols() {
+            return maxSymbols;
+        }
+        
+        public void setMaxSymbols(int maxSymbols) {
+            this.maxSymbols = maxSymbols;
+        }
+        
+        public int getMaxMissedSamples() {
+            return maxMissedSamples;
+        }
+        
+        public void setMaxMissedSamples(int maxMissedSamples) {
+            this.maxMissedSamples = maxMissedSamples;
+        }
+        
+        public int getSnapshotSymbols() {
+            return snapshotSymbols;
+        }
+        
+        public void setSnapshotSymbols(int snapshotSymbols) {
+            this.snapshotSymbols = snapshotSymbols;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.realtime.realtimedatapipeline.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tiering of old stock_quotes days into columnar files on local disk
+ */
+@Component
+@ConfigurationProperties(prefix = "app.archive")
+public class ArchiveProperties {
+
+    private boolean enabled = true;
+    private String directory = "./data/archive";
+    // Quote days younger than this stay in Postgres
+    private int hotDays = 30;
+    // Rows per block; a block never spans two symbols
+    private int blockRows = 8192;
+    private int maxDaysPerRun = 7;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public int getHotDays() {
+        return hotDays;
+    }
+
+    public void setHotDays(int hotDays) {
+        this.hotDays = hotDays;
+    }
+
+    public int getBlockRows() {
+        return blockRows;
+    }
+
+    public void setBlockRows(int blockRows) {
+        this.blockRows = blockRows;
+    }
+
+    public int getMaxDaysPerRun() {
+        return maxDaysPerRun;
+    }
+
+    public void setMaxDaysPerRun(int maxDaysPerRun) {
+        this.maxDaysPerRun = maxDaysPerRun;
+    }
+}
@@ -12,6 +12,10 @@ public class FinnhubProperties {
     private String apiKey;
     private String baseUrl = "https://finnhub.io/api/v1";
     private Duration timeout = Duration.ofSeconds(30);
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Hedging hedging = new Hedging();
+    private Transport transport = new Transport();
+    private ProfileCache profileCache = new ProfileCache();
     
     public String getApiKey() {
         return apiKey;
@@ -36,4 +40,311 @@ public class FinnhubProperties {
     public void setTimeout(Duration timeout) {
         this.timeout = timeout;
     }
-}
\ No newline at end of file
+    
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+    
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+    
+    public Hedging getHedging() {
+        return hedging;
+    }
+    
+    public void setHedging(Hedging hedging) {
+        this.hedging = hedging;
+    }
+    
+    public Transport getTransport() {
+        return transport;
+    }
+    
+    public void setTransport(Transport transport) {
+        this.transport = transport;
+    }
+    
+    public ProfileCache getProfileCache() {
+        return profileCache;
+    }
+    
+    public void setProfileCache(ProfileCache profileCache) {
+        this.profileCache = profileCache;
+    }
+    
+    /**
+     * Passive health and circuit breaker settings, evaluated over a window of real requests
+     */
+    public static class CircuitBreaker {
+        
+        private int windowSize = 100;
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 0.5;
+        private Duration slowCallThreshold = Duration.ofSeconds(5);
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 3;
+        
+        public int getWindowSize() {
+            return windowSize;
+        }
+        
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+        
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+        
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+        
+        public double getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+        
+        public void setFailureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+        
+        public Duration getSlowCallThreshold() {
+            return slowCallThreshold;
+        }
+        
+        public void setSlowCallThreshold(Duration slowCallThreshold) {
+            this.slowCallThreshold = slowCallThreshold;
+        }
+        
+        public Duration getOpenDuration() {
+            return openDuration;
+        }
+        
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+        
+        public int getHalfOpenCalls() {
+            return halfOpenCalls;
+        }
+        
+        public void setHalfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+        }
+    }
+    
+    /**
+     * Hedged quote requests: a second request is sent once the first has been outstanding longer
+     * than the observed latency percentile, and whichever answers first wins
+     */
+    public static class Hedging {
+        
+        private boolean enabled = true;
+        private double percentile = 0.95;
+        private Duration minDelay = Duration.ofMillis(50);
+        private Duration initialDelay = Duration.ofSeconds(1);
+        private int minSamples = 20;
+        private double maxRatio = 0.05;
+        private int burst = 5;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public double getPercentile() {
+            return percentile;
+        }
+        
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+        
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+        
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+        
+        public Duration getInitialDelay() {
+            return initialDelay;
+        }
+        
+        public void setInitialDelay(Duration initialDelay) {
+            this.initialDelay = initialDelay;
+        }
+        
+        public int getMinSamples() {
+            return minSamples;
+        }
+        
+        public void setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+        }
+        
+        public double getMaxRatio() {
+            return maxRatio;
+        }
+        
+        public void setMaxRatio(double maxRatio) {
+            this.maxRatio = maxRatio;
+        }
+        
+        public int getBurst() {
+            return burst;
+        }
+        
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+    }
+    
+    /**
+     * HTTP transport: connection pool, keep-alive, compression and protocol settings.
+     * In-flight requests are bounded by max-connections plus max-pending-acquires.
+     */
+    public static class Transport {
+        
+        private int maxConnections = 50;
+        private int maxPendingAcquires = 256;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictInterval = Duration.ofSeconds(15);
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        private boolean compression = true;
+        private boolean http2 = true;
+        
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+        
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+        
+        public int getMaxPendingAcquires() {
+            return maxPendingAcquires;
+        }
+        
+        public void setMaxPendingAcquires(int maxPendingAcquires) {
+            this.maxPendingAcquires = maxPendingAcquires;
+        }
+        
+        public Duration getPendingAcquireTimeout() {
+            return pendingAcquireTimeout;
+        }
+        
+        public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) {
+            this.pendingAcquireTimeout = pendingAcquireTimeout;
+        }
+        
+        public Duration getMaxIdleTime() {
+            return maxIdleTime;
+        }
+        
+        public void setMaxIdleTime(Duration maxIdleTime) {
+            this.maxIdleTime = maxIdleTime;
+        }
+        
+        public Duration getMaxLifeTime() {
+            return maxLifeTime;
+        }
+        
+        public void setMaxLifeTime(Duration maxLifeTime) {
+            this.maxLifeTime = maxLifeTime;
+        }
+        
+        public Duration getEvictInterval() {
+            return evictInterval;
+        }
+        
+        public void setEvictInterval(Duration evictInterval) {
+            this.evictInterval = evictInterval;
+        }
+        
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+        
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+        
+        public boolean isCompression() {
+            return compression;
+        }
+        
+        public void setCompression(boolean compression) {
+            this.compression = compression;
+        }
+        
+        public boolean isHttp2() {
+            return http2;
+        }
+        
+        public void setHttp2(boolean http2) {
+            this.http2 = http2;
+        }
+    }
+    
+    /**
+     * Company profile cache: names are refreshed in the background once older than refresh-after
+     * and dropped once older than expire-after
+     */
+    public static class ProfileCache {
+        
+        // Kept above app.stocks.max-symbols so tracked names are never evicted
+        private long maximumSize = 25_000;
+        private Duration refreshAfter = Duration.ofHours(24);
+        private Duration expireAfter = Duration.ofDays(7);
+        private Duration lookupTimeout = Duration.ofSeconds(3);
+        private int warmupConcurrency = 8;
+        
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+        
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+        
+        public Duration getRefreshAfter() {
+            return refreshAfter;
+        }
+        
+        public void setRefreshAfter(Duration refreshAfter) {
+            this.refreshAfter = refreshAfter;
+        }
+        
+        public Duration getExpireAfter() {
+            return expireAfter;
+        }
+        
+        public void setExpireAfter(Duration expireAfter) {
+            this.expireAfter = expireAfter;
+        }
+        
+        public Duration getLookupTimeout() {
+            return lookupTimeout;
+        }
+        
+        public void setLookupTimeout(Duration lookupTimeout) {
+            this.lookupTimeout = lookupTimeout;
+        }
+        
+        public int getWarmupConcurrency() {
+            return warmupConcurrency;
+        }
+        
+        public void setWarmupConcurrency(int warmupConcurrency) {
+            this.warmupConcurrency = warmupConcurrency;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.realtime.realtimedatapipeline.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * On-demand Flight Recorder recordings of the pipeline stage events, controlled through the
+ * flightrecorder actuator endpoint, and an optional stream that turns the events into metrics
+ */
+@Component
+@ConfigurationProperties(prefix = "app.flight-recorder")
+public class FlightRecorderProperties {
+
+    // JDK settings for JVM events in a recording: "default" (about 1% overhead) or "profile" (about 2%)
+    private String settings = "profile";
+    private Duration maxAge = Duration.ofMinutes(30);
+    private long maxSizeMb = 256;
+    private String dumpDirectory = "./data/recordings";
+    // Stage passes shorter than this are not recorded or streamed
+    private Duration stageThreshold = Duration.ZERO;
+    private boolean stackTraces = false;
+    // Keep the stage events enabled at all times and record their durations as pipeline.stage.duration timers
+    private boolean metricsBridge = false;
+
+    public String getSettings() {
+        return settings;
+    }
+
+    public void setSettings(String settings) {
+        this.settings = settings;
+    }
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(Duration maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public long getMaxSizeMb() {
+        return maxSizeMb;
+    }
+
+    public void setMaxSizeMb(long maxSizeMb) {
+        this.maxSizeMb = maxSizeMb;
+    }
+
+    public String getDumpDirectory() {
+        return dumpDirectory;
+    }
+
+    public void setDumpDirectory(String dumpDirectory) {
+        this.dumpDirectory = dumpDirectory;
+    }
+
+    public Duration getStageThreshold() {
+        return stageThreshold;
+    }
+
+    public void setStageThreshold(Duration stageThreshold) {
+        this.stageThreshold = stageThreshold;
+    }
+
+    public boolean isStackTraces() {
+        return stackTraces;
+    }
+
+    public void setStackTraces(boolean stackTraces) {
+        this.stackTraces = stackTraces;
+    }
+
+    public boolean isMetricsBridge() {
+        return metricsBridge;
+    }
+
+    public void setMetricsBridge(boolean metricsBridge) {
+        this.metricsBridge = metricsBridge;
+    }
+}
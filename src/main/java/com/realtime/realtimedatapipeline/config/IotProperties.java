@@ -0,0 +1,120 @@
+package com.realtime.realtimedatapipeline.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * IoT sensor ingestion: HTTP batches are published keyed by sensor, consumed in large batches,
+ * COPYed into events.iot_sensors and folded into windowed per-sensor and per-location aggregates
+ */
+@Component
+@ConfigurationProperties(prefix = "app.iot")
+public class IotProperties {
+
+    private boolean enabled = true;
+    private int partitions = 12;
+    private int concurrency = 6;
+    // Readings accepted per ingest request
+    private int maxRequestReadings = 10_000;
+    private int maxPollRecords = 5_000;
+    // Producer batching for this topic only; quotes keep the global producer settings
+    private int lingerMs = 20;
+    private int batchSize = 256 * 1024;
+    private String compression = "lz4";
+    // How long an ingest request waits for Kafka to acknowledge its readings
+    private Duration publishTimeout = Duration.ofSeconds(10);
+    // Tumbling aggregate windows, aligned to the epoch, by reading timestamp
+    private Duration window = Duration.ofMinutes(1);
+    // Keys without a reading for this many windows are dropped from memory
+    private int retainedWindows = 10;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public int getMaxRequestReadings() {
+        return maxRequestReadings;
+    }
+
+    public void setMaxRequestReadings(int maxRequestReadings) {
+        this.maxRequestReadings = maxRequestReadings;
+    }
+
+    public int getMaxPollRecords() {
+        return maxPollRecords;
+    }
+
+    public void setMaxPollRecords(int maxPollRecords) {
+        this.maxPollRecords = maxPollRecords;
+    }
+
+    public int getLingerMs() {
+        return lingerMs;
+    }
+
+    public void setLingerMs(int lingerMs) {
+        this.lingerMs = lingerMs;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public String getCompression() {
+        return compression;
+    }
+
+    public void setCompression(String compression) {
+        this.compression = compression;
+    }
+
+    public Duration getPublishTimeout() {
+        return publishTimeout;
+    }
+
+    public void setPublishTimeout(Duration publishTimeout) {
+        this.publishTimeout = publishTimeout;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public void setWindow(Duration window) {
+        this.window = window;
+    }
+
+    public int getRetainedWindows() {
+        return retainedWindows;
+    }
+
+    public void setRetainedWindows(int retainedWindows) {
+        this.retainedWindows = retainedWindows;
+    }
+}
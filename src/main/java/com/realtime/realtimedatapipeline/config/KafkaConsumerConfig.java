@@ -0,0 +1,113 @@
+package com.realtime.realtimedatapipeline.config;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaRetryTopic;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+import org.springframework.util.backoff.FixedBackOff;
+
+/**
+ * Kafka listener container factories used by the consumers.
+ * Also enables the non-blocking retry topic infrastructure behind {@code @RetryableTopic}.
+ */
+@Configuration
+@EnableKafkaRetryTopic
+public class KafkaConsumerConfig {
+    
+    /** Redeliveries of a failed batch before its records are dead-lettered: 1s doubling to 30s, about three minutes */
+    static final int BATCH_RETRIES = 10;
+    
+    /**
+     * Batch listener factory for the quote persistence path, so each poll is written with one upsert.
+     * Offsets are committed by the listener itself once a batch (or a per-partition prefix of it) is processed.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> stockQuoteBatchListenerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            KafkaConsumerProperties consumerProperties) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(consumerProperties.getConcurrency());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+    
+    /**
+     * Batch listener factory for sensor readings: offsets are committed after each batch, and a batch
+     * whose write fails is redelivered whole with exponential backoff, then dead-lettered record by
+     * record to {@code <topic>-dlt}, from where {@code POST /api/dlq/{topic}/redrive} re-publishes it
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> sensorReadingBatchListenerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            KafkaTemplate<String, Object> kafkaTemplate,
+            IotProperties iotProperties) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(iotProperties.getConcurrency());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.setCommonErrorHandler(deadLetteringErrorHandler(kafkaTemplate));
+        return factory;
+    }
+    
+    /**
+     * Batch listener factory for transactions, with the same redelivery and dead-lettering as sensor readings:
+     * a batch and its hourly rollup commit together, so a redelivered batch only adds what was missing
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> transactionBatchListenerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            KafkaTemplate<String, Object> kafkaTemplate,
+            TransactionProperties transactionProperties) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(transactionProperties.getConcurrency());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.setCommonErrorHandler(deadLetteringErrorHandler(kafkaTemplate));
+        return factory;
+    }
+    
+    /**
+     * Batch listener factory for shipped log events: one thread is plenty for sampled logs, and a
+     * batch that cannot be written is retried twice before it is skipped rather than holding up newer logs
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> systemLogBatchListenerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(1);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(1000L, 2)));
+        return factory;
+    }
+    
+    /**
+     * Error handler that redelivers a failed batch with exponential backoff and, once retries run out,
+     * publishes each of its records to {@code <topic>-dlt} on the same partition instead of dropping them
+     */
+    static DefaultErrorHandler deadLetteringErrorHandler(KafkaTemplate<String, Object> kafkaTemplate) {
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(BATCH_RETRIES);
+        backOff.setInitialInterval(1000L);
+        backOff.setMultiplier(2.0);
+        backOff.setMaxInterval(30_000L);
+        return new DefaultErrorHandler(new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, exception) -> new TopicPartition(record.topic() + "-dlt", record.partition())), backOff);
+    }
+}
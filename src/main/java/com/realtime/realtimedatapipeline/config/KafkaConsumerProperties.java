@@ -0,0 +1,142 @@
+package com.realtime.realtimedatapipeline.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "app.kafka.consumer")
+public class KafkaConsumerProperties {
+    
+    private int partitions = 8;
+    private int concurrency = 1;
+    private int lanes = 0;
+    private Lag lag = new Lag();
+    
+    /**
+     * Partition count for the stock-quotes topic; upper bound for useful listener concurrency
+     */
+    public int getPartitions() {
+        return partitions;
+    }
+    
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+    
+    /**
+     * Number of listener container threads (one Kafka consumer each), capped at the partition count
+     */
+    public int getConcurrency() {
+        return Math.max(1, Math.min(concurrency, partitions));
+    }
+    
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+    
+    /**
+     * Number of key-ordered processing lanes shared by all listener threads.
+     * 0 means one lane per available core; 1 processes every batch strictly in sequence.
+     */
+    public int getLanes() {
+        return lanes > 0 ? lanes : Runtime.getRuntime().availableProcessors();
+    }
+    
+    public void setLanes(int lanes) {
+        this.lanes = lanes;
+    }
+    
+    public Lag getLag() {
+        return lag;
+    }
+    
+    public void setLag(Lag lag) {
+        this.lag = lag;
+    }
+    
+    /**
+     * Consumer lag sampling, persisted to monitoring.kafka_consumer_lag, and the fetch throttle it drives
+     */
+    public static class Lag {
+        
+        private boolean enabled = true;
+        private List<String> groups = List.of("stock-quote-consumer-group", "stock-quote-retry-group",
+                "stock-alert-consumer-group", "iot-sensor-consumer-group", "transaction-consumer-group",
+                "system-log-consumer-group");
+        private Duration sampleInterval = Duration.ofSeconds(15);
+        private Duration flushInterval = Duration.ofMinutes(1);
+        // Samples buffered before an early flush; the buffer never holds more than ten times this
+        private int flushSize = 500;
+        private String throttleGroup = "stock-quote-consumer-group";
+        // Lag of the throttle group at which fetch cycles start being skipped; 0 disables throttling
+        private long throttleLag = 10_000;
+        private int maxThrottleFactor = 6;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public List<String> getGroups() {
+            return groups;
+        }
+        
+        public void setGroups(List<String> groups) {
+            this.groups = groups;
+        }
+        
+        public Duration getSampleInterval() {
+            return sampleInterval;
+        }
+        
+        public void setSampleInterval(Duration sampleInterval) {
+            this.sampleInterval = sampleInterval;
+        }
+        
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+        
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+        
+        public int getFlushSize() {
+            return flushSize;
+        }
+        
+        public void setFlushSize(int flushSize) {
+            this.flushSize = flushSize;
+        }
+        
+        public String getThrottleGroup() {
+            return throttleGroup;
+        }
+        
+        public void setThrottleGroup(String throttleGroup) {
+            this.throttleGroup = throttleGroup;
+        }
+        
+        public long getThrottleLag() {
+            return throttleLag;
+        }
+        
+        public void setThrottleLag(long throttleLag) {
+            this.throttleLag = throttleLag;
+        }
+        
+        public int getMaxThrottleFactor() {
+            return maxThrottleFactor;
+        }
+        
+        public void setMaxThrottleFactor(int maxThrottleFactor) {
+            this.maxThrottleFactor = maxThrottleFactor;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.realtime.realtimedatapipeline.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+/**
+ * Topic declarations created (or grown) by the auto-configured KafkaAdmin on startup
+ */
+@Configuration
+public class KafkaTopicConfig {
+    
+    @Value("${app.kafka.topics.stock-quotes-raw}")
+    private String stockQuotesRawTopic;
+    
+    @Value("${app.kafka.topics.stock-quotes-latest}")
+    private String stockQuotesLatestTopic;
+    
+    @Value("${app.kafka.topics.iot-sensor-readings}")
+    private String sensorReadingsTopic;
+    
+    @Value("${app.kafka.topics.transactions}")
+    private String transactionsTopic;
+    
+    @Value("${app.kafka.topics.system-logs}")
+    private String systemLogsTopic;
+    
+    /**
+     * Raw quotes topic, partitioned so listener concurrency can scale with cores.
+     * Growing the partition count remaps symbols to partitions, so only change it while the pipeline is drained.
+     */
+    @Bean
+    public NewTopic stockQuotesRawTopic(KafkaConsumerProperties consumerProperties) {
+        return TopicBuilder.name(stockQuotesRawTopic)
+                .partitions(consumerProperties.getPartitions())
+                .replicas(1)
+                .build();
+    }
+    
+    /**
+     * Latest quote per symbol. Compaction keeps one record per key, so the topic stays as small as
+     * the symbol universe and any instance can read it end to end on boot. Short segments and a low
+     * dirty ratio let the cleaner catch up quickly between fetch cycles.
+     */
+    @Bean
+    public NewTopic stockQuotesLatestTopic() {
+        return TopicBuilder.name(stockQuotesLatestTopic)
+                .partitions(1)
+                .replicas(1)
+                .compact()
+                .config(TopicConfig.SEGMENT_MS_CONFIG, "600000")
+                .config(TopicConfig.MIN_CLEANABLE_DIRTY_RATIO_CONFIG, "0.1")
+                .build();
+    }
+    
+    /**
+     * Sensor readings keyed by sensor id. Readings are persisted within seconds, so a day of
+     * retention only has to cover consumer outages.
+     */
+    @Bean
+    public NewTopic sensorReadingsTopic(IotProperties iotProperties) {
+        return TopicBuilder.name(sensorReadingsTopic)
+                .partitions(iotProperties.getPartitions())
+                .replicas(1)
+                .config(TopicConfig.RETENTION_MS_CONFIG, "86400000")
+                .build();
+    }
+    
+    /**
+     * Transactions keyed by transaction id. Kept for a week, so the stored transactions and their
+     * hourly stats can be rebuilt by replaying the topic into emptied tables.
+     */
+    @Bean
+    public NewTopic transactionsTopic(TransactionProperties transactionProperties) {
+        return TopicBuilder.name(transactionsTopic)
+                .partitions(transactionProperties.getPartitions())
+                .replicas(1)
+                .config(TopicConfig.RETENTION_MS_CONFIG, "604800000")
+                .build();
+    }
+    
+    /**
+     * Sensor readings whose batch could not be written after every redelivery. Same partitions as
+     * the source topic, since a dead letter keeps its partition; kept for a week to leave time to redrive.
+     */
+    @Bean
+    public NewTopic sensorReadingsDeadLetterTopic(IotProperties iotProperties) {
+        return TopicBuilder.name(sensorReadingsTopic + "-dlt")
+                .partitions(iotProperties.getPartitions())
+                .replicas(1)
+                .config(TopicConfig.RETENTION_MS_CONFIG, "604800000")
+                .build();
+    }
+    
+    /**
+     * Transactions whose batch could not be written after every redelivery, laid out like the
+     * sensor reading dead letters
+     */
+    @Bean
+    public NewTopic transactionsDeadLetterTopic(TransactionProperties transactionProperties) {
+        return TopicBuilder.name(transactionsTopic + "-dlt")
+                .partitions(transactionProperties.getPartitions())
+                .replicas(1)
+                .config(TopicConfig.RETENTION_MS_CONFIG, "604800000")
+                .build();
+    }
+    
+    /**
+     * Shipped application log events. Kept for a day, like sensor readings, to cover consumer outages.
+     */
+    @Bean
+    public NewTopic systemLogsTopic(LogSinkProperties logSinkProperties) {
+        return TopicBuilder.name(systemLogsTopic)
+                .partitions(logSinkProperties.getPartitions())
+                .replicas(1)
+                .config(TopicConfig.RETENTION_MS_CONFIG, "86400000")
+                .build();
+    }
+}
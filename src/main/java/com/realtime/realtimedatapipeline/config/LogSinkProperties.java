@@ -0,0 +1,112 @@
+package com.realtime.realtimedatapipeline.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Structured log sink: application log events are filtered and sampled on the logging thread, queued
+ * in a ring buffer, shipped through Kafka and written to events.system_logs in batches
+ */
+@Component
+@ConfigurationProperties(prefix = "app.log-sink")
+public class LogSinkProperties {
+
+    private boolean enabled = true;
+    // Events below this level are never captured
+    private String level = "INFO";
+    // Fraction of captured events below WARN that are kept; WARN and ERROR are always kept
+    private double sampleRate = 0.1;
+    // Logger name prefixes never captured: Kafka's own logs would feed back into the sink
+    private List<String> excludedLoggers = List.of("org.apache.kafka", "org.springframework.kafka",
+            "com.realtime.realtimedatapipeline.logging");
+    // Ring buffer slots, rounded up to a power of two; events are dropped while it is full
+    private int bufferSize = 8_192;
+    private Duration flushInterval = Duration.ofSeconds(1);
+    private int maxMessageLength = 4_000;
+    private int maxStackLength = 16_000;
+    private int partitions = 3;
+    private int maxPollRecords = 2_000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getLevel() {
+        return level;
+    }
+
+    public void setLevel(String level) {
+        this.level = level;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public List<String> getExcludedLoggers() {
+        return excludedLoggers;
+    }
+
+    public void setExcludedLoggers(List<String> excludedLoggers) {
+        this.excludedLoggers = excludedLoggers;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public int getMaxMessageLength() {
+        return maxMessageLength;
+    }
+
+    public void setMaxMessageLength(int maxMessageLength) {
+        this.maxMessageLength = maxMessageLength;
+    }
+
+    public int getMaxStackLength() {
+        return maxStackLength;
+    }
+
+    public void setMaxStackLength(int maxStackLength) {
+        this.maxStackLength = maxStackLength;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    public int getMaxPollRecords() {
+        return maxPollRecords;
+    }
+
+    public void setMaxPollRecords(int maxPollRecords) {
+        this.maxPollRecords = maxPollRecords;
+    }
+}
@@ -0,0 +1,58 @@
+package com.realtime.realtimedatapipeline.config;
+
+import com.realtime.realtimedatapipeline.model.AlertEvent;
+import com.realtime.realtimedatapipeline.model.AlertRule;
+import com.realtime.realtimedatapipeline.model.CompanyProfile;
+import com.realtime.realtimedatapipeline.model.FinnhubQuoteResponse;
+import com.realtime.realtimedatapipeline.model.HourlyTransactionStats;
+import com.realtime.realtimedatapipeline.model.IndicatorSnapshot;
+import com.realtime.realtimedatapipeline.model.IngestResult;
+import com.realtime.realtimedatapipeline.model.SensorReading;
+import com.realtime.realtimedatapipeline.model.SensorWindow;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import com.realtime.realtimedatapipeline.model.SystemLogEvent;
+import com.realtime.realtimedatapipeline.model.TransactionEvent;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Duration;
+
+/**
+ * Reflection hints for the AOT / native-image build that Spring cannot infer on its own:
+ * JSON-bound payloads and the Kafka serdes, which Kafka instantiates from class names in config
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHintsConfig.PipelineRuntimeHints.class)
+public class NativeHintsConfig {
+
+    static class PipelineRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Jackson binding: Kafka JSON payloads, API responses and REST bodies
+            new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                    StockQuoteEvent.class, FinnhubQuoteResponse.class, CompanyProfile.class, IndicatorSnapshot.class,
+                    AlertRule.class, AlertEvent.class, SensorReading.class, SensorWindow.class,
+                    TransactionEvent.class, HourlyTransactionStats.class, IngestResult.class, SystemLogEvent.class);
+
+            // Created reflectively by the Kafka clients from the spring.kafka.* class names
+            for (Class<?> serde : new Class<?>[] {StringSerializer.class, StringDeserializer.class,
+                    JsonSerializer.class, JsonDeserializer.class, ErrorHandlingDeserializer.class}) {
+                hints.reflection().registerType(serde, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            }
+
+            // The scheduler's fixedRateString SpEL expression calls these
+            hints.reflection().registerType(StockProperties.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+            hints.reflection().registerType(Duration.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+}
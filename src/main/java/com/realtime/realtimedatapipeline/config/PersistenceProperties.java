@@ -0,0 +1,49 @@
+package com.realtime.realtimedatapipeline.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.persistence")
+public class PersistenceProperties {
+
+    /**
+     * What to do when a quote with the same (symbol, market_timestamp) already exists
+     */
+    public enum ConflictAction {
+        UPDATE,
+        NOTHING
+    }
+
+    private ConflictAction conflictAction = ConflictAction.UPDATE;
+    private int batchSize = 500;
+    /**
+     * Delete duplicate (symbol, market_timestamp) rows and add the missing unique key at startup;
+     * when off, startup fails instead
+     */
+    private boolean repairUniqueKey = true;
+
+    public ConflictAction getConflictAction() {
+        return conflictAction;
+    }
+
+    public void setConflictAction(ConflictAction conflictAction) {
+        this.conflictAction = conflictAction;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public boolean isRepairUniqueKey() {
+        return repairUniqueKey;
+    }
+
+    public void setRepairUniqueKey(boolean repairUniqueKey) {
+        this.repairUniqueKey = repairUniqueKey;
+    }
+}
@@ -13,7 +13,9 @@ import java.util.concurrent.Executor;
  */
 @Configuration
 @EnableScheduling
-@EnableAsync
+// Class proxies: async beans such as StockDataScheduler also implement interfaces (SnapshotParticipant)
+// that do not declare their @Async and @Scheduled methods
+@EnableAsync(proxyTargetClass = true)
 public class SchedulingConfig {
     
     @Bean(name = "taskExecutor")
@@ -28,4 +30,21 @@ public class SchedulingConfig {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Threads for quote fetches, which block on the Finnhub call; the scheduler keeps at most
+     * fetch-concurrency of them queued or running
+     */
+    @Bean(name = "quoteFetchExecutor")
+    public ThreadPoolTaskExecutor quoteFetchExecutor(StockProperties stockProperties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(stockProperties.getFetchConcurrency());
+        executor.setMaxPoolSize(stockProperties.getFetchConcurrency());
+        executor.setQueueCapacity(stockProperties.getFetchConcurrency());
+        executor.setThreadNamePrefix("QuoteFetch-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,52 @@
+package com.realtime.realtimedatapipeline.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Periodic binary snapshots of in-memory pipeline state, restored at startup
+ */
+@Component
+@ConfigurationProperties(prefix = "app.snapshot")
+public class SnapshotProperties {
+
+    private boolean enabled = true;
+    private String directory = "./data/snapshot";
+    private Duration interval = Duration.ofMinutes(1);
+    // Older snapshots are ignored at startup rather than restoring long-outdated state
+    private Duration maxAge = Duration.ofDays(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(Duration maxAge) {
+        this.maxAge = maxAge;
+    }
+}
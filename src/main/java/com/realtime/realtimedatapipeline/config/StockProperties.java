@@ -12,7 +12,14 @@ public class StockProperties {
     
     private List<String> symbols = List.of("AAPL", "GOOGL", "MSFT", "TSLA", "AMZN");
     private Duration updateInterval = Duration.ofSeconds(10);
+    private int maxSymbols = 20_000;
+    private int fetchConcurrency = 16;
+    private double fetchRate = 30.0;
     
+    /**
+     * Initial symbol universe, used to seed the symbol registry while tracked_symbols is empty.
+     * After that the registry is authoritative; read the tracked symbols from SymbolRegistry.
+     */
     public List<String> getSymbols() {
         return symbols;
     }
@@ -28,4 +35,37 @@ public class StockProperties {
     public void setUpdateInterval(Duration updateInterval) {
         this.updateInterval = updateInterval;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Upper bound on the symbols the registry will track at once
+     */
+    public int getMaxSymbols() {
+        return maxSymbols;
+    }
+    
+    public void setMaxSymbols(int maxSymbols) {
+        this.maxSymbols = maxSymbols;
+    }
+    
+    /**
+     * Quote requests in flight at once, each on a thread of the dedicated quote fetch pool
+     */
+    public int getFetchConcurrency() {
+        return fetchConcurrency;
+    }
+    
+    public void setFetchConcurrency(int fetchConcurrency) {
+        this.fetchConcurrency = fetchConcurrency;
+    }
+    
+    /**
+     * Quote requests started per second across a cycle, at most; 0 for no limit
+     */
+    public double getFetchRate() {
+        return fetchRate;
+    }
+    
+    public void setFetchRate(double fetchRate) {
+        this.fetchRate = fetchRate;
+    }
+}
@@ -0,0 +1,71 @@
+package com.realtime.realtimedatapipeline.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Transaction ingestion: HTTP batches are published keyed by transaction id, inserted into
+ * events.transactions once per transaction id, and rolled up into analytics.hourly_transaction_stats
+ */
+@Component
+@ConfigurationProperties(prefix = "app.transactions")
+public class TransactionProperties {
+
+    private boolean enabled = true;
+    private int partitions = 6;
+    private int concurrency = 3;
+    // Transactions accepted per ingest request
+    private int maxRequestTransactions = 5_000;
+    // Transactions per insert and rollup transaction
+    private int maxPollRecords = 1_000;
+    // Widest range the range queries accept, in hours
+    private int maxQueryHours = 24 * 31;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public int getMaxRequestTransactions() {
+        return maxRequestTransactions;
+    }
+
+    public void setMaxRequestTransactions(int maxRequestTransactions) {
+        this.maxRequestTransactions = maxRequestTransactions;
+    }
+
+    public int getMaxPollRecords() {
+        return maxPollRecords;
+    }
+
+    public void setMaxPollRecords(int maxPollRecords) {
+        this.maxPollRecords = maxPollRecords;
+    }
+
+    public int getMaxQueryHours() {
+        return maxQueryHours;
+    }
+
+    public void setMaxQueryHours(int maxQueryHours) {
+        this.maxQueryHours = maxQueryHours;
+    }
+}
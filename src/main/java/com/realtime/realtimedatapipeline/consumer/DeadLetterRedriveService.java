@@ -0,0 +1,185 @@
+package com.realtime.realtimedatapipeline.consumer;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Re-publishes dead-lettered records to the topic they originally failed on. A quote that was already
+ * written before it failed goes back to the entry topic of its retry chain instead, with its progress
+ * headers, so it resumes at the effect that failed rather than being written and applied again.
+ * Partitions are assigned directly rather than subscribed, so no group rebalance delays the first fetch;
+ * progress is still committed under a dedicated consumer group, so every dead letter is re-driven once.
+ */
+@Service
+public class DeadLetterRedriveService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterRedriveService.class);
+    
+    private static final String REDRIVE_GROUP = "dead-letter-redrive-group";
+    private static final String REDRIVEN_FROM_HEADER = "x-redriven-from";
+    private static final String DEAD_LETTER_SUFFIX = "-dlt";
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+    private static final Duration REDRIVE_TIMEOUT = Duration.ofMinutes(1);
+    
+    private final ConsumerFactory<Object, Object> consumerFactory;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final RetryMetrics retryMetrics;
+    
+    // Serializes re-drives of the same topic; the group's offsets would otherwise be committed concurrently
+    private final Map<String, Object> topicLocks = new ConcurrentHashMap<>();
+    
+    public DeadLetterRedriveService(ConsumerFactory<Object, Object> consumerFactory,
+                                    KafkaTemplate<String, Object> kafkaTemplate,
+                                    RetryMetrics retryMetrics) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+        this.retryMetrics = retryMetrics;
+    }
+    
+    /**
+     * Re-drive up to maxRecords records from a dead-letter topic. The end offsets are captured up front
+     * and the topic is read until every partition reaches them, so an empty poll while the consumer is
+     * still fetching does not end the re-drive early and records dead-lettered meanwhile wait for the next call.
+     * @param deadLetterTopic Dead-letter topic to drain (e.g. "stock-quotes-retry-dlt")
+     * @param maxRecords Upper bound on records re-published in this call
+     * @return Summary with the number of records re-driven per target topic
+     */
+    public Map<String, Object> redrive(String deadLetterTopic, int maxRecords) {
+        synchronized (topicLocks.computeIfAbsent(deadLetterTopic, topic -> new Object())) {
+            Map<String, Integer> redrivenByTarget = new HashMap<>();
+            int redriven = 0;
+            boolean complete = true;
+            
+            try (Consumer<Object, Object> consumer = consumerFactory.createConsumer(REDRIVE_GROUP, "redrive")) {
+                List<TopicPartition> partitions = partitionsOf(consumer, deadLetterTopic);
+                Map<TopicPartition, Long> endOffsets = new HashMap<>(consumer.endOffsets(partitions));
+                seekToStart(consumer, partitions);
+                Set<TopicPartition> remaining = new HashSet<>(partitions);
+                remaining.removeIf(partition -> consumer.position(partition) >= endOffsets.getOrDefault(partition, 0L));
+                
+                long deadline = System.nanoTime() + REDRIVE_TIMEOUT.toNanos();
+                while (redriven < maxRecords && !remaining.isEmpty()) {
+                    if (System.nanoTime() - deadline > 0) {
+                        complete = false;
+                        logger.warn("Re-drive of {} stopped after {} short of the end offsets on {}",
+                                deadLetterTopic, REDRIVE_TIMEOUT, remaining);
+                        break;
+                    }
+                    ConsumerRecords<Object, Object> records = consumer.poll(POLL_TIMEOUT);
+                    
+                    Map<TopicPartition, OffsetAndMetadata> progress = new HashMap<>();
+                    List<CompletableFuture<?>> sends = new ArrayList<>();
+                    for (ConsumerRecord<Object, Object> record : records) {
+                        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                        if (redriven >= maxRecords) {
+                            break;
+                        }
+                        if (record.offset() >= endOffsets.getOrDefault(partition, 0L)) {
+                            // Dead-lettered after this re-drive started
+                            continue;
+                        }
+                        String target = targetTopic(deadLetterTopic, record);
+                        ProducerRecord<String, Object> republished = new ProducerRecord<>(target,
+                                record.key() != null ? record.key().toString() : null, record.value());
+                        RetryTopicRouter.copyChainHeaders(record, republished);
+                        republished.headers().add(REDRIVEN_FROM_HEADER, deadLetterTopic.getBytes(StandardCharsets.UTF_8));
+                        sends.add(kafkaTemplate.send(republished));
+                        progress.put(partition, new OffsetAndMetadata(record.offset() + 1));
+                        redrivenByTarget.merge(target, 1, Integer::sum);
+                        redriven++;
+                    }
+                    
+                    // Only advance the re-drive group once the broker has every re-published record
+                    if (!progress.isEmpty()) {
+                        CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0])).join();
+                        consumer.commitSync(progress);
+                    }
+                    // Positions also step over transaction markers, which no poll returns
+                    remaining.removeIf(partition -> consumer.position(partition) >= endOffsets.getOrDefault(partition, 0L));
+                }
+            }
+            
+            retryMetrics.recordRedriven(redriven);
+            logger.info("Re-drove {} records from {}: {}", redriven, deadLetterTopic, redrivenByTarget);
+            return Map.of(
+                "deadLetterTopic", deadLetterTopic,
+                "redriven", redriven,
+                "targets", redrivenByTarget,
+                "complete", complete
+            );
+        }
+    }
+    
+    private static List<TopicPartition> partitionsOf(Consumer<?, ?> consumer, String topic) {
+        List<PartitionInfo> infos = consumer.partitionsFor(topic);
+        if (infos == null) {
+            return List.of();
+        }
+        return infos.stream().map(info -> new TopicPartition(info.topic(), info.partition())).toList();
+    }
+    
+    /**
+     * Assign every partition and resume from the re-drive group's committed offset, or from the
+     * beginning of a partition it has never re-driven
+     */
+    private static void seekToStart(Consumer<?, ?> consumer, List<TopicPartition> partitions) {
+        consumer.assign(partitions);
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(partitions));
+        List<TopicPartition> fresh = new ArrayList<>();
+        for (TopicPartition partition : partitions) {
+            OffsetAndMetadata offset = committed.get(partition);
+            if (offset != null) {
+                consumer.seek(partition, offset.offset());
+            } else {
+                fresh.add(partition);
+            }
+        }
+        if (!fresh.isEmpty()) {
+            // An empty collection would rewind every assigned partition
+            consumer.seekToBeginning(fresh);
+        }
+    }
+    
+    /**
+     * Where a dead letter is re-published: the retry chain's entry topic for a record already written,
+     * since only the retry listener resumes from its progress headers; otherwise its original topic,
+     * the main topic recorded on first failure, else Spring's DLT header
+     */
+    private static String targetTopic(String deadLetterTopic, ConsumerRecord<?, ?> record) {
+        if (RetryTopicRouter.isPersisted(record) && deadLetterTopic.endsWith(DEAD_LETTER_SUFFIX)) {
+            return deadLetterTopic.substring(0, deadLetterTopic.length() - DEAD_LETTER_SUFFIX.length());
+        }
+        Header origin = record.headers().lastHeader(RetryTopicRouter.ORIGIN_TOPIC_HEADER);
+        if (origin == null) {
+            origin = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC);
+        }
+        if (origin == null) {
+            throw new IllegalStateException("Dead letter at " + record.topic() + "@" + record.offset()
+                    + " carries no original topic header");
+        }
+        return new String(origin.value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,76 @@
+package com.realtime.realtimedatapipeline.consumer;
+
+import com.realtime.realtimedatapipeline.config.KafkaConsumerProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed set of single-threaded lanes. A key always hashes to the same lane, so work for
+ * one key runs strictly in submission order while different keys run in parallel.
+ */
+@Component
+public class KeyOrderedExecutor implements DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(KeyOrderedExecutor.class);
+    
+    private final ExecutorService[] lanes;
+    
+    public KeyOrderedExecutor(KafkaConsumerProperties consumerProperties) {
+        int laneCount = consumerProperties.getLanes();
+        this.lanes = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String threadName = "QuoteLane-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        logger.info("Key-ordered executor initialized with {} lanes", laneCount);
+    }
+    
+    public int laneCount() {
+        return lanes.length;
+    }
+    
+    /**
+     * Lane for a key; null keys all share lane 0
+     */
+    public int laneFor(String key) {
+        if (key == null) {
+            return 0;
+        }
+        int h = key.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), lanes.length);
+    }
+    
+    /**
+     * Run a task on the given lane. With a single lane the task runs inline on the caller.
+     */
+    public CompletableFuture<Void> submit(int lane, Runnable task) {
+        if (lanes.length == 1) {
+            task.run();
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(task, lanes[lane]);
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            if (!lane.awaitTermination(30, TimeUnit.SECONDS)) {
+                lane.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.realtime.realtimedatapipeline.consumer;
+
+import com.realtime.realtimedatapipeline.analytics.LeaderboardService;
+import com.realtime.realtimedatapipeline.metrics.StockMetricsService;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import com.realtime.realtimedatapipeline.producer.LatestQuotePublisher;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Rebuilds the in-memory latest-quote state from the compacted latest-quote topic at startup.
+ * The topic holds one record per symbol, so the cost depends on the number of symbols, not on the
+ * size of stock_quotes. Runs in an early lifecycle phase: the web server and the Kafka listener
+ * containers start in late phases, so neither serves or consumes before the state is back.
+ */
+@Component
+public class LatestQuoteBootstrap implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatestQuoteBootstrap.class);
+
+    private static final int PHASE = 0;
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(200);
+
+    private final ConsumerFactory<Object, Object> consumerFactory;
+    private final StockMetricsService metricsService;
+    private final LatestQuotePublisher latestQuotePublisher;
+    private final LeaderboardService leaderboardService;
+    private final String latestTopic;
+    private final Duration bootstrapTimeout;
+
+    private volatile boolean running;
+
+    public LatestQuoteBootstrap(ConsumerFactory<Object, Object> consumerFactory,
+                                StockMetricsService metricsService,
+                                LatestQuotePublisher latestQuotePublisher,
+                                LeaderboardService leaderboardService,
+                                @Value("${app.kafka.topics.stock-quotes-latest}") String latestTopic,
+                                @Value("${app.kafka.latest.bootstrap-timeout:30s}") Duration bootstrapTimeout) {
+        this.consumerFactory = consumerFactory;
+        this.metricsService = metricsService;
+        this.latestQuotePublisher = latestQuotePublisher;
+        this.leaderboardService = leaderboardService;
+        this.latestTopic = latestTopic;
+        this.bootstrapTimeout = bootstrapTimeout;
+    }
+
+    @Override
+    public void start() {
+        long start = System.currentTimeMillis();
+        try {
+            int restored = restore();
+            logger.info("Restored {} latest quotes from {} in {} ms",
+                       restored, latestTopic, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // Start anyway: state fills in from the next fetch cycle, as it did before the topic existed
+            logger.warn("Could not restore latest quotes from {}: {}", latestTopic, e.getMessage());
+        }
+        running = true;
+    }
+
+    /**
+     * Read every partition of the latest-quote topic from the beginning up to the end offsets
+     * observed at startup. Partitions are assigned directly, so no consumer group is joined
+     * and no offsets are committed.
+     */
+    private int restore() {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "2000");
+
+        try (Consumer<Object, Object> consumer = consumerFactory.createConsumer(null, "latest-quote-bootstrap", null, overrides)) {
+            List<PartitionInfo> partitionInfos = consumer.partitionsFor(latestTopic, bootstrapTimeout);
+            if (partitionInfos == null || partitionInfos.isEmpty()) {
+                return 0;
+            }
+            List<TopicPartition> partitions = partitionInfos.stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions, bootstrapTimeout);
+
+            long deadline = System.currentTimeMillis() + bootstrapTimeout.toMillis();
+            int restored = 0;
+            while (!reachedEnd(consumer, endOffsets)) {
+                if (System.currentTimeMillis() > deadline) {
+                    logger.warn("Latest-quote bootstrap timed out after {}; continuing with {} quotes restored",
+                               bootstrapTimeout, restored);
+                    break;
+                }
+                for (ConsumerRecord<Object, Object> record : consumer.poll(POLL_TIMEOUT)) {
+                    // Tombstones and unreadable payloads arrive as null / non-quote values
+                    if (record.value() instanceof StockQuoteEvent quote && quote.getSymbol() != null) {
+                        metricsService.restoreLatest(quote);
+                        latestQuotePublisher.seed(quote);
+                        leaderboardService.onQuote(quote);
+                        restored++;
+                    }
+                }
+            }
+            return restored;
+        }
+    }
+
+    private static boolean reachedEnd(Consumer<?, ?> consumer, Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+            if (consumer.position(end.getKey()) < end.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -0,0 +1,76 @@
+package com.realtime.realtimedatapipeline.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks which records of a polled batch have been fully processed. Records finish out of order
+ * across lanes, so only the contiguous processed prefix of each partition is safe to commit.
+ */
+public class PartitionOffsetTracker {
+    
+    private final List<? extends ConsumerRecord<?, ?>> records;
+    
+    // Each slot is written by exactly one lane; reads happen after the lanes are joined
+    private final boolean[] processed;
+    
+    public PartitionOffsetTracker(List<? extends ConsumerRecord<?, ?>> records) {
+        this.records = records;
+        this.processed = new boolean[records.size()];
+    }
+    
+    public void markProcessed(int index) {
+        processed[index] = true;
+    }
+    
+    public boolean isComplete() {
+        for (boolean done : processed) {
+            if (!done) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Offsets to commit: for every partition, one past the last record of its fully processed prefix
+     */
+    public Map<TopicPartition, OffsetAndMetadata> committableOffsets() {
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        Set<TopicPartition> blocked = new HashSet<>();
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<?, ?> record = records.get(i);
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            if (blocked.contains(partition)) {
+                continue;
+            }
+            if (processed[i]) {
+                commits.put(partition, new OffsetAndMetadata(record.offset() + 1));
+            } else {
+                blocked.add(partition);
+            }
+        }
+        return commits;
+    }
+    
+    /**
+     * First unprocessed offset of every partition that has a gap; the consumer must seek back there
+     */
+    public Map<TopicPartition, Long> firstUnprocessedOffsets() {
+        Map<TopicPartition, Long> seeks = new HashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            if (!processed[i]) {
+                ConsumerRecord<?, ?> record = records.get(i);
+                seeks.putIfAbsent(new TopicPartition(record.topic(), record.partition()), record.offset());
+            }
+        }
+        return seeks;
+    }
+}
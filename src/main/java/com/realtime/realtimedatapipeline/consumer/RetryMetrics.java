@@ -0,0 +1,77 @@
+package com.realtime.realtimedatapipeline.consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Meters for the retry-topic / dead-letter path
+ */
+@Component
+public class RetryMetrics {
+    
+    private final AtomicLong pending = new AtomicLong();
+    private final Counter routedCounter;
+    private final Counter recoveredCounter;
+    private final Counter deadLetteredCounter;
+    private final Counter redrivenCounter;
+    private final Timer retryAge;
+    private final DistributionSummary retryAttempts;
+    
+    public RetryMetrics(MeterRegistry meterRegistry) {
+        Gauge.builder("stock.retry.pending", pending, AtomicLong::get)
+                .description("Records routed to retry topics by this instance and not yet recovered or dead-lettered")
+                .register(meterRegistry);
+        this.routedCounter = Counter.builder("stock.retry.routed")
+                .description("Records handed off from a main topic to its retry topics")
+                .register(meterRegistry);
+        this.recoveredCounter = Counter.builder("stock.retry.recovered")
+                .description("Records processed successfully on a retry topic")
+                .register(meterRegistry);
+        this.deadLetteredCounter = Counter.builder("stock.dlq.records")
+                .description("Records that exhausted all retries and landed on a dead-letter topic")
+                .register(meterRegistry);
+        this.redrivenCounter = Counter.builder("stock.dlq.redriven")
+                .description("Dead-lettered records re-published to their original topic")
+                .register(meterRegistry);
+        this.retryAge = Timer.builder("stock.retry.age")
+                .description("Time between the first failure of a record and its current retry attempt")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.retryAttempts = DistributionSummary.builder("stock.retry.attempts")
+                .description("Delivery attempt number observed on retry topics")
+                .register(meterRegistry);
+    }
+    
+    public void recordRouted() {
+        pending.incrementAndGet();
+        routedCounter.increment();
+    }
+    
+    public void recordAttempt(int attempt, long firstFailureEpochMs) {
+        retryAttempts.record(attempt);
+        if (firstFailureEpochMs > 0) {
+            retryAge.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - firstFailureEpochMs)));
+        }
+    }
+    
+    public void recordRecovered() {
+        pending.updateAndGet(value -> Math.max(0, value - 1));
+        recoveredCounter.increment();
+    }
+    
+    public void recordDeadLettered() {
+        pending.updateAndGet(value -> Math.max(0, value - 1));
+        deadLetteredCounter.increment();
+    }
+    
+    public void recordRedriven(int count) {
+        redrivenCounter.increment(count);
+    }
+}
@@ -0,0 +1,137 @@
+package com.realtime.realtimedatapipeline.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Hands failed records off from a main topic to the entry topic of its retry chain,
+ * so the main partition keeps moving while the record is retried elsewhere
+ */
+@Component
+public class RetryTopicRouter {
+    
+    public static final String ORIGIN_TOPIC_HEADER = "x-origin-topic";
+    public static final String ORIGIN_PARTITION_HEADER = "x-origin-partition";
+    public static final String ORIGIN_OFFSET_HEADER = "x-origin-offset";
+    public static final String FIRST_FAILURE_HEADER = "x-first-failure-ms";
+    public static final String EXCEPTION_HEADER = "x-exception";
+    public static final String PERSISTED_HEADER = "x-persisted";
+    public static final String EFFECTS_APPLIED_HEADER = "x-effects-applied";
+    
+    // Everything a record picks up on the retry path, including how far it got
+    private static final List<String> CHAIN_HEADERS = List.of(ORIGIN_TOPIC_HEADER, ORIGIN_PARTITION_HEADER,
+            ORIGIN_OFFSET_HEADER, FIRST_FAILURE_HEADER, EXCEPTION_HEADER, PERSISTED_HEADER, EFFECTS_APPLIED_HEADER);
+    
+    private static final int MAX_EXCEPTION_LENGTH = 512;
+    
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final RetryMetrics retryMetrics;
+    
+    public RetryTopicRouter(KafkaTemplate<String, Object> kafkaTemplate, RetryMetrics retryMetrics) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.retryMetrics = retryMetrics;
+    }
+    
+    /**
+     * Publish a failed record to a retry entry topic, keeping its key so per-key order survives the hop
+     * @return Future that completes once the broker has acknowledged the hand-off
+     */
+    public CompletableFuture<SendResult<String, Object>> route(ConsumerRecord<String, ?> record,
+                                                               String retryTopic,
+                                                               Exception cause) {
+        return route(record, retryTopic, cause, false, 0);
+    }
+    
+    /**
+     * Publish a failed record to a retry entry topic
+     * @param persisted Whether the record was already written and only a later step failed
+     * @param effectsApplied How many of a persisted record's downstream effects already succeeded
+     */
+    public CompletableFuture<SendResult<String, Object>> route(ConsumerRecord<String, ?> record,
+                                                               String retryTopic,
+                                                               Exception cause,
+                                                               boolean persisted,
+                                                               int effectsApplied) {
+        ProducerRecord<String, Object> retryRecord = new ProducerRecord<>(retryTopic, record.key(), record.value());
+        retryRecord.headers()
+                .add(ORIGIN_TOPIC_HEADER, record.topic().getBytes(StandardCharsets.UTF_8))
+                .add(ORIGIN_PARTITION_HEADER, ByteBuffer.allocate(Integer.BYTES).putInt(record.partition()).array())
+                .add(ORIGIN_OFFSET_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(record.offset()).array())
+                .add(FIRST_FAILURE_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(System.currentTimeMillis()).array())
+                .add(EXCEPTION_HEADER, describe(cause).getBytes(StandardCharsets.UTF_8));
+        if (persisted) {
+            retryRecord.headers()
+                    .add(PERSISTED_HEADER, new byte[] {1})
+                    .add(EFFECTS_APPLIED_HEADER, ByteBuffer.allocate(Integer.BYTES).putInt(effectsApplied).array());
+        }
+        
+        return kafkaTemplate.send(retryRecord)
+                .whenComplete((result, error) -> {
+                    if (error == null) {
+                        retryMetrics.recordRouted();
+                    }
+                });
+    }
+    
+    /**
+     * First-failure time carried by a record on the retry path, or 0 if absent
+     */
+    public static long firstFailureEpochMs(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(FIRST_FAILURE_HEADER);
+        return header != null && header.value().length == Long.BYTES ? ByteBuffer.wrap(header.value()).getLong() : 0L;
+    }
+    
+    /**
+     * Whether a record on the retry path was already written before it failed
+     */
+    public static boolean isPersisted(ConsumerRecord<?, ?> record) {
+        return record.headers().lastHeader(PERSISTED_HEADER) != null;
+    }
+    
+    /**
+     * Number of downstream effects a persisted record on the retry path already applied, or 0 if absent
+     */
+    public static int effectsApplied(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(EFFECTS_APPLIED_HEADER);
+        return header != null && header.value().length == Integer.BYTES ? ByteBuffer.wrap(header.value()).getInt() : 0;
+    }
+    
+    /**
+     * Record on a failing retry that it is written and how many of its effects were applied. The
+     * retry topics forward a record with its headers, so the next attempt resumes from there.
+     */
+    public static void markApplied(ConsumerRecord<?, ?> record, int effectsApplied) {
+        record.headers()
+                .remove(PERSISTED_HEADER)
+                .remove(EFFECTS_APPLIED_HEADER)
+                .add(PERSISTED_HEADER, new byte[] {1})
+                .add(EFFECTS_APPLIED_HEADER, ByteBuffer.allocate(Integer.BYTES).putInt(effectsApplied).array());
+    }
+    
+    /**
+     * Carry a record's retry-path headers over to a record republished from it, such as a re-driven
+     * dead letter, so its origin and progress are not lost
+     */
+    public static void copyChainHeaders(ConsumerRecord<?, ?> from, ProducerRecord<?, ?> to) {
+        for (String name : CHAIN_HEADERS) {
+            Header header = from.headers().lastHeader(name);
+            if (header != null) {
+                to.headers().add(name, header.value());
+            }
+        }
+    }
+    
+    private static String describe(Exception cause) {
+        String description = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        return description.length() > MAX_EXCEPTION_LENGTH ? description.substring(0, MAX_EXCEPTION_LENGTH) : description;
+    }
+}
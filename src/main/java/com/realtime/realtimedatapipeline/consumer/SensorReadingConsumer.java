@@ -0,0 +1,112 @@
+package com.realtime.realtimedatapipeline.consumer;
+
+import com.realtime.realtimedatapipeline.iot.SensorAggregator;
+import com.realtime.realtimedatapipeline.iot.SensorReadingWriter;
+import com.realtime.realtimedatapipeline.model.SensorReading;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists sensor readings a poll at a time with one COPY, then folds the ones actually inserted
+ * into the windowed aggregates. A failed write fails the batch, which the container's error handler
+ * redelivers; row ids derived from topic, partition and offset make the redelivery idempotent, for
+ * the table and the aggregates alike.
+ */
+@Service
+public class SensorReadingConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SensorReadingConsumer.class);
+
+    private final SensorReadingWriter sensorReadingWriter;
+    private final SensorAggregator sensorAggregator;
+    private final Counter consumedCounter;
+    private final Counter persistedCounter;
+    private final Counter duplicateCounter;
+    private final Counter invalidCounter;
+    private final Timer writeTimer;
+
+    public SensorReadingConsumer(SensorReadingWriter sensorReadingWriter,
+                                 SensorAggregator sensorAggregator,
+                                 MeterRegistry meterRegistry) {
+        this.sensorReadingWriter = sensorReadingWriter;
+        this.sensorAggregator = sensorAggregator;
+        this.consumedCounter = Counter.builder("iot.readings.consumed")
+                .description("Sensor readings consumed from Kafka")
+                .register(meterRegistry);
+        this.persistedCounter = Counter.builder("iot.readings.persisted")
+                .description("Sensor readings written to events.iot_sensors")
+                .register(meterRegistry);
+        this.duplicateCounter = Counter.builder("iot.readings.duplicates")
+                .description("Redelivered sensor readings that were already written")
+                .register(meterRegistry);
+        this.invalidCounter = Counter.builder("iot.readings.invalid")
+                .description("Unreadable or invalid sensor readings skipped by the consumer")
+                .register(meterRegistry);
+        this.writeTimer = Timer.builder("iot.readings.write")
+                .description("Time to COPY one consumed batch into events.iot_sensors")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(topics = "${app.kafka.topics.iot-sensor-readings}", groupId = "iot-sensor-consumer-group",
+                   containerFactory = "sensorReadingBatchListenerFactory",
+                   autoStartup = "${app.iot.enabled:true}",
+                   properties = "max.poll.records:${app.iot.max-poll-records:5000}")
+    public void consumeReadings(List<ConsumerRecord<String, SensorReading>> records) throws SQLException, IOException {
+        consumedCounter.increment(records.size());
+        List<UUID> ids = new ArrayList<>(records.size());
+        List<SensorReading> readings = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, SensorReading> record : records) {
+            SensorReading reading = record.value();
+            // The topic may have other producers than the ingest endpoint: re-check the column limits
+            if (reading == null || reading.timestamp() == null || reading.validate() != null) {
+                invalidCounter.increment();
+                continue;
+            }
+            ids.add(UUID.nameUUIDFromBytes((record.topic() + "-" + record.partition() + "@" + record.offset())
+                    .getBytes(StandardCharsets.UTF_8)));
+            readings.add(reading);
+        }
+        if (readings.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<SensorReading> inserted = sensorReadingWriter.write(ids, readings);
+        writeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        persistedCounter.increment(inserted.size());
+        duplicateCounter.increment(readings.size() - inserted.size());
+        sensorAggregator.add(inserted);
+        logger.debug("Persisted batch of {} sensor readings ({} new)", readings.size(), inserted.size());
+    }
+
+    /**
+     * Get consumer statistics
+     */
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+            "consumedReadings", (long) consumedCounter.count(),
+            "persistedReadings", (long) persistedCounter.count(),
+            "duplicateReadings", (long) duplicateCounter.count(),
+            "invalidReadings", (long) invalidCounter.count(),
+            "batches", writeTimer.count(),
+            "avgBatchWriteMillis", writeTimer.mean(TimeUnit.MILLISECONDS),
+            "maxBatchWriteMillis", writeTimer.max(TimeUnit.MILLISECONDS)
+        );
+    }
+}
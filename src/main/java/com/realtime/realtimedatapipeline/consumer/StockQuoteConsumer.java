@@ -1,16 +1,46 @@
 package com.realtime.realtimedatapipeline.consumer;
 
+import com.realtime.realtimedatapipeline.alerts.AlertRuleEngine;
+import com.realtime.realtimedatapipeline.analytics.CorrelationEngine;
+import com.realtime.realtimedatapipeline.analytics.IndicatorEngine;
+import com.realtime.realtimedatapipeline.analytics.LeaderboardService;
+import com.realtime.realtimedatapipeline.metrics.QuoteCountService;
 import com.realtime.realtimedatapipeline.metrics.StockMetricsService;
+import com.realtime.realtimedatapipeline.model.AlertEvent;
+import com.realtime.realtimedatapipeline.model.AlertRule;
+import com.realtime.realtimedatapipeline.model.IndicatorSnapshot;
 import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import com.realtime.realtimedatapipeline.producer.AlertPublisher;
+import com.realtime.realtimedatapipeline.producer.AnalyticsPublisher;
+import com.realtime.realtimedatapipeline.producer.LatestQuotePublisher;
+import com.realtime.realtimedatapipeline.profiling.PipelineStageEvent;
 import com.realtime.realtimedatapipeline.repository.StockQuoteRepository;
+import com.realtime.realtimedatapipeline.repository.UpsertResult;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.RetryTopicHeaders;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Service;
 
-import java.util.UUID;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class StockQuoteConsumer {
@@ -19,15 +49,51 @@ public class StockQuoteConsumer {
     
     private final StockQuoteRepository stockQuoteRepository;
     private final StockMetricsService metricsService;
+    private final QuoteCountService quoteCountService;
+    private final KeyOrderedExecutor keyOrderedExecutor;
+    private final RetryTopicRouter retryTopicRouter;
+    private final RetryMetrics retryMetrics;
+    private final LatestQuotePublisher latestQuotePublisher;
+    private final IndicatorEngine indicatorEngine;
+    private final AnalyticsPublisher analyticsPublisher;
+    private final CorrelationEngine correlationEngine;
+    private final LeaderboardService leaderboardService;
+    private final AlertRuleEngine alertRuleEngine;
+    private final AlertPublisher alertPublisher;
     private final Counter consumedEventsCounter;
     private final Counter persistedEventsCounter;
     private final Counter errorCounter;
     
+    @Value("${app.kafka.topics.stock-quotes-retry}")
+    private String stockQuotesRetryTopic;
+    
     public StockQuoteConsumer(StockQuoteRepository stockQuoteRepository, 
                              StockMetricsService metricsService, 
+                             QuoteCountService quoteCountService,
+                             KeyOrderedExecutor keyOrderedExecutor,
+                             RetryTopicRouter retryTopicRouter,
+                             RetryMetrics retryMetrics,
+                             LatestQuotePublisher latestQuotePublisher,
+                             IndicatorEngine indicatorEngine,
+                             AnalyticsPublisher analyticsPublisher,
+                             CorrelationEngine correlationEngine,
+                             LeaderboardService leaderboardService,
+                             AlertRuleEngine alertRuleEngine,
+                             AlertPublisher alertPublisher,
                              MeterRegistry meterRegistry) {
         this.stockQuoteRepository = stockQuoteRepository;
         this.metricsService = metricsService;
+        this.quoteCountService = quoteCountService;
+        this.keyOrderedExecutor = keyOrderedExecutor;
+        this.retryTopicRouter = retryTopicRouter;
+        this.retryMetrics = retryMetrics;
+        this.latestQuotePublisher = latestQuotePublisher;
+        this.indicatorEngine = indicatorEngine;
+        this.analyticsPublisher = analyticsPublisher;
+        this.correlationEngine = correlationEngine;
+        this.leaderboardService = leaderboardService;
+        this.alertRuleEngine = alertRuleEngine;
+        this.alertPublisher = alertPublisher;
         this.consumedEventsCounter = Counter.builder("stock.events.consumed")
                 .description("Number of stock quote events consumed from Kafka")
                 .register(meterRegistry);
@@ -39,61 +105,367 @@ public class StockQuoteConsumer {
                 .register(meterRegistry);
     }
     
-    @KafkaListener(topics = "stock-quotes", groupId = "stock-quote-consumer-group")
-    public void consumeStockQuote(StockQuoteEvent stockQuoteEvent) {
+    @KafkaListener(topics = "stock-quotes", groupId = "stock-quote-consumer-group",
+                   containerFactory = "stockQuoteBatchListenerFactory")
+    public void consumeStockQuotes(List<ConsumerRecord<String, StockQuoteEvent>> records,
+                                   Acknowledgment acknowledgment,
+                                   Consumer<?, ?> consumer) {
+        logger.debug("Consuming batch of {} stock quote events", records.size());
+        consumedEventsCounter.increment(records.size());
+        PipelineStageEvent consumeEvent = PipelineStageEvent.start(PipelineStageEvent.Stage.CONSUME, null);
+        try {
+            processBatch(records, acknowledgment, consumer);
+        } finally {
+            consumeEvent.finish(records.size());
+        }
+    }
+    
+    private void processBatch(List<ConsumerRecord<String, StockQuoteEvent>> records,
+                              Acknowledgment acknowledgment,
+                              Consumer<?, ?> consumer) {
+        
+        // Split the batch into key-ordered lanes: one symbol always lands in the same lane,
+        // so its quotes stay in offset order while different symbols are written in parallel
+        int laneCount = keyOrderedExecutor.laneCount();
+        int[] laneSizes = new int[laneCount];
+        int[] laneOf = new int[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            laneOf[i] = keyOrderedExecutor.laneFor(records.get(i).key());
+            laneSizes[laneOf[i]]++;
+        }
+        int[][] laneIndices = new int[laneCount][];
+        for (int lane = 0; lane < laneCount; lane++) {
+            laneIndices[lane] = new int[laneSizes[lane]];
+            laneSizes[lane] = 0;
+        }
+        for (int i = 0; i < records.size(); i++) {
+            laneIndices[laneOf[i]][laneSizes[laneOf[i]]++] = i;
+        }
+        
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker(records);
+        List<CompletableFuture<Void>> lanes = new ArrayList<>(laneCount);
+        for (int lane = 0; lane < laneCount; lane++) {
+            int[] indices = laneIndices[lane];
+            if (indices.length > 0) {
+                lanes.add(keyOrderedExecutor.submit(lane, () -> processLane(records, indices, tracker)));
+            }
+        }
+        
         try {
-            logger.info("Consuming stock quote event: {}", stockQuoteEvent);
-            consumedEventsCounter.increment();
-            
-            // Create a new entity for persistence to avoid ID conflicts from Kafka deserialization
-            StockQuoteEvent newEvent = StockQuoteEvent.builder()
-                    .symbol(stockQuoteEvent.getSymbol())
-                    .stockName(stockQuoteEvent.getStockName())
-                    .currentPrice(stockQuoteEvent.getCurrentPrice())
-                    .percentChange(stockQuoteEvent.getPercentChange())
-                    .changeAmount(stockQuoteEvent.getChangeAmount())
-                    .dayHigh(stockQuoteEvent.getDayHigh())
-                    .dayLow(stockQuoteEvent.getDayLow())
-                    .openPrice(stockQuoteEvent.getOpenPrice())
-                    .previousClose(stockQuoteEvent.getPreviousClose())
-                    .volume(stockQuoteEvent.getVolume())
-                    .timestamp(stockQuoteEvent.getTimestamp())
-                    .marketTimestamp(stockQuoteEvent.getMarketTimestamp())
-                    .build();
-            
-            // Save to database
-            StockQuoteEvent savedEvent = stockQuoteRepository.save(newEvent);
-            persistedEventsCounter.increment();
-            
-            // Update metrics
-            metricsService.updateStockMetrics(savedEvent);
-            
-            logger.info("Successfully persisted stock quote for symbol: {} with price: ${:.2f}", 
-                       savedEvent.getSymbol(), savedEvent.getCurrentPrice());
-                       
+            CompletableFuture.allOf(lanes.toArray(new CompletableFuture<?>[0])).join();
         } catch (Exception e) {
-            logger.error("Error consuming and persisting stock quote event: {}", e.getMessage(), e);
+            logger.error("Quote processing lane failed: {}", e.getMessage(), e);
             errorCounter.increment();
         }
+        
+        if (tracker.isComplete()) {
+            acknowledgment.acknowledge();
+            return;
+        }
+        
+        // Commit only the fully processed prefix of each partition and rewind the rest for redelivery
+        consumer.commitSync(tracker.committableOffsets());
+        Map<TopicPartition, Long> rewinds = tracker.firstUnprocessedOffsets();
+        rewinds.forEach(consumer::seek);
+        logger.warn("Stock quote batch partially processed, redelivering from {}", rewinds);
     }
     
-    @KafkaListener(topics = "stock-alerts", groupId = "stock-alert-consumer-group")
-    public void consumeStockAlert(StockQuoteEvent alertEvent) {
-        try {
-            logger.info("Consuming stock alert event: {}", alertEvent);
-            
-            // Process alerts - could trigger notifications, store in separate table, etc.
-            if (alertEvent.getPercentChange() != null && Math.abs(alertEvent.getPercentChange()) > 5.0) {
-                logger.warn("SIGNIFICANT PRICE MOVEMENT ALERT: {} moved {:.2f}% to ${:.2f}", 
-                           alertEvent.getSymbol(), alertEvent.getPercentChange(), alertEvent.getCurrentPrice());
-                           
-                // Record alert metrics
-                metricsService.recordPriceAlert(alertEvent.getSymbol(), alertEvent.getPercentChange());
+    /**
+     * Persist one lane's share of a batch with a single upsert, then apply each quote's downstream
+     * effects. If the batch write fails, records are persisted one by one in order instead. A record
+     * that still fails, or whose effects fail after its row was written, is routed to the retry topics,
+     * which pick up at the effect that failed.
+     */
+    private void processLane(List<ConsumerRecord<String, StockQuoteEvent>> records,
+                             int[] indices,
+                             PartitionOffsetTracker tracker) {
+        List<StockQuoteEvent> entities = new ArrayList<>(indices.length);
+        int[] entityIndices = new int[indices.length];
+        for (int index : indices) {
+            StockQuoteEvent value = records.get(index).value();
+            if (value == null || value.getSymbol() == null) {
+                // Undeserializable payloads arrive as null values; retrying them cannot help
+                logger.warn("Skipping unreadable stock quote at {}-{}@{}", records.get(index).topic(),
+                           records.get(index).partition(), records.get(index).offset());
+                errorCounter.increment();
+                tracker.markProcessed(index);
+                continue;
             }
-            
+            entityIndices[entities.size()] = index;
+            entities.add(toEntity(value));
+        }
+        if (entities.isEmpty()) {
+            return;
+        }
+        
+        // Idempotent batched write: redelivered quotes collapse onto their existing rows
+        PipelineStageEvent persistEvent = PipelineStageEvent.start(PipelineStageEvent.Stage.PERSIST, null);
+        UpsertResult result;
+        try {
+            result = upsertCounted(entities);
         } catch (Exception e) {
-            logger.error("Error processing stock alert: {}", e.getMessage(), e);
-            errorCounter.increment();
+            logger.warn("Batched upsert of {} stock quotes failed, isolating per record: {}",
+                       entities.size(), e.getMessage());
+            applyInOrder(records, entities, entityIndices, tracker, this::persistQuote, false);
+            return;
+        } finally {
+            persistEvent.finish(entities.size());
+        }
+        persistedEventsCounter.increment(result.getWritten());
+        logger.debug("Persisted lane batch of {} stock quotes: {}", entities.size(), result);
+        
+        // The rows are written: a quote whose effects fail is retried without writing it again
+        applyInOrder(records, entities, entityIndices, tracker, this::onPersisted, true);
+    }
+    
+    /**
+     * Apply a step to each quote in lane order, marking a record processed as soon as its step succeeds.
+     * Failed records are handed off to the retry topics instead of blocking the partition; once a
+     * symbol has failed, its later quotes in this lane follow it so their relative order is kept.
+     * @param persisted Whether the rows are already written, so the retry path only applies the effects;
+     *                  a record whose effects failed is routed as written either way
+     */
+    private void applyInOrder(List<ConsumerRecord<String, StockQuoteEvent>> records,
+                              List<StockQuoteEvent> entities,
+                              int[] entityIndices,
+                              PartitionOffsetTracker tracker,
+                              QuoteStep step,
+                              boolean persisted) {
+        Set<String> failedSymbols = new HashSet<>();
+        List<CompletableFuture<?>> handOffs = new ArrayList<>();
+        List<Integer> handOffIndices = new ArrayList<>();
+        for (int i = 0; i < entities.size(); i++) {
+            StockQuoteEvent entity = entities.get(i);
+            ConsumerRecord<String, StockQuoteEvent> record = records.get(entityIndices[i]);
+            Exception failure = null;
+            boolean written = persisted;
+            int effectsApplied = 0;
+            if (failedSymbols.contains(entity.getSymbol())) {
+                failure = new IllegalStateException("Earlier quote for " + entity.getSymbol() + " is being retried");
+            } else {
+                try {
+                    step.apply(entity);
+                    tracker.markProcessed(entityIndices[i]);
+                } catch (Exception e) {
+                    logger.error("Error processing stock quote for symbol {}: {}", entity.getSymbol(), e.getMessage(), e);
+                    errorCounter.increment();
+                    failedSymbols.add(entity.getSymbol());
+                    failure = e;
+                    if (e instanceof EffectFailedException effectFailure) {
+                        written = true;
+                        effectsApplied = effectFailure.applied;
+                    }
+                }
+            }
+            if (failure != null) {
+                handOffs.add(retryTopicRouter.route(record, stockQuotesRetryTopic, failure, written, effectsApplied));
+                handOffIndices.add(entityIndices[i]);
+            }
+        }
+        
+        // A record only counts as processed once the retry topic has it; otherwise it is redelivered
+        for (int i = 0; i < handOffs.size(); i++) {
+            try {
+                handOffs.get(i).join();
+                tracker.markProcessed(handOffIndices.get(i));
+            } catch (Exception e) {
+                logger.error("Could not hand stock quote off to {}: {}", stockQuotesRetryTopic, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * One per-quote step of a lane: the single-row write or the downstream effects
+     */
+    @FunctionalInterface
+    private interface QuoteStep {
+        void apply(StockQuoteEvent entity);
+    }
+    
+    /**
+     * Entry point of the quote retry chain. A failure here moves the record to the next, slower
+     * retry topic and finally to the dead-letter topic, without ever blocking stock-quotes.
+     */
+    @RetryableTopic(attempts = "${app.kafka.retry.attempts:4}",
+                    backoff = @Backoff(delayExpression = "${app.kafka.retry.initial-delay-ms:5000}",
+                                       multiplierExpression = "${app.kafka.retry.multiplier:6}",
+                                       maxDelayExpression = "${app.kafka.retry.max-delay-ms:300000}"),
+                    kafkaTemplate = "kafkaTemplate",
+                    numPartitions = "${app.kafka.consumer.partitions:8}",
+                    replicationFactor = "1",
+                    dltTopicSuffix = "-dlt",
+                    exclude = {DeserializationException.class, ClassCastException.class})
+    @KafkaListener(topics = "${app.kafka.topics.stock-quotes-retry}", groupId = "stock-quote-retry-group")
+    public void retryStockQuote(ConsumerRecord<String, StockQuoteEvent> record) {
+        retryMetrics.recordAttempt(attemptOf(record), RetryTopicRouter.firstFailureEpochMs(record));
+        StockQuoteEvent value = record.value();
+        if (value == null || value.getSymbol() == null) {
+            retryMetrics.recordRecovered();
+            return;
+        }
+        try {
+            if (RetryTopicRouter.isPersisted(record)) {
+                // Already written; resume at the effect that failed
+                onPersisted(toEntity(value), RetryTopicRouter.effectsApplied(record));
+            } else {
+                persistQuote(toEntity(value));
+            }
+        } catch (EffectFailedException e) {
+            RetryTopicRouter.markApplied(record, e.applied);
+            throw e;
+        }
+        retryMetrics.recordRecovered();
+        logger.debug("Recovered stock quote for {} from {}", value.getSymbol(), record.topic());
+    }
+    
+    /**
+     * Final stop for records that exhausted their retries. They stay on the dead-letter topic
+     * until re-driven through {@link DeadLetterRedriveService}.
+     */
+    @DltHandler
+    public void handleDeadLetter(ConsumerRecord<String, ?> record) {
+        retryMetrics.recordDeadLettered();
+        logger.error("Record with key {} dead-lettered to {} at offset {}", record.key(), record.topic(), record.offset());
+    }
+    
+    private void persistQuote(StockQuoteEvent entity) {
+        PipelineStageEvent persistEvent = PipelineStageEvent.start(PipelineStageEvent.Stage.PERSIST, entity.getSymbol());
+        UpsertResult result;
+        try {
+            result = upsertCounted(List.of(entity));
+        } finally {
+            persistEvent.finish(1);
+        }
+        persistedEventsCounter.increment(result.getWritten());
+        onPersisted(entity);
+    }
+    
+    /**
+     * Upsert quotes and count the rows inserted before a count reconcile can run in between
+     */
+    private UpsertResult upsertCounted(List<StockQuoteEvent> quotes) {
+        return quoteCountService.recording(() -> {
+            UpsertResult result = stockQuoteRepository.upsertAll(quotes);
+            quoteCountService.recordInserted(result);
+            return result;
+        });
+    }
+    
+    /**
+     * Downstream effects of a persisted quote, in the order they are applied
+     */
+    enum Effect {
+        METRICS, LATEST_QUOTE, INDICATORS, ANALYTICS, CORRELATION, LEADERBOARD, ALERTS
+    }
+    
+    /**
+     * A downstream effect failed after the quote was written and the effects before it were applied
+     */
+    static final class EffectFailedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        final int applied;
+        
+        EffectFailedException(int applied, RuntimeException cause) {
+            super(cause.getMessage(), cause);
+            this.applied = applied;
         }
     }
+    
+    private void onPersisted(StockQuoteEvent entity) {
+        onPersisted(entity, 0);
+    }
+    
+    /**
+     * Downstream effects of a persisted quote, applied in per-symbol order. Indicators, correlation
+     * and alert rules keep state that a second pass over the same quote would corrupt, so a retry
+     * starts at the first effect not yet applied rather than at the beginning.
+     * @param applied Number of effects already applied on an earlier attempt
+     */
+    private void onPersisted(StockQuoteEvent entity, int applied) {
+        Effect[] effects = Effect.values();
+        IndicatorSnapshot indicators = applied > Effect.INDICATORS.ordinal() ? indicatorsOf(entity) : null;
+        for (int step = applied; step < effects.length; step++) {
+            try {
+                switch (effects[step]) {
+                    case METRICS -> metricsService.updateStockMetrics(entity);
+                    case LATEST_QUOTE -> latestQuotePublisher.publish(entity);
+                    case INDICATORS -> indicators = indicatorEngine.onQuote(entity);
+                    case ANALYTICS -> {
+                        if (indicators != null) {
+                            analyticsPublisher.publish(indicators);
+                        }
+                    }
+                    case CORRELATION -> correlationEngine.onQuote(entity);
+                    case LEADERBOARD -> leaderboardService.onQuote(entity);
+                    case ALERTS -> {
+                        for (AlertEvent alert : alertRuleEngine.onQuote(entity, indicators)) {
+                            alertPublisher.publish(alert);
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                throw new EffectFailedException(step, e);
+            }
+        }
+    }
+    
+    /**
+     * The indicators an earlier attempt computed for this quote, if they are still the latest
+     */
+    private IndicatorSnapshot indicatorsOf(StockQuoteEvent entity) {
+        IndicatorSnapshot latest = indicatorEngine.getSnapshot(entity.getSymbol());
+        Long marketTimestamp = entity.resolveMarketTimestamp();
+        return latest != null && marketTimestamp != null && latest.marketTimestamp() == marketTimestamp ? latest : null;
+    }
+    
+    private static int attemptOf(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(RetryTopicHeaders.DEFAULT_HEADER_ATTEMPTS);
+        return header != null && header.value().length > 0 ? new BigInteger(header.value()).intValue() : 1;
+    }
+    
+    /**
+     * Create a new entity for persistence whose id is derived from the natural key,
+     * so every delivery of the same quote maps to the same row
+     */
+    private StockQuoteEvent toEntity(StockQuoteEvent stockQuoteEvent) {
+        Long marketTimestamp = stockQuoteEvent.resolveMarketTimestamp();
+        return StockQuoteEvent.builder()
+                .id(StockQuoteEvent.naturalId(stockQuoteEvent.getSymbol(), marketTimestamp))
+                .symbol(stockQuoteEvent.getSymbol())
+                .stockName(stockQuoteEvent.getStockName())
+                .currentPrice(stockQuoteEvent.getCurrentPrice())
+                .percentChange(stockQuoteEvent.getPercentChange())
+                .changeAmount(stockQuoteEvent.getChangeAmount())
+                .dayHigh(stockQuoteEvent.getDayHigh())
+                .dayLow(stockQuoteEvent.getDayLow())
+                .openPrice(stockQuoteEvent.getOpenPrice())
+                .previousClose(stockQuoteEvent.getPreviousClose())
+                .volume(stockQuoteEvent.getVolume())
+                .timestamp(stockQuoteEvent.getTimestamp())
+                .marketTimestamp(marketTimestamp)
+                .build();
+    }
+    
+    @RetryableTopic(attempts = "${app.kafka.retry.attempts:4}",
+                    backoff = @Backoff(delayExpression = "${app.kafka.retry.initial-delay-ms:5000}",
+                                       multiplierExpression = "${app.kafka.retry.multiplier:6}",
+                                       maxDelayExpression = "${app.kafka.retry.max-delay-ms:300000}"),
+                    kafkaTemplate = "kafkaTemplate",
+                    replicationFactor = "1",
+                    dltTopicSuffix = "-dlt",
+                    exclude = {DeserializationException.class, ClassCastException.class})
+    @KafkaListener(topics = "stock-alerts", groupId = "stock-alert-consumer-group")
+    public void consumeStockAlert(AlertEvent alertEvent) {
+        // Rules were matched upstream by AlertRuleEngine; this is where notifications would hang off.
+        // Failures propagate so the record moves to the alert retry topics instead of being dropped
+        logger.warn("ALERT: rule {} on {} ({}) crossed {} at {} with price {}",
+                   alertEvent.ruleId(), alertEvent.symbol(), alertEvent.description(),
+                   alertEvent.threshold(), alertEvent.value(), alertEvent.price());
+        
+        // Record alert metrics
+        metricsService.recordPriceAlert(alertEvent.symbol(),
+                alertEvent.direction() == AlertRule.Direction.DOWN ? -1.0 : 1.0);
+    }
 }
\ No newline at end of file
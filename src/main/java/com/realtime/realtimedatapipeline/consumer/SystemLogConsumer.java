@@ -0,0 +1,67 @@
+package com.realtime.realtimedatapipeline.consumer;
+
+import com.realtime.realtimedatapipeline.logging.SystemLogWriter;
+import com.realtime.realtimedatapipeline.model.SystemLogEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Persists shipped log events a poll at a time. Deliberately does not log per batch: its own log
+ * events would be shipped back to it.
+ */
+@Service
+public class SystemLogConsumer {
+
+    private final SystemLogWriter systemLogWriter;
+
+    private final LongAdder consumed = new LongAdder();
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+
+    public SystemLogConsumer(SystemLogWriter systemLogWriter) {
+        this.systemLogWriter = systemLogWriter;
+    }
+
+    @KafkaListener(topics = "${app.kafka.topics.system-logs}", groupId = "system-log-consumer-group",
+                   containerFactory = "systemLogBatchListenerFactory",
+                   autoStartup = "${app.log-sink.enabled:true}",
+                   properties = "max.poll.records:${app.log-sink.max-poll-records:2000}")
+    public void consumeLogs(List<ConsumerRecord<String, SystemLogEvent>> records) {
+        consumed.add(records.size());
+        List<UUID> ids = new ArrayList<>(records.size());
+        List<SystemLogEvent> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, SystemLogEvent> record : records) {
+            SystemLogEvent event = record.value();
+            if (event == null || event.level() == null || event.serviceName() == null) {
+                invalid.increment();
+                continue;
+            }
+            ids.add(UUID.nameUUIDFromBytes((record.topic() + "-" + record.partition() + "@" + record.offset())
+                    .getBytes(StandardCharsets.UTF_8)));
+            events.add(event);
+        }
+        if (!events.isEmpty()) {
+            systemLogWriter.write(ids, events);
+            persisted.add(events.size());
+        }
+    }
+
+    /**
+     * Get consumer statistics
+     */
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+            "consumedEvents", consumed.sum(),
+            "persistedEvents", persisted.sum(),
+            "invalidEvents", invalid.sum()
+        );
+    }
+}
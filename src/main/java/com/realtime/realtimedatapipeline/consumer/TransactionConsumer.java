@@ -0,0 +1,100 @@
+package com.realtime.realtimedatapipeline.consumer;
+
+import com.realtime.realtimedatapipeline.model.TransactionEvent;
+import com.realtime.realtimedatapipeline.transactions.TransactionWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists transactions a poll at a time and rolls the new ones up into the hourly stats in the same
+ * database transaction. A failed write fails the batch, which the container's error handler
+ * redelivers; transactions already stored are skipped on the unique transaction id.
+ */
+@Service
+public class TransactionConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionConsumer.class);
+
+    private final TransactionWriter transactionWriter;
+    private final Counter consumedCounter;
+    private final Counter persistedCounter;
+    private final Counter duplicateCounter;
+    private final Counter invalidCounter;
+    private final Timer writeTimer;
+
+    public TransactionConsumer(TransactionWriter transactionWriter, MeterRegistry meterRegistry) {
+        this.transactionWriter = transactionWriter;
+        this.consumedCounter = Counter.builder("transactions.consumed")
+                .description("Transactions consumed from Kafka")
+                .register(meterRegistry);
+        this.persistedCounter = Counter.builder("transactions.persisted")
+                .description("Transactions written to events.transactions and rolled up")
+                .register(meterRegistry);
+        this.duplicateCounter = Counter.builder("transactions.duplicates")
+                .description("Transactions skipped because their transaction id was already stored")
+                .register(meterRegistry);
+        this.invalidCounter = Counter.builder("transactions.invalid")
+                .description("Unreadable or invalid transactions skipped by the consumer")
+                .register(meterRegistry);
+        this.writeTimer = Timer.builder("transactions.write")
+                .description("Time to insert and roll up one consumed batch")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(topics = "${app.kafka.topics.transactions}", groupId = "transaction-consumer-group",
+                   containerFactory = "transactionBatchListenerFactory",
+                   autoStartup = "${app.transactions.enabled:true}",
+                   properties = "max.poll.records:${app.transactions.max-poll-records:1000}")
+    public void consumeTransactions(List<ConsumerRecord<String, TransactionEvent>> records) throws SQLException {
+        consumedCounter.increment(records.size());
+        long now = System.currentTimeMillis();
+        List<TransactionEvent> transactions = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, TransactionEvent> record : records) {
+            TransactionEvent transaction = record.value();
+            // The topic may have other producers than the ingest endpoint: re-check the column limits
+            if (transaction == null || transaction.validate() != null) {
+                invalidCounter.increment();
+                continue;
+            }
+            transactions.add(transaction.withDefaults(now));
+        }
+        if (transactions.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int inserted = transactionWriter.write(transactions);
+        writeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        persistedCounter.increment(inserted);
+        duplicateCounter.increment(transactions.size() - inserted);
+        logger.debug("Persisted batch of {} transactions ({} new)", transactions.size(), inserted);
+    }
+
+    /**
+     * Get consumer statistics
+     */
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+            "consumedTransactions", (long) consumedCounter.count(),
+            "persistedTransactions", (long) persistedCounter.count(),
+            "duplicateTransactions", (long) duplicateCounter.count(),
+            "invalidTransactions", (long) invalidCounter.count(),
+            "batches", writeTimer.count(),
+            "avgBatchWriteMillis", writeTimer.mean(TimeUnit.MILLISECONDS),
+            "maxBatchWriteMillis", writeTimer.max(TimeUnit.MILLISECONDS)
+        );
+    }
+}
@@ -0,0 +1,67 @@
+package com.realtime.realtimedatapipeline.controller;
+
+import com.realtime.realtimedatapipeline.alerts.AlertRuleEngine;
+import com.realtime.realtimedatapipeline.model.AlertRule;
+import com.realtime.realtimedatapipeline.producer.AlertPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller for registering and inspecting alert rules
+ */
+@RestController
+@RequestMapping("/api/alerts")
+public class AlertRuleController {
+
+    private final AlertRuleEngine alertRuleEngine;
+    private final AlertPublisher alertPublisher;
+
+    public AlertRuleController(AlertRuleEngine alertRuleEngine, AlertPublisher alertPublisher) {
+        this.alertRuleEngine = alertRuleEngine;
+        this.alertPublisher = alertPublisher;
+    }
+
+    /**
+     * Register a rule; it applies from the next quote of its symbol
+     */
+    @PostMapping("/rules")
+    public ResponseEntity<?> createRule(@RequestBody AlertRule rule) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(alertRuleEngine.create(rule));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/rules")
+    public ResponseEntity<List<AlertRule>> getRules(@RequestParam String symbol) {
+        return ResponseEntity.ok(alertRuleEngine.findBySymbol(symbol));
+    }
+
+    @GetMapping("/rules/{id}")
+    public ResponseEntity<AlertRule> getRule(@PathVariable long id) {
+        return alertRuleEngine.find(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/rules/{id}")
+    public ResponseEntity<Void> deleteRule(@PathVariable long id) {
+        return alertRuleEngine.delete(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Rule counts, evaluation latency and publish counts
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStatistics() {
+        return ResponseEntity.ok(Map.of(
+            "engine", alertRuleEngine.getStatistics(),
+            "publisher", alertPublisher.getStatistics()
+        ));
+    }
+}
@@ -0,0 +1,33 @@
+package com.realtime.realtimedatapipeline.controller;
+
+import com.realtime.realtimedatapipeline.consumer.DeadLetterRedriveService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * REST Controller for operating on dead-letter topics
+ */
+@RestController
+@RequestMapping("/api/dlq")
+public class DeadLetterController {
+    
+    private final DeadLetterRedriveService deadLetterRedriveService;
+    
+    public DeadLetterController(DeadLetterRedriveService deadLetterRedriveService) {
+        this.deadLetterRedriveService = deadLetterRedriveService;
+    }
+    
+    /**
+     * Re-publish dead-lettered records to the topic they originally failed on
+     */
+    @PostMapping("/{topic}/redrive")
+    public ResponseEntity<Map<String, Object>> redrive(@PathVariable String topic,
+                                                       @RequestParam(defaultValue = "1000") int maxRecords) {
+        if (!topic.endsWith("-dlt")) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Not a dead-letter topic: " + topic));
+        }
+        return ResponseEntity.ok(deadLetterRedriveService.redrive(topic, maxRecords));
+    }
+}
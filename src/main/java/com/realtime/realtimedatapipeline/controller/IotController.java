@@ -0,0 +1,84 @@
+package com.realtime.realtimedatapipeline.controller;
+
+import com.realtime.realtimedatapipeline.config.IotProperties;
+import com.realtime.realtimedatapipeline.consumer.SensorReadingConsumer;
+import com.realtime.realtimedatapipeline.iot.SensorAggregator;
+import com.realtime.realtimedatapipeline.model.IngestResult;
+import com.realtime.realtimedatapipeline.model.SensorReading;
+import com.realtime.realtimedatapipeline.model.SensorWindow;
+import com.realtime.realtimedatapipeline.producer.SensorReadingProducer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller for IoT sensor ingestion and windowed sensor aggregates
+ */
+@RestController
+@RequestMapping("/api/iot")
+public class IotController {
+
+    private final IotProperties iotProperties;
+    private final SensorReadingProducer sensorReadingProducer;
+    private final SensorReadingConsumer sensorReadingConsumer;
+    private final SensorAggregator sensorAggregator;
+
+    public IotController(IotProperties iotProperties,
+                         SensorReadingProducer sensorReadingProducer,
+                         SensorReadingConsumer sensorReadingConsumer,
+                         SensorAggregator sensorAggregator) {
+        this.iotProperties = iotProperties;
+        this.sensorReadingProducer = sensorReadingProducer;
+        this.sensorReadingConsumer = sensorReadingConsumer;
+        this.sensorAggregator = sensorAggregator;
+    }
+
+    /**
+     * Ingest a batch of readings; valid ones are accepted once Kafka acknowledges them and are then
+     * persisted asynchronously. Answers 503 when none of the valid readings could be published.
+     */
+    @PostMapping("/readings")
+    public ResponseEntity<?> ingest(@RequestBody List<SensorReading> readings) {
+        if (!iotProperties.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "IoT ingestion is disabled"));
+        }
+        if (readings.size() > iotProperties.getMaxRequestReadings()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error",
+                    "At most " + iotProperties.getMaxRequestReadings() + " readings per request"));
+        }
+        IngestResult result = sensorReadingProducer.publishAll(readings);
+        HttpStatus status = result.failed() > 0 && result.accepted() == 0
+                ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.ACCEPTED;
+        return ResponseEntity.status(status).body(result);
+    }
+
+    /**
+     * Current and previous aggregate window of a sensor
+     */
+    @GetMapping("/sensors/{sensorId}/aggregates")
+    public ResponseEntity<Map<String, SensorWindow>> getSensorAggregates(@PathVariable String sensorId) {
+        Map<String, SensorWindow> windows = sensorAggregator.getSensor(sensorId);
+        return windows.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(windows);
+    }
+
+    /**
+     * Current and previous aggregate window of a location
+     */
+    @GetMapping("/locations/{location}/aggregates")
+    public ResponseEntity<Map<String, SensorWindow>> getLocationAggregates(@PathVariable String location) {
+        Map<String, SensorWindow> windows = sensorAggregator.getLocation(location);
+        return windows.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(windows);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStatistics() {
+        return ResponseEntity.ok(Map.of(
+            "producer", sensorReadingProducer.getStatistics(),
+            "consumer", sensorReadingConsumer.getStatistics(),
+            "aggregates", sensorAggregator.getStatistics()
+        ));
+    }
+}
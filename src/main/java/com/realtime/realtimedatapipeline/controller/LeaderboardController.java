@@ -0,0 +1,68 @@
+package com.realtime.realtimedatapipeline.controller;
+
+import com.realtime.realtimedatapipeline.analytics.LeaderboardService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * REST Controller for the in-memory top-movers and highest-priced leaderboards
+ */
+@RestController
+@RequestMapping("/api/stocks")
+public class LeaderboardController {
+
+    private static final int MAX_LIMIT = 1_000;
+
+    private final LeaderboardService leaderboardService;
+
+    public LeaderboardController(LeaderboardService leaderboardService) {
+        this.leaderboardService = leaderboardService;
+    }
+
+    /**
+     * Top symbols on a board (percent-change, move or price); ascending=true gives the bottom ones
+     */
+    @GetMapping("/leaderboards/{board}")
+    public ResponseEntity<?> getTop(@PathVariable String board,
+                                    @RequestParam(defaultValue = "10") int limit,
+                                    @RequestParam(defaultValue = "false") boolean ascending) {
+        LeaderboardService.Board resolved;
+        try {
+            resolved = LeaderboardService.Board.fromName(board);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.ok(leaderboardService.top(resolved, clamp(limit), ascending));
+    }
+
+    /**
+     * Symbols scoring at least a threshold on a board, highest first; e.g. move with threshold=2
+     * for every symbol up or down 2% or more
+     */
+    @GetMapping("/leaderboards/{board}/above")
+    public ResponseEntity<?> getAbove(@PathVariable String board,
+                                      @RequestParam double threshold,
+                                      @RequestParam(defaultValue = "100") int limit) {
+        LeaderboardService.Board resolved;
+        try {
+            resolved = LeaderboardService.Board.fromName(board);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (Double.isNaN(threshold)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "threshold must be a number"));
+        }
+        return ResponseEntity.ok(leaderboardService.atLeast(resolved, threshold, clamp(limit)));
+    }
+
+    @GetMapping("/stats/leaderboards")
+    public ResponseEntity<Map<String, Object>> getStatistics() {
+        return ResponseEntity.ok(leaderboardService.getStatistics());
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
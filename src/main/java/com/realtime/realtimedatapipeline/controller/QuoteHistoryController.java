@@ -0,0 +1,68 @@
+package com.realtime.realtimedatapipeline.controller;
+
+import com.realtime.realtimedatapipeline.archive.ColdStorageService;
+import com.realtime.realtimedatapipeline.archive.QuoteArchiver;
+import com.realtime.realtimedatapipeline.archive.QuoteHistoryService;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller for quote history across Postgres and the cold-storage archive
+ */
+@RestController
+@RequestMapping("/api/stocks")
+public class QuoteHistoryController {
+
+    private static final int MAX_LIMIT = 100_000;
+
+    private final QuoteHistoryService quoteHistoryService;
+    private final ColdStorageService coldStorageService;
+    private final QuoteArchiver quoteArchiver;
+
+    public QuoteHistoryController(QuoteHistoryService quoteHistoryService,
+                                  ColdStorageService coldStorageService,
+                                  QuoteArchiver quoteArchiver) {
+        this.quoteHistoryService = quoteHistoryService;
+        this.coldStorageService = coldStorageService;
+        this.quoteArchiver = quoteArchiver;
+    }
+
+    /**
+     * Quotes of a symbol between two ISO date-times (default: up to now), newest first
+     */
+    @GetMapping("/history/{symbol}")
+    public ResponseEntity<List<StockQuoteEvent>> getHistory(
+            @PathVariable String symbol,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "1000") int limit) {
+        return ResponseEntity.ok(quoteHistoryService.getHistory(symbol.toUpperCase(), from,
+                to != null ? to : LocalDateTime.now(), Math.max(1, Math.min(limit, MAX_LIMIT))));
+    }
+
+    /**
+     * Count, min, max and average price of a symbol between two ISO date-times
+     */
+    @GetMapping("/history/{symbol}/aggregate")
+    public ResponseEntity<Map<String, Object>> getAggregate(
+            @PathVariable String symbol,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(quoteHistoryService.getAggregate(symbol.toUpperCase(), from,
+                to != null ? to : LocalDateTime.now()));
+    }
+
+    @GetMapping("/stats/archive")
+    public ResponseEntity<Map<String, Object>> getArchiveStatistics() {
+        return ResponseEntity.ok(Map.of(
+            "coldStorage", coldStorageService.getStatistics(),
+            "archiver", quoteArchiver.getStatistics()
+        ));
+    }
+}
@@ -1,13 +1,29 @@
 package com.realtime.realtimedatapipeline.controller;
 
+import com.realtime.realtimedatapipeline.analytics.CorrelationEngine;
+import com.realtime.realtimedatapipeline.analytics.IndicatorEngine;
+import com.realtime.realtimedatapipeline.archive.QuoteExporter;
+import com.realtime.realtimedatapipeline.client.CompanyProfileCache;
 import com.realtime.realtimedatapipeline.client.FinnhubApiClient;
 import com.realtime.realtimedatapipeline.config.StockProperties;
+import com.realtime.realtimedatapipeline.consumer.SystemLogConsumer;
+import com.realtime.realtimedatapipeline.logging.StructuredLogSink;
+import com.realtime.realtimedatapipeline.metrics.ConsumerLagCollector;
 import com.realtime.realtimedatapipeline.metrics.StockMetricsService;
+import com.realtime.realtimedatapipeline.model.IndicatorSnapshot;
 import com.realtime.realtimedatapipeline.producer.StockDataProducer;
 import com.realtime.realtimedatapipeline.scheduler.StockDataScheduler;
+import com.realtime.realtimedatapipeline.snapshot.StateSnapshotService;
+import com.realtime.realtimedatapipeline.symbols.SymbolRegistry;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -20,19 +36,46 @@ public class StockDataController {
     private final StockDataScheduler stockDataScheduler;
     private final StockDataProducer stockDataProducer;
     private final FinnhubApiClient finnhubApiClient;
+    private final CompanyProfileCache companyProfileCache;
     private final StockProperties stockProperties;
+    private final SymbolRegistry symbolRegistry;
     private final StockMetricsService stockMetricsService;
+    private final IndicatorEngine indicatorEngine;
+    private final CorrelationEngine correlationEngine;
+    private final StateSnapshotService stateSnapshotService;
+    private final ConsumerLagCollector consumerLagCollector;
+    private final StructuredLogSink structuredLogSink;
+    private final SystemLogConsumer systemLogConsumer;
+    private final QuoteExporter quoteExporter;
     
     public StockDataController(StockDataScheduler stockDataScheduler,
                               StockDataProducer stockDataProducer,
                               FinnhubApiClient finnhubApiClient,
+                              CompanyProfileCache companyProfileCache,
                               StockProperties stockProperties,
-                              StockMetricsService stockMetricsService) {
+                              SymbolRegistry symbolRegistry,
+                              StockMetricsService stockMetricsService,
+                              IndicatorEngine indicatorEngine,
+                              CorrelationEngine correlationEngine,
+                              StateSnapshotService stateSnapshotService,
+                              ConsumerLagCollector consumerLagCollector,
+                              StructuredLogSink structuredLogSink,
+                              SystemLogConsumer systemLogConsumer,
+                              QuoteExporter quoteExporter) {
         this.stockDataScheduler = stockDataScheduler;
         this.stockDataProducer = stockDataProducer;
         this.finnhubApiClient = finnhubApiClient;
+        this.companyProfileCache = companyProfileCache;
         this.stockProperties = stockProperties;
+        this.symbolRegistry = symbolRegistry;
         this.stockMetricsService = stockMetricsService;
+        this.indicatorEngine = indicatorEngine;
+        this.correlationEngine = correlationEngine;
+        this.stateSnapshotService = stateSnapshotService;
+        this.consumerLagCollector = consumerLagCollector;
+        this.structuredLogSink = structuredLogSink;
+        this.systemLogConsumer = systemLogConsumer;
+        this.quoteExporter = quoteExporter;
     }
     
     /**
@@ -41,9 +84,9 @@ public class StockDataController {
     @GetMapping("/symbols")
     public ResponseEntity<Map<String, Object>> getTrackedSymbols() {
         return ResponseEntity.ok(Map.of(
-            "symbols", stockProperties.getSymbols(),
+            "symbols", symbolRegistry.getSymbols(),
             "updateInterval", stockProperties.getUpdateInterval().toString(),
-            "totalSymbols", stockProperties.getSymbols().size()
+            "totalSymbols", symbolRegistry.getSymbols().size()
         ));
     }
     
@@ -83,15 +126,87 @@ public class StockDataController {
         return ResponseEntity.ok(finnhubApiClient.getStatistics());
     }
     
+    /**
+     * Get company profile cache statistics
+     */
+    @GetMapping("/stats/profiles")
+    public ResponseEntity<Map<String, Object>> getProfileCacheStats() {
+        return ResponseEntity.ok(companyProfileCache.getStatistics());
+    }
+    
+    /**
+     * Get state snapshot statistics
+     */
+    @GetMapping("/stats/snapshot")
+    public ResponseEntity<Map<String, Object>> getSnapshotStats() {
+        return ResponseEntity.ok(stateSnapshotService.getStatistics());
+    }
+    
+    /**
+     * Get consumer lag and fetch throttle statistics
+     */
+    @GetMapping("/stats/lag")
+    public ResponseEntity<Map<String, Object>> getLagStats() {
+        return ResponseEntity.ok(consumerLagCollector.getStatistics());
+    }
+    
+    /**
+     * Stream a symbol's quotes between two ISO date-times (default: up to now) as columnar record
+     * batches; {@code columns} projects stock_quotes columns, by default all of them
+     */
+    @GetMapping("/export/{symbol}")
+    public ResponseEntity<?> exportQuotes(
+            @PathVariable String symbol,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) List<String> columns) {
+        List<String> projection;
+        try {
+            projection = QuoteExporter.resolveColumns(columns);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        String upperSymbol = symbol.toUpperCase();
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        StreamingResponseBody body = out -> quoteExporter.export(upperSymbol, from, end, projection, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(QuoteExporter.CONTENT_TYPE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + upperSymbol + ".rtqx\"")
+                .body(body);
+    }
+    
+    /**
+     * Get quote export statistics
+     */
+    @GetMapping("/stats/export")
+    public ResponseEntity<Map<String, Object>> getExportStats() {
+        return ResponseEntity.ok(quoteExporter.getStatistics());
+    }
+    
+    /**
+     * Get structured log sink statistics: captured, sampled out and dropped events, and events persisted
+     */
+    @GetMapping("/stats/logs")
+    public ResponseEntity<Map<String, Object>> getLogStats() {
+        return ResponseEntity.ok(Map.of(
+            "sink", structuredLogSink.getStatistics(),
+            "consumer", systemLogConsumer.getStatistics()
+        ));
+    }
+    
     /**
      * Health check endpoint
      */
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> healthCheck() {
-        boolean isHealthy = stockDataScheduler.isHealthy();
+        // Passive health from recent request outcomes; no probe request is spent on the API quota
+        Map<String, Object> finnhubHealth = finnhubApiClient.getHealth();
+        boolean isHealthy = (Boolean) finnhubHealth.get("healthy");
         return ResponseEntity.ok(Map.of(
             "healthy", isHealthy,
-            "finnhubApiHealthy", finnhubApiClient.isHealthy(),
+            "finnhubApiHealthy", isHealthy,
+            "finnhub", finnhubHealth,
+            "servingStaleQuotes", finnhubApiClient.isServingStale(),
             "schedulerRunning", !stockDataScheduler.getStatistics().get("isRunning").equals(false)
         ));
     }
@@ -106,7 +221,7 @@ public class StockDataController {
             "producer", stockDataProducer.getStatistics(),
             "api", finnhubApiClient.getStatistics(),
             "configuration", Map.of(
-                "symbols", stockProperties.getSymbols(),
+                "trackedSymbols", symbolRegistry.getSymbols().size(),
                 "updateInterval", stockProperties.getUpdateInterval().toString()
             )
         ));
@@ -127,4 +242,39 @@ public class StockDataController {
     public ResponseEntity<Map<String, Object>> getSymbolMetrics(@PathVariable String symbol) {
         return ResponseEntity.ok(stockMetricsService.getSymbolMetrics(symbol.toUpperCase()));
     }
+    
+    /**
+     * Get technical indicators for all symbols
+     */
+    @GetMapping("/indicators")
+    public ResponseEntity<Map<String, IndicatorSnapshot>> getIndicators() {
+        return ResponseEntity.ok(indicatorEngine.getSnapshots());
+    }
+    
+    /**
+     * Get technical indicators for a specific symbol
+     */
+    @GetMapping("/indicators/{symbol}")
+    public ResponseEntity<IndicatorSnapshot> getSymbolIndicators(@PathVariable String symbol) {
+        IndicatorSnapshot snapshot = indicatorEngine.getSnapshot(symbol.toUpperCase());
+        return snapshot != null ? ResponseEntity.ok(snapshot) : ResponseEntity.notFound().build();
+    }
+    
+    /**
+     * Get the rolling correlation and covariance matrices, optionally for a subset of symbols
+     */
+    @GetMapping("/correlations")
+    public ResponseEntity<Map<String, Object>> getCorrelations(@RequestParam(required = false) List<String> symbols) {
+        List<String> requested = symbols != null ? symbols.stream().map(String::toUpperCase).toList() : List.of();
+        return ResponseEntity.ok(correlationEngine.getSnapshot(requested));
+    }
+    
+    /**
+     * Get the symbols most strongly correlated with a symbol
+     */
+    @GetMapping("/correlations/{symbol}")
+    public ResponseEntity<Map<String, Double>> getSymbolCorrelations(@PathVariable String symbol,
+                                                                     @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(correlationEngine.getTopCorrelations(symbol.toUpperCase(), limit));
+    }
 }
@@ -0,0 +1,66 @@
+package com.realtime.realtimedatapipeline.controller;
+
+import com.realtime.realtimedatapipeline.symbols.SymbolRegistry;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller for managing the tracked symbol universe at runtime
+ */
+@RestController
+@RequestMapping("/api/symbols")
+public class SymbolController {
+
+    private final SymbolRegistry symbolRegistry;
+
+    public SymbolController(SymbolRegistry symbolRegistry) {
+        this.symbolRegistry = symbolRegistry;
+    }
+
+    /**
+     * Tracked symbols with their registry ids, in id order
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getSymbols() {
+        return ResponseEntity.ok(Map.of(
+            "symbols", symbolRegistry.getIds(),
+            "version", symbolRegistry.version()
+        ));
+    }
+
+    /**
+     * Start tracking a batch of symbols; they are fetched from the next cycle on
+     */
+    @PostMapping
+    public ResponseEntity<?> addSymbols(@RequestBody List<String> symbols) {
+        try {
+            List<String> added = symbolRegistry.add(symbols);
+            return ResponseEntity.ok(Map.of(
+                "added", added,
+                "totalSymbols", symbolRegistry.getSymbols().size(),
+                "version", symbolRegistry.version()
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{symbol}")
+    public ResponseEntity<?> removeSymbol(@PathVariable String symbol) {
+        try {
+            return symbolRegistry.remove(List.of(symbol)).isEmpty()
+                    ? ResponseEntity.notFound().build()
+                    : ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStatistics() {
+        return ResponseEntity.ok(symbolRegistry.getStatistics());
+    }
+}
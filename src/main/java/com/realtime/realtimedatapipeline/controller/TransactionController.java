@@ -0,0 +1,108 @@
+package com.realtime.realtimedatapipeline.controller;
+
+import com.realtime.realtimedatapipeline.config.TransactionProperties;
+import com.realtime.realtimedatapipeline.consumer.TransactionConsumer;
+import com.realtime.realtimedatapipeline.model.TransactionEvent;
+import com.realtime.realtimedatapipeline.producer.TransactionProducer;
+import com.realtime.realtimedatapipeline.transactions.TransactionStatsService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller for transaction ingestion and the hourly transaction stats
+ */
+@RestController
+@RequestMapping("/api/transactions")
+public class TransactionController {
+
+    private final TransactionProperties transactionProperties;
+    private final TransactionProducer transactionProducer;
+    private final TransactionConsumer transactionConsumer;
+    private final TransactionStatsService transactionStatsService;
+
+    public TransactionController(TransactionProperties transactionProperties,
+                                 TransactionProducer transactionProducer,
+                                 TransactionConsumer transactionConsumer,
+                                 TransactionStatsService transactionStatsService) {
+        this.transactionProperties = transactionProperties;
+        this.transactionProducer = transactionProducer;
+        this.transactionConsumer = transactionConsumer;
+        this.transactionStatsService = transactionStatsService;
+    }
+
+    /**
+     * Ingest a batch of transactions; valid ones are accepted for asynchronous persistence
+     */
+    @PostMapping
+    public ResponseEntity<?> ingest(@RequestBody List<TransactionEvent> transactions) {
+        if (!transactionProperties.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "Transaction ingestion is disabled"));
+        }
+        if (transactions.size() > transactionProperties.getMaxRequestTransactions()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error",
+                    "At most " + transactionProperties.getMaxRequestTransactions() + " transactions per request"));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(transactionProducer.publishAll(transactions));
+    }
+
+    /**
+     * Hourly stats between two instants (ISO-8601), by default the last 24 hours
+     */
+    @GetMapping("/stats/hourly")
+    public ResponseEntity<?> getHourlyStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofHours(24));
+        String error = checkRange(start, end);
+        if (error != null) {
+            return ResponseEntity.badRequest().body(Map.of("error", error));
+        }
+        return ResponseEntity.ok(transactionStatsService.getHourlyStats(start, end));
+    }
+
+    /**
+     * Estimated distinct users between two instants (ISO-8601), by default the last 24 hours
+     */
+    @GetMapping("/stats/unique-users")
+    public ResponseEntity<?> getUniqueUsers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofHours(24));
+        String error = checkRange(start, end);
+        if (error != null) {
+            return ResponseEntity.badRequest().body(Map.of("error", error));
+        }
+        return ResponseEntity.ok(Map.of(
+            "from", start,
+            "to", end,
+            "uniqueUsers", transactionStatsService.getUniqueUsers(start, end)
+        ));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStatistics() {
+        return ResponseEntity.ok(Map.of(
+            "producer", transactionProducer.getStatistics(),
+            "consumer", transactionConsumer.getStatistics()
+        ));
+    }
+
+    private String checkRange(Instant from, Instant to) {
+        if (!from.isBefore(to)) {
+            return "from must be before to";
+        }
+        if (Duration.between(from, to).toHours() > transactionProperties.getMaxQueryHours()) {
+            return "At most " + transactionProperties.getMaxQueryHours() + " hours per query";
+        }
+        return null;
+    }
+}
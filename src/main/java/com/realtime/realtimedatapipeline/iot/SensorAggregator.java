@@ -0,0 +1,185 @@
+package com.realtime.realtimedatapipeline.iot;
+
+import com.realtime.realtimedatapipeline.config.IotProperties;
+import com.realtime.realtimedatapipeline.model.SensorReading;
+import com.realtime.realtimedatapipeline.model.SensorWindow;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tumbling-window aggregates per sensor and per location. Each consumer batch is first folded into
+ * batch-local aggregates, so the shared maps are touched once per key and window rather than once
+ * per reading; a location shared by thousands of sensors costs one merge per batch.
+ * <p>
+ * Every key keeps its current window and the one before it. A reading for the previous window
+ * still counts; anything older is counted as late and dropped.
+ */
+@Service
+public class SensorAggregator {
+
+    private final IotProperties iotProperties;
+    private final Map<String, KeyWindows> sensors = new ConcurrentHashMap<>();
+    private final Map<String, KeyWindows> locations = new ConcurrentHashMap<>();
+
+    private final LongAdder aggregatedReadings = new LongAdder();
+    private final LongAdder lateReadings = new LongAdder();
+    private final LongAdder evictedKeys = new LongAdder();
+
+    public SensorAggregator(IotProperties iotProperties, MeterRegistry meterRegistry) {
+        this.iotProperties = iotProperties;
+        Gauge.builder("iot.aggregates.sensors", sensors, Map::size)
+                .description("Sensors with windowed aggregates in memory")
+                .register(meterRegistry);
+        Gauge.builder("iot.aggregates.locations", locations, Map::size)
+                .description("Locations with windowed aggregates in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Fold one batch of persisted readings into the aggregates
+     */
+    public void add(Iterable<SensorReading> readings) {
+        long windowMillis = windowMillis();
+        Map<String, WindowAggregate> bySensor = new HashMap<>();
+        Map<String, WindowAggregate> byLocation = new HashMap<>();
+        long count = 0;
+        for (SensorReading reading : readings) {
+            if (reading.timestamp() == null) {
+                continue;
+            }
+            count++;
+            long windowStart = Math.floorDiv(reading.timestamp(), windowMillis) * windowMillis;
+            accumulate(bySensor, sensors, reading.sensorId(), windowStart).add(reading);
+            if (reading.location() != null) {
+                accumulate(byLocation, locations, reading.location(), windowStart).add(reading);
+            }
+        }
+        bySensor.forEach((sensor, aggregate) -> merge(sensors, sensor, aggregate));
+        byLocation.forEach((location, aggregate) -> merge(locations, location, aggregate));
+        aggregatedReadings.add(count);
+    }
+
+    /**
+     * The batch-local aggregate of a key for a window. A reading for another window than the one being
+     * accumulated (rare, since a sensor's readings arrive in order) flushes the old one first.
+     */
+    private WindowAggregate accumulate(Map<String, WindowAggregate> local, Map<String, KeyWindows> shared,
+                                       String key, long windowStart) {
+        WindowAggregate aggregate = local.get(key);
+        if (aggregate == null || aggregate.windowStart != windowStart) {
+            if (aggregate != null) {
+                merge(shared, key, aggregate);
+            }
+            aggregate = new WindowAggregate(windowStart);
+            local.put(key, aggregate);
+        }
+        return aggregate;
+    }
+
+    private void merge(Map<String, KeyWindows> shared, String key, WindowAggregate aggregate) {
+        shared.compute(key, (k, windows) -> {
+            if (windows == null) {
+                windows = new KeyWindows();
+            }
+            if (windows.current == null || aggregate.windowStart > windows.current.windowStart) {
+                windows.previous = windows.current;
+                windows.current = aggregate;
+            } else if (aggregate.windowStart == windows.current.windowStart) {
+                windows.current.merge(aggregate);
+            } else if (windows.previous != null && aggregate.windowStart == windows.previous.windowStart) {
+                windows.previous.merge(aggregate);
+            } else if (shared == sensors) {
+                // Counted once, on the sensor side
+                lateReadings.add(aggregate.readings);
+            }
+            return windows;
+        });
+    }
+
+    /**
+     * Current and previous window of a sensor, including its battery drain; empty if it has none
+     */
+    public Map<String, SensorWindow> getSensor(String sensorId) {
+        return snapshot(sensors, sensorId, true);
+    }
+
+    /**
+     * Current and previous window of a location; empty if it has none
+     */
+    public Map<String, SensorWindow> getLocation(String location) {
+        return snapshot(locations, location, false);
+    }
+
+    private Map<String, SensorWindow> snapshot(Map<String, KeyWindows> shared, String key, boolean drain) {
+        long windowMillis = windowMillis();
+        Map<String, SensorWindow> snapshot = new LinkedHashMap<>();
+        // Read under the bin lock: merges mutate the aggregates in place
+        shared.computeIfPresent(key, (k, windows) -> {
+            snapshot.put("current", windows.current.toWindow(key, windowMillis, drain));
+            if (windows.previous != null) {
+                snapshot.put("previous", windows.previous.toWindow(key, windowMillis, drain));
+            }
+            return windows;
+        });
+        return snapshot;
+    }
+
+    /**
+     * Drop keys whose current window is older than the retained windows
+     */
+    @Scheduled(fixedRateString = "#{@iotProperties.getWindow().toMillis()}")
+    public void evictIdle() {
+        long windowMillis = windowMillis();
+        long cutoff = Math.floorDiv(System.currentTimeMillis(), windowMillis) * windowMillis
+                - iotProperties.getRetainedWindows() * windowMillis;
+        evict(sensors, cutoff);
+        evict(locations, cutoff);
+    }
+
+    private void evict(Map<String, KeyWindows> shared, long cutoff) {
+        for (String key : shared.keySet()) {
+            shared.computeIfPresent(key, (k, windows) -> {
+                if (windows.current.windowStart < cutoff) {
+                    evictedKeys.increment();
+                    return null;
+                }
+                return windows;
+            });
+        }
+    }
+
+    private long windowMillis() {
+        return iotProperties.getWindow().toMillis();
+    }
+
+    /**
+     * Get aggregator statistics
+     * @return Map with key counts and reading counts
+     */
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+            "window", iotProperties.getWindow().toString(),
+            "sensors", sensors.size(),
+            "locations", locations.size(),
+            "aggregatedReadings", aggregatedReadings.sum(),
+            "lateReadings", lateReadings.sum(),
+            "evictedKeys", evictedKeys.sum()
+        );
+    }
+
+    /**
+     * A key's current and previous window; only accessed inside the map's compute methods
+     */
+    private static final class KeyWindows {
+        private WindowAggregate current;
+        private WindowAggregate previous;
+    }
+}
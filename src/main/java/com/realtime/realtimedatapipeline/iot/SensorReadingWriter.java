@@ -0,0 +1,129 @@
+package com.realtime.realtimedatapipeline.iot;
+
+import com.realtime.realtimedatapipeline.model.SensorReading;
+import org.postgresql.PGConnection;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Writes batches of readings into events.iot_sensors with COPY, which streams rows without a
+ * statement or bind parameters per row. Rows are COPYed into a session temp table and moved over
+ * with ON CONFLICT DO NOTHING on their id, so a redelivered batch is written once: ids are derived
+ * from the readings' Kafka coordinates. The ids the move returns tell which readings were new.
+ */
+@Component
+public class SensorReadingWriter {
+
+    private static final String CREATE_STAGE = "CREATE TEMP TABLE IF NOT EXISTS iot_sensors_stage " +
+            "(LIKE events.iot_sensors INCLUDING DEFAULTS) ON COMMIT DELETE ROWS";
+
+    private static final String COPY_STAGE = "COPY iot_sensors_stage (id, sensor_id, device_type, location, " +
+            "temperature, humidity, pressure, battery_level, signal_strength, timestamp) FROM STDIN";
+
+    private static final String MOVE_STAGE = "INSERT INTO events.iot_sensors SELECT * FROM iot_sensors_stage " +
+            "ON CONFLICT (id) DO NOTHING RETURNING id";
+
+    private final DataSource dataSource;
+
+    public SensorReadingWriter(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Write readings in one transaction
+     * @param ids row id of each reading, in the same order
+     * @return the readings inserted, in order; fewer than given when some were already written
+     */
+    public List<SensorReading> write(List<UUID> ids, List<SensorReading> readings) throws SQLException, IOException {
+        byte[] rows = encode(ids, readings);
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGE);
+                connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn(COPY_STAGE, new ByteArrayInputStream(rows));
+                Set<UUID> insertedIds = new HashSet<>();
+                try (ResultSet returned = statement.executeQuery(MOVE_STAGE)) {
+                    while (returned.next()) {
+                        insertedIds.add(returned.getObject(1, UUID.class));
+                    }
+                }
+                connection.commit();
+                return inserted(ids, readings, insertedIds);
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    static List<SensorReading> inserted(List<UUID> ids, List<SensorReading> readings, Set<UUID> insertedIds) {
+        if (insertedIds.size() == readings.size()) {
+            return readings;
+        }
+        List<SensorReading> inserted = new ArrayList<>(insertedIds.size());
+        for (int i = 0; i < readings.size(); i++) {
+            if (insertedIds.contains(ids.get(i))) {
+                inserted.add(readings.get(i));
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Readings in COPY text format: tab-separated columns, \N for null, one row per line
+     */
+    static byte[] encode(List<UUID> ids, List<SensorReading> readings) {
+        StringBuilder rows = new StringBuilder(readings.size() * 128);
+        for (int i = 0; i < readings.size(); i++) {
+            SensorReading reading = readings.get(i);
+            rows.append(ids.get(i)).append('\t');
+            appendText(rows, reading.sensorId()).append('\t');
+            appendText(rows, reading.deviceType()).append('\t');
+            appendText(rows, reading.location()).append('\t');
+            appendValue(rows, reading.temperature()).append('\t');
+            appendValue(rows, reading.humidity()).append('\t');
+            appendValue(rows, reading.pressure()).append('\t');
+            appendValue(rows, reading.batteryLevel()).append('\t');
+            appendValue(rows, reading.signalStrength()).append('\t');
+            appendValue(rows, reading.timestamp() != null ? Instant.ofEpochMilli(reading.timestamp()) : null)
+                    .append('\n');
+        }
+        return rows.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static StringBuilder appendValue(StringBuilder rows, Object value) {
+        return value == null ? rows.append("\\N") : rows.append(value);
+    }
+
+    private static StringBuilder appendText(StringBuilder rows, String value) {
+        if (value == null) {
+            return rows.append("\\N");
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> rows.append("\\\\");
+                case '\t' -> rows.append("\\t");
+                case '\n' -> rows.append("\\n");
+                case '\r' -> rows.append("\\r");
+                default -> rows.append(c);
+            }
+        }
+        return rows;
+    }
+}
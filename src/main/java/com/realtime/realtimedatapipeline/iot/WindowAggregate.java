@@ -0,0 +1,101 @@
+package com.realtime.realtimedatapipeline.iot;
+
+import com.realtime.realtimedatapipeline.model.SensorReading;
+import com.realtime.realtimedatapipeline.model.SensorWindow;
+
+/**
+ * Mergeable running figures of one key over one window. Not thread-safe: a consumer batch
+ * fills its own instances, which are then merged into the shared ones under the map's bin lock.
+ */
+final class WindowAggregate {
+
+    final long windowStart;
+    long readings;
+
+    private long temperatureCount;
+    private double temperatureMin = Double.POSITIVE_INFINITY;
+    private double temperatureMax = Double.NEGATIVE_INFINITY;
+    private double temperatureSum;
+    private long humidityCount;
+    private double humiditySum;
+
+    private long batteryCount;
+    private long batterySum;
+    private int batteryMin = Integer.MAX_VALUE;
+    // Earliest and latest battery reading by reading time, for the sensor's drain
+    private long firstBatteryAt = Long.MAX_VALUE;
+    private int firstBattery;
+    private long lastBatteryAt = Long.MIN_VALUE;
+    private int lastBattery;
+
+    WindowAggregate(long windowStart) {
+        this.windowStart = windowStart;
+    }
+
+    void add(SensorReading reading) {
+        readings++;
+        if (reading.temperature() != null) {
+            double temperature = reading.temperature();
+            temperatureCount++;
+            temperatureSum += temperature;
+            temperatureMin = Math.min(temperatureMin, temperature);
+            temperatureMax = Math.max(temperatureMax, temperature);
+        }
+        if (reading.humidity() != null) {
+            humidityCount++;
+            humiditySum += reading.humidity();
+        }
+        if (reading.batteryLevel() != null) {
+            int level = reading.batteryLevel();
+            long at = reading.timestamp();
+            batteryCount++;
+            batterySum += level;
+            batteryMin = Math.min(batteryMin, level);
+            if (at < firstBatteryAt) {
+                firstBatteryAt = at;
+                firstBattery = level;
+            }
+            if (at >= lastBatteryAt) {
+                lastBatteryAt = at;
+                lastBattery = level;
+            }
+        }
+    }
+
+    void merge(WindowAggregate other) {
+        readings += other.readings;
+        temperatureCount += other.temperatureCount;
+        temperatureSum += other.temperatureSum;
+        temperatureMin = Math.min(temperatureMin, other.temperatureMin);
+        temperatureMax = Math.max(temperatureMax, other.temperatureMax);
+        humidityCount += other.humidityCount;
+        humiditySum += other.humiditySum;
+        if (other.batteryCount == 0) {
+            return;
+        }
+        batteryCount += other.batteryCount;
+        batterySum += other.batterySum;
+        batteryMin = Math.min(batteryMin, other.batteryMin);
+        if (other.firstBatteryAt < firstBatteryAt) {
+            firstBatteryAt = other.firstBatteryAt;
+            firstBattery = other.firstBattery;
+        }
+        if (other.lastBatteryAt >= lastBatteryAt) {
+            lastBatteryAt = other.lastBatteryAt;
+            lastBattery = other.lastBattery;
+        }
+    }
+
+    SensorWindow toWindow(String key, long windowMillis, boolean drain) {
+        boolean temperatures = temperatureCount > 0;
+        boolean batteries = batteryCount > 0;
+        return new SensorWindow(key, windowStart, windowStart + windowMillis, readings,
+                temperatures ? temperatureMin : null,
+                temperatures ? temperatureMax : null,
+                temperatures ? temperatureSum / temperatureCount : null,
+                humidityCount > 0 ? humiditySum / humidityCount : null,
+                batteries ? (double) batterySum / batteryCount : null,
+                batteries ? batteryMin : null,
+                drain && batteryCount > 1 ? firstBattery - lastBattery : null);
+    }
+}
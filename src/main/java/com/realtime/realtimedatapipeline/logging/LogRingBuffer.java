@@ -0,0 +1,72 @@
+package com.realtime.realtimedatapipeline.logging;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded multi-producer, single-consumer ring buffer. Producers claim a slot with one CAS on the
+ * tail and never block: when the buffer is full the item is refused. The single consumer reads
+ * slots in claim order, stopping at a slot whose producer has claimed but not yet filled it.
+ */
+final class LogRingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Only the consumer writes the head; producers read it to detect a full buffer
+    private final AtomicLong head = new AtomicLong();
+
+    LogRingBuffer(int capacity) {
+        // Smallest power of two holding the requested capacity, so slots are found by masking
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return false if the buffer is full
+     */
+    boolean offer(T item) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head.get() >= slots.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        // The consumer cleared this slot before advancing the head past it
+        slots.lazySet((int) claimed & mask, item);
+        return true;
+    }
+
+    /**
+     * Move up to {@code max} items into {@code into}; must only be called from one thread at a time
+     * @return items moved
+     */
+    int drainTo(List<? super T> into, int max) {
+        long next = head.get();
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) next & mask;
+            T item = slots.get(index);
+            if (item == null) {
+                break;
+            }
+            slots.lazySet(index, null);
+            into.add(item);
+            next++;
+            drained++;
+        }
+        head.lazySet(next);
+        return drained;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+}
@@ -0,0 +1,67 @@
+package com.realtime.realtimedatapipeline.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback appender that filters and samples on the logging thread and hands kept events to a
+ * {@link LogRingBuffer}. It takes no lock: unlike AppenderBase it is not synchronized, and a full
+ * buffer drops the event instead of blocking the caller. Message formatting, MDC and thread name
+ * are only resolved for events that are kept.
+ */
+final class RingBufferAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+    private final LogRingBuffer<ILoggingEvent> buffer;
+    private final Level threshold;
+    private final double sampleRate;
+    private final String[] excludedLoggers;
+
+    final LongAdder captured = new LongAdder();
+    final LongAdder filtered = new LongAdder();
+    final LongAdder sampledOut = new LongAdder();
+    final LongAdder dropped = new LongAdder();
+
+    RingBufferAppender(LogRingBuffer<ILoggingEvent> buffer, Level threshold, double sampleRate,
+                       List<String> excludedLoggers) {
+        this.buffer = buffer;
+        this.threshold = threshold;
+        this.sampleRate = sampleRate;
+        this.excludedLoggers = excludedLoggers.toArray(String[]::new);
+        setName("structured-log-sink");
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        Level level = event.getLevel();
+        if (!level.isGreaterOrEqual(threshold) || isExcluded(event.getLoggerName())) {
+            filtered.increment();
+            return;
+        }
+        if (level.toInt() < Level.WARN_INT && sampleRate < 1.0
+                && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            sampledOut.increment();
+            return;
+        }
+        // Format now: arguments may change once the caller moves on
+        event.prepareForDeferredProcessing();
+        if (buffer.offer(event)) {
+            captured.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private boolean isExcluded(String loggerName) {
+        for (String prefix : excludedLoggers) {
+            if (loggerName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,158 @@
+package com.realtime.realtimedatapipeline.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import com.realtime.realtimedatapipeline.config.LogSinkProperties;
+import com.realtime.realtimedatapipeline.model.SystemLogEvent;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Captures application log events with a {@link RingBufferAppender} on the root logger and ships
+ * them to the system-logs topic from a scheduled drain, so the logging thread only pays for the
+ * level check, the sampling decision and one CAS. Starts in an early lifecycle phase and stops in a
+ * late one, so startup and shutdown logs are captured; the last events are shipped on stop.
+ */
+@Service
+public class StructuredLogSink implements SmartLifecycle {
+
+    private static final org.slf4j.Logger logger = LoggerFactory.getLogger(StructuredLogSink.class);
+
+    private static final int PHASE = -200;
+    // Events converted and sent per drain pass
+    private static final int DRAIN_BATCH = 500;
+
+    private final LogSinkProperties properties;
+    private final KafkaTemplate<String, SystemLogEvent> kafkaTemplate;
+    private final String serviceName;
+    private final LogRingBuffer<ILoggingEvent> buffer;
+    private final RingBufferAppender appender;
+
+    private final LongAdder shipped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    @Value("${app.kafka.topics.system-logs}")
+    private String systemLogsTopic;
+
+    private volatile boolean running;
+
+    public StructuredLogSink(LogSinkProperties properties,
+                             KafkaTemplate<String, SystemLogEvent> kafkaTemplate,
+                             @Value("${spring.application.name:real-time-data-pipeline}") String serviceName) {
+        this.properties = properties;
+        this.kafkaTemplate = kafkaTemplate;
+        this.serviceName = truncate(serviceName, 50);
+        this.buffer = new LogRingBuffer<>(properties.getBufferSize());
+        this.appender = new RingBufferAppender(buffer, Level.toLevel(properties.getLevel(), Level.INFO),
+                properties.getSampleRate(), properties.getExcludedLoggers());
+    }
+
+    @Override
+    public void start() {
+        if (properties.isEnabled() && LoggerFactory.getILoggerFactory() instanceof LoggerContext context) {
+            appender.setContext(context);
+            appender.start();
+            context.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(appender);
+            logger.debug("Structured log sink attached with a {}-slot buffer", buffer.capacity());
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (appender.isStarted()) {
+            ((LoggerContext) appender.getContext()).getLogger(Logger.ROOT_LOGGER_NAME).detachAppender(appender);
+            appender.stop();
+            flush();
+            kafkaTemplate.flush();
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Ship everything buffered so far
+     */
+    @Scheduled(fixedDelayString = "#{@logSinkProperties.getFlushInterval().toMillis()}")
+    public synchronized void flush() {
+        List<ILoggingEvent> batch = new ArrayList<>(DRAIN_BATCH);
+        while (buffer.drainTo(batch, DRAIN_BATCH) > 0) {
+            for (ILoggingEvent event : batch) {
+                try {
+                    kafkaTemplate.send(systemLogsTopic, toSystemLogEvent(event))
+                            .whenComplete((result, failure) -> {
+                                if (failure != null) {
+                                    failed.increment();
+                                }
+                            });
+                    shipped.increment();
+                } catch (RuntimeException e) {
+                    // This package's loggers are never captured, so the warning cannot feed back into the sink
+                    failed.increment();
+                    logger.warn("Could not ship log event: {}", e.getMessage());
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    SystemLogEvent toSystemLogEvent(ILoggingEvent event) {
+        IThrowableProxy throwable = event.getThrowableProxy();
+        return new SystemLogEvent(
+                event.getTimeStamp(),
+                event.getLevel().toString(),
+                serviceName,
+                event.getLoggerName(),
+                event.getThreadName(),
+                truncate(event.getFormattedMessage(), properties.getMaxMessageLength()),
+                throwable != null ? truncate(ThrowableProxyUtil.asString(throwable), properties.getMaxStackLength()) : null,
+                event.getMDCPropertyMap());
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value == null) {
+            return null;
+        }
+        return value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    /**
+     * Get sink statistics
+     */
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+            "enabled", appender.isStarted(),
+            "captured", appender.captured.sum(),
+            "filtered", appender.filtered.sum(),
+            "sampledOut", appender.sampledOut.sum(),
+            "dropped", appender.dropped.sum(),
+            "buffered", buffer.size(),
+            "bufferCapacity", buffer.capacity(),
+            "shipped", shipped.sum(),
+            "failed", failed.sum(),
+            "topic", systemLogsTopic
+        );
+    }
+}
@@ -0,0 +1,94 @@
+package com.realtime.realtimedatapipeline.logging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.realtime.realtimedatapipeline.model.SystemLogEvent;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes batches of shipped log events into events.system_logs. Request, user and session ids are
+ * taken from the MDC into their own columns; logger, thread and the rest of the MDC go into
+ * additional_data. Row ids come from the events' Kafka coordinates, so a redelivered batch is
+ * written once.
+ */
+@Component
+public class SystemLogWriter {
+
+    private static final String INSERT_LOG = "INSERT INTO events.system_logs (id, log_level, service_name, message, " +
+            "exception_stack, request_id, user_id, session_id, timestamp, additional_data) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?::jsonb) ON CONFLICT (id) DO NOTHING";
+
+    static final String REQUEST_ID = "requestId";
+    static final String USER_ID = "userId";
+    static final String SESSION_ID = "sessionId";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public SystemLogWriter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write events in one JDBC batch
+     * @param ids row id of each event, in the same order
+     */
+    public void write(List<UUID> ids, List<SystemLogEvent> events) {
+        jdbcTemplate.batchUpdate(INSERT_LOG, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                SystemLogEvent event = events.get(i);
+                Map<String, String> mdc = event.mdc() != null ? event.mdc() : Map.of();
+                ps.setObject(1, ids.get(i));
+                ps.setString(2, truncate(event.level(), 10));
+                ps.setString(3, truncate(event.serviceName(), 50));
+                ps.setString(4, event.message() != null ? event.message() : "");
+                ps.setString(5, event.exceptionStack());
+                ps.setString(6, truncate(mdc.get(REQUEST_ID), 100));
+                ps.setString(7, truncate(mdc.get(USER_ID), 50));
+                ps.setString(8, truncate(mdc.get(SESSION_ID), 100));
+                ps.setTimestamp(9, new Timestamp(event.timestamp()));
+                ps.setString(10, additionalData(event, mdc));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return events.size();
+            }
+        });
+    }
+
+    String additionalData(SystemLogEvent event, Map<String, String> mdc) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("logger", event.logger());
+        data.put("thread", event.thread());
+        Map<String, String> rest = new LinkedHashMap<>(mdc);
+        rest.keySet().removeAll(List.of(REQUEST_ID, USER_ID, SESSION_ID));
+        if (!rest.isEmpty()) {
+            data.put("mdc", rest);
+        }
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize log event context", e);
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value == null) {
+            return null;
+        }
+        return value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+}
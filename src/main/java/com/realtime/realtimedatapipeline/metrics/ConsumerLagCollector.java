@@ -0,0 +1,281 @@
+package com.realtime.realtimedatapipeline.metrics;
+
+import com.realtime.realtimedatapipeline.config.KafkaConsumerProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Samples committed vs. log-end offsets of our consumer groups with two admin requests per group
+ * (committed offsets, then end offsets for all of the group's partitions at once). Lag per group
+ * and topic is exported as gauges, per-partition samples are written to monitoring.kafka_consumer_lag
+ * in batches, and the throttle group's lag sets the fetch throttle factor read by the scheduler.
+ */
+@Service
+public class ConsumerLagCollector implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerLagCollector.class);
+
+    private static final String INSERT_SAMPLE = "INSERT INTO monitoring.kafka_consumer_lag " +
+            "(consumer_group, topic, partition_id, current_offset, log_end_offset, lag, timestamp) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final Duration MAX_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private final KafkaConsumerProperties.Lag properties;
+    private final KafkaAdmin kafkaAdmin;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Timer sampleTimer;
+
+    // Total lag per "group|topic", registered as a gauge when first seen
+    private final Map<String, AtomicLong> lagByGroupTopic = new ConcurrentHashMap<>();
+    private final List<LagSample> pending = new ArrayList<>();
+
+    private final LongAdder samplesWritten = new LongAdder();
+    private final LongAdder samplesDropped = new LongAdder();
+    private final LongAdder sampleFailures = new LongAdder();
+    private final AtomicLong throttleLag = new AtomicLong(-1);
+    private volatile long lastSampleMillis;
+    private volatile long lastThrottleSampleMillis;
+    private volatile Admin admin;
+
+    public ConsumerLagCollector(KafkaConsumerProperties consumerProperties,
+                                KafkaAdmin kafkaAdmin,
+                                JdbcTemplate jdbcTemplate,
+                                MeterRegistry meterRegistry) {
+        this.properties = consumerProperties.getLag();
+        this.kafkaAdmin = kafkaAdmin;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.sampleTimer = Timer.builder("kafka.consumer.lag.sample.time")
+                .description("Time to sample committed and end offsets of all monitored groups")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void registerGauges() {
+        Gauge.builder("kafka.consumer.lag.throttle.factor", this, ConsumerLagCollector::throttleFactor)
+                .description("Fetch cycles per cycle actually run while the quote consumer lags (1 = not throttled)")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "#{@kafkaConsumerProperties.getLag().getSampleInterval().toMillis()}",
+               fixedDelayString = "#{@kafkaConsumerProperties.getLag().getSampleInterval().toMillis()}")
+    public void sample() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Timestamp sampledAt = Timestamp.from(Instant.now());
+        for (String group : properties.getGroups()) {
+            try {
+                List<LagSample> samples = sampleGroup(group, sampledAt);
+                Map<String, Long> byTopic = new HashMap<>();
+                for (LagSample sample : samples) {
+                    byTopic.merge(sample.topic(), sample.lag(), Long::sum);
+                }
+                byTopic.forEach((topic, lag) -> lagGauge(group, topic).set(lag));
+                if (group.equals(properties.getThrottleGroup())) {
+                    throttleLag.set(byTopic.values().stream().mapToLong(Long::longValue).sum());
+                    lastThrottleSampleMillis = System.currentTimeMillis();
+                }
+                buffer(samples);
+            } catch (Exception e) {
+                sampleFailures.increment();
+                logger.debug("Could not sample lag of consumer group {}: {}", group, e.getMessage());
+            }
+        }
+        lastSampleMillis = System.currentTimeMillis();
+        sampleTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (pendingCount() >= properties.getFlushSize()) {
+            flush();
+        }
+    }
+
+    private List<LagSample> sampleGroup(String group, Timestamp sampledAt) throws Exception {
+        long timeout = requestTimeout().toMillis();
+        Map<TopicPartition, OffsetAndMetadata> committed = admin().listConsumerGroupOffsets(group)
+                .partitionsToOffsetAndMetadata().get(timeout, TimeUnit.MILLISECONDS);
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        committed.forEach((partition, offset) -> {
+            if (offset != null) {
+                latest.put(partition, OffsetSpec.latest());
+            }
+        });
+        if (latest.isEmpty()) {
+            return List.of();
+        }
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> ends = admin().listOffsets(latest)
+                .all().get(timeout, TimeUnit.MILLISECONDS);
+
+        List<LagSample> samples = new ArrayList<>(ends.size());
+        ends.forEach((partition, end) -> {
+            long current = committed.get(partition).offset();
+            samples.add(new LagSample(group, partition.topic(), partition.partition(), current, end.offset(),
+                    Math.max(0, end.offset() - current), sampledAt));
+        });
+        return samples;
+    }
+
+    private Duration requestTimeout() {
+        Duration interval = properties.getSampleInterval();
+        return interval.compareTo(MAX_REQUEST_TIMEOUT) < 0 ? interval : MAX_REQUEST_TIMEOUT;
+    }
+
+    private Admin admin() {
+        Admin current = admin;
+        if (current == null) {
+            synchronized (this) {
+                if (admin == null) {
+                    admin = Admin.create(kafkaAdmin.getConfigurationProperties());
+                }
+                current = admin;
+            }
+        }
+        return current;
+    }
+
+    private AtomicLong lagGauge(String group, String topic) {
+        return lagByGroupTopic.computeIfAbsent(group + "|" + topic, key -> {
+            AtomicLong lag = new AtomicLong();
+            Gauge.builder("kafka.consumer.lag", lag, AtomicLong::get)
+                    .description("Committed-offset lag summed over the topic's partitions")
+                    .tag("group", group)
+                    .tag("topic", topic)
+                    .register(meterRegistry);
+            return lag;
+        });
+    }
+
+    /**
+     * Queue samples for the next flush; while the table cannot be written the oldest are dropped
+     */
+    private void buffer(List<LagSample> samples) {
+        synchronized (pending) {
+            pending.addAll(samples);
+            int overflow = pending.size() - properties.getFlushSize() * 10;
+            if (overflow > 0) {
+                pending.subList(0, overflow).clear();
+                samplesDropped.add(overflow);
+            }
+        }
+    }
+
+    private int pendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Write buffered samples in one JDBC batch
+     */
+    @Scheduled(initialDelayString = "#{@kafkaConsumerProperties.getLag().getFlushInterval().toMillis()}",
+               fixedDelayString = "#{@kafkaConsumerProperties.getLag().getFlushInterval().toMillis()}")
+    public synchronized void flush() {
+        List<LagSample> batch;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SAMPLE, batch, batch.size(), (ps, sample) -> {
+                ps.setString(1, sample.group());
+                ps.setString(2, sample.topic());
+                ps.setInt(3, sample.partition());
+                ps.setLong(4, sample.currentOffset());
+                ps.setLong(5, sample.logEndOffset());
+                ps.setLong(6, sample.lag());
+                ps.setTimestamp(7, sample.sampledAt());
+            });
+            samplesWritten.add(batch.size());
+        } catch (Exception e) {
+            logger.warn("Could not write {} consumer lag samples: {}", batch.size(), e.getMessage());
+            buffer(batch);
+        }
+    }
+
+    /**
+     * How many fetch cycles the scheduler should let pass per cycle it runs: 1 below the throttle
+     * lag, then one more per multiple of it, up to the configured maximum. Falls back to 1 when
+     * the throttle group's last sample is older than three intervals, so a broken collector never stalls ingestion.
+     */
+    public int throttleFactor() {
+        long lag = throttleLag.get();
+        long threshold = properties.getThrottleLag();
+        if (!properties.isEnabled() || threshold <= 0 || lag < threshold
+                || System.currentTimeMillis() - lastThrottleSampleMillis > 3 * properties.getSampleInterval().toMillis()) {
+            return 1;
+        }
+        return (int) Math.min(properties.getMaxThrottleFactor(), 1 + lag / threshold);
+    }
+
+    /**
+     * Current lag per consumer group and topic
+     */
+    public Map<String, Long> getLag() {
+        Map<String, Long> lag = new TreeMap<>();
+        lagByGroupTopic.forEach((key, value) -> lag.put(key.replace('|', '/'), value.get()));
+        return lag;
+    }
+
+    /**
+     * Get collector statistics
+     * @return Map with current lag, throttle state and sample counts
+     */
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+            "enabled", properties.isEnabled(),
+            "lag", getLag(),
+            "throttleGroupLag", throttleLag.get(),
+            "throttleFactor", throttleFactor(),
+            "samplesWritten", samplesWritten.sum(),
+            "samplesPending", pendingCount(),
+            "samplesDropped", samplesDropped.sum(),
+            "sampleFailures", sampleFailures.sum(),
+            "lastSampleMillis", lastSampleMillis
+        );
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+        if (admin != null) {
+            admin.close(Duration.ofSeconds(5));
+        }
+    }
+
+    private record LagSample(String group, String topic, int partition, long currentOffset, long logEndOffset,
+                             long lag, Timestamp sampledAt) {
+    }
+}
@@ -0,0 +1,328 @@
+package com.realtime.realtimedatapipeline.metrics;
+
+import com.realtime.realtimedatapipeline.repository.StockQuoteRepository;
+import com.realtime.realtimedatapipeline.repository.UpsertResult;
+import com.realtime.realtimedatapipeline.snapshot.SnapshotHeader;
+import com.realtime.realtimedatapipeline.snapshot.SnapshotParticipant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Row counts for stock_quotes maintained incrementally by the persistence path, so reading them
+ * never touches the table. Counts are reconciled one quote day at a time with an index range count:
+ * once for every day in the table when starting without a shutdown snapshot, then periodically for
+ * the retained days only, since older days change only when the archiver deletes them.
+ * <p>
+ * Writers run under the read side of a lock and record their row changes before releasing it; the
+ * archiver holds it only for its commit, not for the export and delete before it. A day's reconcile
+ * takes the write side only long enough to pin a repeatable-read snapshot and copy that day's
+ * incremental counts, which then describe the same rows; the count itself runs with writers going on,
+ * and only the difference from the copied counts is applied, so changes recorded meanwhile are kept.
+ */
+@Service
+public class QuoteCountService implements SnapshotParticipant {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuoteCountService.class);
+
+    private final StockQuoteRepository stockQuoteRepository;
+    private final int retainedDays;
+    private final TransactionTemplate snapshotTransaction;
+
+    private final LongAdder total = new LongAdder();
+    private final Map<String, LongAdder> bySymbol = new ConcurrentHashMap<>();
+    // Per-symbol counts of the days a reconcile still checks; older days are folded into the totals only
+    private final Map<LocalDate, Map<String, LongAdder>> byDay = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock writes = new ReentrantReadWriteLock();
+
+    private volatile long estimatedRows = -1;
+    private volatile boolean reconciled = false;
+    private volatile long lastReconcileMillis;
+    // Every day in the table has been counted, by a full walk or in the shutdown snapshot restored
+    private volatile boolean seeded = false;
+
+    public QuoteCountService(StockQuoteRepository stockQuoteRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.metrics.counts.retained-days:30}") int retainedDays) {
+        this.stockQuoteRepository = stockQuoteRepository;
+        this.retainedDays = retainedDays;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * Run a write to stock_quotes that records its row changes with {@link #recordInserted} or
+     * {@link #recordDeleted} before returning; a reconcile starting waits for it, and it for the
+     * reconcile to pin its snapshot, but not for the count
+     */
+    public <T> T recording(Supplier<T> write) {
+        writes.readLock().lock();
+        try {
+            return write.get();
+        } finally {
+            writes.readLock().unlock();
+        }
+    }
+
+    /**
+     * Account for the rows a batched upsert actually inserted; updates and replays do not change counts
+     */
+    public void recordInserted(UpsertResult result) {
+        if (result.getInserted() == 0) {
+            return;
+        }
+        total.add(result.getInserted());
+        result.getInsertedBySymbol().forEach((symbol, count) ->
+                bySymbol.computeIfAbsent(symbol, key -> new LongAdder()).add(count));
+        result.getInsertedByDay().forEach((day, symbols) -> {
+            Map<String, LongAdder> counts = byDay.computeIfAbsent(day, key -> new ConcurrentHashMap<>());
+            symbols.forEach((symbol, count) -> counts.computeIfAbsent(symbol, key -> new LongAdder()).add(count));
+        });
+    }
+
+    /**
+     * Account for the rows of one quote day that the archiver moved out of the table
+     */
+    public void recordDeleted(LocalDate day, Map<String, Long> deletedBySymbol) {
+        Map<String, LongAdder> counts = byDay.get(day);
+        deletedBySymbol.forEach((symbol, count) -> {
+            total.add(-count);
+            bySymbol.computeIfAbsent(symbol, key -> new LongAdder()).add(-count);
+            if (counts != null) {
+                counts.computeIfAbsent(symbol, key -> new LongAdder()).add(-count);
+            }
+        });
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public long getCount(String symbol) {
+        LongAdder count = bySymbol.get(symbol);
+        return count != null ? count.sum() : 0L;
+    }
+
+    public Map<String, Long> getCountsBySymbol() {
+        Map<String, Long> counts = new TreeMap<>();
+        bySymbol.forEach((symbol, count) -> counts.put(symbol, count.sum()));
+        return counts;
+    }
+
+    public Map<String, Long> getCountsByDay() {
+        Map<String, Long> counts = new TreeMap<>();
+        LocalDate cutoff = LocalDate.now().minusDays(retainedDays);
+        byDay.forEach((day, symbols) -> {
+            if (!day.isBefore(cutoff)) {
+                counts.put(day.toString(), symbols.values().stream().mapToLong(LongAdder::sum).sum());
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * Summary for the metrics endpoint; O(symbols + retained days x symbols)
+     */
+    public Map<String, Object> getSummary() {
+        return Map.of(
+            "total", getTotal(),
+            "bySymbol", getCountsBySymbol(),
+            "byDay", getCountsByDay(),
+            "estimatedRows", estimatedRows,
+            "reconciled", reconciled,
+            "lastReconciledAt", lastReconcileMillis
+        );
+    }
+
+    /**
+     * Refresh the planner's live-row estimate every minute; a catalog lookup, not a table scan
+     */
+    @Scheduled(fixedRate = 60000)
+    public void refreshEstimate() {
+        try {
+            estimatedRows = stockQuoteRepository.estimateRowCount();
+        } catch (Exception e) {
+            logger.debug("Could not read row estimate for stock_quotes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Seed and periodically correct the incremental counts with exact per-day counts: every day from
+     * the oldest quote on until seeded, then the retained days
+     */
+    @Scheduled(initialDelayString = "${app.metrics.counts.initial-reconcile-delay:PT10S}",
+               fixedDelayString = "${app.metrics.counts.reconcile-interval:PT6H}")
+    public void reconcile() {
+        try {
+            LocalDate today = LocalDate.now();
+            LocalDate cutoff = today.minusDays(retainedDays);
+            LocalDate first = cutoff;
+            if (!seeded) {
+                LocalDateTime oldest = stockQuoteRepository.findOldestTimestamp();
+                if (oldest != null && oldest.toLocalDate().isBefore(first)) {
+                    first = oldest.toLocalDate();
+                }
+            }
+
+            long corrected = 0;
+            int days = 0;
+            // Through tomorrow: quote timestamps are local to the producer and may run slightly ahead
+            for (LocalDate day = first; !day.isAfter(today.plusDays(1)); day = day.plusDays(1)) {
+                corrected += reconcileDay(day);
+                days++;
+            }
+            byDay.keySet().removeIf(day -> day.isBefore(cutoff));
+
+            seeded = true;
+            reconciled = true;
+            lastReconcileMillis = System.currentTimeMillis();
+            logger.info("Reconciled stock_quotes counts over {} days: {} rows across {} symbols ({} corrected)",
+                       days, getTotal(), bySymbol.size(), corrected);
+        } catch (Exception e) {
+            logger.error("Error reconciling stock_quotes counts: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Count one day exactly and correct its incremental counts by what they missed
+     * @return rows corrected, over- and undercounts alike
+     */
+    private long reconcileDay(LocalDate day) {
+        Long corrected = snapshotTransaction.execute(status -> {
+            Map<String, Long> baseline;
+            writes.writeLock().lock();
+            try {
+                // Postgres fixes a repeatable-read snapshot at the first statement; take it, and the
+                // counts it matches, with no write in flight
+                estimatedRows = stockQuoteRepository.estimateRowCount();
+                Map<String, LongAdder> counted = byDay.get(day);
+                baseline = counted != null ? snapshot(counted) : Map.of();
+            } finally {
+                writes.writeLock().unlock();
+            }
+
+            List<Object[]> rows = stockQuoteRepository.countBySymbolBetween(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+            if (rows.isEmpty() && baseline.isEmpty()) {
+                return 0L;
+            }
+            Map<String, Long> exact = new HashMap<>();
+            for (Object[] row : rows) {
+                exact.put((String) row[0], ((Number) row[1]).longValue());
+            }
+            for (String symbol : baseline.keySet()) {
+                exact.putIfAbsent(symbol, 0L);
+            }
+
+            Map<String, LongAdder> counted = byDay.computeIfAbsent(day, key -> new ConcurrentHashMap<>());
+            long drifted = 0;
+            for (Map.Entry<String, Long> entry : exact.entrySet()) {
+                long drift = entry.getValue() - baseline.getOrDefault(entry.getKey(), 0L);
+                if (drift != 0) {
+                    counted.computeIfAbsent(entry.getKey(), key -> new LongAdder()).add(drift);
+                    bySymbol.computeIfAbsent(entry.getKey(), key -> new LongAdder()).add(drift);
+                    total.add(drift);
+                    drifted += Math.abs(drift);
+                }
+            }
+            return drifted;
+        });
+        return corrected != null ? corrected : 0L;
+    }
+
+    @Override
+    public String snapshotSection() {
+        return "quote-counts";
+    }
+
+    @Override
+    public int snapshotVersion() {
+        return 2;
+    }
+
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        Map<String, Long> symbols = snapshot(bySymbol);
+        Map<LocalDate, Map<String, Long>> days = new HashMap<>();
+        byDay.forEach((day, counts) -> days.put(day, snapshot(counts)));
+        out.writeLong(total.sum());
+        out.writeInt(symbols.size());
+        for (Map.Entry<String, Long> entry : symbols.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+        out.writeInt(days.size());
+        for (Map.Entry<LocalDate, Map<String, Long>> day : days.entrySet()) {
+            out.writeLong(day.getKey().toEpochDay());
+            out.writeInt(day.getValue().size());
+            for (Map.Entry<String, Long> entry : day.getValue().entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+        }
+        out.writeBoolean(seeded);
+        out.writeLong(lastReconcileMillis);
+    }
+
+    /**
+     * Add the counts of a shutdown snapshot, taken after the listeners stopped; the first reconcile
+     * then only checks the retained days. A periodic snapshot may be missing later writes and archiver
+     * deletes on days it no longer counts one by one, so its counts are dropped and every day is counted.
+     */
+    @Override
+    public void restoreSnapshot(DataInput in, SnapshotHeader header) throws IOException {
+        long restoredTotal = in.readLong();
+        Map<String, Long> symbols = new HashMap<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            symbols.put(in.readUTF(), in.readLong());
+        }
+        Map<LocalDate, Map<String, Long>> days = new HashMap<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            Map<String, Long> counts = new HashMap<>();
+            days.put(LocalDate.ofEpochDay(in.readLong()), counts);
+            for (int j = in.readInt(); j > 0; j--) {
+                counts.put(in.readUTF(), in.readLong());
+            }
+        }
+        boolean restoredSeeded = in.readBoolean();
+        long restoredReconcileMillis = in.readLong();
+        if (!header.shutdown() || !restoredSeeded) {
+            logger.info("Quote counts snapshot was not taken at a clean shutdown; counting stock_quotes day by day");
+            return;
+        }
+
+        total.add(restoredTotal);
+        symbols.forEach((symbol, count) -> bySymbol.computeIfAbsent(symbol, key -> new LongAdder()).add(count));
+        days.forEach((day, counts) -> {
+            Map<String, LongAdder> target = byDay.computeIfAbsent(day, key -> new ConcurrentHashMap<>());
+            counts.forEach((symbol, count) -> target.computeIfAbsent(symbol, key -> new LongAdder()).add(count));
+        });
+        lastReconcileMillis = restoredReconcileMillis;
+        seeded = true;
+    }
+
+    private static <K> Map<K, Long> snapshot(Map<K, LongAdder> counts) {
+        Map<K, Long> snapshot = new HashMap<>();
+        counts.forEach((key, count) -> snapshot.put(key, count.sum()));
+        return snapshot;
+    }
+}
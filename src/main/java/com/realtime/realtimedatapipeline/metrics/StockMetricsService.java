@@ -2,36 +2,80 @@ package com.realtime.realtimedatapipeline.metrics;
 
 import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
 import com.realtime.realtimedatapipeline.repository.StockQuoteRepository;
+import com.realtime.realtimedatapipeline.snapshot.SnapshotHeader;
+import com.realtime.realtimedatapipeline.snapshot.SnapshotParticipant;
+import com.realtime.realtimedatapipeline.symbols.SymbolUniverseChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
-public class StockMetricsService {
+public class StockMetricsService implements SnapshotParticipant {
     
     private static final Logger logger = LoggerFactory.getLogger(StockMetricsService.class);
     
+    // Measure the cost of one in every 1024 metric updates; timing every call would cost more than the update
+    private static final int COST_SAMPLE_MASK = 1023;
+    
     private final StockQuoteRepository stockQuoteRepository;
+    private final QuoteCountService quoteCountService;
     private final MeterRegistry meterRegistry;
+    private final int maxTaggedSymbols;
+    
+    // Per-symbol state; meters are registered when a symbol is first seen, or later when a tag slot frees up
+    private final Map<String, SymbolMetrics> symbols = new ConcurrentHashMap<>();
+    private final AtomicInteger taggedSymbols = new AtomicInteger();
+    // Symbols removed from the registry, so the database refresh does not bring their state back
+    private final Set<String> untracked = ConcurrentHashMap.newKeySet();
     
-    // Concurrent maps to store current stock prices and metrics
-    private final Map<String, Double> currentPrices = new ConcurrentHashMap<>();
-    private final Map<String, Double> priceChanges = new ConcurrentHashMap<>();
-    private final Map<String, Long> quoteCounts = new ConcurrentHashMap<>();
-    private final Map<String, LocalDateTime> lastUpdateTimes = new ConcurrentHashMap<>();
+    private final Timer alertProcessingTimer;
+    private final Counter untaggedAlertsUp;
+    private final Counter untaggedAlertsDown;
+    private final Timer updateCostTimer;
     
-    public StockMetricsService(StockQuoteRepository stockQuoteRepository, MeterRegistry meterRegistry) {
+    public StockMetricsService(StockQuoteRepository stockQuoteRepository,
+                               QuoteCountService quoteCountService,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.metrics.max-tagged-symbols:500}") int maxTaggedSymbols) {
         this.stockQuoteRepository = stockQuoteRepository;
+        this.quoteCountService = quoteCountService;
         this.meterRegistry = meterRegistry;
+        this.maxTaggedSymbols = maxTaggedSymbols;
+        this.alertProcessingTimer = Timer.builder("stock.price.alert.processing.time")
+                .description("Time to process price alert")
+                .register(meterRegistry);
+        this.untaggedAlertsUp = alertCounter(SymbolMetrics.OVERFLOW_TAG, "up");
+        this.untaggedAlertsDown = alertCounter(SymbolMetrics.OVERFLOW_TAG, "down");
+        this.updateCostTimer = Timer.builder("stock.metrics.update.cost")
+                .description("Sampled cost of a single per-quote metrics update")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
         registerCustomGauges();
     }
     
@@ -39,38 +83,145 @@ public class StockMetricsService {
      * Register custom Prometheus gauges for stock metrics
      */
     private void registerCustomGauges() {
-        // Simple metrics registration - no complex gauges for now
-        logger.info("Stock metrics service initialized");
+        Gauge.builder("stock.symbols.tracked", symbols, Map::size)
+                .description("Number of symbols with in-memory metrics state")
+                .register(meterRegistry);
+        Gauge.builder("stock.symbols.tagged", taggedSymbols, AtomicInteger::get)
+                .description("Number of symbols with their own per-symbol meters (capped by app.metrics.max-tagged-symbols)")
+                .register(meterRegistry);
+        Gauge.builder("stock.quotes.stored", quoteCountService, QuoteCountService::getTotal)
+                .description("Rows in stock_quotes, maintained incrementally by the persistence path")
+                .register(meterRegistry);
+        logger.info("Stock metrics service initialized (per-symbol meters capped at {} symbols)", maxTaggedSymbols);
     }
     
     /**
      * Update metrics with new stock quote event
      */
     public void updateStockMetrics(StockQuoteEvent event) {
+        applyQuote(event, true);
+    }
+    
+    /**
+     * Restore a symbol's latest values at startup; not counted as a newly received quote, and
+     * staleness is measured from when the quote was fetched, not from the restore
+     */
+    public void restoreLatest(StockQuoteEvent event) {
         if (event == null || event.getSymbol() == null) {
             return;
         }
-        
-        String symbol = event.getSymbol();
-        
-        // Update current price
-        if (event.getCurrentPrice() != null) {
-            currentPrices.put(symbol, event.getCurrentPrice());
+        symbols.computeIfAbsent(event.getSymbol(), this::newSymbolMetrics).restoreLatest(event);
+    }
+    
+    private void applyQuote(StockQuoteEvent event, boolean live) {
+        if (event == null || event.getSymbol() == null) {
+            return;
         }
         
-        // Update price change
-        if (event.getPercentChange() != null) {
-            priceChanges.put(symbol, event.getPercentChange());
-        }
+        boolean sampled = (ThreadLocalRandom.current().nextInt() & COST_SAMPLE_MASK) == 0;
+        long start = sampled ? System.nanoTime() : 0L;
         
-        // Update quote count
-        quoteCounts.merge(symbol, 1L, Long::sum);
+        SymbolMetrics state = symbols.computeIfAbsent(event.getSymbol(), this::newSymbolMetrics);
+        state.apply(event, live);
         
-        // Update last update time
-        lastUpdateTimes.put(symbol, LocalDateTime.now());
+        if (sampled) {
+            updateCostTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
         
         logger.debug("Updated metrics for symbol: {} - Price: ${}, Change: {}%", 
-                    symbol, event.getCurrentPrice(), event.getPercentChange());
+                    event.getSymbol(), event.getCurrentPrice(), event.getPercentChange());
+    }
+    
+    /**
+     * Create per-symbol state, registering its meters unless the cardinality cap has been reached
+     */
+    private SymbolMetrics newSymbolMetrics(String symbol) {
+        SymbolMetrics state = new SymbolMetrics(symbol);
+        if (!tag(state)) {
+            state.alertsUp = untaggedAlertsUp;
+            state.alertsDown = untaggedAlertsDown;
+        }
+        return state;
+    }
+    
+    /**
+     * Give a symbol its own meters if a tag slot is free
+     * @return false when the cap has been reached
+     */
+    private boolean tag(SymbolMetrics state) {
+        if (taggedSymbols.incrementAndGet() > maxTaggedSymbols) {
+            taggedSymbols.decrementAndGet();
+            return false;
+        }
+        String symbol = state.symbol;
+        Counter alertsUp = alertCounter(symbol, "up");
+        Counter alertsDown = alertCounter(symbol, "down");
+        state.meters = List.of(
+            Gauge.builder("stock.price", state, SymbolMetrics::price)
+                    .description("Latest price per symbol")
+                    .tag("symbol", symbol)
+                    .strongReference(true)
+                    .register(meterRegistry),
+            Gauge.builder("stock.price.change.percent", state, SymbolMetrics::percentChange)
+                    .description("Latest percent change per symbol")
+                    .tag("symbol", symbol)
+                    .strongReference(true)
+                    .register(meterRegistry),
+            Gauge.builder("stock.quote.staleness.seconds", state, SymbolMetrics::stalenessSeconds)
+                    .description("Seconds since the last quote for the symbol was applied")
+                    .tag("symbol", symbol)
+                    .strongReference(true)
+                    .register(meterRegistry),
+            alertsUp,
+            alertsDown);
+        state.alertsUp = alertsUp;
+        state.alertsDown = alertsDown;
+        return true;
+    }
+    
+    private Counter alertCounter(String symbol, String direction) {
+        return Counter.builder("stock.price.alerts.total")
+                .description("Significant price movements per symbol and direction")
+                .tag("symbol", symbol)
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Drop the state and meters of symbols removed from the registry, and hand their tag slots to
+     * symbols that are still sharing the overflow meters
+     */
+    @EventListener
+    public void onSymbolUniverseChanged(SymbolUniverseChangedEvent event) {
+        event.added().forEach(untracked::remove);
+        boolean freed = false;
+        for (String symbol : event.removed()) {
+            untracked.add(symbol);
+            SymbolMetrics state = symbols.remove(symbol);
+            if (state != null && !state.meters.isEmpty()) {
+                state.meters.forEach(meterRegistry::remove);
+                taggedSymbols.decrementAndGet();
+                freed = true;
+            }
+        }
+        if (freed) {
+            for (SymbolMetrics state : symbols.values()) {
+                if (state.meters.isEmpty() && !tag(state)) {
+                    break;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Flag a symbol's latest values as stale: they are last-known values served while the
+     * upstream API is unavailable. The flag clears with the next fresh quote.
+     */
+    public void markStale(String symbol) {
+        SymbolMetrics state = symbols.get(symbol);
+        if (state != null) {
+            state.stale = true;
+        }
     }
     
     /**
@@ -85,7 +236,11 @@ public class StockMetricsService {
             List<StockQuoteEvent> latestQuotes = stockQuoteRepository.findLatestQuoteForEachSymbol();
             
             for (StockQuoteEvent quote : latestQuotes) {
-                updateStockMetrics(quote);
+                if (untracked.contains(quote.getSymbol())) {
+                    continue;
+                }
+                // Refreshing from the database is not a new quote: no count and no last-update bump
+                applyQuote(quote, false);
                 
                 // Track database freshness (no gauge registration needed)
                 if (quote.getCreatedAt() != null) {
@@ -105,36 +260,87 @@ public class StockMetricsService {
      * Create metrics for significant price movements (alerts)
      */
     public void recordPriceAlert(String symbol, double priceChange) {
-        Timer.Sample alertTimer = Timer.start(meterRegistry);
-        alertTimer.stop(Timer.builder("stock.price.alert.processing.time")
-                .description("Time to process price alert")
-                .tag("symbol", symbol)
-                .register(meterRegistry));
+        long start = System.nanoTime();
         
         // Count significant price movements
-        meterRegistry.counter("stock.price.alerts.total",
-                "symbol", symbol,
-                "direction", priceChange > 0 ? "up" : "down")
-                .increment();
+        SymbolMetrics state = symbols.computeIfAbsent(symbol, this::newSymbolMetrics);
+        (priceChange > 0 ? state.alertsUp : state.alertsDown).increment();
+        
+        alertProcessingTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+    
+    @Override
+    public String snapshotSection() {
+        return "stock-metrics";
     }
     
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        List<SymbolMetrics> states = new ArrayList<>(symbols.values());
+        out.writeInt(states.size());
+        for (SymbolMetrics state : states) {
+            out.writeUTF(state.symbol);
+            out.writeLong(state.quoteCount.sum());
+            out.writeDouble(state.price);
+            out.writeDouble(state.percentChange);
+            out.writeLong(state.marketTimestamp);
+            out.writeLong(state.lastUpdateMillis);
+            out.writeBoolean(state.stale);
+        }
+    }
     
+    /**
+     * Restore per-symbol state, registering meters as if the symbols had just been seen
+     */
+    @Override
+    public void restoreSnapshot(DataInput in, SnapshotHeader header) throws IOException {
+        int count = in.readInt();
+        List<SymbolMetrics> restored = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SymbolMetrics state = new SymbolMetrics(in.readUTF());
+            state.quoteCount.add(in.readLong());
+            state.price = in.readDouble();
+            state.percentChange = in.readDouble();
+            state.marketTimestamp = in.readLong();
+            state.lastUpdateMillis = in.readLong();
+            state.stale = in.readBoolean();
+            restored.add(state);
+        }
+        for (SymbolMetrics snapshot : restored) {
+            symbols.computeIfAbsent(snapshot.symbol, this::newSymbolMetrics).restore(snapshot);
+        }
+        logger.info("Restored metrics state for {} symbols", restored.size());
+    }
     
     /**
      * Get current stock metrics summary
      */
     public Map<String, Object> getMetricsSummary() {
+        Map<String, Double> currentPrices = new TreeMap<>();
+        Map<String, Double> priceChanges = new TreeMap<>();
+        Map<String, Long> quoteCounts = new TreeMap<>();
+        Map<String, String> lastUpdates = new TreeMap<>();
+        Set<String> staleSymbols = new TreeSet<>();
+        symbols.forEach((symbol, state) -> {
+            if (state.hasPrice()) {
+                currentPrices.put(symbol, state.price());
+                priceChanges.put(symbol, state.percentChange());
+                lastUpdates.put(symbol, state.lastUpdate().toString());
+            }
+            if (state.stale) {
+                staleSymbols.add(symbol);
+            }
+            quoteCounts.put(symbol, state.quoteCount());
+        });
         return Map.of(
             "trackedSymbols", currentPrices.keySet(),
             "currentPrices", currentPrices,
             "priceChanges", priceChanges,
             "quoteCounts", quoteCounts,
-            "lastUpdates", lastUpdateTimes.entrySet().stream()
-                    .collect(Collectors.toMap(
-                            Map.Entry::getKey,
-                            entry -> entry.getValue().toString()
-                    )),
-            "totalDatabaseRecords", (double) stockQuoteRepository.count()
+            "lastUpdates", lastUpdates,
+            "staleSymbols", staleSymbols,
+            "totalDatabaseRecords", (double) quoteCountService.getTotal(),
+            "databaseRecordCounts", quoteCountService.getSummary()
         );
     }
     
@@ -142,12 +348,131 @@ public class StockMetricsService {
      * Get metrics for a specific symbol
      */
     public Map<String, Object> getSymbolMetrics(String symbol) {
+        SymbolMetrics state = symbols.get(symbol);
         return Map.of(
             "symbol", symbol,
-            "currentPrice", currentPrices.getOrDefault(symbol, 0.0),
-            "priceChange", priceChanges.getOrDefault(symbol, 0.0),
-            "quoteCount", quoteCounts.getOrDefault(symbol, 0L),
-            "lastUpdate", lastUpdateTimes.getOrDefault(symbol, LocalDateTime.now()).toString()
+            "currentPrice", state != null && state.hasPrice() ? state.price() : 0.0,
+            "priceChange", state != null && state.hasPrice() ? state.percentChange() : 0.0,
+            "quoteCount", state != null ? state.quoteCount() : 0L,
+            "databaseRecords", quoteCountService.getCount(symbol),
+            "stale", state != null && state.stale,
+            "lastUpdate", (state != null && state.hasPrice() ? state.lastUpdate() : LocalDateTime.now()).toString()
         );
     }
-}
\ No newline at end of file
+    
+    /**
+     * Latest values for one symbol. Fields are volatile so gauges and REST reads see fresh values
+     * without locking. Writers synchronize on the state: besides the key-ordered consumer lanes, the
+     * retry-topic listener and the database refresh apply quotes for the same symbol concurrently.
+     */
+    private static final class SymbolMetrics {
+        
+        static final String OVERFLOW_TAG = "_other";
+        
+        private final String symbol;
+        private final LongAdder quoteCount = new LongAdder();
+        private volatile double price = Double.NaN;
+        private volatile double percentChange = Double.NaN;
+        private volatile long marketTimestamp = Long.MIN_VALUE;
+        private volatile long lastUpdateMillis;
+        private volatile boolean stale;
+        // Volatile: a symbol sharing the overflow counters is given its own when a tag slot frees up
+        private volatile Counter alertsUp;
+        private volatile Counter alertsDown;
+        // Per-symbol meters, empty when the symbol shares the overflow counters
+        private volatile List<Meter> meters = List.of();
+        
+        SymbolMetrics(String symbol) {
+            this.symbol = symbol;
+        }
+        
+        /**
+         * @param live true for a quote received from the pipeline; only a live quote newer than the
+         *             current one advances the last-update time that staleness is measured from
+         */
+        synchronized boolean apply(StockQuoteEvent event, boolean live) {
+            if (live) {
+                quoteCount.increment();
+                stale = false;
+            }
+            // A retried quote can arrive after a newer one; never let it roll the latest values back
+            Long eventMarketTimestamp = event.resolveMarketTimestamp();
+            boolean newer = eventMarketTimestamp == null || eventMarketTimestamp > marketTimestamp;
+            if (eventMarketTimestamp != null) {
+                if (eventMarketTimestamp < marketTimestamp) {
+                    return false;
+                }
+                marketTimestamp = eventMarketTimestamp;
+            }
+            if (event.getCurrentPrice() != null) {
+                price = event.getCurrentPrice();
+            }
+            if (event.getPercentChange() != null) {
+                percentChange = event.getPercentChange();
+            }
+            if (live && newer) {
+                lastUpdateMillis = System.currentTimeMillis();
+            }
+            return true;
+        }
+        
+        synchronized void restoreLatest(StockQuoteEvent event) {
+            if (!apply(event, false)) {
+                return;
+            }
+            long quotedAt = quotedAtMillis(event);
+            if (quotedAt > lastUpdateMillis) {
+                lastUpdateMillis = quotedAt;
+            }
+        }
+        
+        /**
+         * When the quote was fetched, else the exchange's quote time; 0 if it carries neither
+         */
+        private static long quotedAtMillis(StockQuoteEvent event) {
+            if (event.getTimestamp() != null) {
+                return event.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            }
+            return event.getMarketTimestamp() != null ? event.getMarketTimestamp() * 1000 : 0L;
+        }
+        
+        synchronized void restore(SymbolMetrics snapshot) {
+            quoteCount.add(snapshot.quoteCount.sum());
+            price = snapshot.price;
+            percentChange = snapshot.percentChange;
+            marketTimestamp = snapshot.marketTimestamp;
+            lastUpdateMillis = snapshot.lastUpdateMillis;
+            stale = snapshot.stale;
+        }
+        
+        boolean hasPrice() {
+            return !Double.isNaN(price);
+        }
+        
+        double price() {
+            return price;
+        }
+        
+        double percentChange() {
+            return Double.isNaN(percentChange) ? 0.0 : percentChange;
+        }
+        
+        long quoteCount() {
+            return quoteCount.sum();
+        }
+        
+        LocalDateTime lastUpdate() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(lastUpdateMillis), ZoneId.systemDefault());
+        }
+        
+        double stalenessSeconds() {
+            long last = lastUpdateMillis;
+            return last == 0 ? Double.NaN : (System.currentTimeMillis() - last) / 1000.0;
+        }
+        
+        @Override
+        public String toString() {
+            return "SymbolMetrics{" + symbol + " price=" + price + ", change=" + percentChange + '}';
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.realtime.realtimedatapipeline.model;
+
+/**
+ * A fired alert rule, published to the alerts topic keyed by symbol
+ *
+ * @param ruleId          Id of the rule that fired; negative for built-in rules
+ * @param symbol          Stock symbol
+ * @param type            Rule type
+ * @param direction       Direction the value moved through the threshold
+ * @param description     Rule description
+ * @param price           Price of the quote that fired the rule
+ * @param value           Observed value: the crossing operand, or the percent move
+ * @param threshold       Level, reference value or percent threshold that was crossed
+ * @param marketTimestamp Market timestamp (epoch seconds) of the quote
+ * @param firedAt         Wall-clock time the rule fired (epoch millis)
+ */
+public record AlertEvent(
+        long ruleId,
+        String symbol,
+        AlertRule.Type type,
+        AlertRule.Direction direction,
+        String description,
+        double price,
+        double value,
+        double threshold,
+        long marketTimestamp,
+        long firedAt) {
+}
@@ -0,0 +1,187 @@
+package com.realtime.realtimedatapipeline.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * User-registered alert rule, evaluated against every processed quote of its symbol.
+ * <ul>
+ *   <li>{@code PRICE_CROSS}: the price crosses {@code level}</li>
+ *   <li>{@code INDICATOR_CROSS}: {@code operand} crosses {@code reference}, or {@code level} when no reference is set</li>
+ *   <li>{@code PERCENT_MOVE}: the price moved at least {@code level} percent over the last {@code windowSeconds}</li>
+ * </ul>
+ * A rule does not fire again within {@code cooldownSeconds} of market time; percent-move rules
+ * default to their window so a sustained move fires once.
+ */
+@Entity
+@Table(name = "alert_rules", indexes = @Index(name = "idx_alert_rules_symbol", columnList = "symbol"))
+public class AlertRule {
+
+    public enum Type { PRICE_CROSS, INDICATOR_CROSS, PERCENT_MOVE }
+
+    public enum Direction { UP, DOWN, EITHER }
+
+    public enum Operand { PRICE, PERCENT_CHANGE, SMA, EMA, RSI, VWAP, BOLLINGER_UPPER, BOLLINGER_LOWER, VOLATILITY }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "symbol", nullable = false, length = 10)
+    private String symbol;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 20)
+    private Type type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "direction", nullable = false, length = 10)
+    private Direction direction = Direction.EITHER;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operand", length = 20)
+    private Operand operand;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reference", length = 20)
+    private Operand reference;
+
+    @Column(name = "level")
+    private Double level;
+
+    @Column(name = "window_seconds")
+    private Integer windowSeconds;
+
+    @Column(name = "cooldown_seconds", nullable = false)
+    private int cooldownSeconds;
+
+    @Column(name = "enabled", nullable = false)
+    private boolean enabled = true;
+
+    @Column(name = "description", length = 200)
+    private String description;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public AlertRule() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public void setDirection(Direction direction) {
+        this.direction = direction;
+    }
+
+    public Operand getOperand() {
+        return operand;
+    }
+
+    public void setOperand(Operand operand) {
+        this.operand = operand;
+    }
+
+    public Operand getReference() {
+        return reference;
+    }
+
+    public void setReference(Operand reference) {
+        this.reference = reference;
+    }
+
+    public Double getLevel() {
+        return level;
+    }
+
+    public void setLevel(Double level) {
+        this.level = level;
+    }
+
+    public Integer getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    public void setWindowSeconds(Integer windowSeconds) {
+        this.windowSeconds = windowSeconds;
+    }
+
+    public int getCooldownSeconds() {
+        return cooldownSeconds;
+    }
+
+    public void setCooldownSeconds(int cooldownSeconds) {
+        this.cooldownSeconds = cooldownSeconds;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "AlertRule{" +
+                "id=" + id +
+                ", symbol='" + symbol + '\'' +
+                ", type=" + type +
+                ", direction=" + direction +
+                ", operand=" + operand +
+                ", reference=" + reference +
+                ", level=" + level +
+                ", windowSeconds=" + windowSeconds +
+                '}';
+    }
+}
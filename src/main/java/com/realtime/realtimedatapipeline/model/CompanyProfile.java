@@ -0,0 +1,68 @@
+package com.realtime.realtimedatapipeline.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Company name looked up from the Finnhub profile API, persisted so a restart
+ * can warm the profile cache without calling the API again
+ */
+@Entity
+@Table(name = "company_profiles")
+public class CompanyProfile {
+
+    @Id
+    @Column(name = "symbol", length = 10)
+    private String symbol;
+
+    @Column(name = "name", nullable = false, length = 100)
+    private String name;
+
+    @Column(name = "fetched_at", nullable = false)
+    private LocalDateTime fetchedAt;
+
+    public CompanyProfile() {}
+
+    public CompanyProfile(String symbol, String name, LocalDateTime fetchedAt) {
+        this.symbol = symbol;
+        this.name = name;
+        this.fetchedAt = fetchedAt;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public LocalDateTime getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public void setFetchedAt(LocalDateTime fetchedAt) {
+        this.fetchedAt = fetchedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "CompanyProfile{" +
+                "symbol='" + symbol + '\'' +
+                ", name='" + name + '\'' +
+                ", fetchedAt=" + fetchedAt +
+                '}';
+    }
+}
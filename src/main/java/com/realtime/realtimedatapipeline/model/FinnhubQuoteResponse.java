@@ -1,5 +1,6 @@
 package com.realtime.realtimedatapipeline.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -8,96 +9,143 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  */
 public class FinnhubQuoteResponse {
     
+    /**
+     * Marks an absent "t" field; absent prices are stored as NaN
+     */
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    
+    // Fields are primitives so the streaming decoder fills them without boxing;
+    // the getters keep the nullable contract for callers
     @JsonProperty("c")
-    private Double currentPrice;
+    private double currentPrice = Double.NaN;
     
     @JsonProperty("d")
-    private Double change;
+    private double change = Double.NaN;
     
     @JsonProperty("dp")
-    private Double percentChange;
+    private double percentChange = Double.NaN;
     
     @JsonProperty("h")
-    private Double highPrice;
+    private double highPrice = Double.NaN;
     
     @JsonProperty("l")
-    private Double lowPrice;
+    private double lowPrice = Double.NaN;
     
     @JsonProperty("o")
-    private Double openPrice;
+    private double openPrice = Double.NaN;
     
     @JsonProperty("pc")
-    private Double previousClose;
+    private double previousClose = Double.NaN;
     
     @JsonProperty("t")
-    private Long timestamp;
+    private long timestamp = NO_TIMESTAMP;
+    
+    // Set when this is a last-known quote served while the upstream API is unavailable
+    @JsonIgnore
+    private boolean stale;
     
     // Default constructor for JSON deserialization
     public FinnhubQuoteResponse() {}
     
+    /**
+     * Build a quote from already-decoded primitives; pass NaN / {@link #NO_TIMESTAMP} for absent fields
+     */
+    public static FinnhubQuoteResponse of(double currentPrice, double change, double percentChange,
+                                          double highPrice, double lowPrice, double openPrice,
+                                          double previousClose, long timestamp) {
+        FinnhubQuoteResponse quote = new FinnhubQuoteResponse();
+        quote.currentPrice = currentPrice;
+        quote.change = change;
+        quote.percentChange = percentChange;
+        quote.highPrice = highPrice;
+        quote.lowPrice = lowPrice;
+        quote.openPrice = openPrice;
+        quote.previousClose = previousClose;
+        quote.timestamp = timestamp;
+        return quote;
+    }
+    
     // Getters and setters
     public Double getCurrentPrice() {
-        return currentPrice;
+        return Double.isNaN(currentPrice) ? null : currentPrice;
     }
     
     public void setCurrentPrice(Double currentPrice) {
-        this.currentPrice = currentPrice;
+        this.currentPrice = currentPrice != null ? currentPrice : Double.NaN;
     }
     
     public Double getChange() {
-        return change;
+        return Double.isNaN(change) ? null : change;
     }
     
     public void setChange(Double change) {
-        this.change = change;
+        this.change = change != null ? change : Double.NaN;
     }
     
     public Double getPercentChange() {
-        return percentChange;
+        return Double.isNaN(percentChange) ? null : percentChange;
     }
     
     public void setPercentChange(Double percentChange) {
-        this.percentChange = percentChange;
+        this.percentChange = percentChange != null ? percentChange : Double.NaN;
     }
     
     public Double getHighPrice() {
-        return highPrice;
+        return Double.isNaN(highPrice) ? null : highPrice;
     }
     
     public void setHighPrice(Double highPrice) {
-        this.highPrice = highPrice;
+        this.highPrice = highPrice != null ? highPrice : Double.NaN;
     }
     
     public Double getLowPrice() {
-        return lowPrice;
+        return Double.isNaN(lowPrice) ? null : lowPrice;
     }
     
     public void setLowPrice(Double lowPrice) {
-        this.lowPrice = lowPrice;
+        this.lowPrice = lowPrice != null ? lowPrice : Double.NaN;
     }
     
     public Double getOpenPrice() {
-        return openPrice;
+        return Double.isNaN(openPrice) ? null : openPrice;
     }
     
     public void setOpenPrice(Double openPrice) {
-        this.openPrice = openPrice;
+        this.openPrice = openPrice != null ? openPrice : Double.NaN;
     }
     
     public Double getPreviousClose() {
-        return previousClose;
+        return Double.isNaN(previousClose) ? null : previousClose;
     }
     
     public void setPreviousClose(Double previousClose) {
-        this.previousClose = previousClose;
+        this.previousClose = previousClose != null ? previousClose : Double.NaN;
     }
     
     public Long getTimestamp() {
-        return timestamp;
+        return timestamp != NO_TIMESTAMP ? timestamp : null;
     }
     
     public void setTimestamp(Long timestamp) {
-        this.timestamp = timestamp;
+        this.timestamp = timestamp != null ? timestamp : NO_TIMESTAMP;
+    }
+    
+    public boolean isStale() {
+        return stale;
+    }
+    
+    public void setStale(boolean stale) {
+        this.stale = stale;
+    }
+    
+    /**
+     * Copy of this quote flagged as stale
+     */
+    public FinnhubQuoteResponse asStale() {
+        FinnhubQuoteResponse copy = of(currentPrice, change, percentChange, highPrice, lowPrice,
+                openPrice, previousClose, timestamp);
+        copy.setStale(true);
+        return copy;
     }
     
     @Override
@@ -110,7 +158,8 @@ public class FinnhubQuoteResponse {
                 ", lowPrice=" + lowPrice +
                 ", openPrice=" + openPrice +
                 ", previousClose=" + previousClose +
-                ", timestamp=" + timestamp +
+                ", timestamp=" + getTimestamp() +
+                ", stale=" + stale +
                 '}';
     }
 }
\ No newline at end of file
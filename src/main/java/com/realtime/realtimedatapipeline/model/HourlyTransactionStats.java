@@ -0,0 +1,25 @@
+package com.realtime.realtimedatapipeline.model;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One row of analytics.hourly_transaction_stats
+ *
+ * @param hourBucket             Start of the hour (UTC)
+ * @param totalTransactions      Transactions created in the hour
+ * @param totalAmount            Sum of their amounts
+ * @param avgAmount              Mean amount
+ * @param successfulTransactions Transactions with a successful status
+ * @param failedTransactions     Transactions with a failed status
+ * @param uniqueUsers            Estimated distinct users, from the hour's sketch
+ */
+public record HourlyTransactionStats(
+        Instant hourBucket,
+        long totalTransactions,
+        BigDecimal totalAmount,
+        BigDecimal avgAmount,
+        long successfulTransactions,
+        long failedTransactions,
+        long uniqueUsers) {
+}
@@ -0,0 +1,31 @@
+package com.realtime.realtimedatapipeline.model;
+
+/**
+ * Technical indicators of one symbol as of one processed quote, published to the analytics topic.
+ * An indicator is null until enough ticks have been seen to compute it.
+ *
+ * @param symbol          Stock symbol
+ * @param marketTimestamp Market timestamp (epoch seconds) of the quote the indicators include
+ * @param price           Price of that quote
+ * @param ticks           Number of quotes folded into the indicators so far
+ * @param sma             Simple moving average over the window
+ * @param ema             Exponential moving average
+ * @param rsi             Relative strength index (Wilder smoothing), 0-100
+ * @param vwap            Volume-weighted average price over the window; null while quotes carry no volume
+ * @param bollingerUpper  SMA plus the configured number of standard deviations
+ * @param bollingerLower  SMA minus the configured number of standard deviations
+ * @param volatility      Sample standard deviation of log returns over the window
+ */
+public record IndicatorSnapshot(
+        String symbol,
+        long marketTimestamp,
+        double price,
+        long ticks,
+        Double sma,
+        Double ema,
+        Double rsi,
+        Double vwap,
+        Double bollingerUpper,
+        Double bollingerLower,
+        Double volatility) {
+}
@@ -0,0 +1,18 @@
+package com.realtime.realtimedatapipeline.model;
+
+import java.util.List;
+
+/**
+ * Outcome of one bulk ingest request
+ *
+ * @param accepted Items published
+ * @param rejected Items that failed validation
+ * @param failed   Valid items Kafka did not acknowledge, where the producer waits for its sends
+ * @param errors   The first validation and publish errors, by index in the request
+ */
+public record IngestResult(int accepted, int rejected, int failed, List<String> errors) {
+
+    public IngestResult(int accepted, int rejected, List<String> errors) {
+        this(accepted, rejected, 0, errors);
+    }
+}
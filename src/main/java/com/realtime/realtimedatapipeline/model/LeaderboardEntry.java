@@ -0,0 +1,27 @@
+package com.realtime.realtimedatapipeline.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A symbol's latest quote as ranked on the in-memory leaderboards
+ *
+ * @param symbol          Stock symbol
+ * @param price           Latest price; null if the quote carried none
+ * @param percentChange   Change against the previous close in percent; null if the quote carried none
+ * @param changeAmount    Change against the previous close in price units
+ * @param marketTimestamp Market timestamp (epoch seconds) of the quote
+ * @param timestamp       When the quote was taken
+ */
+public record LeaderboardEntry(
+        String symbol,
+        Double price,
+        Double percentChange,
+        Double changeAmount,
+        Long marketTimestamp,
+        LocalDateTime timestamp) {
+
+    public static LeaderboardEntry of(StockQuoteEvent quote) {
+        return new LeaderboardEntry(quote.getSymbol(), quote.getCurrentPrice(), quote.getPercentChange(),
+                quote.getChangeAmount(), quote.resolveMarketTimestamp(), quote.getTimestamp());
+    }
+}
@@ -0,0 +1,62 @@
+package com.realtime.realtimedatapipeline.model;
+
+/**
+ * One IoT sensor reading, published to the IoT topic keyed by sensor id and stored in events.iot_sensors
+ *
+ * @param sensorId       Sensor id, at most 50 characters
+ * @param deviceType     Device type, at most 30 characters
+ * @param location       Location name, at most 100 characters; optional
+ * @param temperature    Degrees Celsius; optional
+ * @param humidity       Relative humidity in percent; optional
+ * @param pressure       Pressure in hPa; optional
+ * @param batteryLevel   Battery level in percent, 0 to 100; optional
+ * @param signalStrength Signal strength in dBm; optional
+ * @param timestamp      Time of the reading (epoch millis); the ingest time when missing
+ */
+public record SensorReading(
+        String sensorId,
+        String deviceType,
+        String location,
+        Double temperature,
+        Double humidity,
+        Double pressure,
+        Integer batteryLevel,
+        Integer signalStrength,
+        Long timestamp) {
+
+    /**
+     * Check the reading against the column limits of events.iot_sensors, so one bad reading
+     * can never fail a whole COPY
+     * @return why the reading is invalid, or null if it is valid
+     */
+    public String validate() {
+        if (sensorId == null || sensorId.isBlank() || sensorId.length() > 50) {
+            return "sensorId must have 1 to 50 characters";
+        }
+        if (deviceType == null || deviceType.isBlank() || deviceType.length() > 30) {
+            return "deviceType must have 1 to 30 characters";
+        }
+        if (location != null && location.length() > 100) {
+            return "location must have at most 100 characters";
+        }
+        if (!fits(temperature, 999.995) || !fits(humidity, 999.995) || !fits(pressure, 999_999.995)) {
+            return "temperature, humidity or pressure out of range";
+        }
+        if (batteryLevel != null && (batteryLevel < 0 || batteryLevel > 100)) {
+            return "batteryLevel must be between 0 and 100";
+        }
+        return null;
+    }
+
+    /**
+     * Whether the value still fits its DECIMAL column once rounded to two places
+     */
+    private static boolean fits(Double value, double bound) {
+        return value == null || (value > -bound && value < bound);
+    }
+
+    public SensorReading withTimestamp(long timestamp) {
+        return new SensorReading(sensorId, deviceType, location, temperature, humidity, pressure,
+                batteryLevel, signalStrength, timestamp);
+    }
+}
@@ -0,0 +1,31 @@
+package com.realtime.realtimedatapipeline.model;
+
+/**
+ * Aggregated sensor readings of one sensor or one location over one tumbling window
+ *
+ * @param key             Sensor id or location
+ * @param windowStart     Window start (epoch millis, inclusive)
+ * @param windowEnd       Window end (epoch millis, exclusive)
+ * @param readings        Readings in the window
+ * @param minTemperature  Lowest temperature, or null if no reading had one
+ * @param maxTemperature  Highest temperature, or null if no reading had one
+ * @param avgTemperature  Mean temperature, or null if no reading had one
+ * @param avgHumidity     Mean humidity, or null if no reading had one
+ * @param avgBatteryLevel Mean battery level, or null if no reading had one
+ * @param minBatteryLevel Lowest battery level, or null if no reading had one
+ * @param batteryDrain    Battery percentage points lost between the first and last reading of a
+ *                        sensor in the window; null for locations and for fewer than two battery readings
+ */
+public record SensorWindow(
+        String key,
+        long windowStart,
+        long windowEnd,
+        long readings,
+        Double minTemperature,
+        Double maxTemperature,
+        Double avgTemperature,
+        Double avgHumidity,
+        Double avgBatteryLevel,
+        Integer minBatteryLevel,
+        Integer batteryDrain) {
+}
@@ -5,7 +5,9 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.UUID;
 
 /**
@@ -13,7 +15,10 @@ import java.util.UUID;
  * Used for Kafka messaging and database persistence
  */
 @Entity
-@Table(name = "stock_quotes")
+@Table(name = "stock_quotes",
+       uniqueConstraints = @UniqueConstraint(name = "uk_stock_quotes_symbol_market_ts",
+                                             columnNames = {"symbol", "market_timestamp"}),
+       indexes = @Index(name = "idx_stock_quotes_timestamp", columnList = "timestamp"))
 @NamedQuery(
     name = "StockQuoteEvent.findRecentBySymbol",
     query = "SELECT s FROM StockQuoteEvent s WHERE s.symbol = :symbol ORDER BY s.timestamp DESC"
@@ -45,6 +50,7 @@ public class StockQuoteEvent {
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime timestamp;
     
+    @Column(name = "market_timestamp")
     private Long marketTimestamp;
     private LocalDateTime createdAt;
     
@@ -64,6 +70,25 @@ public class StockQuoteEvent {
         this.timestamp = timestamp;
     }
     
+    /**
+     * Deterministic id derived from the natural key (symbol, market timestamp),
+     * so the same quote always maps to the same row no matter how often it is delivered
+     */
+    public static UUID naturalId(String symbol, Long marketTimestamp) {
+        return UUID.nameUUIDFromBytes((symbol + ":" + marketTimestamp).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Market timestamp (epoch seconds) for this quote, falling back to the event timestamp
+     * when the upstream API did not provide one
+     */
+    public Long resolveMarketTimestamp() {
+        if (marketTimestamp != null) {
+            return marketTimestamp;
+        }
+        return timestamp != null ? timestamp.atZone(ZoneId.systemDefault()).toEpochSecond() : null;
+    }
+    
     // Builder pattern for easy object creation
     public static StockQuoteEventBuilder builder() {
         return new StockQuoteEventBuilder();
@@ -192,6 +217,11 @@ public class StockQuoteEvent {
     public static class StockQuoteEventBuilder {
         private StockQuoteEvent event = new StockQuoteEvent();
         
+        public StockQuoteEventBuilder id(UUID id) {
+            event.setId(id);
+            return this;
+        }
+        
         public StockQuoteEventBuilder symbol(String symbol) {
             event.setSymbol(symbol);
             return this;
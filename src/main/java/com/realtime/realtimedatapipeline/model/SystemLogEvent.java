@@ -0,0 +1,27 @@
+package com.realtime.realtimedatapipeline.model;
+
+import java.util.Map;
+
+/**
+ * An application log event captured by the structured log sink, shipped on the system-logs topic
+ * and stored in events.system_logs
+ *
+ * @param timestamp      Time of the event (epoch millis)
+ * @param level          Log level
+ * @param serviceName    Application that logged the event
+ * @param logger         Logger name
+ * @param thread         Name of the logging thread
+ * @param message        Formatted message, truncated to the sink's limit
+ * @param exceptionStack Stack trace of the logged exception, or null
+ * @param mdc            Mapped diagnostic context at the time of the event
+ */
+public record SystemLogEvent(
+        long timestamp,
+        String level,
+        String serviceName,
+        String logger,
+        String thread,
+        String message,
+        String exceptionStack,
+        Map<String, String> mdc) {
+}
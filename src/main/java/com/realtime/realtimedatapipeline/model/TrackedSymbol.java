@@ -0,0 +1,80 @@
+package com.realtime.realtimedatapipeline.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * A symbol of the runtime-managed symbol universe. The id is a dense index assigned by the
+ * symbol registry; a removed symbol keeps its row and id, and gets both back when re-added.
+ */
+@Entity
+@Table(name = "tracked_symbols")
+public class TrackedSymbol {
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "symbol", nullable = false, unique = true, length = 10)
+    private String symbol;
+
+    @Column(name = "active", nullable = false)
+    private boolean active;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public TrackedSymbol() {}
+
+    public TrackedSymbol(Integer id, String symbol, boolean active, LocalDateTime updatedAt) {
+        this.id = id;
+        this.symbol = symbol;
+        this.active = active;
+        this.updatedAt = updatedAt;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "TrackedSymbol{" +
+                "id=" + id +
+                ", symbol='" + symbol + '\'' +
+                ", active=" + active +
+                '}';
+    }
+}
@@ -0,0 +1,83 @@
+package com.realtime.realtimedatapipeline.model;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * A payment transaction, published to the transactions topic keyed by transaction id and stored in
+ * events.transactions. Events are immutable: the first event of a transaction id is the one kept.
+ *
+ * @param transactionId   Unique transaction id, at most 100 characters
+ * @param userId          User id, at most 50 characters
+ * @param amount          Amount in the transaction currency
+ * @param currency        ISO currency code; USD when missing
+ * @param transactionType Type such as PURCHASE or REFUND, at most 20 characters
+ * @param status          Status such as COMPLETED or FAILED; PENDING when missing
+ * @param merchantId      Merchant id, at most 50 characters; optional
+ * @param createdAt       Time of the transaction (epoch millis); the ingest time when missing
+ */
+public record TransactionEvent(
+        String transactionId,
+        String userId,
+        BigDecimal amount,
+        String currency,
+        String transactionType,
+        String status,
+        String merchantId,
+        Long createdAt) {
+
+    private static final Set<String> SUCCESSFUL = Set.of("COMPLETED", "SUCCEEDED", "SUCCESS", "SETTLED");
+    private static final Set<String> FAILED = Set.of("FAILED", "DECLINED", "REJECTED", "ERROR");
+
+    // DECIMAL(15,2)
+    private static final BigDecimal MAX_AMOUNT = new BigDecimal("9999999999999.99");
+
+    /**
+     * Check the event against the column limits of events.transactions
+     * @return why the event is invalid, or null if it is valid
+     */
+    public String validate() {
+        if (transactionId == null || transactionId.isBlank() || transactionId.length() > 100) {
+            return "transactionId must have 1 to 100 characters";
+        }
+        if (userId == null || userId.isBlank() || userId.length() > 50) {
+            return "userId must have 1 to 50 characters";
+        }
+        if (amount == null || amount.abs().compareTo(MAX_AMOUNT) > 0) {
+            return "amount is required and must fit DECIMAL(15,2)";
+        }
+        if (currency != null && currency.length() != 3) {
+            return "currency must be a 3-letter code";
+        }
+        if (transactionType == null || transactionType.isBlank() || transactionType.length() > 20) {
+            return "transactionType must have 1 to 20 characters";
+        }
+        if (status != null && status.length() > 20) {
+            return "status must have at most 20 characters";
+        }
+        if (merchantId != null && merchantId.length() > 50) {
+            return "merchantId must have at most 50 characters";
+        }
+        return null;
+    }
+
+    /**
+     * The event with its defaults filled in
+     */
+    public TransactionEvent withDefaults(long now) {
+        return new TransactionEvent(transactionId, userId, amount,
+                currency != null ? currency.toUpperCase() : "USD",
+                transactionType.toUpperCase(),
+                status != null ? status.toUpperCase() : "PENDING",
+                merchantId,
+                createdAt != null ? createdAt : now);
+    }
+
+    public boolean isSuccessful() {
+        return status != null && SUCCESSFUL.contains(status);
+    }
+
+    public boolean isFailed() {
+        return status != null && FAILED.contains(status);
+    }
+}
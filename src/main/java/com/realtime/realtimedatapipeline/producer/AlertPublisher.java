@@ -0,0 +1,55 @@
+package com.realtime.realtimedatapipeline.producer;
+
+import com.realtime.realtimedatapipeline.model.AlertEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes fired alert rules to the alerts topic, keyed by symbol
+ */
+@Service
+public class AlertPublisher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AlertPublisher.class);
+    
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    
+    @Value("${app.kafka.topics.stock-alerts}")
+    private String stockAlertsTopic;
+    
+    private final LongAdder publishedEvents = new LongAdder();
+    private final LongAdder failedEvents = new LongAdder();
+    
+    public AlertPublisher(KafkaTemplate<String, Object> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+    
+    public void publish(AlertEvent alert) {
+        kafkaTemplate.send(stockAlertsTopic, alert.symbol(), alert)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        failedEvents.increment();
+                        logger.warn("Could not publish alert for {}: {}", alert.symbol(), error.getMessage());
+                    } else {
+                        publishedEvents.increment();
+                    }
+                });
+    }
+    
+    /**
+     * Get publisher statistics
+     * @return Map with publish counts
+     */
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+            "publishedEvents", publishedEvents.sum(),
+            "failedEvents", failedEvents.sum()
+        );
+    }
+}
@@ -0,0 +1,55 @@
+package com.realtime.realtimedatapipeline.producer;
+
+import com.realtime.realtimedatapipeline.model.IndicatorSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes per-quote indicator snapshots to the analytics topic, keyed by symbol
+ */
+@Service
+public class AnalyticsPublisher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsPublisher.class);
+    
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    
+    @Value("${app.kafka.topics.stock-analytics}")
+    private String stockAnalyticsTopic;
+    
+    private final LongAdder publishedEvents = new LongAdder();
+    private final LongAdder failedEvents = new LongAdder();
+    
+    public AnalyticsPublisher(KafkaTemplate<String, Object> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+    
+    public void publish(IndicatorSnapshot snapshot) {
+        kafkaTemplate.send(stockAnalyticsTopic, snapshot.symbol(), snapshot)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        failedEvents.increment();
+                        logger.warn("Could not publish indicators for {}: {}", snapshot.symbol(), error.getMessage());
+                    } else {
+                        publishedEvents.increment();
+                    }
+                });
+    }
+    
+    /**
+     * Get publisher statistics
+     * @return Map with publish counts
+     */
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+            "publishedEvents", publishedEvents.sum(),
+            "failedEvents", failedEvents.sum()
+        );
+    }
+}
@@ -0,0 +1,101 @@
+package com.realtime.realtimedatapipeline.producer;
+
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import com.realtime.realtimedatapipeline.symbols.SymbolUniverseChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Maintains the compacted latest-quote topic: one record per symbol, keyed by symbol.
+ * A quote older than the one already published (e.g. a late retry) is not sent, since
+ * compaction keeps the last record written, not the newest quote.
+ */
+@Service
+public class LatestQuotePublisher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LatestQuotePublisher.class);
+    
+    private final KafkaTemplate<String, StockQuoteEvent> kafkaTemplate;
+    
+    @Value("${app.kafka.topics.stock-quotes-latest}")
+    private String stockQuotesLatestTopic;
+    
+    // Market timestamp of the last quote published per symbol
+    private final Map<String, Long> publishedTimestamps = new ConcurrentHashMap<>();
+    
+    private final LongAdder publishedEvents = new LongAdder();
+    private final LongAdder skippedEvents = new LongAdder();
+    private final LongAdder failedEvents = new LongAdder();
+    
+    public LatestQuotePublisher(KafkaTemplate<String, StockQuoteEvent> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+    
+    /**
+     * Publish a persisted quote if it is newer than the symbol's last published quote
+     */
+    public void publish(StockQuoteEvent quote) {
+        Long marketTimestamp = quote.resolveMarketTimestamp();
+        if (marketTimestamp != null && !advance(quote.getSymbol(), marketTimestamp)) {
+            skippedEvents.increment();
+            return;
+        }
+        kafkaTemplate.send(stockQuotesLatestTopic, quote.getSymbol(), quote)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        failedEvents.increment();
+                        logger.warn("Could not publish latest quote for {}: {}", quote.getSymbol(), error.getMessage());
+                    } else {
+                        publishedEvents.increment();
+                    }
+                });
+    }
+    
+    /**
+     * Record a quote restored from the topic, so older quotes are not re-published over it
+     */
+    public void seed(StockQuoteEvent quote) {
+        Long marketTimestamp = quote.resolveMarketTimestamp();
+        if (marketTimestamp != null) {
+            advance(quote.getSymbol(), marketTimestamp);
+        }
+    }
+    
+    @EventListener
+    public void onSymbolUniverseChanged(SymbolUniverseChangedEvent event) {
+        event.removed().forEach(publishedTimestamps::remove);
+    }
+    
+    private boolean advance(String symbol, long marketTimestamp) {
+        boolean[] newer = new boolean[1];
+        publishedTimestamps.compute(symbol, (key, previous) -> {
+            if (previous == null || marketTimestamp > previous) {
+                newer[0] = true;
+                return marketTimestamp;
+            }
+            return previous;
+        });
+        return newer[0];
+    }
+    
+    /**
+     * Get publisher statistics
+     * @return Map with publish counts
+     */
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+            "symbols", publishedTimestamps.size(),
+            "publishedEvents", publishedEvents.sum(),
+            "skippedEvents", skippedEvents.sum(),
+            "failedEvents", failedEvents.sum()
+        );
+    }
+}
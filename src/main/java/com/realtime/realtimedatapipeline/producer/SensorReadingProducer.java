@@ -0,0 +1,177 @@
+package com.realtime.realtimedatapipeline.producer;
+
+import com.realtime.realtimedatapipeline.config.IotProperties;
+import com.realtime.realtimedatapipeline.model.IngestResult;
+import com.realtime.realtimedatapipeline.model.SensorReading;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes ingested sensor readings keyed by sensor id, so a sensor's readings stay in order on one
+ * partition. Uses its own producer with larger batches, a longer linger and compression: readings
+ * arrive in bulk, where quotes favour latency.
+ */
+@Service
+public class SensorReadingProducer implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SensorReadingProducer.class);
+
+    // Validation and publish errors echoed back per request
+    private static final int MAX_REPORTED_ERRORS = 10;
+
+    private final KafkaTemplate<String, SensorReading> kafkaTemplate;
+    private final Counter acceptedCounter;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+    private final Duration publishTimeout;
+
+    @Value("${app.kafka.topics.iot-sensor-readings}")
+    private String sensorReadingsTopic;
+
+    public SensorReadingProducer(ProducerFactory<String, SensorReading> producerFactory,
+                                 IotProperties iotProperties,
+                                 MeterRegistry meterRegistry) {
+        this.kafkaTemplate = new KafkaTemplate<>(producerFactory, Map.of(
+                ProducerConfig.LINGER_MS_CONFIG, iotProperties.getLingerMs(),
+                ProducerConfig.BATCH_SIZE_CONFIG, iotProperties.getBatchSize(),
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, iotProperties.getCompression()));
+        this.publishTimeout = iotProperties.getPublishTimeout();
+        this.acceptedCounter = Counter.builder("iot.readings.accepted")
+                .description("Sensor readings accepted for ingestion")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("iot.readings.rejected")
+                .description("Sensor readings rejected by validation")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("iot.readings.publish.failed")
+                .description("Valid sensor readings Kafka did not acknowledge")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Validate and publish a batch of readings; invalid ones are skipped. Waits up to
+     * {@code app.iot.publish-timeout} for Kafka to acknowledge the rest, and reports those it did not
+     * as failed. A reading that timed out may still be written, so a resend can store it twice.
+     * Readings without a timestamp are stamped with the ingest time.
+     */
+    public IngestResult publishAll(List<SensorReading> readings) {
+        long now = System.currentTimeMillis();
+        List<String> errors = new ArrayList<>();
+        List<Integer> sentIndexes = new ArrayList<>();
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+        for (int i = 0; i < readings.size(); i++) {
+            SensorReading reading = readings.get(i);
+            String error = reading == null ? "reading is null" : reading.validate();
+            if (error != null) {
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add("readings[" + i + "]: " + error);
+                }
+                continue;
+            }
+            if (reading.timestamp() == null) {
+                reading = reading.withTimestamp(now);
+            }
+            sentIndexes.add(i);
+            sends.add(send(reading));
+        }
+        awaitSends(sends);
+
+        int accepted = 0;
+        int failed = 0;
+        String firstFailure = null;
+        for (int j = 0; j < sends.size(); j++) {
+            String failure = failureOf(sends.get(j));
+            if (failure == null) {
+                accepted++;
+                continue;
+            }
+            failed++;
+            if (firstFailure == null) {
+                firstFailure = failure;
+            }
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("readings[" + sentIndexes.get(j) + "]: not published: " + failure);
+            }
+        }
+        int rejected = readings.size() - sends.size();
+        acceptedCounter.increment(accepted);
+        rejectedCounter.increment(rejected);
+        if (failed > 0) {
+            failedCounter.increment(failed);
+            logger.warn("Could not publish {} of {} sensor readings: {}", failed, sends.size(), firstFailure);
+        }
+        return new IngestResult(accepted, rejected, failed, errors);
+    }
+
+    private CompletableFuture<?> send(SensorReading reading) {
+        try {
+            return kafkaTemplate.send(sensorReadingsTopic, reading.sensorId(), reading);
+        } catch (RuntimeException e) {
+            // Serialization and buffer or metadata timeouts are thrown rather than returned
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void awaitSends(List<CompletableFuture<?>> sends) {
+        try {
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0]))
+                    .get(publishTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Each send is checked on its own
+        }
+    }
+
+    /**
+     * @return Why a send did not complete, or null when Kafka acknowledged it
+     */
+    private String failureOf(CompletableFuture<?> send) {
+        if (!send.isDone()) {
+            return "no acknowledgement within " + publishTimeout;
+        }
+        if (!send.isCompletedExceptionally()) {
+            return null;
+        }
+        // The template wraps the producer's exception
+        Throwable failure = NestedExceptionUtils.getMostSpecificCause(send.exceptionNow());
+        return failure.getMessage() != null ? failure.getMessage() : failure.getClass().getSimpleName();
+    }
+
+    /**
+     * Get producer statistics
+     */
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+            "acceptedReadings", (long) acceptedCounter.count(),
+            "rejectedReadings", (long) rejectedCounter.count(),
+            "failedReadings", (long) failedCounter.count(),
+            "topic", sensorReadingsTopic
+        );
+    }
+
+    /**
+     * The template owns the producer created for its configuration overrides
+     */
+    @Override
+    public void destroy() {
+        kafkaTemplate.destroy();
+    }
+}
@@ -1,17 +1,25 @@
 package com.realtime.realtimedatapipeline.producer;
 
 import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import com.realtime.realtimedatapipeline.profiling.PipelineStageEvent;
+import com.realtime.realtimedatapipeline.snapshot.SnapshotHeader;
+import com.realtime.realtimedatapipeline.snapshot.SnapshotParticipant;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Service for producing stock quote events to Kafka topics
  */
 @Service
-public class StockDataProducer {
+public class StockDataProducer implements SnapshotParticipant {
     
     private static final Logger logger = LoggerFactory.getLogger(StockDataProducer.class);
     
@@ -20,9 +28,9 @@ public class StockDataProducer {
     @Value("${app.kafka.topics.stock-quotes-raw}")
     private String stockQuotesRawTopic;
     
-    // Simple counters
-    private long publishedEvents = 0;
-    private long failedEvents = 0;
+    // Striped counters: publish is called concurrently from every fetch thread
+    private final LongAdder publishedEvents = new LongAdder();
+    private final LongAdder failedEvents = new LongAdder();
     
     public StockDataProducer(KafkaTemplate<String, StockQuoteEvent> kafkaTemplate) {
         this.kafkaTemplate = kafkaTemplate;
@@ -33,39 +41,62 @@ public class StockDataProducer {
      * @param stockQuoteEvent The stock quote event to publish
      */
     public void publishStockQuote(StockQuoteEvent stockQuoteEvent) {
+        PipelineStageEvent publishEvent = PipelineStageEvent.start(PipelineStageEvent.Stage.PUBLISH, stockQuoteEvent.getSymbol());
         try {
             // Use symbol as partition key for consistent partitioning
             String partitionKey = stockQuoteEvent.getSymbol();
             
-            logger.info("Publishing stock quote for symbol: {} - Price: ${}", 
+            logger.debug("Publishing stock quote for symbol: {} - Price: ${}", 
                     stockQuoteEvent.getSymbol(), stockQuoteEvent.getCurrentPrice());
             
             kafkaTemplate.send(stockQuotesRawTopic, partitionKey, stockQuoteEvent);
-            publishedEvents++;
+            publishedEvents.increment();
+            publishEvent.finish(1);
             
         } catch (Exception e) {
-            failedEvents++;
+            failedEvents.increment();
+            publishEvent.finish(0);
             logger.error("Error publishing stock quote event for symbol: {}", 
                     stockQuoteEvent.getSymbol(), e);
         }
     }
     
+    @Override
+    public String snapshotSection() {
+        return "producer";
+    }
+    
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        out.writeLong(publishedEvents.sum());
+        out.writeLong(failedEvents.sum());
+    }
+    
+    @Override
+    public void restoreSnapshot(DataInput in, SnapshotHeader header) throws IOException {
+        long published = in.readLong();
+        long failed = in.readLong();
+        publishedEvents.add(published);
+        failedEvents.add(failed);
+    }
     
     /**
      * Get producer statistics
      * @return Map with producer metrics
      */
     public java.util.Map<String, Object> getStatistics() {
+        long published = publishedEvents.sum();
+        long failed = failedEvents.sum();
         return java.util.Map.of(
-            "publishedEvents", publishedEvents,
-            "failedEvents", failedEvents,
-            "successRate", calculateSuccessRate()
+            "publishedEvents", published,
+            "failedEvents", failed,
+            "successRate", calculateSuccessRate(published, failed)
         );
     }
     
-    private double calculateSuccessRate() {
-        double total = publishedEvents + failedEvents;
+    private double calculateSuccessRate(long published, long failed) {
+        double total = published + failed;
         if (total == 0) return 0.0;
-        return (publishedEvents / total) * 100.0;
+        return (published / total) * 100.0;
     }
 }
\ No newline at end of file
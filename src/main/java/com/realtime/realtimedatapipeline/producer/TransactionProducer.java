@@ -0,0 +1,95 @@
+package com.realtime.realtimedatapipeline.producer;
+
+import com.realtime.realtimedatapipeline.model.IngestResult;
+import com.realtime.realtimedatapipeline.model.TransactionEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes ingested transactions keyed by transaction id, so every copy of a transaction lands on
+ * the same partition and is deduplicated by one consumer
+ */
+@Service
+public class TransactionProducer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionProducer.class);
+
+    // Validation errors echoed back per request
+    private static final int MAX_REPORTED_ERRORS = 10;
+
+    private final KafkaTemplate<String, TransactionEvent> kafkaTemplate;
+    private final Counter acceptedCounter;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+
+    @Value("${app.kafka.topics.transactions}")
+    private String transactionsTopic;
+
+    public TransactionProducer(KafkaTemplate<String, TransactionEvent> kafkaTemplate,
+                               MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.acceptedCounter = Counter.builder("transactions.accepted")
+                .description("Transactions accepted for ingestion")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("transactions.rejected")
+                .description("Transactions rejected by validation")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("transactions.publish.failed")
+                .description("Accepted transactions that could not be published")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Validate and publish a batch of transactions; invalid ones are skipped, the rest are sent
+     * asynchronously with their defaults filled in
+     */
+    public IngestResult publishAll(List<TransactionEvent> transactions) {
+        long now = System.currentTimeMillis();
+        int accepted = 0;
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            TransactionEvent transaction = transactions.get(i);
+            String error = transaction == null ? "transaction is null" : transaction.validate();
+            if (error != null) {
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add("transactions[" + i + "]: " + error);
+                }
+                continue;
+            }
+            transaction = transaction.withDefaults(now);
+            kafkaTemplate.send(transactionsTopic, transaction.transactionId(), transaction)
+                    .whenComplete((result, failure) -> {
+                        if (failure != null) {
+                            failedCounter.increment();
+                            logger.warn("Could not publish transaction: {}", failure.getMessage());
+                        }
+                    });
+            accepted++;
+        }
+        int rejected = transactions.size() - accepted;
+        acceptedCounter.increment(accepted);
+        rejectedCounter.increment(rejected);
+        return new IngestResult(accepted, rejected, errors);
+    }
+
+    /**
+     * Get producer statistics
+     */
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+            "acceptedTransactions", (long) acceptedCounter.count(),
+            "rejectedTransactions", (long) rejectedCounter.count(),
+            "failedTransactions", (long) failedCounter.count(),
+            "topic", transactionsTopic
+        );
+    }
+}
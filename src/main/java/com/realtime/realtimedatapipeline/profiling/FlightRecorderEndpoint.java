@@ -0,0 +1,71 @@
+package com.realtime.realtimedatapipeline.profiling;
+
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.Map;
+
+/**
+ * Actuator endpoint controlling the pipeline's flight recording:
+ * <pre>
+ *   GET  /actuator/flightrecorder        recording state and metrics bridge statistics
+ *   POST /actuator/flightrecorder/start  {"settings": "profile"} optional
+ *   POST /actuator/flightrecorder/stop
+ *   POST /actuator/flightrecorder/dump   writes a .jfr file to the dump directory
+ * </pre>
+ */
+@Component
+@WebEndpoint(id = "flightrecorder")
+public class FlightRecorderEndpoint {
+
+    private final FlightRecorderService flightRecorderService;
+    private final StageMetricsBridge stageMetricsBridge;
+
+    public FlightRecorderEndpoint(FlightRecorderService flightRecorderService, StageMetricsBridge stageMetricsBridge) {
+        this.flightRecorderService = flightRecorderService;
+        this.stageMetricsBridge = stageMetricsBridge;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return Map.of(
+            "recording", flightRecorderService.status(),
+            "metricsBridge", stageMetricsBridge.getStatistics()
+        );
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> control(@Selector String action, @Nullable String settings) {
+        try {
+            return switch (action) {
+                case "start" -> new WebEndpointResponse<>(flightRecorderService.start(settings));
+                case "stop" -> new WebEndpointResponse<>(flightRecorderService.stop());
+                case "dump" -> {
+                    Path file = flightRecorderService.dump();
+                    yield new WebEndpointResponse<>(Map.of("file", file.toString(), "sizeBytes", Files.size(file)));
+                }
+                default -> new WebEndpointResponse<>(Map.of("error", "Unknown action " + action +
+                        "; expected start, stop or dump"), WebEndpointResponse.STATUS_BAD_REQUEST);
+            };
+        } catch (IllegalStateException e) {
+            return new WebEndpointResponse<>(Map.of("error", e.getMessage()), 409);
+        } catch (NoSuchFileException | ParseException e) {
+            // Unknown or unreadable JDK settings name
+            return new WebEndpointResponse<>(Map.of("error", "Invalid recording settings " + e.getMessage()),
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        } catch (IOException e) {
+            return new WebEndpointResponse<>(Map.of("error", "Could not " + action + " recording: " + e.getMessage()),
+                    WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.realtime.realtimedatapipeline.profiling;
+
+import com.realtime.realtimedatapipeline.config.FlightRecorderProperties;
+import jdk.jfr.Configuration;
+import jdk.jfr.EventSettings;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Owns the single on-demand Flight Recorder recording: JVM events at the configured JDK settings
+ * plus the {@link PipelineStageEvent}s. A stopped recording keeps its data until the next start,
+ * so it can still be dumped. Nothing is recorded until a recording is started.
+ */
+@Service
+public class FlightRecorderService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderService.class);
+
+    static final String RECORDING_NAME = "pipeline";
+
+    private final FlightRecorderProperties properties;
+    private final Path dumpDirectory;
+
+    private final LongAdder recordings = new LongAdder();
+    private final LongAdder dumps = new LongAdder();
+
+    // Guarded by this
+    private Recording recording;
+    private String recordingSettings;
+    private Path lastDump;
+
+    public FlightRecorderService(FlightRecorderProperties properties) {
+        this.properties = properties;
+        this.dumpDirectory = Paths.get(properties.getDumpDirectory());
+    }
+
+    /**
+     * Start a new recording, discarding a stopped one
+     * @param settings JDK settings name ("default", "profile") or null for the configured one
+     * @throws IllegalStateException if a recording is already running
+     */
+    public synchronized Map<String, Object> start(String settings) throws IOException, ParseException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        String settingsName = settings != null && !settings.isBlank() ? settings : properties.getSettings();
+        Recording next = new Recording(Configuration.getConfiguration(settingsName));
+        next.setName(RECORDING_NAME);
+        next.setToDisk(true);
+        next.setMaxAge(properties.getMaxAge());
+        next.setMaxSize(properties.getMaxSizeMb() * 1024 * 1024);
+        EventSettings stageEvents = next.enable(PipelineStageEvent.NAME).withThreshold(properties.getStageThreshold());
+        if (properties.isStackTraces()) {
+            stageEvents.withStackTrace();
+        }
+        close();
+        next.start();
+        recording = next;
+        recordingSettings = settingsName;
+        recordings.increment();
+        logger.info("Started flight recording with {} settings (max age {})", settingsName, properties.getMaxAge());
+        return status();
+    }
+
+    /**
+     * Stop the running recording; its data stays available to {@link #dump()}
+     * @throws IllegalStateException if no recording is running
+     */
+    public synchronized Map<String, Object> stop() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            throw new IllegalStateException("No recording is running");
+        }
+        recording.stop();
+        logger.info("Stopped flight recording after {}", Duration.between(recording.getStartTime(), recording.getStopTime()));
+        return status();
+    }
+
+    /**
+     * Write the current recording's data to a new file in the dump directory; a running recording
+     * keeps running
+     * @return the written file
+     * @throws IllegalStateException if there is no recording
+     */
+    public synchronized Path dump() throws IOException {
+        if (recording == null) {
+            throw new IllegalStateException("No recording to dump");
+        }
+        Files.createDirectories(dumpDirectory);
+        Path file = dumpDirectory.resolve("pipeline-" + System.currentTimeMillis() + ".jfr");
+        recording.dump(file);
+        lastDump = file.toAbsolutePath();
+        dumps.increment();
+        logger.info("Dumped flight recording to {} ({} bytes)", lastDump, Files.size(file));
+        return lastDump;
+    }
+
+    /**
+     * Current recording state, and where the last dump went
+     */
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", recording != null ? recording.getState().name() : "NONE");
+        if (recording != null) {
+            Instant startTime = recording.getStartTime();
+            Instant endTime = recording.getStopTime() != null ? recording.getStopTime() : Instant.now();
+            status.put("settings", recordingSettings);
+            status.put("startTime", startTime != null ? startTime.toString() : null);
+            status.put("durationSeconds", startTime != null ? Duration.between(startTime, endTime).toSeconds() : 0L);
+            status.put("sizeBytes", recording.getSize());
+        }
+        status.put("maxAge", properties.getMaxAge().toString());
+        status.put("maxSizeMb", properties.getMaxSizeMb());
+        status.put("stageThresholdMs", properties.getStageThreshold().toMillis());
+        status.put("recordings", recordings.sum());
+        status.put("dumps", dumps.sum());
+        status.put("lastDump", lastDump != null ? lastDump.toString() : null);
+        return status;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        close();
+    }
+
+    private void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
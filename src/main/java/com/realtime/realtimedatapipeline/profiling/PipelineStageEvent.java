@@ -0,0 +1,70 @@
+package com.realtime.realtimedatapipeline.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.Locale;
+
+/**
+ * Flight Recorder event for one pass through a pipeline stage. While no recording or stream has the
+ * event enabled, {@code begin}/{@code end} compile down to nothing and the instance is scalar-replaced,
+ * so instrumented paths pay close to nothing:
+ * <pre>
+ *   PipelineStageEvent event = PipelineStageEvent.start(Stage.FETCH, symbol);
+ *   ...
+ *   event.finish(size);
+ * </pre>
+ */
+@Name(PipelineStageEvent.NAME)
+@Label("Pipeline Stage")
+@Category({"Real-time Pipeline"})
+@Description("Time spent in one stage of the quote pipeline")
+@StackTrace(false)
+public final class PipelineStageEvent extends Event {
+
+    public static final String NAME = "com.realtime.pipeline.Stage";
+
+    public enum Stage {
+        FETCH, DECODE, CONVERT, PUBLISH, CONSUME, PERSIST;
+
+        final String label = name().toLowerCase(Locale.ROOT);
+    }
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Symbol")
+    @Description("Empty for batches spanning several symbols")
+    String symbol;
+
+    @Label("Size")
+    @Description("Response bytes for decode; quotes or records for the other stages")
+    long size;
+
+    /**
+     * Begin timing a stage
+     * @param symbol the quote's symbol, or null for a multi-symbol batch
+     */
+    public static PipelineStageEvent start(Stage stage, String symbol) {
+        PipelineStageEvent event = new PipelineStageEvent();
+        event.stage = stage.label;
+        event.symbol = symbol;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Stop timing and commit if a recording wants the event and it passed the threshold
+     */
+    public void finish(long size) {
+        end();
+        if (shouldCommit()) {
+            this.size = size;
+            commit();
+        }
+    }
+}
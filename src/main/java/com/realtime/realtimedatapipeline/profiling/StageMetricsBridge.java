@@ -0,0 +1,104 @@
+package com.realtime.realtimedatapipeline.profiling;
+
+import com.realtime.realtimedatapipeline.config.FlightRecorderProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streams the {@link PipelineStageEvent}s in-process and records their durations as
+ * {@code pipeline.stage.duration} timers tagged by stage. Opt-in: while the stream runs the stage
+ * events stay enabled, so the instrumented paths pay for a timestamp pair and a buffer write per pass.
+ * The stream delivers events about once a second, off the pipeline threads.
+ */
+@Service
+public class StageMetricsBridge implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(StageMetricsBridge.class);
+
+    // Events are consumed within seconds; the repository only needs to cover a slow flush
+    private static final Duration STREAM_MAX_AGE = Duration.ofMinutes(1);
+
+    private final FlightRecorderProperties properties;
+    private final Map<String, Timer> timers = new HashMap<>();
+
+    private final LongAdder streamedEvents = new LongAdder();
+    private final LongAdder unknownStages = new LongAdder();
+
+    private volatile RecordingStream stream;
+    private volatile boolean running;
+
+    public StageMetricsBridge(FlightRecorderProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        for (PipelineStageEvent.Stage stage : PipelineStageEvent.Stage.values()) {
+            timers.put(stage.label, Timer.builder("pipeline.stage.duration")
+                    .description("Time spent per pass through a pipeline stage, from Flight Recorder events")
+                    .tag("stage", stage.label)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public void start() {
+        if (properties.isMetricsBridge()) {
+            RecordingStream next = new RecordingStream();
+            next.enable(PipelineStageEvent.NAME)
+                    .withThreshold(properties.getStageThreshold())
+                    .withoutStackTrace();
+            next.setMaxAge(STREAM_MAX_AGE);
+            next.onEvent(PipelineStageEvent.NAME, this::record);
+            next.onError(error -> logger.warn("Pipeline stage event stream failed: {}", error.getMessage()));
+            next.startAsync();
+            stream = next;
+            logger.info("Streaming pipeline stage events into pipeline.stage.duration timers");
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream current = stream;
+        if (current != null) {
+            current.close();
+            stream = null;
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    void record(RecordedEvent event) {
+        streamedEvents.increment();
+        Timer timer = timers.get(event.getString("stage"));
+        if (timer == null) {
+            unknownStages.increment();
+            return;
+        }
+        timer.record(event.getDuration());
+    }
+
+    /**
+     * Get bridge statistics
+     */
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+            "enabled", stream != null,
+            "streamedEvents", streamedEvents.sum(),
+            "unknownStages", unknownStages.sum()
+        );
+    }
+}
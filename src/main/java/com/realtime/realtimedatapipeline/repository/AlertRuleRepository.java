@@ -0,0 +1,15 @@
+package com.realtime.realtimedatapipeline.repository;
+
+import com.realtime.realtimedatapipeline.model.AlertRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AlertRuleRepository extends JpaRepository<AlertRule, Long> {
+
+    List<AlertRule> findByEnabledTrue();
+
+    List<AlertRule> findBySymbolOrderById(String symbol);
+}
@@ -0,0 +1,9 @@
+package com.realtime.realtimedatapipeline.repository;
+
+import com.realtime.realtimedatapipeline.model.CompanyProfile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CompanyProfileRepository extends JpaRepository<CompanyProfile, String> {
+}
@@ -1,6 +1,7 @@
 package com.realtime.realtimedatapipeline.repository;
 
 import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,7 +13,7 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface StockQuoteRepository extends JpaRepository<StockQuoteEvent, UUID> {
+public interface StockQuoteRepository extends JpaRepository<StockQuoteEvent, UUID>, StockQuoteRepositoryCustom {
     
     /**
      * Find all quotes for a specific symbol, ordered by timestamp descending
@@ -25,12 +26,13 @@ public interface StockQuoteRepository extends JpaRepository<StockQuoteEvent, UUI
     Optional<StockQuoteEvent> findFirstBySymbolOrderByTimestampDesc(String symbol);
     
     /**
-     * Find all quotes for a symbol within a time range
+     * Find quotes for a symbol within a time range, newest first, up to the page size
      */
     @Query("SELECT s FROM StockQuoteEvent s WHERE s.symbol = :symbol AND s.timestamp BETWEEN :startTime AND :endTime ORDER BY s.timestamp DESC")
     List<StockQuoteEvent> findBySymbolAndTimestampBetween(@Param("symbol") String symbol, 
                                                          @Param("startTime") LocalDateTime startTime, 
-                                                         @Param("endTime") LocalDateTime endTime);
+                                                         @Param("endTime") LocalDateTime endTime,
+                                                         Pageable pageable);
     
     /**
      * Find quotes for multiple symbols
@@ -44,12 +46,6 @@ public interface StockQuoteRepository extends JpaRepository<StockQuoteEvent, UUI
     @Query("SELECT s FROM StockQuoteEvent s WHERE s.timestamp >= :since ORDER BY s.timestamp DESC")
     List<StockQuoteEvent> findRecentQuotes(@Param("since") LocalDateTime since);
     
-    /**
-     * Find quotes with significant price changes (above threshold percentage)
-     */
-    @Query("SELECT s FROM StockQuoteEvent s WHERE ABS(s.percentChange) >= :threshold ORDER BY s.timestamp DESC")
-    List<StockQuoteEvent> findByPercentChangeGreaterThanEqual(@Param("threshold") Double threshold);
-    
     /**
      * Get latest quote for each symbol (useful for current prices dashboard)
      */
@@ -64,10 +60,25 @@ public interface StockQuoteRepository extends JpaRepository<StockQuoteEvent, UUI
     long countBySymbol(String symbol);
     
     /**
-     * Find quotes with price above a certain value
+     * Exact row counts per symbol for quotes with a timestamp in [from, to). Called for one quote day
+     * at a time, an index range scan, to reconcile the incrementally maintained counts.
+     */
+    @Query(value = "SELECT symbol, COUNT(*) FROM stock_quotes WHERE timestamp >= :from AND timestamp < :to " +
+                   "GROUP BY symbol", nativeQuery = true)
+    List<Object[]> countBySymbolBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    /**
+     * Timestamp of the oldest quote, read from the end of the timestamp index; null for an empty table
      */
-    @Query("SELECT s FROM StockQuoteEvent s WHERE s.currentPrice >= :minPrice ORDER BY s.currentPrice DESC")
-    List<StockQuoteEvent> findByCurrentPriceGreaterThanEqual(@Param("minPrice") Double minPrice);
+    @Query("SELECT MIN(s.timestamp) FROM StockQuoteEvent s")
+    LocalDateTime findOldestTimestamp();
+    
+    /**
+     * Planner statistics estimate of the table's live rows; a catalog lookup, no table access
+     */
+    @Query(value = "SELECT COALESCE(MAX(n_live_tup), 0) FROM pg_stat_user_tables WHERE relname = 'stock_quotes'",
+           nativeQuery = true)
+    long estimateRowCount();
     
     /**
      * Get average price for a symbol over a time period
@@ -77,6 +88,15 @@ public interface StockQuoteRepository extends JpaRepository<StockQuoteEvent, UUI
                                                       @Param("startTime") LocalDateTime startTime, 
                                                       @Param("endTime") LocalDateTime endTime);
     
+    /**
+     * Count, min, max and sum of prices for a symbol over a time period, as a single row
+     */
+    @Query("SELECT COUNT(s), MIN(s.currentPrice), MAX(s.currentPrice), SUM(s.currentPrice) FROM StockQuoteEvent s " +
+           "WHERE s.symbol = :symbol AND s.timestamp BETWEEN :startTime AND :endTime")
+    List<Object[]> aggregatePriceForSymbolInPeriod(@Param("symbol") String symbol,
+                                                   @Param("startTime") LocalDateTime startTime,
+                                                   @Param("endTime") LocalDateTime endTime);
+
     /**
      * Get min and max prices for a symbol over a time period
      */
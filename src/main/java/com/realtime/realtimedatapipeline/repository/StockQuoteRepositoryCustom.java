@@ -0,0 +1,20 @@
+package com.realtime.realtimedatapipeline.repository;
+
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+
+import java.util.Collection;
+
+/**
+ * Bulk write operations for stock quotes that bypass the JPA persistence context
+ */
+public interface StockQuoteRepositoryCustom {
+    
+    /**
+     * Insert quotes in multi-row batches keyed on the natural key (symbol, market_timestamp).
+     * Re-delivered quotes hit the unique constraint and are either ignored or updated in place,
+     * so replaying a topic never creates duplicate rows. All batches commit together or not at all.
+     * @param quotes Quotes to write; duplicates of the same natural key within the call collapse to the last one
+     * @return Counts of inserted and updated rows
+     */
+    UpsertResult upsertAll(Collection<StockQuoteEvent> quotes);
+}
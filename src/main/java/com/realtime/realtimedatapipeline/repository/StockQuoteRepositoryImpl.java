@@ -0,0 +1,161 @@
+package com.realtime.realtimedatapipeline.repository;
+
+import com.realtime.realtimedatapipeline.config.PersistenceProperties;
+import com.realtime.realtimedatapipeline.config.PersistenceProperties.ConflictAction;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * JDBC implementation of {@link StockQuoteRepositoryCustom}, picked up by Spring Data as a repository fragment
+ */
+public class StockQuoteRepositoryImpl implements StockQuoteRepositoryCustom {
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO stock_quotes (id, symbol, stock_name, current_price, percent_change, change_amount, " +
+            "day_high, day_low, open_price, previous_close, volume, timestamp, market_timestamp, created_at) VALUES ";
+
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int COLUMNS = 14;
+
+    // Postgres caps bind parameters per statement at 32767
+    private static final int MAX_ROWS_PER_STATEMENT = Short.MAX_VALUE / COLUMNS;
+
+    private static final String ON_CONFLICT_NOTHING =
+            " ON CONFLICT (symbol, market_timestamp) DO NOTHING RETURNING id, (xmax = 0) AS inserted";
+
+    // The WHERE clause skips the write entirely when a replayed row carries identical values,
+    // so reprocessing does not leave dead tuples behind
+    private static final String ON_CONFLICT_UPDATE =
+            " ON CONFLICT (symbol, market_timestamp) DO UPDATE SET " +
+            "stock_name = EXCLUDED.stock_name, current_price = EXCLUDED.current_price, " +
+            "percent_change = EXCLUDED.percent_change, change_amount = EXCLUDED.change_amount, " +
+            "day_high = EXCLUDED.day_high, day_low = EXCLUDED.day_low, open_price = EXCLUDED.open_price, " +
+            "previous_close = EXCLUDED.previous_close, volume = EXCLUDED.volume, timestamp = EXCLUDED.timestamp " +
+            "WHERE (stock_quotes.stock_name, stock_quotes.current_price, stock_quotes.percent_change, " +
+            "stock_quotes.change_amount, stock_quotes.day_high, stock_quotes.day_low, stock_quotes.open_price, " +
+            "stock_quotes.previous_close, stock_quotes.volume, stock_quotes.timestamp) IS DISTINCT FROM " +
+            "(EXCLUDED.stock_name, EXCLUDED.current_price, EXCLUDED.percent_change, EXCLUDED.change_amount, " +
+            "EXCLUDED.day_high, EXCLUDED.day_low, EXCLUDED.open_price, EXCLUDED.previous_close, " +
+            "EXCLUDED.volume, EXCLUDED.timestamp) " +
+            "RETURNING id, (xmax = 0) AS inserted";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PersistenceProperties persistenceProperties;
+
+    public StockQuoteRepositoryImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                    PersistenceProperties persistenceProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.persistenceProperties = persistenceProperties;
+    }
+
+    @Override
+    public UpsertResult upsertAll(Collection<StockQuoteEvent> quotes) {
+        if (quotes == null || quotes.isEmpty()) {
+            return UpsertResult.empty();
+        }
+
+        // ON CONFLICT DO UPDATE refuses to touch the same row twice in one statement,
+        // so collapse duplicates of a natural key to the last occurrence
+        Map<String, StockQuoteEvent> unique = new LinkedHashMap<>();
+        for (StockQuoteEvent quote : quotes) {
+            unique.put(quote.getSymbol() + ":" + quote.getMarketTimestamp(), quote);
+        }
+        List<StockQuoteEvent> rows = new ArrayList<>(unique.values());
+
+        int chunkSize = Math.max(1, Math.min(persistenceProperties.getBatchSize(), MAX_ROWS_PER_STATEMENT));
+        String onConflict = persistenceProperties.getConflictAction() == ConflictAction.NOTHING
+                ? ON_CONFLICT_NOTHING
+                : ON_CONFLICT_UPDATE;
+
+        // One transaction for all chunks: a failing chunk must not leave earlier ones committed and
+        // uncounted when the caller falls back to writing the quotes one by one
+        return transactionTemplate.execute(status -> {
+            int inserted = 0;
+            int updated = 0;
+            Map<String, Integer> insertedBySymbol = new HashMap<>();
+            Map<LocalDate, Map<String, Integer>> insertedByDay = new HashMap<>();
+            for (int from = 0; from < rows.size(); from += chunkSize) {
+                List<StockQuoteEvent> chunk = rows.subList(from, Math.min(from + chunkSize, rows.size()));
+                Map<UUID, StockQuoteEvent> byId = new HashMap<>(chunk.size() * 2);
+                for (StockQuoteEvent quote : chunk) {
+                    byId.put(quote.getId(), quote);
+                }
+                int[] counts = new int[2];
+                jdbcTemplate.query(buildSql(chunk.size(), onConflict),
+                        ps -> bindChunk(ps, chunk),
+                        rs -> {
+                            if (!rs.getBoolean(2)) {
+                                counts[1]++;
+                                return;
+                            }
+                            counts[0]++;
+                            // On an insert the returned id is ours; on a conflict it would be the existing row's
+                            StockQuoteEvent quote = byId.get(rs.getObject(1, UUID.class));
+                            if (quote != null) {
+                                insertedBySymbol.merge(quote.getSymbol(), 1, Integer::sum);
+                                if (quote.getTimestamp() != null) {
+                                    insertedByDay.computeIfAbsent(quote.getTimestamp().toLocalDate(), day -> new HashMap<>())
+                                            .merge(quote.getSymbol(), 1, Integer::sum);
+                                }
+                            }
+                        });
+                inserted += counts[0];
+                updated += counts[1];
+            }
+
+            return new UpsertResult(inserted, updated, quotes.size() - inserted - updated,
+                    insertedBySymbol, insertedByDay);
+        });
+    }
+
+    private static String buildSql(int rowCount, String onConflict) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rowCount * (ROW_PLACEHOLDERS.length() + 2)
+                + onConflict.length());
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+        }
+        return sql.append(onConflict).toString();
+    }
+
+    private static void bindChunk(PreparedStatement ps, List<StockQuoteEvent> chunk) throws SQLException {
+        int index = 1;
+        for (StockQuoteEvent quote : chunk) {
+            ps.setObject(index++, quote.getId());
+            ps.setString(index++, quote.getSymbol());
+            ps.setString(index++, quote.getStockName());
+            ps.setObject(index++, quote.getCurrentPrice(), Types.DOUBLE);
+            ps.setObject(index++, quote.getPercentChange(), Types.DOUBLE);
+            ps.setObject(index++, quote.getChangeAmount(), Types.DOUBLE);
+            ps.setObject(index++, quote.getDayHigh(), Types.DOUBLE);
+            ps.setObject(index++, quote.getDayLow(), Types.DOUBLE);
+            ps.setObject(index++, quote.getOpenPrice(), Types.DOUBLE);
+            ps.setObject(index++, quote.getPreviousClose(), Types.DOUBLE);
+            ps.setObject(index++, quote.getVolume(), Types.BIGINT);
+            ps.setTimestamp(index++, quote.getTimestamp() != null ? Timestamp.valueOf(quote.getTimestamp()) : null);
+            ps.setObject(index++, quote.getMarketTimestamp(), Types.BIGINT);
+            ps.setTimestamp(index++, quote.getCreatedAt() != null ? Timestamp.valueOf(quote.getCreatedAt()) : null);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.realtime.realtimedatapipeline.repository;
+
+import com.realtime.realtimedatapipeline.config.PersistenceProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Makes sure stock_quotes has the unique key the batch upsert's ON CONFLICT (symbol, market_timestamp)
+ * relies on. Hibernate's schema update only logs a warning when it cannot add the key because the
+ * table already holds duplicates, and every upsert would then fail. Runs before the listener
+ * containers start; if the key is missing it deletes the duplicates, keeping the newest row per key,
+ * and adds it in one transaction, or stops startup when {@code app.persistence.repair-unique-key}
+ * is off.
+ */
+@Component
+public class StockQuoteUniqueKeyCheck implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockQuoteUniqueKeyCheck.class);
+
+    static final String CONSTRAINT = "uk_stock_quotes_symbol_market_ts";
+
+    private static final String EXISTS =
+            "SELECT COUNT(*) FROM pg_constraint WHERE conname = ? AND conrelid = to_regclass('stock_quotes')";
+
+    // Rows without a market timestamp never conflict, so they are left alone
+    private static final String DELETE_DUPLICATES =
+            "DELETE FROM stock_quotes WHERE ctid IN (SELECT ctid FROM (" +
+            "SELECT ctid, row_number() OVER (PARTITION BY symbol, market_timestamp " +
+            "ORDER BY created_at DESC NULLS LAST, timestamp DESC NULLS LAST, id) AS position " +
+            "FROM stock_quotes WHERE market_timestamp IS NOT NULL) ranked WHERE position > 1)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PersistenceProperties persistenceProperties;
+
+    public StockQuoteUniqueKeyCheck(JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    PersistenceProperties persistenceProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.persistenceProperties = persistenceProperties;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (exists()) {
+            return;
+        }
+        if (!persistenceProperties.isRepairUniqueKey()) {
+            throw new IllegalStateException("stock_quotes has no unique key " + CONSTRAINT +
+                    " on (symbol, market_timestamp), which the quote upsert needs; remove the duplicate rows " +
+                    "and add it, or set app.persistence.repair-unique-key=true");
+        }
+        int deleted = repair();
+        logger.warn("Added the missing unique key {} to stock_quotes after deleting {} duplicate rows",
+                   CONSTRAINT, deleted);
+    }
+
+    boolean exists() {
+        return jdbcTemplate.queryForObject(EXISTS, Long.class, CONSTRAINT) > 0;
+    }
+
+    /**
+     * Delete the duplicates and add the key; writers are held off until both are committed
+     * @return Number of duplicate rows deleted
+     */
+    int repair() {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("LOCK TABLE stock_quotes IN SHARE ROW EXCLUSIVE MODE");
+            int deleted = jdbcTemplate.update(DELETE_DUPLICATES);
+            jdbcTemplate.execute("ALTER TABLE stock_quotes ADD CONSTRAINT " + CONSTRAINT +
+                    " UNIQUE (symbol, market_timestamp)");
+            return deleted;
+        });
+    }
+}
@@ -0,0 +1,13 @@
+package com.realtime.realtimedatapipeline.repository;
+
+import com.realtime.realtimedatapipeline.model.TrackedSymbol;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TrackedSymbolRepository extends JpaRepository<TrackedSymbol, Integer> {
+
+    List<TrackedSymbol> findAllByOrderByIdAsc();
+}
@@ -0,0 +1,68 @@
+package com.realtime.realtimedatapipeline.repository;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Outcome of a batched upsert into stock_quotes
+ */
+public class UpsertResult {
+    
+    private final int inserted;
+    private final int updated;
+    private final int unchanged;
+    private final Map<String, Integer> insertedBySymbol;
+    private final Map<LocalDate, Map<String, Integer>> insertedByDay;
+    
+    public UpsertResult(int inserted, int updated, int unchanged,
+                        Map<String, Integer> insertedBySymbol,
+                        Map<LocalDate, Map<String, Integer>> insertedByDay) {
+        this.inserted = inserted;
+        this.updated = updated;
+        this.unchanged = unchanged;
+        this.insertedBySymbol = insertedBySymbol;
+        this.insertedByDay = insertedByDay;
+    }
+    
+    public static UpsertResult empty() {
+        return new UpsertResult(0, 0, 0, Map.of(), Map.of());
+    }
+    
+    public int getInserted() {
+        return inserted;
+    }
+    
+    public int getUpdated() {
+        return updated;
+    }
+    
+    /**
+     * Rows that already existed with identical values (pure replays) and were not written
+     */
+    public int getUnchanged() {
+        return unchanged;
+    }
+    
+    /**
+     * Newly inserted rows per symbol, so row counts can be maintained without counting the table
+     */
+    public Map<String, Integer> getInsertedBySymbol() {
+        return insertedBySymbol;
+    }
+    
+    /**
+     * Newly inserted rows per quote day and symbol; rows without a timestamp are only in {@link #getInsertedBySymbol()}
+     */
+    public Map<LocalDate, Map<String, Integer>> getInsertedByDay() {
+        return insertedByDay;
+    }
+    
+    public int getWritten() {
+        return inserted + updated;
+    }
+    
+    @Override
+    public String toString() {
+        return "UpsertResult{inserted=" + inserted + ", updated=" + updated + ", unchanged=" + unchanged + '}';
+    }
+}
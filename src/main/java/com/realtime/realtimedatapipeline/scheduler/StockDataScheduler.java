@@ -1,62 +1,117 @@
 package com.realtime.realtimedatapipeline.scheduler;
 
+import com.realtime.realtimedatapipeline.client.CompanyProfileCache;
 import com.realtime.realtimedatapipeline.client.FinnhubApiClient;
 import com.realtime.realtimedatapipeline.config.StockProperties;
+import com.realtime.realtimedatapipeline.metrics.ConsumerLagCollector;
+import com.realtime.realtimedatapipeline.metrics.StockMetricsService;
 import com.realtime.realtimedatapipeline.model.FinnhubQuoteResponse;
 import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
 import com.realtime.realtimedatapipeline.producer.StockDataProducer;
+import com.realtime.realtimedatapipeline.profiling.PipelineStageEvent;
+import com.realtime.realtimedatapipeline.snapshot.SnapshotHeader;
+import com.realtime.realtimedatapipeline.snapshot.SnapshotParticipant;
+import com.realtime.realtimedatapipeline.symbols.SymbolRegistry;
+import com.realtime.realtimedatapipeline.symbols.SymbolUniverseChangedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Scheduled service to fetch stock data from Finnhub API and publish to Kafka
  */
 @Service
-public class StockDataScheduler {
+public class StockDataScheduler implements SnapshotParticipant {
     
     private static final Logger logger = LoggerFactory.getLogger(StockDataScheduler.class);
     
     private final FinnhubApiClient finnhubClient;
+    private final CompanyProfileCache profileCache;
     private final StockDataProducer stockDataProducer;
     private final StockProperties stockProperties;
+    private final SymbolRegistry symbolRegistry;
+    private final StockMetricsService metricsService;
+    private final ConsumerLagCollector lagCollector;
     
-    private volatile boolean isRunning = false;
-    private long fetchCount = 0;
+    // Quote fetches block on the Finnhub call: they run on their own bounded pool, never more than
+    // fetch-concurrency at once and started no faster than fetch-rate
+    private final Executor fetchExecutor;
+    private final Semaphore fetchSlots;
+    private final long fetchIntervalNanos;
+    private long nextFetchNanos = System.nanoTime();
+    private volatile long lastCycleMillis = -1;
+    
+    private final AtomicBoolean isRunning = new AtomicBoolean(false);
+    private final AtomicLong fetchCount = new AtomicLong();
+    
+    // Lag throttle: cycles offered while throttled, and what the throttle saved
+    private final AtomicLong throttledTicks = new AtomicLong();
+    private final LongAdder skippedCycles = new LongAdder();
+    private final LongAdder conflatedQuotes = new LongAdder();
+    // Market timestamp of the last quote published per symbol
+    private final Map<String, Long> publishedTimestamps = new ConcurrentHashMap<>();
     
     public StockDataScheduler(FinnhubApiClient finnhubClient, 
+                             CompanyProfileCache profileCache,
                              StockDataProducer stockDataProducer,
-                             StockProperties stockProperties) {
+                             StockProperties stockProperties,
+                             SymbolRegistry symbolRegistry,
+                             StockMetricsService metricsService,
+                             ConsumerLagCollector lagCollector,
+                             @Qualifier("quoteFetchExecutor") Executor fetchExecutor) {
         this.finnhubClient = finnhubClient;
+        this.profileCache = profileCache;
         this.stockDataProducer = stockDataProducer;
         this.stockProperties = stockProperties;
+        this.symbolRegistry = symbolRegistry;
+        this.metricsService = metricsService;
+        this.lagCollector = lagCollector;
+        this.fetchExecutor = fetchExecutor;
+        this.fetchSlots = new Semaphore(stockProperties.getFetchConcurrency());
+        this.fetchIntervalNanos = stockProperties.getFetchRate() > 0
+                ? (long) (TimeUnit.SECONDS.toNanos(1) / stockProperties.getFetchRate())
+                : 0;
     }
     
     @EventListener(ApplicationReadyEvent.class)
     public void onApplicationReady() {
         logger.info("Stock Data Scheduler initialized");
-        logger.info("Tracking symbols: {}", stockProperties.getSymbols());
+        logger.info("Tracking {} symbols", symbolRegistry.getSymbols().size());
         logger.info("Update interval: {}", stockProperties.getUpdateInterval());
         
-        // Fetch stock names on startup (cache them)
-        CompletableFuture.runAsync(() -> {
-            logger.info("Pre-loading stock company names...");
-            stockProperties.getSymbols().forEach(symbol -> {
-                String stockName = finnhubClient.getStockName(symbol);
-                logger.debug("Cached company name for {}: {}", symbol, stockName);
-            });
-            logger.info("Stock company names pre-loaded");
-        });
+        // Warm the company name cache from the database, loading any missing names in parallel
+        profileCache.warmUp(symbolRegistry.getSymbols());
+    }
+    
+    /**
+     * The next cycle fetches the new universe by itself; only forget removed symbols
+     */
+    @EventListener
+    public void onSymbolUniverseChanged(SymbolUniverseChangedEvent event) {
+        event.removed().forEach(publishedTimestamps::remove);
     }
     
     /**
@@ -66,72 +121,154 @@ public class StockDataScheduler {
     @Scheduled(fixedRateString = "#{@stockProperties.getUpdateInterval().toMillis()}")
     @Async
     public void fetchAndPublishStockData() {
-        if (isRunning) {
+        // Claim the cycle atomically: @Async can start overlapping invocations on different threads
+        if (!isRunning.compareAndSet(false, true)) {
             logger.debug("Previous fetch still running, skipping this cycle");
             return;
         }
         
         try {
-            isRunning = true;
-            fetchCount++;
+            // Downstream lag: run one cycle in every `throttle`. Each cycle fetches the latest quotes,
+            // so a skipped cycle is conflated into the next one rather than lost.
+            int throttle = lagCollector.throttleFactor();
+            if (throttle > 1 && throttledTicks.getAndIncrement() % throttle != 0) {
+                skippedCycles.increment();
+                logger.debug("Quote consumer lagging, skipping fetch cycle (running 1 in {})", throttle);
+                return;
+            }
             
-            List<String> symbols = stockProperties.getSymbols();
-            logger.info("Starting stock data fetch cycle #{} for {} symbols: {}", 
-                    fetchCount, symbols.size(), symbols);
+            long cycle = fetchCount.incrementAndGet();
             
-            // Fetch data for all symbols in parallel
-            List<CompletableFuture<Void>> futures = symbols.stream()
-                    .map(this::fetchAndPublishSingleStock)
-                    .toList();
+            List<String> symbols = symbolRegistry.getSymbols();
+            logger.info("Starting stock data fetch cycle #{} for {} symbols", cycle, symbols.size());
             
-            // Wait for all fetches to complete
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                    .join();
+            long start = System.currentTimeMillis();
+            fetchAll(symbols);
+            lastCycleMillis = System.currentTimeMillis() - start;
             
-            logger.info("Completed stock data fetch cycle #{}", fetchCount);
+            logger.info("Completed stock data fetch cycle #{} in {} ms", cycle, lastCycleMillis);
+            if (lastCycleMillis > stockProperties.getUpdateInterval().toMillis()) {
+                logger.info("Fetch cycle took longer than the {} update interval; the ticks in between were skipped",
+                           stockProperties.getUpdateInterval());
+            }
             
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Stock data fetch cycle interrupted");
         } catch (Exception e) {
             logger.error("Error in scheduled stock data fetch: {}", e.getMessage(), e);
         } finally {
-            isRunning = false;
+            isRunning.set(false);
+        }
+    }
+    
+    /**
+     * Fetch and publish every symbol on the quote fetch pool, paced to the fetch rate and never
+     * more than the fetch concurrency in flight; returns once all of them have finished
+     */
+    private void fetchAll(List<String> symbols) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(symbols.size());
+        for (String symbol : symbols) {
+            pace();
+            fetchSlots.acquire();
+            try {
+                fetchExecutor.execute(() -> {
+                    try {
+                        fetchAndPublish(symbol);
+                    } finally {
+                        fetchSlots.release();
+                        done.countDown();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                fetchSlots.release();
+                throw e;
+            }
+        }
+        done.await();
+    }
+    
+    /**
+     * Wait for the next request start the fetch rate allows. A stall does not bank starts for
+     * a burst afterwards.
+     */
+    private void pace() throws InterruptedException {
+        if (fetchIntervalNanos == 0) {
+            return;
+        }
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = Math.max(nextFetchNanos, now);
+            nextFetchNanos = start + fetchIntervalNanos;
+            wait = start - now;
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
         }
     }
     
     /**
      * Fetch and publish data for a single stock symbol
      * @param symbol Stock symbol to fetch
-     * @return CompletableFuture for async processing
      */
-    @Async
-    public CompletableFuture<Void> fetchAndPublishSingleStock(String symbol) {
-        return CompletableFuture.runAsync(() -> {
+    private void fetchAndPublish(String symbol) {
+        try {
+            logger.debug("Fetching data for symbol: {}", symbol);
+            
+            // Fetch quote from Finnhub
+            FinnhubQuoteResponse quote = finnhubClient.getStockQuote(symbol);
+            
+            if (quote == null || quote.getCurrentPrice() == null) {
+                logger.warn("No data received for symbol: {}", symbol);
+                return;
+            }
+            
+            // Circuit open: keep serving the last known quote, flagged stale, but don't republish it
+            if (quote.isStale()) {
+                metricsService.markStale(symbol);
+                return;
+            }
+            
+            // While throttled, a quote the consumer already has only adds to the backlog
+            if (!shouldPublish(symbol, quote.getTimestamp())) {
+                conflatedQuotes.increment();
+                return;
+            }
+            
+            // Get cached stock name
+            String stockName = profileCache.getName(symbol);
+            
+            // Convert to domain event
+            PipelineStageEvent convertEvent = PipelineStageEvent.start(PipelineStageEvent.Stage.CONVERT, symbol);
+            StockQuoteEvent event;
             try {
-                logger.debug("Fetching data for symbol: {}", symbol);
-                
-                // Fetch quote from Finnhub
-                FinnhubQuoteResponse quote = finnhubClient.getStockQuote(symbol);
-                
-                if (quote == null || quote.getCurrentPrice() == null) {
-                    logger.warn("No data received for symbol: {}", symbol);
-                    return;
-                }
-                
-                // Get cached stock name
-                String stockName = finnhubClient.getStockName(symbol);
-                
-                // Convert to domain event
-                StockQuoteEvent event = convertToStockQuoteEvent(symbol, stockName, quote);
-                
-                // Publish to Kafka
-                stockDataProducer.publishStockQuote(event);
-                
-                logger.debug("Successfully processed quote for {}: ${} ({}%)", 
-                        symbol, quote.getCurrentPrice(), quote.getPercentChange());
-                
-            } catch (Exception e) {
-                logger.error("Error processing stock data for symbol {}: {}", symbol, e.getMessage());
+                event = convertToStockQuoteEvent(symbol, stockName, quote);
+            } finally {
+                convertEvent.finish(1);
             }
-        });
+            
+            // Publish to Kafka
+            stockDataProducer.publishStockQuote(event);
+            
+            logger.debug("Successfully processed quote for {}: ${} ({}%)", 
+                    symbol, quote.getCurrentPrice(), quote.getPercentChange());
+            
+        } catch (Exception e) {
+            logger.error("Error processing stock data for symbol {}: {}", symbol, e.getMessage());
+        }
+    }
+    
+    /**
+     * Record the quote's market timestamp; while the lag throttle is active, refuse a quote whose
+     * timestamp has not advanced since the symbol's last published quote
+     */
+    private boolean shouldPublish(String symbol, Long marketTimestamp) {
+        if (marketTimestamp == null) {
+            return true;
+        }
+        Long previous = publishedTimestamps.put(symbol, marketTimestamp);
+        return previous == null || !previous.equals(marketTimestamp) || lagCollector.throttleFactor() == 1;
     }
     
     /**
@@ -164,32 +301,51 @@ public class StockDataScheduler {
     public int triggerManualFetch() {
         logger.info("Manual stock data fetch triggered");
         
-        List<String> symbols = stockProperties.getSymbols();
-        symbols.forEach(symbol -> {
-            try {
-                fetchAndPublishSingleStock(symbol).get();
-            } catch (Exception e) {
-                logger.error("Error in manual fetch for symbol {}: {}", symbol, e.getMessage());
-            }
-        });
+        List<String> symbols = symbolRegistry.getSymbols();
+        try {
+            fetchAll(symbols);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Manual fetch interrupted");
+        }
         
         return symbols.size();
     }
     
+    @Override
+    public String snapshotSection() {
+        return "scheduler";
+    }
+    
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        out.writeLong(fetchCount.get());
+    }
+    
+    @Override
+    public void restoreSnapshot(DataInput in, SnapshotHeader header) throws IOException {
+        fetchCount.addAndGet(in.readLong());
+    }
+    
     /**
      * Get scheduler statistics
      */
     public java.util.Map<String, Object> getStatistics() {
         return java.util.Map.of(
-            "fetchCount", fetchCount,
-            "isRunning", isRunning,
-            "trackedSymbols", stockProperties.getSymbols().size(),
-            "updateInterval", stockProperties.getUpdateInterval().toString()
+            "fetchCount", fetchCount.get(),
+            "isRunning", isRunning.get(),
+            "trackedSymbols", symbolRegistry.getSymbols().size(),
+            "updateInterval", stockProperties.getUpdateInterval().toString(),
+            "fetchConcurrency", stockProperties.getFetchConcurrency(),
+            "lastCycleMillis", lastCycleMillis,
+            "throttleFactor", lagCollector.throttleFactor(),
+            "skippedCycles", skippedCycles.sum(),
+            "conflatedQuotes", conflatedQuotes.sum()
         );
     }
     
     /**
-     * Check if scheduler is healthy
+     * Check if scheduler is healthy (passive: no API call is made)
      */
     public boolean isHealthy() {
         return finnhubClient.isHealthy();
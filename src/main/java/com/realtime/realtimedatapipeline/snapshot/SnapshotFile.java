@@ -0,0 +1,115 @@
+package com.realtime.realtimedatapipeline.snapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Snapshot file layout: magic, format version, header, then length-prefixed sections, followed by
+ * a CRC32 of everything before it. A file is only ever replaced whole, by renaming a synced
+ * temporary file over it, so a reader sees either the previous snapshot or the new one.
+ */
+final class SnapshotFile {
+
+    static final int MAGIC = 0x50534E31; // "PSN1"
+    static final int FORMAT_VERSION = 1;
+
+    record Section(String name, int version, byte[] payload) {
+    }
+
+    record Contents(SnapshotHeader header, Map<String, Section> sections) {
+    }
+
+    private SnapshotFile() {
+    }
+
+    static byte[] encode(SnapshotHeader header, List<Section> sections) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(header.createdAtMillis());
+        out.writeBoolean(header.shutdown());
+        out.writeInt(sections.size());
+        for (Section section : sections) {
+            out.writeUTF(section.name());
+            out.writeInt(section.version());
+            out.writeInt(section.payload().length);
+            out.write(section.payload());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IOException if the file is not a snapshot, was written by another format version, or fails its checksum
+     */
+    static Contents decode(byte[] bytes) throws IOException {
+        if (bytes.length < 4 + 4 + 8 + 1 + 4 + 4) {
+            throw new IOException("Snapshot truncated: " + bytes.length + " bytes");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        int expected = ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt();
+        if ((int) crc.getValue() != expected) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a pipeline snapshot");
+        }
+        int formatVersion = in.readInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format version " + formatVersion);
+        }
+        SnapshotHeader header = new SnapshotHeader(in.readLong(), in.readBoolean());
+        int count = in.readInt();
+        Map<String, Section> sections = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            int version = in.readInt();
+            byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+            sections.put(name, new Section(name, version, payload));
+        }
+        return new Contents(header, sections);
+    }
+
+    /**
+     * Write to a temporary file, force it to disk and atomically rename it over {@code path}
+     * @return bytes written
+     */
+    static int write(Path path, SnapshotHeader header, List<Section> sections) throws IOException {
+        byte[] bytes = encode(header, sections);
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return bytes.length;
+    }
+
+    static Contents read(Path path) throws IOException {
+        return decode(Files.readAllBytes(path));
+    }
+}
@@ -0,0 +1,9 @@
+package com.realtime.realtimedatapipeline.snapshot;
+
+/**
+ * Snapshot metadata handed to participants on restore
+ * @param createdAtMillis wall-clock time the snapshot was taken
+ * @param shutdown whether it was written on graceful shutdown, after the listeners had stopped, rather than periodically
+ */
+public record SnapshotHeader(long createdAtMillis, boolean shutdown) {
+}
@@ -0,0 +1,32 @@
+package com.realtime.realtimedatapipeline.snapshot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A component whose in-memory state is written to the pipeline snapshot and restored from it at
+ * startup, before listeners and schedulers run. Each participant owns one section of the file.
+ */
+public interface SnapshotParticipant {
+
+    /**
+     * Section name, unique across participants; renaming it orphans the section in existing snapshots
+     */
+    String snapshotSection();
+
+    /**
+     * Layout version of the section; a section written with another version is skipped on restore
+     */
+    default int snapshotVersion() {
+        return 1;
+    }
+
+    void writeSnapshot(DataOutput out) throws IOException;
+
+    /**
+     * Restore state from a section written by {@link #writeSnapshot}. Implementations read the whole
+     * section before applying it, so a truncated section leaves the component untouched.
+     */
+    void restoreSnapshot(DataInput in, SnapshotHeader header) throws IOException;
+}
@@ -0,0 +1,203 @@
+package com.realtime.realtimedatapipeline.snapshot;
+
+import com.realtime.realtimedatapipeline.config.SnapshotProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Periodically snapshots the state of every {@link SnapshotParticipant} to one binary file on
+ * local disk, and restores it at startup. Runs in a lifecycle phase ahead of the latest-quote
+ * bootstrap, the Kafka listener containers and the web server; @Scheduled tasks only start once
+ * the context is refreshed. On shutdown it stops after the listeners, so the final snapshot holds
+ * the drained state.
+ */
+@Service
+public class StateSnapshotService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(StateSnapshotService.class);
+
+    private static final int PHASE = -100;
+    static final String FILE_NAME = "pipeline-state.snap";
+
+    private final SnapshotProperties properties;
+    private final List<SnapshotParticipant> participants;
+    private final Path path;
+
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder failedWrites = new LongAdder();
+    private volatile int lastWriteBytes;
+    private volatile long lastWriteMillis;
+    private volatile double lastWriteDurationMs;
+    private volatile int restoredSections;
+    private volatile long restoreDurationMs = -1;
+    private volatile long restoredSnapshotAgeMs = -1;
+
+    private volatile boolean running;
+
+    public StateSnapshotService(SnapshotProperties properties, List<SnapshotParticipant> participants) {
+        this.properties = properties;
+        this.participants = List.copyOf(participants);
+        this.path = Paths.get(properties.getDirectory()).resolve(FILE_NAME);
+        Set<String> sections = new HashSet<>();
+        for (SnapshotParticipant participant : participants) {
+            if (!sections.add(participant.snapshotSection())) {
+                throw new IllegalStateException("Duplicate snapshot section " + participant.snapshotSection());
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        if (properties.isEnabled()) {
+            restore();
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (running && properties.isEnabled()) {
+            write(true);
+        }
+        running = false;
+    }
+
+    @Scheduled(initialDelayString = "${app.snapshot.interval:PT1M}",
+               fixedDelayString = "${app.snapshot.interval:PT1M}")
+    public void writePeriodically() {
+        if (running && properties.isEnabled()) {
+            write(false);
+        }
+    }
+
+    /**
+     * Snapshot every participant; a participant that fails is left out rather than failing the snapshot
+     * @return whether the file was replaced
+     */
+    synchronized boolean write(boolean shutdown) {
+        long start = System.nanoTime();
+        try {
+            List<SnapshotFile.Section> sections = new ArrayList<>(participants.size());
+            for (SnapshotParticipant participant : participants) {
+                try {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    DataOutputStream out = new DataOutputStream(bytes);
+                    participant.writeSnapshot(out);
+                    out.flush();
+                    sections.add(new SnapshotFile.Section(participant.snapshotSection(),
+                            participant.snapshotVersion(), bytes.toByteArray()));
+                } catch (Exception e) {
+                    logger.warn("Could not snapshot {}: {}", participant.snapshotSection(), e.getMessage());
+                }
+            }
+            Files.createDirectories(path.getParent());
+            lastWriteBytes = SnapshotFile.write(path, new SnapshotHeader(System.currentTimeMillis(), shutdown), sections);
+            lastWriteMillis = System.currentTimeMillis();
+            lastWriteDurationMs = (System.nanoTime() - start) / 1_000_000.0;
+            writes.increment();
+            logger.debug("Wrote pipeline snapshot: {} sections, {} bytes in {} ms",
+                        sections.size(), lastWriteBytes, lastWriteDurationMs);
+            return true;
+        } catch (IOException e) {
+            failedWrites.increment();
+            logger.warn("Could not write pipeline snapshot to {}: {}", path, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Restore every participant that has a section of the matching version; the others start cold
+     */
+    void restore() {
+        if (!Files.exists(path)) {
+            logger.info("No pipeline snapshot at {}; starting with empty state", path);
+            return;
+        }
+        long start = System.currentTimeMillis();
+        SnapshotFile.Contents contents;
+        try {
+            contents = SnapshotFile.read(path);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable pipeline snapshot {}: {}", path, e.getMessage());
+            return;
+        }
+        long age = start - contents.header().createdAtMillis();
+        if (age > properties.getMaxAge().toMillis()) {
+            logger.info("Ignoring pipeline snapshot taken {} s ago (max age {})", age / 1000, properties.getMaxAge());
+            return;
+        }
+
+        int restored = 0;
+        for (SnapshotParticipant participant : participants) {
+            SnapshotFile.Section section = contents.sections().get(participant.snapshotSection());
+            if (section == null) {
+                continue;
+            }
+            if (section.version() != participant.snapshotVersion()) {
+                logger.info("Skipping snapshot section {}: version {}, expected {}",
+                           section.name(), section.version(), participant.snapshotVersion());
+                continue;
+            }
+            try {
+                participant.restoreSnapshot(new DataInputStream(new ByteArrayInputStream(section.payload())),
+                        contents.header());
+                restored++;
+            } catch (Exception e) {
+                logger.warn("Could not restore snapshot section {}: {}", section.name(), e.getMessage());
+            }
+        }
+        restoredSections = restored;
+        restoredSnapshotAgeMs = age;
+        restoreDurationMs = System.currentTimeMillis() - start;
+        logger.info("Restored {} of {} snapshot sections from {} (taken {} s ago{}) in {} ms",
+                   restored, contents.sections().size(), path, age / 1000,
+                   contents.header().shutdown() ? " at shutdown" : "", restoreDurationMs);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Get snapshot statistics
+     * @return Map with write and restore figures
+     */
+    public Map<String, Object> getStatistics() {
+        return Map.of(
+            "enabled", properties.isEnabled(),
+            "path", path.toString(),
+            "writes", writes.sum(),
+            "failedWrites", failedWrites.sum(),
+            "lastWriteBytes", lastWriteBytes,
+            "lastWriteMillis", lastWriteMillis,
+            "lastWriteDurationMs", lastWriteDurationMs,
+            "restoredSections", restoredSections,
+            "restoredSnapshotAgeMs", restoredSnapshotAgeMs,
+            "restoreDurationMs", restoreDurationMs
+        );
+    }
+}
@@ -0,0 +1,272 @@
+package com.realtime.realtimedatapipeline.symbols;
+
+import com.realtime.realtimedatapipeline.config.StockProperties;
+import com.realtime.realtimedatapipeline.model.TrackedSymbol;
+import com.realtime.realtimedatapipeline.repository.TrackedSymbolRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The runtime-managed symbol universe, persisted in tracked_symbols. Every symbol gets a dense
+ * integer id (0, 1, 2, ...) that stays with it for good: removing a symbol deactivates it, and
+ * re-adding it reactivates the same id, so arrays indexed by id never need remapping.
+ * <p>
+ * Reads go to an immutable snapshot swapped in on every change and never lock; changes are
+ * serialized, persisted first, then published as a {@link SymbolUniverseChangedEvent}.
+ * The {@code app.stocks.symbols} list only seeds an empty registry.
+ */
+@Service
+public class SymbolRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(SymbolRegistry.class);
+
+    private static final Pattern SYMBOL = Pattern.compile("[A-Z0-9][A-Z0-9.:\\-]{0,9}");
+
+    private static final String UPSERT = "INSERT INTO tracked_symbols (id, symbol, active, updated_at) " +
+            "VALUES (?, ?, ?, ?) ON CONFLICT (id) DO UPDATE SET active = EXCLUDED.active, updated_at = EXCLUDED.updated_at";
+
+    private final TrackedSymbolRepository trackedSymbolRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final List<String> seedSymbols;
+    private final int maxSymbols;
+
+    private volatile Universe universe;
+
+    public SymbolRegistry(TrackedSymbolRepository trackedSymbolRepository,
+                          JdbcTemplate jdbcTemplate,
+                          ApplicationEventPublisher eventPublisher,
+                          StockProperties stockProperties,
+                          MeterRegistry meterRegistry) {
+        this.trackedSymbolRepository = trackedSymbolRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.seedSymbols = stockProperties.getSymbols();
+        this.maxSymbols = stockProperties.getMaxSymbols();
+    }
+
+    /**
+     * Load the registry, seeding it when empty, before any bean that depends on it is created
+     */
+    @PostConstruct
+    public void load() {
+        List<TrackedSymbol> rows = trackedSymbolRepository.findAllByOrderByIdAsc();
+        String[] symbols = new String[rows.isEmpty() ? 0 : rows.get(rows.size() - 1).getId() + 1];
+        boolean[] active = new boolean[symbols.length];
+        for (TrackedSymbol row : rows) {
+            symbols[row.getId()] = row.getSymbol();
+            active[row.getId()] = row.isActive();
+        }
+        this.universe = new Universe(symbols, active, 0);
+        if (rows.isEmpty()) {
+            add(seedSymbols);
+        }
+        logger.info("Symbol registry loaded: {} active symbols, {} ids assigned",
+                   universe.active.size(), universe.symbols.length);
+
+        Gauge.builder("stock.symbols.registered", this, registry -> registry.universe.active.size())
+                .description("Active symbols in the symbol registry")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Active symbols in id order
+     */
+    public List<String> getSymbols() {
+        return universe.active;
+    }
+
+    /**
+     * Dense id of an active symbol, or -1
+     */
+    public int idOf(String symbol) {
+        Integer id = universe.ids.get(symbol);
+        return id != null && universe.activeById[id] ? id : -1;
+    }
+
+    /**
+     * Active symbol with the given id, or null
+     */
+    public String symbolOf(int id) {
+        Universe current = universe;
+        return id >= 0 && id < current.symbols.length && current.activeById[id] ? current.symbols[id] : null;
+    }
+
+    public boolean isTracked(String symbol) {
+        return idOf(symbol) >= 0;
+    }
+
+    /**
+     * Every id ever assigned is below this; size id-indexed arrays with it
+     */
+    public int capacity() {
+        return universe.symbols.length;
+    }
+
+    public long version() {
+        return universe.version;
+    }
+
+    /**
+     * Active symbols with their ids, in id order
+     */
+    public Map<String, Integer> getIds() {
+        Universe current = universe;
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        for (String symbol : current.active) {
+            ids.put(symbol, current.ids.get(symbol));
+        }
+        return ids;
+    }
+
+    /**
+     * Start tracking symbols; already tracked ones are ignored
+     * @return the symbols actually added, normalized to upper case
+     * @throws IllegalArgumentException for a malformed symbol or when the registry would exceed its maximum size
+     */
+    public synchronized List<String> add(Collection<String> requested) {
+        Universe current = universe;
+        List<String> added = new ArrayList<>();
+        for (String symbol : normalize(requested)) {
+            Integer id = current.ids.get(symbol);
+            if (id == null || !current.activeById[id]) {
+                added.add(symbol);
+            }
+        }
+        if (added.isEmpty()) {
+            return added;
+        }
+        if (current.active.size() + added.size() > maxSymbols) {
+            throw new IllegalArgumentException("Tracking " + added.size() + " more symbols would exceed the maximum of "
+                    + maxSymbols);
+        }
+
+        int newIds = (int) added.stream().filter(symbol -> !current.ids.containsKey(symbol)).count();
+        String[] symbols = Arrays.copyOf(current.symbols, current.symbols.length + newIds);
+        boolean[] active = Arrays.copyOf(current.activeById, symbols.length);
+        int next = current.symbols.length;
+        List<Object[]> rows = new ArrayList<>(added.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (String symbol : added) {
+            Integer existing = current.ids.get(symbol);
+            int id = existing != null ? existing : next++;
+            symbols[id] = symbol;
+            active[id] = true;
+            rows.add(new Object[] {id, symbol, true, now});
+        }
+        apply(rows, new Universe(symbols, active, current.version + 1), added, List.of());
+        return added;
+    }
+
+    /**
+     * Stop tracking symbols; untracked ones are ignored
+     * @return the symbols actually removed
+     */
+    public synchronized List<String> remove(Collection<String> requested) {
+        Universe current = universe;
+        boolean[] active = Arrays.copyOf(current.activeById, current.activeById.length);
+        List<String> removed = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (String symbol : normalize(requested)) {
+            Integer id = current.ids.get(symbol);
+            if (id != null && active[id]) {
+                active[id] = false;
+                removed.add(symbol);
+                rows.add(new Object[] {id, symbol, false, now});
+            }
+        }
+        if (!removed.isEmpty()) {
+            apply(rows, new Universe(current.symbols, active, current.version + 1), List.of(), removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Persist first: if the write fails, the in-memory universe is left as it was
+     */
+    private void apply(List<Object[]> rows, Universe next, List<String> added, List<String> removed) {
+        jdbcTemplate.batchUpdate(UPSERT, rows);
+        universe = next;
+        logger.info("Symbol universe v{}: {} added, {} removed, {} active",
+                   next.version, added.size(), removed.size(), next.active.size());
+        eventPublisher.publishEvent(new SymbolUniverseChangedEvent(List.copyOf(added), List.copyOf(removed), next.version));
+    }
+
+    private static Set<String> normalize(Collection<String> requested) {
+        Set<String> symbols = new LinkedHashSet<>();
+        for (String raw : requested) {
+            String symbol = raw == null ? "" : raw.trim().toUpperCase();
+            if (!SYMBOL.matcher(symbol).matches()) {
+                throw new IllegalArgumentException("Invalid symbol '" + raw + "'");
+            }
+            symbols.add(symbol);
+        }
+        return symbols;
+    }
+
+    /**
+     * Get registry statistics
+     * @return Map with symbol counts and the registry version
+     */
+    public Map<String, Object> getStatistics() {
+        Universe current = universe;
+        return Map.of(
+            "activeSymbols", current.active.size(),
+            "assignedIds", current.symbols.length,
+            "maxSymbols", maxSymbols,
+            "version", current.version
+        );
+    }
+
+    /**
+     * Immutable registry state: symbol by id for every id ever assigned, and which of them are active
+     */
+    private static final class Universe {
+
+        private final String[] symbols;
+        private final boolean[] activeById;
+        private final Map<String, Integer> ids;
+        private final List<String> active;
+        private final long version;
+
+        Universe(String[] symbols, boolean[] activeById, long version) {
+            this.symbols = symbols;
+            this.activeById = activeById;
+            this.version = version;
+            Map<String, Integer> ids = new HashMap<>(symbols.length * 2);
+            List<String> active = new ArrayList<>();
+            for (int id = 0; id < symbols.length; id++) {
+                if (symbols[id] != null) {
+                    ids.put(symbols[id], id);
+                    if (activeById[id]) {
+                        active.add(symbols[id]);
+                    }
+                }
+            }
+            this.ids = ids;
+            this.active = List.copyOf(active);
+        }
+    }
+}
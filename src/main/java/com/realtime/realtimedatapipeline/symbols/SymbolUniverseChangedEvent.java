@@ -0,0 +1,10 @@
+package com.realtime.realtimedatapipeline.symbols;
+
+import java.util.List;
+
+/**
+ * Published after symbols were added to or removed from the registry and the change was persisted
+ * @param version registry version after the change
+ */
+public record SymbolUniverseChangedEvent(List<String> added, List<String> removed, long version) {
+}
@@ -0,0 +1,47 @@
+package com.realtime.realtimedatapipeline.transactions;
+
+import com.realtime.realtimedatapipeline.analytics.HyperLogLog;
+import com.realtime.realtimedatapipeline.model.TransactionEvent;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * What one batch of newly inserted transactions adds to an hour of analytics.hourly_transaction_stats
+ */
+final class HourlyDelta {
+
+    long transactions;
+    BigDecimal amount = BigDecimal.ZERO;
+    long successful;
+    long failed;
+    final HyperLogLog users = new HyperLogLog();
+
+    void add(TransactionEvent event) {
+        transactions++;
+        amount = amount.add(event.amount());
+        if (event.isSuccessful()) {
+            successful++;
+        } else if (event.isFailed()) {
+            failed++;
+        }
+        users.add(event.userId());
+    }
+
+    /**
+     * Deltas by UTC hour of creation, in hour order: rows are locked in that order, so concurrent
+     * batches touching the same hours cannot deadlock
+     */
+    static NavigableMap<Instant, HourlyDelta> byHour(List<TransactionEvent> events) {
+        NavigableMap<Instant, HourlyDelta> deltas = new TreeMap<>();
+        for (TransactionEvent event : events) {
+            Instant hour = Instant.ofEpochMilli(event.createdAt()).truncatedTo(ChronoUnit.HOURS);
+            deltas.computeIfAbsent(hour, h -> new HourlyDelta()).add(event);
+        }
+        return deltas;
+    }
+}
@@ -0,0 +1,61 @@
+package com.realtime.realtimedatapipeline.transactions;
+
+import com.realtime.realtimedatapipeline.analytics.HyperLogLog;
+import com.realtime.realtimedatapipeline.model.HourlyTransactionStats;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Reads the rollup maintained by {@link TransactionWriter}. Ranges are answered from the hour rows
+ * alone: distinct users over several hours come from merging their sketches, since summing the
+ * hourly counts would count a user once per hour they were active in.
+ */
+@Service
+public class TransactionStatsService {
+
+    private static final String SELECT_HOURS = "SELECT hour_bucket, total_transactions, total_amount, avg_amount, " +
+            "successful_transactions, failed_transactions, unique_users FROM analytics.hourly_transaction_stats " +
+            "WHERE hour_bucket >= ? AND hour_bucket < ? ORDER BY hour_bucket";
+
+    private static final String SELECT_SKETCHES = "SELECT unique_users_sketch FROM analytics.hourly_transaction_stats " +
+            "WHERE hour_bucket >= ? AND hour_bucket < ? AND unique_users_sketch IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionStatsService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Hour rows from the hour containing {@code from} up to, excluding, {@code to}
+     */
+    public List<HourlyTransactionStats> getHourlyStats(Instant from, Instant to) {
+        return jdbcTemplate.query(SELECT_HOURS, (rs, rowNum) -> new HourlyTransactionStats(
+                rs.getTimestamp("hour_bucket").toInstant(),
+                rs.getLong("total_transactions"),
+                rs.getBigDecimal("total_amount"),
+                rs.getBigDecimal("avg_amount"),
+                rs.getLong("successful_transactions"),
+                rs.getLong("failed_transactions"),
+                rs.getLong("unique_users")),
+                Timestamp.from(from.truncatedTo(ChronoUnit.HOURS)), Timestamp.from(to));
+    }
+
+    /**
+     * Estimated distinct users over the same range, from the merged hourly sketches
+     */
+    public long getUniqueUsers(Instant from, Instant to) {
+        HyperLogLog users = new HyperLogLog();
+        jdbcTemplate.query(SELECT_SKETCHES,
+                rs -> {
+                    users.merge(HyperLogLog.fromBytes(rs.getBytes(1)));
+                },
+                Timestamp.from(from.truncatedTo(ChronoUnit.HOURS)), Timestamp.from(to));
+        return users.estimate();
+    }
+}
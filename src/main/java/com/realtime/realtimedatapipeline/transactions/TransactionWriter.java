@@ -0,0 +1,181 @@
+package com.realtime.realtimedatapipeline.transactions;
+
+import com.realtime.realtimedatapipeline.analytics.HyperLogLog;
+import com.realtime.realtimedatapipeline.model.TransactionEvent;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+
+/**
+ * Inserts transactions and updates their hourly stats in one database transaction. The insert skips
+ * transaction ids that already exist and returns the ones it wrote, and only those are rolled up, so
+ * a redelivered or resubmitted transaction is counted once. Each touched hour row is locked, its user
+ * sketch merged with the batch's, and its counters incremented, so no hour is ever recomputed from
+ * events.transactions.
+ */
+@Component
+public class TransactionWriter {
+
+    // 9 bind parameters per row, well under the driver's 32767
+    static final int ROWS_PER_STATEMENT = 1_000;
+
+    private static final String INSERT_PREFIX = "INSERT INTO events.transactions (transaction_id, user_id, amount, " +
+            "currency, transaction_type, status, merchant_id, created_at, processed_at) VALUES ";
+
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_SUFFIX = " ON CONFLICT (transaction_id) DO NOTHING RETURNING transaction_id";
+
+    private static final String ENSURE_HOUR = "INSERT INTO analytics.hourly_transaction_stats (hour_bucket) VALUES (?) " +
+            "ON CONFLICT (hour_bucket) DO NOTHING";
+
+    private static final String LOCK_HOUR = "SELECT unique_users_sketch FROM analytics.hourly_transaction_stats " +
+            "WHERE hour_bucket = ? FOR UPDATE";
+
+    // Right-hand sides see the row as it was before the update
+    private static final String UPDATE_HOUR = "UPDATE analytics.hourly_transaction_stats SET " +
+            "total_transactions = total_transactions + ?, " +
+            "total_amount = total_amount + ?, " +
+            "avg_amount = ROUND((total_amount + ?) / (total_transactions + ?), 2), " +
+            "successful_transactions = successful_transactions + ?, " +
+            "failed_transactions = failed_transactions + ?, " +
+            "unique_users = ?, " +
+            "unique_users_sketch = ? " +
+            "WHERE hour_bucket = ?";
+
+    private final DataSource dataSource;
+
+    public TransactionWriter(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Write transactions and their hourly rollup in one transaction
+     * @param events valid transactions with defaults filled in
+     * @return transactions inserted; the rest were already stored
+     */
+    public int write(List<TransactionEvent> events) throws SQLException {
+        List<TransactionEvent> unique = firstPerTransactionId(events);
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                List<TransactionEvent> inserted = insert(connection, unique);
+                if (!inserted.isEmpty()) {
+                    rollup(connection, HourlyDelta.byHour(inserted));
+                }
+                connection.commit();
+                return inserted.size();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private List<TransactionEvent> insert(Connection connection, List<TransactionEvent> events) throws SQLException {
+        OffsetDateTime processedAt = OffsetDateTime.now(ZoneOffset.UTC);
+        Set<String> insertedIds = new HashSet<>();
+        for (int from = 0; from < events.size(); from += ROWS_PER_STATEMENT) {
+            List<TransactionEvent> chunk = events.subList(from, Math.min(from + ROWS_PER_STATEMENT, events.size()));
+            try (PreparedStatement statement = connection.prepareStatement(insertSql(chunk.size()))) {
+                int index = 1;
+                for (TransactionEvent event : chunk) {
+                    statement.setString(index++, event.transactionId());
+                    statement.setString(index++, event.userId());
+                    statement.setBigDecimal(index++, event.amount());
+                    statement.setString(index++, event.currency());
+                    statement.setString(index++, event.transactionType());
+                    statement.setString(index++, event.status());
+                    statement.setString(index++, event.merchantId());
+                    statement.setObject(index++, toTimestamp(event.createdAt()));
+                    statement.setObject(index++, processedAt);
+                }
+                try (ResultSet returned = statement.executeQuery()) {
+                    while (returned.next()) {
+                        insertedIds.add(returned.getString(1));
+                    }
+                }
+            }
+        }
+        if (insertedIds.size() == events.size()) {
+            return events;
+        }
+        List<TransactionEvent> inserted = new ArrayList<>(insertedIds.size());
+        for (TransactionEvent event : events) {
+            if (insertedIds.contains(event.transactionId())) {
+                inserted.add(event);
+            }
+        }
+        return inserted;
+    }
+
+    private void rollup(Connection connection, NavigableMap<Instant, HourlyDelta> deltas) throws SQLException {
+        try (PreparedStatement ensure = connection.prepareStatement(ENSURE_HOUR);
+             PreparedStatement lock = connection.prepareStatement(LOCK_HOUR);
+             PreparedStatement update = connection.prepareStatement(UPDATE_HOUR)) {
+            // Create missing hour rows first, so every hour can be locked before its sketch is read
+            for (Instant hour : deltas.keySet()) {
+                ensure.setObject(1, OffsetDateTime.ofInstant(hour, ZoneOffset.UTC));
+                ensure.addBatch();
+            }
+            ensure.executeBatch();
+
+            for (Map.Entry<Instant, HourlyDelta> entry : deltas.entrySet()) {
+                OffsetDateTime hour = OffsetDateTime.ofInstant(entry.getKey(), ZoneOffset.UTC);
+                HourlyDelta delta = entry.getValue();
+                lock.setObject(1, hour);
+                HyperLogLog users;
+                try (ResultSet row = lock.executeQuery()) {
+                    users = HyperLogLog.fromBytes(row.next() ? row.getBytes(1) : null);
+                }
+                users.merge(delta.users);
+
+                update.setLong(1, delta.transactions);
+                update.setBigDecimal(2, delta.amount);
+                update.setBigDecimal(3, delta.amount);
+                update.setLong(4, delta.transactions);
+                update.setLong(5, delta.successful);
+                update.setLong(6, delta.failed);
+                update.setLong(7, users.estimate());
+                update.setBytes(8, users.toBytes());
+                update.setObject(9, hour);
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+    }
+
+    /**
+     * Drop repeats within the batch, which one multi-row insert would report once but we would count twice
+     */
+    static List<TransactionEvent> firstPerTransactionId(List<TransactionEvent> events) {
+        Map<String, TransactionEvent> unique = new LinkedHashMap<>(events.size() * 2);
+        for (TransactionEvent event : events) {
+            unique.putIfAbsent(event.transactionId(), event);
+        }
+        return unique.size() == events.size() ? events : new ArrayList<>(unique.values());
+    }
+
+    static String insertSql(int rows) {
+        return INSERT_PREFIX + String.join(", ", Collections.nCopies(rows, INSERT_ROW)) + INSERT_SUFFIX;
+    }
+
+    private static OffsetDateTime toTimestamp(long epochMillis) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,354 @@
+package com.realtime.realtimedatapipeline;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.realtime.realtimedatapipeline.scheduler.StockDataScheduler;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end capacity of the quote path: scheduler, Finnhub client, producer, Kafka, consumer and
+ * the batched upsert into Postgres. Boots the application against an embedded Kafka broker, a
+ * Postgres container and a local Finnhub stub, then offers increasing quote rates and reports,
+ * per step, the sustained persisted events/sec and the p50/p99 latency from the stub serving a
+ * quote to that quote reaching the latest-quote topic, which is published right after the upsert.
+ * The first step that persists less than 90% of its offered rate is the saturation point.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark} (needs Docker), or against an existing empty database with
+ * {@code -Dbenchmark.jdbc-url=jdbc:postgresql://localhost:5432/bench} (plus {@code benchmark.username}
+ * and {@code benchmark.password}). Tune with
+ * {@code -Dbenchmark.symbols=200 -Dbenchmark.rates=250,500,1000 -Dbenchmark.step-seconds=20}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@EmbeddedKafka(partitions = 8, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class PipelineThroughputBenchmarkTest {
+
+    private static final int SYMBOLS = Integer.getInteger("benchmark.symbols", 200);
+    private static final int[] RATES = Arrays.stream(System.getProperty("benchmark.rates", "250,500,1000,2000,4000,8000")
+            .split(",")).mapToInt(rate -> Integer.parseInt(rate.trim())).toArray();
+    private static final Duration STEP = Duration.ofSeconds(Long.getLong("benchmark.step-seconds", 20));
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("benchmark.warmup-seconds", 10));
+    private static final long STUB_LATENCY_MILLIS = Long.getLong("benchmark.stub-latency-ms", 2);
+    private static final double SATURATION_SHARE = 0.9;
+
+    private static final String JDBC_URL = System.getProperty("benchmark.jdbc-url");
+
+    static final PostgreSQLContainer<?> POSTGRES = JDBC_URL == null ? new PostgreSQLContainer<>("postgres:15-alpine") : null;
+
+    static final FinnhubStub FINNHUB = FinnhubStub.start();
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        if (POSTGRES != null) {
+            POSTGRES.start();
+            registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+            registry.add("spring.datasource.username", POSTGRES::getUsername);
+            registry.add("spring.datasource.password", POSTGRES::getPassword);
+        } else {
+            registry.add("spring.datasource.url", () -> JDBC_URL);
+            registry.add("spring.datasource.username", () -> System.getProperty("benchmark.username", "postgres"));
+            registry.add("spring.datasource.password", () -> System.getProperty("benchmark.password", "postgres"));
+        }
+        registry.add("app.finnhub.base-url", FINNHUB::baseUrl);
+        registry.add("app.finnhub.api-key", () -> "benchmark");
+        registry.add("app.finnhub.hedging.enabled", () -> "false");
+        registry.add("app.stocks.symbols", () -> String.join(",", symbols()));
+        // The harness paces fetch cycles itself; the schedule only fires once at startup
+        registry.add("app.stocks.update-interval", () -> "1h");
+        registry.add("app.snapshot.enabled", () -> "false");
+        registry.add("app.archive.enabled", () -> "false");
+        registry.add("app.metrics.counts.initial-reconcile-delay", () -> "PT1H");
+        registry.add("logging.level.com.realtime.realtimedatapipeline", () -> "WARN");
+    }
+
+    @Autowired
+    private StockDataScheduler scheduler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Value("${app.kafka.topics.stock-quotes-latest}")
+    private String latestTopic;
+
+    @AfterAll
+    static void stopServers() {
+        FINNHUB.stop();
+        if (POSTGRES != null) {
+            POSTGRES.stop();
+        }
+    }
+
+    @Test
+    void reportsThroughputLatencyAndSaturationPoint() {
+        List<StepResult> results = new ArrayList<>();
+        try (LatencyProbe probe = new LatencyProbe(broker.getBrokersAsString(), latestTopic)) {
+            runStep(RATES[0], WARMUP, probe);
+            for (int rate : RATES) {
+                StepResult result = runStep(rate, STEP, probe);
+                results.add(result);
+                System.out.printf("%6d quotes/s offered: %8.1f fetched/s, %8.1f persisted/s, p50 %6.1f ms, p99 %7.1f ms%n",
+                        rate, result.fetchedPerSecond(), result.persistedPerSecond(), result.p50Millis(), result.p99Millis());
+                if (result.saturated()) {
+                    break;
+                }
+            }
+        }
+
+        StepResult last = results.get(results.size() - 1);
+        System.out.printf("%d symbols: %s%n", SYMBOLS, last.saturated()
+                ? "saturated at " + last.offeredRate() + " quotes/s offered, sustaining "
+                        + Math.round(last.persistedPerSecond()) + " persisted/s"
+                : "not saturated up to " + last.offeredRate() + " quotes/s");
+        assertThat(results.get(0).persistedPerSecond()).isPositive();
+    }
+
+    /**
+     * Offer {@code rate} quotes a second for {@code duration} as fetch cycles over every symbol,
+     * then let the backlog drain so it does not count towards the next step
+     */
+    private StepResult runStep(int rate, Duration duration, LatencyProbe probe) {
+        long periodNanos = 1_000_000_000L * SYMBOLS / rate;
+        long fetchesBefore = fetchCount();
+        double persistedBefore = persisted();
+        probe.reset();
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long next = start; next < end; next += periodNanos) {
+            LockSupport.parkNanos(next - System.nanoTime());
+            // Asynchronous; a cycle offered while the previous one still runs is skipped
+            scheduler.fetchAndPublishStockData();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double persistedPerSecond = (persisted() - persistedBefore) / seconds;
+        double fetchedPerSecond = (fetchCount() - fetchesBefore) * SYMBOLS / seconds;
+        long[] latencies = probe.latenciesMicros();
+        drain();
+        return new StepResult(rate, fetchedPerSecond, persistedPerSecond,
+                percentile(latencies, 0.50) / 1000.0, percentile(latencies, 0.99) / 1000.0);
+    }
+
+    private void drain() {
+        long deadline = System.currentTimeMillis() + 60_000;
+        double previous = -1;
+        while (System.currentTimeMillis() < deadline && persisted() != previous) {
+            previous = persisted();
+            LockSupport.parkNanos(Duration.ofSeconds(1).toNanos());
+        }
+    }
+
+    private long fetchCount() {
+        return ((Number) scheduler.getStatistics().get("fetchCount")).longValue();
+    }
+
+    private double persisted() {
+        return meterRegistry.get("stock.events.persisted").counter().count();
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        return sorted.length == 0 ? Double.NaN : sorted[(int) Math.ceil(quantile * sorted.length) - 1];
+    }
+
+    private static List<String> symbols() {
+        return IntStream.range(0, SYMBOLS).mapToObj(i -> String.format("SYM%05d", i)).toList();
+    }
+
+    private record StepResult(int offeredRate, double fetchedPerSecond, double persistedPerSecond,
+                              double p50Millis, double p99Millis) {
+
+        boolean saturated() {
+            return persistedPerSecond < SATURATION_SHARE * offeredRate;
+        }
+    }
+
+    /**
+     * Finnhub stand-in: every quote request returns a new market timestamp for its symbol, so each
+     * fetch becomes a distinct row, and remembers when it served it
+     */
+    static final class FinnhubStub {
+
+        private final HttpServer server;
+        private final Map<String, AtomicLong> clocks = new ConcurrentHashMap<>();
+        private final Map<String, Long> servedAt = new ConcurrentHashMap<>();
+
+        private FinnhubStub(HttpServer server) {
+            this.server = server;
+        }
+
+        static FinnhubStub start() {
+            try {
+                FinnhubStub stub = new FinnhubStub(HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0));
+                stub.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+                stub.server.createContext("/quote", stub::quote);
+                stub.server.createContext("/stock/profile2", stub::profile);
+                stub.server.start();
+                return stub;
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not start Finnhub stub", e);
+            }
+        }
+
+        String baseUrl() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        /**
+         * @return nanoTime at which the quote was served, or null if it was not served by this stub
+         */
+        Long takeServedAt(String symbol, long marketTimestamp) {
+            return servedAt.remove(symbol + ":" + marketTimestamp);
+        }
+
+        private void quote(HttpExchange exchange) throws IOException {
+            String symbol = symbolOf(exchange);
+            long t = clocks.computeIfAbsent(symbol, key -> new AtomicLong(Instant.now().getEpochSecond()))
+                    .incrementAndGet();
+            double price = 100 + ThreadLocalRandom.current().nextDouble(50);
+            LockSupport.parkNanos(Duration.ofMillis(STUB_LATENCY_MILLIS).toNanos());
+            servedAt.put(symbol + ":" + t, System.nanoTime());
+            respond(exchange, String.format(Locale.ROOT,
+                    "{\"c\":%.2f,\"d\":0.5,\"dp\":0.41,\"h\":%.2f,\"l\":%.2f,\"o\":%.2f,\"pc\":%.2f,\"t\":%d}",
+                    price, price + 1, price - 1, price - 0.3, price - 0.5, t));
+        }
+
+        private void profile(HttpExchange exchange) throws IOException {
+            String symbol = symbolOf(exchange);
+            respond(exchange, "{\"name\":\"" + symbol + " Corp\",\"ticker\":\"" + symbol + "\"}");
+        }
+
+        private static String symbolOf(HttpExchange exchange) {
+            for (String parameter : exchange.getRequestURI().getQuery().split("&")) {
+                if (parameter.startsWith("symbol=")) {
+                    return parameter.substring("symbol=".length());
+                }
+            }
+            return "";
+        }
+
+        private static void respond(HttpExchange exchange, String json) throws IOException {
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Tails the latest-quote topic and matches each quote to the time the stub served it
+     */
+    static final class LatencyProbe implements AutoCloseable {
+
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        private final KafkaConsumer<String, String> consumer;
+        private final Thread poller;
+        private final List<Long> latencies = new ArrayList<>();
+        private volatile boolean running = true;
+
+        LatencyProbe(String bootstrapServers, String topic) {
+            consumer = new KafkaConsumer<>(Map.of(
+                    ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                    ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false,
+                    ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                    ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class));
+            List<TopicPartition> partitions = consumer.partitionsFor(topic).stream()
+                    .map(info -> new TopicPartition(topic, info.partition()))
+                    .toList();
+            consumer.assign(partitions);
+            consumer.seekToEnd(partitions);
+            poller = Thread.ofPlatform().name("latency-probe").start(this::poll);
+        }
+
+        private void poll() {
+            while (running) {
+                for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(100))) {
+                    long received = System.nanoTime();
+                    try {
+                        JsonNode quote = objectMapper.readTree(record.value());
+                        Long served = FINNHUB.takeServedAt(quote.path("symbol").asText(),
+                                quote.path("marketTimestamp").asLong());
+                        if (served != null) {
+                            synchronized (latencies) {
+                                latencies.add((received - served) / 1000);
+                            }
+                        }
+                    } catch (IOException e) {
+                        // Not a quote; nothing to measure
+                    }
+                }
+            }
+        }
+
+        void reset() {
+            synchronized (latencies) {
+                latencies.clear();
+            }
+        }
+
+        long[] latenciesMicros() {
+            long[] sorted;
+            synchronized (latencies) {
+                sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            }
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            try {
+                poller.join(Duration.ofSeconds(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            consumer.close();
+        }
+    }
+}
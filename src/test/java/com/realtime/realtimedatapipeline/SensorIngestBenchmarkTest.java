@@ -0,0 +1,235 @@
+package com.realtime.realtimedatapipeline;
+
+import com.realtime.realtimedatapipeline.iot.SensorAggregator;
+import com.realtime.realtimedatapipeline.model.IngestResult;
+import com.realtime.realtimedatapipeline.model.SensorReading;
+import com.realtime.realtimedatapipeline.model.SensorWindow;
+import com.realtime.realtimedatapipeline.producer.SensorReadingProducer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end capacity of the sensor path: producer, Kafka, the batch listener's COPY into
+ * events.iot_sensors and the windowed aggregates. Publishes a fixed number of readings as fast as
+ * the producer takes them and reports readings/s from the first send until the last row is
+ * persisted. Then rewinds the listener group to the start of the topic, so every batch is delivered
+ * a second time, and checks that neither the table nor the aggregates count a reading twice; that
+ * pass also shows how fast the listener drains a backlog when it is not waiting on the producer.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=SensorIngestBenchmarkTest} (needs Docker), or against
+ * an existing empty database with {@code -Dbenchmark.jdbc-url=jdbc:postgresql://localhost:5432/bench}
+ * (plus {@code benchmark.username} and {@code benchmark.password}). Tune with
+ * {@code -Dbenchmark.readings=500000 -Dbenchmark.sensors=2000}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@EmbeddedKafka(partitions = 12, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class SensorIngestBenchmarkTest {
+
+    private static final int READINGS = Integer.getInteger("benchmark.readings", 500_000);
+    private static final int SENSORS = Integer.getInteger("benchmark.sensors", 2000);
+    private static final int LOCATIONS = 20;
+    // The ingest endpoint's request limit
+    private static final int REQUEST_READINGS = 10_000;
+    private static final Duration TIMEOUT = Duration.ofMinutes(10);
+    private static final String GROUP = "iot-sensor-consumer-group";
+
+    private static final String JDBC_URL = System.getProperty("benchmark.jdbc-url");
+
+    static final PostgreSQLContainer<?> POSTGRES = JDBC_URL == null ? new PostgreSQLContainer<>("postgres:15-alpine") : null;
+
+    // events.iot_sensors as docker/postgres/init creates it; Hibernate does not manage the events schema
+    private static final String[] SCHEMA = {
+        "CREATE SCHEMA IF NOT EXISTS events",
+        "DROP TABLE IF EXISTS events.iot_sensors",
+        "CREATE TABLE events.iot_sensors (id UUID PRIMARY KEY DEFAULT gen_random_uuid(), " +
+                "sensor_id VARCHAR(50) NOT NULL, device_type VARCHAR(30) NOT NULL, location VARCHAR(100), " +
+                "temperature DECIMAL(5,2), humidity DECIMAL(5,2), pressure DECIMAL(8,2), " +
+                "battery_level INTEGER CHECK (battery_level >= 0 AND battery_level <= 100), signal_strength INTEGER, " +
+                "timestamp TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP, raw_data JSONB)",
+        "CREATE INDEX idx_iot_sensors_timestamp ON events.iot_sensors(timestamp)",
+        "CREATE INDEX idx_iot_sensors_sensor_id ON events.iot_sensors(sensor_id)",
+        "CREATE INDEX idx_iot_sensors_device_type ON events.iot_sensors(device_type)"
+    };
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        if (POSTGRES != null) {
+            POSTGRES.start();
+            registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+            registry.add("spring.datasource.username", POSTGRES::getUsername);
+            registry.add("spring.datasource.password", POSTGRES::getPassword);
+        } else {
+            registry.add("spring.datasource.url", () -> JDBC_URL);
+            registry.add("spring.datasource.username", () -> System.getProperty("benchmark.username", "postgres"));
+            registry.add("spring.datasource.password", () -> System.getProperty("benchmark.password", "postgres"));
+        }
+        // Quotes are not part of this run: no Finnhub, one fetch cycle at startup that fails fast
+        registry.add("app.finnhub.base-url", () -> "http://127.0.0.1:9");
+        registry.add("app.stocks.update-interval", () -> "1h");
+        registry.add("app.snapshot.enabled", () -> "false");
+        registry.add("app.archive.enabled", () -> "false");
+        registry.add("app.log-sink.enabled", () -> "false");
+        registry.add("app.metrics.counts.initial-reconcile-delay", () -> "PT1H");
+        registry.add("app.iot.retained-windows", () -> "1000");
+        registry.add("logging.level.com.realtime.realtimedatapipeline", () -> "WARN");
+    }
+
+    @Autowired
+    private SensorReadingProducer producer;
+
+    @Autowired
+    private SensorAggregator aggregator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Value("${app.kafka.topics.iot-sensor-readings}")
+    private String topic;
+
+    @AfterAll
+    static void stopPostgres() {
+        if (POSTGRES != null) {
+            POSTGRES.stop();
+        }
+    }
+
+    @Test
+    void reportsIngestThroughputAndCountsRedeliveredReadingsOnce() throws Exception {
+        for (String statement : SCHEMA) {
+            jdbcTemplate.execute(statement);
+        }
+        // One timestamp for the whole run, so every reading lands in the current window of its sensor
+        long timestamp = System.currentTimeMillis();
+        List<List<SensorReading>> requests = requests(timestamp);
+
+        long start = System.nanoTime();
+        for (List<SensorReading> request : requests) {
+            IngestResult result = producer.publishAll(request);
+            assertThat(result.rejected()).isZero();
+        }
+        double publishSeconds = (System.nanoTime() - start) / 1e9;
+        awaitCounter("iot.readings.persisted", READINGS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d readings from %d sensors: published in %.1f s, persisted in %.1f s, %.0f readings/s end to end%n",
+                READINGS, SENSORS, publishSeconds, seconds, READINGS / seconds);
+        System.out.printf("%d COPY batches, %.1f ms on average, %.1f ms at most%n",
+                meterRegistry.get("iot.readings.write").timer().count(),
+                meterRegistry.get("iot.readings.write").timer().mean(TimeUnit.MILLISECONDS),
+                meterRegistry.get("iot.readings.write").timer().max(TimeUnit.MILLISECONDS));
+        assertThat(rowCount()).isEqualTo(READINGS);
+        assertThat(aggregatedReadings()).isEqualTo(READINGS);
+
+        // Deliver every batch again: the writes and the aggregates must both ignore them
+        long redelivered = System.nanoTime();
+        rewindListenerGroup();
+        awaitCounter("iot.readings.duplicates", READINGS);
+        double redeliverySeconds = (System.nanoTime() - redelivered) / 1e9;
+        System.out.printf("Redelivered %d readings in %.1f s (%.0f readings/s from a full topic): %d rows, %d aggregated%n",
+                READINGS, redeliverySeconds, READINGS / redeliverySeconds, rowCount(), aggregatedReadings());
+        assertThat(rowCount()).isEqualTo(READINGS);
+        assertThat(aggregatedReadings()).isEqualTo(READINGS);
+        assertThat(meterRegistry.get("iot.readings.persisted").counter().count()).isEqualTo(READINGS);
+    }
+
+    private static List<List<SensorReading>> requests(long timestamp) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<List<SensorReading>> requests = new ArrayList<>();
+        List<SensorReading> request = new ArrayList<>(REQUEST_READINGS);
+        for (int i = 0; i < READINGS; i++) {
+            int sensor = i % SENSORS;
+            request.add(new SensorReading(String.format("th-%05d", sensor), "thermo", "plant-" + sensor % LOCATIONS,
+                    Math.round((15 + random.nextDouble(15)) * 100) / 100.0,
+                    Math.round((30 + random.nextDouble(40)) * 100) / 100.0,
+                    Math.round((1000 + random.nextDouble(30)) * 100) / 100.0,
+                    random.nextInt(20, 101), random.nextInt(-90, -40), timestamp));
+            if (request.size() == REQUEST_READINGS) {
+                requests.add(request);
+                request = new ArrayList<>(REQUEST_READINGS);
+            }
+        }
+        if (!request.isEmpty()) {
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private void awaitCounter(String name, long target) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (meterRegistry.get(name).counter().count() < target) {
+            assertThat(System.nanoTime()).as("%s reaching %d", name, target).isLessThan(deadline);
+            LockSupport.parkNanos(Duration.ofMillis(20).toNanos());
+        }
+    }
+
+    private long rowCount() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM events.iot_sensors", Long.class);
+    }
+
+    private long aggregatedReadings() {
+        long readings = 0;
+        for (int sensor = 0; sensor < SENSORS; sensor++) {
+            SensorWindow current = aggregator.getSensor(String.format("th-%05d", sensor)).get("current");
+            readings += current != null ? current.readings() : 0;
+        }
+        return readings;
+    }
+
+    /**
+     * Stop the sensor listener, move its committed offsets back to the start and start it again
+     */
+    private void rewindListenerGroup() throws Exception {
+        MessageListenerContainer container = listenerRegistry.getListenerContainers().stream()
+                .filter(candidate -> GROUP.equals(candidate.getGroupId()))
+                .findFirst()
+                .orElseThrow();
+        container.stop();
+        try (Admin admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()))) {
+            Map<TopicPartition, OffsetAndMetadata> start = admin.describeTopics(List.of(topic)).allTopicNames().get()
+                    .get(topic).partitions().stream()
+                    .map(partition -> new TopicPartition(topic, partition.partition()))
+                    .collect(Collectors.toMap(Function.identity(), partition -> new OffsetAndMetadata(0)));
+            admin.alterConsumerGroupOffsets(GROUP, start).all().get();
+        }
+        container.start();
+    }
+}
@@ -0,0 +1,138 @@
+package com.realtime.realtimedatapipeline.alerts;
+
+import com.realtime.realtimedatapipeline.model.AlertRule;
+import com.realtime.realtimedatapipeline.model.AlertRule.Direction;
+import com.realtime.realtimedatapipeline.model.AlertRule.Operand;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SymbolRuleIndexTest {
+
+    private static final long MAX_WINDOW = 86_400;
+
+    private final SymbolRuleIndex index = new SymbolRuleIndex(64);
+    private long nextId = 1;
+
+    @Test
+    void priceTickFiresOnlyTheLevelsItCrosses() {
+        long up101 = add(priceCross(101, Direction.UP));
+        long up103 = add(priceCross(103, Direction.UP));
+        add(priceCross(105, Direction.UP));
+        long either102 = add(priceCross(102, Direction.EITHER));
+        long down99 = add(priceCross(99, Direction.DOWN));
+
+        assertThat(tick(1, 100)).isEmpty();
+        assertThat(tick(2, 103)).containsExactlyInAnyOrder(up101, either102, up103);
+        assertThat(tick(3, 101.5)).containsExactly(either102);
+        assertThat(tick(4, 98)).containsExactly(down99);
+        // A redelivered tick is ignored
+        assertThat(tick(4, 110)).isEmpty();
+    }
+
+    @Test
+    void indicatorCrossoverFiresWhenTheSpreadChangesSign() {
+        AlertRule rule = rule(AlertRule.Type.INDICATOR_CROSS, Direction.UP);
+        rule.setOperand(Operand.EMA);
+        rule.setReference(Operand.SMA);
+        long id = add(rule);
+
+        assertThat(tick(1, values(100, 99, 100))).isEmpty();
+        assertThat(tick(2, values(100, 100.5, 100))).containsExactly(id);
+        assertThat(tick(3, values(100, 101, 100))).isEmpty();
+        assertThat(tick(4, values(100, 99, 100))).isEmpty();
+    }
+
+    @Test
+    void percentMoveUsesThePriceAWindowAgoAndCoolsDown() {
+        AlertRule rule = rule(AlertRule.Type.PERCENT_MOVE, Direction.DOWN);
+        rule.setLevel(5.0);
+        rule.setWindowSeconds(60);
+        long id = add(rule);
+
+        assertThat(tick(0, 100)).isEmpty();
+        assertThat(tick(30, 96)).isEmpty();
+        assertThat(tick(60, 94)).containsExactly(id);
+        // Still 6% down from a minute ago, but within the cooldown (the window)
+        assertThat(tick(90, 90)).isEmpty();
+        assertThat(tick(150, 80)).containsExactly(id);
+    }
+
+    @Test
+    void removedRulesNoLongerFire() {
+        CompiledRule rule = CompiledRule.compile(withId(priceCross(101, Direction.EITHER)), MAX_WINDOW);
+        index.add(rule);
+        assertThat(index.remove(rule)).isTrue();
+
+        assertThat(tick(1, 100)).isEmpty();
+        assertThat(tick(2, 102)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void invalidRulesAreRejected() {
+        AlertRule noLevel = rule(AlertRule.Type.PRICE_CROSS, Direction.UP);
+        AlertRule noWindow = rule(AlertRule.Type.PERCENT_MOVE, Direction.UP);
+        noWindow.setLevel(2.0);
+        AlertRule vwapLevel = rule(AlertRule.Type.INDICATOR_CROSS, Direction.UP);
+        vwapLevel.setOperand(Operand.VWAP);
+        vwapLevel.setLevel(100.0);
+        AlertRule vwapReference = rule(AlertRule.Type.INDICATOR_CROSS, Direction.UP);
+        vwapReference.setOperand(Operand.PRICE);
+        vwapReference.setReference(Operand.VWAP);
+
+        assertThatThrownBy(() -> CompiledRule.compile(noLevel, MAX_WINDOW)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompiledRule.compile(noWindow, MAX_WINDOW)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompiledRule.compile(vwapLevel, MAX_WINDOW)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompiledRule.compile(vwapReference, MAX_WINDOW)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private long add(AlertRule rule) {
+        CompiledRule compiled = CompiledRule.compile(withId(rule), MAX_WINDOW);
+        index.add(compiled);
+        return compiled.id;
+    }
+
+    private AlertRule withId(AlertRule rule) {
+        rule.setId(nextId++);
+        return rule;
+    }
+
+    private List<Long> tick(long timestamp, double price) {
+        return tick(timestamp, values(price, Double.NaN, Double.NaN));
+    }
+
+    private List<Long> tick(long timestamp, double[] values) {
+        List<Long> fired = new ArrayList<>();
+        index.evaluate(timestamp, values, (rule, direction, value, threshold) -> fired.add(rule.id));
+        return fired;
+    }
+
+    private static double[] values(double price, double ema, double sma) {
+        double[] values = new double[Operand.values().length];
+        Arrays.fill(values, Double.NaN);
+        values[Operand.PRICE.ordinal()] = price;
+        values[Operand.EMA.ordinal()] = ema;
+        values[Operand.SMA.ordinal()] = sma;
+        return values;
+    }
+
+    private static AlertRule priceCross(double level, Direction direction) {
+        AlertRule rule = rule(AlertRule.Type.PRICE_CROSS, direction);
+        rule.setLevel(level);
+        return rule;
+    }
+
+    private static AlertRule rule(AlertRule.Type type, Direction direction) {
+        AlertRule rule = new AlertRule();
+        rule.setSymbol("AAPL");
+        rule.setType(type);
+        rule.setDirection(direction);
+        return rule;
+    }
+}
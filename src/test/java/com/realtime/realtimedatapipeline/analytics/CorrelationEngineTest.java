@@ -0,0 +1,130 @@
+package com.realtime.realtimedatapipeline.analytics;
+
+import com.realtime.realtimedatapipeline.config.AnalyticsProperties;
+import com.realtime.realtimedatapipeline.config.StockProperties;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import com.realtime.realtimedatapipeline.repository.TrackedSymbolRepository;
+import com.realtime.realtimedatapipeline.symbols.SymbolRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+
+class CorrelationEngineTest {
+
+    private final AnalyticsProperties properties = new AnalyticsProperties();
+    private SymbolRegistry registry;
+    private CorrelationEngine engine;
+
+    @AfterEach
+    void shutdown() {
+        engine.destroy();
+    }
+
+    @Test
+    void aSymbolThatMissedAnIntervalDelaysTheVectorInsteadOfReturningZero() {
+        engine = engine("AAPL", "MSFT");
+        tick("AAPL", 100.0);
+        tick("MSFT", 200.0);
+        engine.sample();
+        assertThat(samples()).isZero();
+
+        tick("AAPL", 101.0);
+        engine.sample();
+        assertThat(samples()).as("MSFT has not quoted again").isZero();
+
+        tick("MSFT", 202.0);
+        engine.sample();
+        assertThat(samples()).isEqualTo(1);
+
+        tick("AAPL", 100.0);
+        tick("MSFT", 200.0);
+        engine.sample();
+        tick("AAPL", 102.0);
+        tick("MSFT", 204.0);
+        engine.sample();
+        // Every vector holds both moves, so the two series move together exactly
+        assertThat(correlation("AAPL", "MSFT")).isCloseTo(1.0, within(1e-9));
+    }
+
+    @Test
+    void aSymbolThatKeepsMissingTurnsIdleAndCarriesItsPriceForward() {
+        properties.getCorrelation().setMaxMissedSamples(2);
+        engine = engine("AAPL", "MSFT");
+        tick("AAPL", 100.0);
+        tick("MSFT", 200.0);
+        engine.sample();
+
+        tick("AAPL", 101.0);
+        engine.sample();
+        engine.sample();
+        assertThat(samples()).isZero();
+
+        engine.sample();
+        assertThat(samples()).isEqualTo(1);
+        assertThat(engine.getSnapshot(List.of())).containsEntry("idleSymbols", 1);
+
+        tick("AAPL", 102.0);
+        engine.sample();
+        assertThat(samples()).as("an idle symbol no longer holds vectors back").isEqualTo(2);
+        assertThat(correlation("AAPL", "MSFT")).as("MSFT is flat").isNull();
+    }
+
+    @Test
+    void snapshotsAreBoundedWhetherOrNotSymbolsAreRequested() {
+        properties.getCorrelation().setSnapshotSymbols(2);
+        engine = engine("AAPL", "MSFT", "IBM");
+
+        assertThat(engine.getSnapshot(List.of())).containsEntry("symbols", List.of("AAPL", "MSFT"));
+        assertThat(engine.getSnapshot(List.of("IBM", "NOPE", "IBM", "AAPL", "MSFT")))
+                .containsEntry("symbols", List.of("IBM", "AAPL"));
+    }
+
+    @Test
+    void seriesFollowRegistryIdsSoARemovedSymbolKeepsItsSlot() {
+        properties.getCorrelation().setMaxSymbols(2);
+        engine = engine("AAPL", "MSFT", "IBM");
+        assertThat(engine.getSnapshot(List.of("AAPL", "MSFT", "IBM"))).containsEntry("symbols", List.of("AAPL", "MSFT"));
+
+        registry.remove(List.of("MSFT"));
+        assertThat(engine.getSnapshot(List.of())).containsEntry("symbols", List.of("AAPL"));
+        registry.add(List.of("MSFT", "ORCL"));
+        assertThat(engine.getSnapshot(List.of())).as("MSFT is back at id 1; ORCL got id 3")
+                .containsEntry("symbols", List.of("AAPL", "MSFT"));
+    }
+
+    private CorrelationEngine engine(String... symbols) {
+        registry = registry(symbols);
+        return new CorrelationEngine(properties, registry, new SimpleMeterRegistry());
+    }
+
+    private static SymbolRegistry registry(String... symbols) {
+        StockProperties stockProperties = new StockProperties();
+        stockProperties.setSymbols(List.of(symbols));
+        SymbolRegistry registry = new SymbolRegistry(mock(TrackedSymbolRepository.class), mock(JdbcTemplate.class),
+                mock(ApplicationEventPublisher.class), stockProperties, new SimpleMeterRegistry());
+        registry.load();
+        return registry;
+    }
+
+    private void tick(String symbol, double price) {
+        engine.onQuote(StockQuoteEvent.builder().symbol(symbol).currentPrice(price).build());
+    }
+
+    private int samples() {
+        return (int) engine.getSnapshot(List.of()).get("samples");
+    }
+
+    private Double correlation(String first, String second) {
+        Map<String, Object> snapshot = engine.getSnapshot(List.of(first, second));
+        return ((Double[][]) snapshot.get("correlation"))[0][1];
+    }
+}
@@ -0,0 +1,43 @@
+package com.realtime.realtimedatapipeline.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimatesDistinctCountsWithinAFewStandardErrors() {
+        for (int distinct : new int[] {1, 100, 5_000, 200_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < distinct; i++) {
+                sketch.add("user-" + i);
+                sketch.add("user-" + i);
+            }
+            assertThat((double) sketch.estimate()).isCloseTo(distinct, within(Math.max(1, distinct * 0.03)));
+        }
+    }
+
+    @Test
+    void mergedSketchesCountUsersSharedBetweenHoursOnce() {
+        HyperLogLog firstHour = new HyperLogLog();
+        HyperLogLog secondHour = new HyperLogLog();
+        for (int i = 0; i < 60_000; i++) {
+            firstHour.add("user-" + i);
+        }
+        for (int i = 40_000; i < 100_000; i++) {
+            secondHour.add("user-" + i);
+        }
+
+        HyperLogLog range = HyperLogLog.fromBytes(firstHour.toBytes());
+        range.merge(secondHour);
+
+        assertThat((double) range.estimate()).isCloseTo(100_000, within(3_000.0));
+        assertThat(HyperLogLog.fromBytes(range.toBytes()).estimate()).isEqualTo(range.estimate());
+        assertThat(HyperLogLog.fromBytes(null).estimate()).isZero();
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[] {1, 2, 3}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,111 @@
+package com.realtime.realtimedatapipeline.analytics;
+
+import com.realtime.realtimedatapipeline.analytics.LeaderboardService.Board;
+import com.realtime.realtimedatapipeline.model.LeaderboardEntry;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import com.realtime.realtimedatapipeline.symbols.SymbolUniverseChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LeaderboardServiceTest {
+
+    private final LeaderboardService service = new LeaderboardService(new SimpleMeterRegistry());
+
+    @Test
+    void ranksLatestQuotesOnEveryBoard() {
+        service.onQuote(quote("AAPL", 1L, 190.0, 1.5));
+        service.onQuote(quote("MSFT", 1L, 410.0, -3.2));
+        service.onQuote(quote("IBM", 1L, 170.0, 0.4));
+        service.onQuote(quote("TSLA", 1L, 250.0, null));
+
+        assertThat(symbols(service.top(Board.PERCENT_CHANGE, 10, false))).containsExactly("AAPL", "IBM", "MSFT");
+        assertThat(symbols(service.top(Board.PERCENT_CHANGE, 1, true))).containsExactly("MSFT");
+        assertThat(symbols(service.top(Board.MOVE, 2, false))).containsExactly("MSFT", "AAPL");
+        assertThat(symbols(service.top(Board.PRICE, 10, false))).containsExactly("MSFT", "TSLA", "AAPL", "IBM");
+
+        // Replaces ABS(percent_change) >= 1.5 and current_price >= 190 over stock_quotes
+        assertThat(symbols(service.atLeast(Board.MOVE, 1.5, 100))).containsExactly("MSFT", "AAPL");
+        assertThat(symbols(service.atLeast(Board.PRICE, 190.0, 100))).containsExactly("MSFT", "TSLA", "AAPL");
+        assertThat(service.atLeast(Board.PRICE, 1_000.0, 100)).isEmpty();
+    }
+
+    @Test
+    void newerQuotesMoveASymbolAndOlderOnesAreIgnored() {
+        service.onQuote(quote("AAPL", 10L, 190.0, 1.5));
+        service.onQuote(quote("MSFT", 10L, 410.0, 0.5));
+        service.onQuote(quote("AAPL", 11L, 185.0, -1.0));
+        service.onQuote(quote("AAPL", 9L, 200.0, 5.0));
+
+        assertThat(symbols(service.top(Board.PERCENT_CHANGE, 10, false))).containsExactly("MSFT", "AAPL");
+        assertThat(service.top(Board.PRICE, 10, true).get(0).price()).isEqualTo(185.0);
+        assertThat(service.getStatistics()).containsEntry("outOfOrderQuotes", 1L).containsEntry("priceEntries", 2);
+
+        service.onSymbolUniverseChanged(new SymbolUniverseChangedEvent(List.of(), List.of("AAPL"), 2));
+        assertThat(symbols(service.top(Board.PRICE, 10, false))).containsExactly("MSFT");
+    }
+
+    @Test
+    void concurrentTicksLeaveOneEntryPerSymbolMatchingItsLatestQuote() throws Exception {
+        int symbols = 50;
+        int ticks = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int s = 0; s < symbols; s++) {
+                String symbol = "S" + s;
+                long seed = s;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    for (long t = 1; t <= ticks; t++) {
+                        service.onQuote(quote(symbol, t, 100 + random.nextDouble() * 50, random.nextGaussian() * 3));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<LeaderboardEntry> byMove = service.top(Board.MOVE, 1_000, false);
+        assertThat(byMove).hasSize(symbols);
+        assertThat(byMove).allSatisfy(entry -> assertThat(entry.marketTimestamp()).isEqualTo((long) ticks));
+        assertThat(byMove).isSortedAccordingTo(
+                Comparator.comparingDouble((LeaderboardEntry entry) -> Math.abs(entry.percentChange())).reversed());
+    }
+
+    @Test
+    void boardNamesFollowThePathSegments() {
+        assertThat(Board.fromName("percent-change")).isEqualTo(Board.PERCENT_CHANGE);
+        assertThat(Board.fromName("Price")).isEqualTo(Board.PRICE);
+        assertThatThrownBy(() -> Board.fromName("volume"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("volume");
+    }
+
+    private static List<String> symbols(List<LeaderboardEntry> entries) {
+        return entries.stream().map(LeaderboardEntry::symbol).toList();
+    }
+
+    private static StockQuoteEvent quote(String symbol, long marketTimestamp, double price, Double percentChange) {
+        return StockQuoteEvent.builder()
+                .symbol(symbol)
+                .stockName(symbol)
+                .currentPrice(price)
+                .percentChange(percentChange)
+                .marketTimestamp(marketTimestamp)
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.realtime.realtimedatapipeline.analytics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RollingCorrelationMatrixTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void matchesDirectComputationOverTheWindowSequentialAndParallel() {
+        for (int size : new int[] {5, 150}) {
+            int window = 30;
+            RollingCorrelationMatrix matrix = new RollingCorrelationMatrix(size, window, pool);
+            Random random = new Random(size);
+            double[][] history = new double[100][size];
+            for (int t = 0; t < history.length; t++) {
+                double market = random.nextGaussian();
+                for (int i = 0; i < size; i++) {
+                    history[t][i] = (i % 3) * market + random.nextGaussian() * 0.01 * (i + 1);
+                }
+                matrix.add(history[t]);
+            }
+
+            assertThat(matrix.samples()).isEqualTo(window);
+            for (int[] pair : new int[][] {{0, 1}, {1, 2}, {2, size - 1}, {size - 2, size - 1}, {3, 3}}) {
+                double[] expected = direct(history, history.length - window, pair[0], pair[1]);
+                assertThat(matrix.covariance(pair[0], pair[1])).isCloseTo(expected[0], within(1e-9));
+                assertThat(matrix.covariance(pair[1], pair[0])).isCloseTo(expected[0], within(1e-9));
+                assertThat(matrix.correlation(pair[0], pair[1])).isCloseTo(expected[1], within(1e-9));
+            }
+        }
+    }
+
+    @Test
+    void flatSeriesHasNoCorrelation() {
+        RollingCorrelationMatrix matrix = new RollingCorrelationMatrix(2, 5, pool);
+        for (int t = 0; t < 5; t++) {
+            matrix.add(new double[] {0.0, t});
+        }
+
+        assertThat(matrix.correlation(0, 1)).isNaN();
+        assertThat(matrix.correlation(1, 1)).isCloseTo(1.0, within(1e-12));
+    }
+
+    private static double[] direct(double[][] history, int from, int i, int j) {
+        int n = history.length - from;
+        double meanI = 0;
+        double meanJ = 0;
+        for (int t = from; t < history.length; t++) {
+            meanI += history[t][i] / n;
+            meanJ += history[t][j] / n;
+        }
+        double cov = 0;
+        double varI = 0;
+        double varJ = 0;
+        for (int t = from; t < history.length; t++) {
+            cov += (history[t][i] - meanI) * (history[t][j] - meanJ) / (n - 1);
+            varI += (history[t][i] - meanI) * (history[t][i] - meanI) / (n - 1);
+            varJ += (history[t][j] - meanJ) * (history[t][j] - meanJ) / (n - 1);
+        }
+        return new double[] {cov, cov / Math.sqrt(varI * varJ)};
+    }
+}
@@ -0,0 +1,101 @@
+package com.realtime.realtimedatapipeline.analytics;
+
+import com.realtime.realtimedatapipeline.config.AnalyticsProperties;
+import com.realtime.realtimedatapipeline.model.IndicatorSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SymbolIndicatorsTest {
+
+    private static final int WINDOW = 5;
+    private static final int RSI_PERIOD = 3;
+
+    private final AnalyticsProperties.Indicators settings = settings();
+
+    @Test
+    void indicatorsMatchRecomputationOverTheWindow() {
+        SymbolIndicators indicators = new SymbolIndicators("AAPL", settings);
+        Random random = new Random(7);
+        double[] prices = new double[200];
+        double[] volumes = new double[200];
+        double price = 100;
+        IndicatorSnapshot snapshot = null;
+        for (int i = 0; i < prices.length; i++) {
+            price *= 1 + (random.nextDouble() - 0.5) / 50;
+            prices[i] = price;
+            volumes[i] = 1 + random.nextInt(1000);
+            snapshot = indicators.update(1_700_000_000L + i, prices[i], volumes[i]);
+        }
+
+        int n = prices.length;
+        double mean = 0;
+        double pv = 0;
+        double volume = 0;
+        for (int i = n - WINDOW; i < n; i++) {
+            mean += prices[i] / WINDOW;
+            pv += prices[i] * volumes[i];
+            volume += volumes[i];
+        }
+        double variance = 0;
+        for (int i = n - WINDOW; i < n; i++) {
+            variance += (prices[i] - mean) * (prices[i] - mean) / WINDOW;
+        }
+        double[] returns = new double[WINDOW];
+        double meanReturn = 0;
+        for (int i = 0; i < WINDOW; i++) {
+            returns[i] = Math.log(prices[n - WINDOW + i] / prices[n - WINDOW + i - 1]);
+            meanReturn += returns[i] / WINDOW;
+        }
+        double returnVariance = 0;
+        for (double r : returns) {
+            returnVariance += (r - meanReturn) * (r - meanReturn) / (WINDOW - 1);
+        }
+
+        assertThat(snapshot.ticks()).isEqualTo(n);
+        assertThat(snapshot.sma()).isCloseTo(mean, within(1e-9));
+        assertThat(snapshot.bollingerUpper()).isCloseTo(mean + 2 * Math.sqrt(variance), within(1e-6));
+        assertThat(snapshot.bollingerLower()).isCloseTo(mean - 2 * Math.sqrt(variance), within(1e-6));
+        assertThat(snapshot.vwap()).isCloseTo(pv / volume, within(1e-9));
+        assertThat(snapshot.volatility()).isCloseTo(Math.sqrt(returnVariance), within(1e-9));
+        assertThat(snapshot.rsi()).isBetween(0.0, 100.0);
+    }
+
+    @Test
+    void indicatorsStayNullUntilEnoughTicksAndReplaysAreIgnored() {
+        SymbolIndicators indicators = new SymbolIndicators("AAPL", settings);
+
+        IndicatorSnapshot first = indicators.update(10, 100, Double.NaN);
+        assertThat(first.sma()).isNull();
+        assertThat(first.rsi()).isNull();
+        assertThat(first.ema()).isEqualTo(100.0);
+
+        assertThat(indicators.update(10, 150, Double.NaN)).isNull();
+        assertThat(indicators.update(9, 150, Double.NaN)).isNull();
+        assertThat(indicators.latest().price()).isEqualTo(100.0);
+    }
+
+    @Test
+    void rsiIsHundredWhenPricesOnlyRise() {
+        SymbolIndicators indicators = new SymbolIndicators("AAPL", settings);
+        IndicatorSnapshot snapshot = null;
+        for (int i = 0; i <= RSI_PERIOD; i++) {
+            snapshot = indicators.update(i, 100 + i, Double.NaN);
+        }
+
+        assertThat(snapshot.rsi()).isEqualTo(100.0);
+        assertThat(snapshot.vwap()).isNull();
+    }
+
+    private static AnalyticsProperties.Indicators settings() {
+        AnalyticsProperties.Indicators settings = new AnalyticsProperties.Indicators();
+        settings.setWindow(WINDOW);
+        settings.setEmaPeriod(WINDOW);
+        settings.setRsiPeriod(RSI_PERIOD);
+        settings.setBollingerWidth(2.0);
+        return settings;
+    }
+}
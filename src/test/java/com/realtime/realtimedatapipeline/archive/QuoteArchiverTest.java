@@ -0,0 +1,134 @@
+package com.realtime.realtimedatapipeline.archive;
+
+import com.realtime.realtimedatapipeline.config.ArchiveProperties;
+import com.realtime.realtimedatapipeline.metrics.QuoteCountService;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import com.realtime.realtimedatapipeline.repository.StockQuoteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QuoteArchiverTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 4);
+
+    @TempDir
+    Path directory;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ResultSet lateRows = mock(ResultSet.class);
+    private ArchiveProperties properties;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new ArchiveProperties();
+        properties.setDirectory(directory.toString());
+        // The streaming export reads through its own template on the same data source
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(jdbcTemplate.getDataSource()).thenReturn(dataSource);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(lateRows);
+    }
+
+    @Test
+    void aMergeRunFailingBeforeTheSwapKeepsTheArchivedSegment() throws Exception {
+        try (QuoteSegmentWriter writer = new QuoteSegmentWriter(directory.resolve("stock_quotes-" + DAY + ".sqc"), 100)) {
+            for (int hour = 0; hour < 24; hour++) {
+                writer.append(quote(DAY.atTime(hour, 0)));
+            }
+        }
+        ColdStorageService coldStorage = new ColdStorageService(properties);
+        QuoteArchiver archiver = archiver(coldStorage);
+        when(jdbcTemplate.update(startsWith("DELETE"), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenThrow(new ConcurrencyFailureException("could not serialize access due to concurrent delete"));
+
+        assertThatThrownBy(() -> archiver.archiveDay(DAY)).isInstanceOf(ConcurrencyFailureException.class);
+
+        // Those rows left Postgres in an earlier run; the segment is their only copy
+        assertThat(coldStorage.segment(DAY)).isNotNull();
+        assertThat(coldStorage.segment(DAY).rows()).isEqualTo(24);
+        assertThat(coldStorage.segmentPath(DAY)).exists();
+        assertThat(Files.exists(coldStorage.stagingPath(DAY))).isFalse();
+    }
+
+    @Test
+    void aFirstRunFailingAfterTheSwapRemovesItsSegment() throws Exception {
+        ColdStorageService coldStorage = new ColdStorageService(properties);
+        QuoteArchiver archiver = archiver(coldStorage);
+        when(jdbcTemplate.update(startsWith("DELETE"), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(0);
+        PlatformTransactionManager failingCommit = mock(PlatformTransactionManager.class);
+        doThrow(new ConcurrencyFailureException("commit failed"))
+                .when(failingCommit).commit(any());
+        QuoteArchiver failing = new QuoteArchiver(properties, coldStorage, counts(), jdbcTemplate, failingCommit);
+
+        assertThatThrownBy(() -> failing.archiveDay(DAY)).isInstanceOf(ConcurrencyFailureException.class);
+
+        assertThat(coldStorage.segment(DAY)).isNull();
+        assertThat(coldStorage.segmentPath(DAY)).doesNotExist();
+
+        // The same day archives normally on the next run
+        assertThat(archiver.archiveDay(DAY)).isZero();
+        assertThat(coldStorage.segment(DAY)).isNotNull();
+    }
+
+    @Test
+    void aReconcileDoesNotWaitForTheExportAndDelete() throws Exception {
+        ColdStorageService coldStorage = new ColdStorageService(properties);
+        QuoteCountService counts = counts();
+        QuoteArchiver archiver = new QuoteArchiver(properties, coldStorage, counts, jdbcTemplate,
+                mock(PlatformTransactionManager.class));
+        // A reconcile runs to completion while the day is still being exported
+        when(lateRows.next()).thenAnswer(invocation -> {
+            CompletableFuture.runAsync(counts::reconcile).get(5, TimeUnit.SECONDS);
+            return false;
+        });
+
+        assertThat(archiver.archiveDay(DAY)).isZero();
+        assertThat(counts.getSummary()).containsEntry("reconciled", true);
+    }
+
+    private QuoteArchiver archiver(ColdStorageService coldStorage) {
+        return new QuoteArchiver(properties, coldStorage, counts(), jdbcTemplate, mock(PlatformTransactionManager.class));
+    }
+
+    private static QuoteCountService counts() {
+        return new QuoteCountService(mock(StockQuoteRepository.class), mock(PlatformTransactionManager.class), 30);
+    }
+
+    private static StockQuoteEvent quote(LocalDateTime timestamp) {
+        return StockQuoteEvent.builder()
+                .symbol("AAPL")
+                .stockName("Apple Inc")
+                .currentPrice(100.0 + timestamp.getHour())
+                .timestamp(timestamp)
+                .marketTimestamp(timestamp.toEpochSecond(ZoneOffset.UTC))
+                .build();
+    }
+}
@@ -0,0 +1,187 @@
+package com.realtime.realtimedatapipeline.archive;
+
+import com.realtime.realtimedatapipeline.config.ArchiveProperties;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QuoteExporterTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 4);
+    private static final int BLOCK_ROWS = 100;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void resolvesColumnsInTableOrderAndRejectsUnknownOnes() {
+        assertThat(QuoteExporter.resolveColumns(List.of("volume", " CURRENT_PRICE", "timestamp")))
+                .containsExactly("current_price", "volume", "timestamp");
+        assertThat(QuoteExporter.resolveColumns(null)).hasSize(ArchiveColumn.ALL.length);
+        assertThatThrownBy(() -> QuoteExporter.resolveColumns(List.of("price")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("price");
+    }
+
+    @Test
+    void archivedBlocksAreWrittenAsProjectedBatches() throws Exception {
+        try (QuoteSegmentWriter writer = new QuoteSegmentWriter(
+                directory.resolve("stock_quotes-" + DAY + ".sqc"), BLOCK_ROWS)) {
+            for (int i = 0; i < 250; i++) {
+                writer.append(StockQuoteEvent.builder()
+                        .symbol("AAPL")
+                        .stockName("Apple Inc")
+                        .currentPrice(150 + i / 100.0)
+                        .volume(i % 5 == 0 ? null : (long) i * 10)
+                        .timestamp(DAY.atStartOfDay().plusMinutes(i))
+                        .marketTimestamp(1_709_510_400L + i * 60L)
+                        .build());
+            }
+        }
+        ColdStorageService coldStorage = new ColdStorageService(properties());
+        Set<ArchiveColumn> projection = QuoteExporter.toColumns(List.of("current_price", "volume"));
+
+        // Rows 120..229: the first block is skipped, the other two are filtered
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        QuoteExporter.BatchWriter writer = new QuoteExporter.BatchWriter(new DataOutputStream(bytes), projection, BLOCK_ROWS);
+        writer.writeHeader("AAPL");
+        coldStorage.forEachBlock("AAPL", DAY.atTime(2, 0), DAY.atTime(3, 49), projection, writer::writeBatch);
+        writer.finish();
+        assertThat(writer.rows).isEqualTo(110);
+
+        List<Double> prices = new ArrayList<>();
+        List<Long> volumes = new ArrayList<>();
+        try (QuoteBatchReader reader = new QuoteBatchReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertThat(reader.symbol()).isEqualTo("AAPL");
+            assertThat(reader.columns()).containsExactly("current_price", "volume");
+            while (reader.next()) {
+                for (int row = 0; row < reader.rows(); row++) {
+                    prices.add(reader.getDouble(0, row));
+                    volumes.add(reader.isNull(1, row) ? null : reader.getLong(1, row));
+                }
+            }
+            assertThat(reader.next()).isFalse();
+        }
+        assertThat(prices).hasSize(110);
+        for (int i = 0; i < 110; i++) {
+            int source = 120 + i;
+            assertThat(prices.get(i)).isEqualTo(150 + source / 100.0);
+            assertThat(volumes.get(i)).isEqualTo(source % 5 == 0 ? null : (long) source * 10);
+        }
+    }
+
+    @Test
+    void hotDaysAreStreamedThroughOneRepeatableReadCursorPerRangeAndArchivedDaysSkipped() throws Exception {
+        LocalDate archived = DAY.plusDays(1);
+        try (QuoteSegmentWriter writer = new QuoteSegmentWriter(
+                directory.resolve("stock_quotes-" + archived + ".sqc"), BLOCK_ROWS)) {
+            for (int hour = 0; hour < 24; hour++) {
+                writer.append(StockQuoteEvent.builder()
+                        .symbol("AAPL")
+                        .currentPrice(200.0 + hour)
+                        .timestamp(archived.atTime(hour, 0))
+                        .marketTimestamp(archived.atTime(hour, 0).toEpochSecond(ZoneOffset.UTC))
+                        .build());
+            }
+        }
+        List<LocalDateTime> before = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            before.add(DAY.atStartOfDay().plusMinutes(5L * i));
+        }
+        List<LocalDateTime> after = List.of(DAY.plusDays(2).atTime(9, 0), DAY.plusDays(2).atTime(9, 30),
+                DAY.plusDays(2).atTime(10, 0));
+
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        ResultSet first = resultSet(before);
+        ResultSet second = resultSet(after);
+        when(statement.executeQuery()).thenReturn(first, second);
+
+        QuoteExporter exporter = new QuoteExporter(new ColdStorageService(properties()), new JdbcTemplate(dataSource),
+                new DataSourceTransactionManager(dataSource), properties());
+        LocalDateTime from = DAY.atStartOfDay();
+        LocalDateTime to = DAY.plusDays(2).atTime(12, 0);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        long rows = exporter.export("AAPL", from, to, List.of("timestamp", "current_price"), bytes);
+
+        assertThat(rows).isEqualTo(177);
+        verify(connection).setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        verify(connection).setReadOnly(true);
+        verify(connection).setAutoCommit(false);
+        verify(connection).commit();
+        verify(connection, times(2)).prepareStatement(anyString());
+        verify(statement, times(2)).setFetchSize(BLOCK_ROWS);
+        // The archived day is not asked of Postgres
+        verify(statement).setObject(eq(3), eq(archived.atStartOfDay().minus(1, ChronoUnit.MICROS)));
+        verify(statement).setObject(eq(2), eq(archived.plusDays(1).atStartOfDay()));
+        verify(statement).setObject(eq(3), eq(to));
+
+        List<Integer> batches = new ArrayList<>();
+        List<LocalDateTime> timestamps = new ArrayList<>();
+        try (QuoteBatchReader reader = new QuoteBatchReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertThat(reader.columns()).containsExactly("current_price", "timestamp");
+            while (reader.next()) {
+                batches.add(reader.rows());
+                for (int row = 0; row < reader.rows(); row++) {
+                    timestamps.add(reader.getDateTime(1, row));
+                }
+            }
+        }
+        // Cursor rows are cut at the batch size and flushed before the archived day
+        assertThat(batches).containsExactly(100, 50, 24, 3);
+        assertThat(timestamps).isSorted().hasSize(177);
+        assertThat(timestamps.subList(0, 150)).isEqualTo(before);
+        assertThat(timestamps.subList(174, 177)).isEqualTo(after);
+    }
+
+    private ArchiveProperties properties() {
+        ArchiveProperties properties = new ArchiveProperties();
+        properties.setDirectory(directory.toString());
+        properties.setBlockRows(BLOCK_ROWS);
+        return properties;
+    }
+
+    /**
+     * Result set of (current_price, timestamp) rows, priced by position
+     */
+    private static ResultSet resultSet(List<LocalDateTime> timestamps) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        int[] row = {-1};
+        when(rs.next()).thenAnswer(invocation -> ++row[0] < timestamps.size());
+        when(rs.getDouble(1)).thenAnswer(invocation -> 100.0 + row[0]);
+        when(rs.getObject(2, LocalDateTime.class)).thenAnswer(invocation -> timestamps.get(row[0]));
+        return rs;
+    }
+}
@@ -0,0 +1,124 @@
+package com.realtime.realtimedatapipeline.archive;
+
+import com.realtime.realtimedatapipeline.config.ArchiveProperties;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import com.realtime.realtimedatapipeline.repository.StockQuoteRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QuoteHistoryServiceTest {
+
+    // Monday and Tuesday are archived, Thursday too; Wednesday and Friday are only in Postgres
+    private static final LocalDate MONDAY = LocalDate.of(2024, 3, 4);
+    private static final LocalDate TUESDAY = MONDAY.plusDays(1);
+    private static final LocalDate THURSDAY = MONDAY.plusDays(3);
+
+    @TempDir
+    Path directory;
+
+    private final StockQuoteRepository repository = mock(StockQuoteRepository.class);
+
+    @Test
+    void splitsARangeAtArchivedDays() throws Exception {
+        ColdStorageService coldStorage = coldStorage(MONDAY, TUESDAY, THURSDAY);
+        LocalDateTime from = MONDAY.atTime(12, 0);
+        LocalDateTime to = MONDAY.plusDays(4).atTime(12, 0);
+
+        assertThat(coldStorage.split(from, to)).containsExactly(
+                new TierRange(true, from, endOf(TUESDAY)),
+                new TierRange(false, MONDAY.plusDays(2).atStartOfDay(), endOf(MONDAY.plusDays(2))),
+                new TierRange(true, THURSDAY.atStartOfDay(), endOf(THURSDAY)),
+                new TierRange(false, MONDAY.plusDays(4).atStartOfDay(), to));
+        assertThat(coldStorage.split(MONDAY.minusDays(1).atStartOfDay(), MONDAY.atTime(1, 0))).containsExactly(
+                new TierRange(false, MONDAY.minusDays(1).atStartOfDay(), endOf(MONDAY.minusDays(1))),
+                new TierRange(true, MONDAY.atStartOfDay(), MONDAY.atTime(1, 0)));
+    }
+
+    @Test
+    void historyReadsOnlyTheRowsStillMissingAndStopsOnceFull() throws Exception {
+        QuoteHistoryService service = new QuoteHistoryService(repository, coldStorage(THURSDAY));
+        LocalDateTime from = THURSDAY.atStartOfDay();
+        LocalDateTime to = THURSDAY.plusDays(1).atTime(23, 0);
+        LocalDateTime friday = THURSDAY.plusDays(1).atStartOfDay();
+        when(repository.findBySymbolAndTimestampBetween(eq("AAPL"), eq(friday), eq(to), any()))
+                .thenReturn(List.of(quote(friday.plusHours(2)), quote(friday.plusHours(1))));
+
+        List<StockQuoteEvent> history = service.getHistory("AAPL", from, to, 5);
+
+        verify(repository).findBySymbolAndTimestampBetween(eq("AAPL"), eq(friday), eq(to),
+                eq(PageRequest.of(0, 5)));
+        assertThat(history).extracting(StockQuoteEvent::getTimestamp).containsExactly(
+                friday.plusHours(2), friday.plusHours(1),
+                THURSDAY.atTime(23, 0), THURSDAY.atTime(22, 0), THURSDAY.atTime(21, 0));
+
+        // Friday alone fills a limit of two; Thursday's segment is not scanned
+        assertThat(service.getHistory("AAPL", from, to, 2)).extracting(StockQuoteEvent::getTimestamp)
+                .containsExactly(friday.plusHours(2), friday.plusHours(1));
+    }
+
+    @Test
+    void aggregateReadsAnArchivedDayFromItsSegmentOnly() throws Exception {
+        QuoteHistoryService service = new QuoteHistoryService(repository, coldStorage(THURSDAY));
+        LocalDateTime from = MONDAY.plusDays(2).atStartOfDay();
+        LocalDateTime to = THURSDAY.plusDays(1).atTime(12, 0);
+        when(repository.aggregatePriceForSymbolInPeriod(eq("AAPL"), any(), any()))
+                .thenReturn(Collections.singletonList(new Object[] {2L, 100.0, 110.0, 210.0}));
+
+        Map<String, Object> aggregate = service.getAggregate("AAPL", from, to);
+
+        // Wednesday and Friday from Postgres, Thursday's 24 archived rows from the segment
+        verify(repository).aggregatePriceForSymbolInPeriod("AAPL", from, endOf(MONDAY.plusDays(2)));
+        verify(repository).aggregatePriceForSymbolInPeriod("AAPL", THURSDAY.plusDays(1).atStartOfDay(), to);
+        verify(repository, never()).aggregatePriceForSymbolInPeriod("AAPL", from, to);
+        assertThat(aggregate)
+                .containsEntry("hotRows", 4L)
+                .containsEntry("coldRows", 24L)
+                .containsEntry("count", 28L);
+    }
+
+    private ColdStorageService coldStorage(LocalDate... days) throws Exception {
+        ArchiveProperties properties = new ArchiveProperties();
+        properties.setDirectory(directory.toString());
+        for (LocalDate day : days) {
+            try (QuoteSegmentWriter writer = new QuoteSegmentWriter(
+                    directory.resolve("stock_quotes-" + day + ".sqc"), 100)) {
+                for (int hour = 0; hour < 24; hour++) {
+                    writer.append(quote(day.atTime(hour, 0)));
+                }
+            }
+        }
+        return new ColdStorageService(properties);
+    }
+
+    private static LocalDateTime endOf(LocalDate day) {
+        return day.plusDays(1).atStartOfDay().minus(1, ChronoUnit.MICROS);
+    }
+
+    private static StockQuoteEvent quote(LocalDateTime timestamp) {
+        return StockQuoteEvent.builder()
+                .symbol("AAPL")
+                .stockName("Apple Inc")
+                .currentPrice(100.0 + timestamp.getHour())
+                .timestamp(timestamp)
+                .marketTimestamp(timestamp.toEpochSecond(ZoneOffset.UTC))
+                .build();
+    }
+}
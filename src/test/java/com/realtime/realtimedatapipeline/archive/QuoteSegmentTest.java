@@ -0,0 +1,130 @@
+package com.realtime.realtimedatapipeline.archive;
+
+import com.realtime.realtimedatapipeline.config.ArchiveProperties;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class QuoteSegmentTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 4);
+    private static final int BLOCK_ROWS = 100;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void segmentRoundTripsEveryColumn() throws Exception {
+        List<StockQuoteEvent> quotes = quotes();
+        Path path = directory.resolve("segment.sqc");
+        try (QuoteSegmentWriter writer = new QuoteSegmentWriter(path, BLOCK_ROWS)) {
+            for (StockQuoteEvent quote : quotes) {
+                writer.append(quote);
+            }
+        }
+
+        QuoteSegment segment = QuoteSegment.open(path);
+        List<StockQuoteEvent> read = segment.readAll();
+
+        assertThat(segment.rows()).isEqualTo(quotes.size());
+        // 250 AAPL rows make three blocks, 120 MSFT rows two more
+        assertThat(segment.blocks()).hasSize(5);
+        assertThat(read).hasSameSizeAs(quotes);
+        for (int i = 0; i < quotes.size(); i++) {
+            StockQuoteEvent expected = quotes.get(i);
+            StockQuoteEvent actual = read.get(i);
+            assertThat(actual.getSymbol()).isEqualTo(expected.getSymbol());
+            assertThat(actual.getStockName()).isEqualTo(expected.getStockName());
+            assertThat(actual.getCurrentPrice()).isEqualTo(expected.getCurrentPrice());
+            assertThat(actual.getPercentChange()).isEqualTo(expected.getPercentChange());
+            assertThat(actual.getDayHigh()).isEqualTo(expected.getDayHigh());
+            assertThat(actual.getVolume()).isEqualTo(expected.getVolume());
+            assertThat(actual.getTimestamp()).isEqualTo(expected.getTimestamp());
+            assertThat(actual.getMarketTimestamp()).isEqualTo(expected.getMarketTimestamp());
+            assertThat(actual.getCreatedAt()).isEqualTo(expected.getCreatedAt());
+            assertThat(actual.getId()).isEqualTo(StockQuoteEvent.naturalId(expected.getSymbol(), expected.getMarketTimestamp()));
+        }
+    }
+
+    @Test
+    void aggregateSkipsBlocksByStatsAndMatchesAFullScan() throws Exception {
+        List<StockQuoteEvent> quotes = quotes();
+        ArchiveProperties properties = new ArchiveProperties();
+        properties.setDirectory(directory.toString());
+        try (QuoteSegmentWriter writer = new QuoteSegmentWriter(
+                directory.resolve("stock_quotes-" + DAY + ".sqc"), BLOCK_ROWS)) {
+            for (StockQuoteEvent quote : quotes) {
+                writer.append(quote);
+            }
+        }
+        ColdStorageService coldStorage = new ColdStorageService(properties);
+
+        // Rows 120..229 of AAPL: block 0 is skipped, block 1 partly read, block 2 partly read
+        LocalDateTime from = DAY.atTime(2, 0);
+        LocalDateTime to = DAY.atTime(3, 49);
+        PriceAggregate aggregate = coldStorage.aggregate("AAPL", from, to);
+
+        double sum = 0;
+        double max = Double.NEGATIVE_INFINITY;
+        int count = 0;
+        for (StockQuoteEvent quote : quotes) {
+            if (quote.getSymbol().equals("AAPL") && !quote.getTimestamp().isBefore(from) && !quote.getTimestamp().isAfter(to)) {
+                sum += quote.getCurrentPrice();
+                max = Math.max(max, quote.getCurrentPrice());
+                count++;
+            }
+        }
+        assertThat(aggregate.count()).isEqualTo(count);
+        assertThat(aggregate.sum()).isCloseTo(sum, within(1e-6));
+        assertThat(aggregate.max()).isEqualTo(max);
+        assertThat(aggregate.blocksSkipped()).isEqualTo(1);
+        assertThat(aggregate.blocksRead()).isEqualTo(2);
+
+        PriceAggregate wholeDay = coldStorage.aggregate("MSFT", DAY.atStartOfDay(), DAY.atTime(23, 59));
+        assertThat(wholeDay.count()).isEqualTo(120);
+        assertThat(wholeDay.blocksFromStats()).isEqualTo(2);
+        assertThat(wholeDay.blocksRead()).isZero();
+
+        assertThat(coldStorage.scan("AAPL", from, to, 1000)).hasSize(count);
+    }
+
+    /**
+     * Sorted by symbol then time, one quote a minute; prices mix two-decimal values with ones that
+     * need raw encoding, and some optional columns are null
+     */
+    private static List<StockQuoteEvent> quotes() {
+        Random random = new Random(42);
+        List<StockQuoteEvent> quotes = new ArrayList<>();
+        for (String symbol : new String[] {"AAPL", "MSFT"}) {
+            int rows = symbol.equals("AAPL") ? 250 : 120;
+            double price = 150;
+            for (int i = 0; i < rows; i++) {
+                price = Math.round((price + random.nextGaussian()) * 100) / 100.0;
+                LocalDateTime timestamp = DAY.atStartOfDay().plusMinutes(i);
+                StockQuoteEvent quote = StockQuoteEvent.builder()
+                        .symbol(symbol)
+                        .stockName(i < 200 ? symbol + " Inc" : symbol + " Incorporated")
+                        .currentPrice(price)
+                        .percentChange(i % 7 == 0 ? null : random.nextDouble() / 3)
+                        .dayHigh(price + 1.25)
+                        .volume(i % 5 == 0 ? null : (long) random.nextInt(1_000_000))
+                        .timestamp(timestamp)
+                        .marketTimestamp(1_709_510_400L + i * 60L)
+                        .build();
+                quote.setCreatedAt(timestamp.plusNanos(123_456_000L));
+                quotes.add(quote);
+            }
+        }
+        return quotes;
+    }
+}
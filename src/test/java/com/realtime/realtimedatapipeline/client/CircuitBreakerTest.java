@@ -0,0 +1,55 @@
+package com.realtime.realtimedatapipeline.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private final RequestOutcomeWindow window = new RequestOutcomeWindow(10);
+    private final CircuitBreaker breaker = new CircuitBreaker("test", window, 0.5, 4,
+            Duration.ofMillis(100), Duration.ofMillis(50), 2);
+
+    @Test
+    void opensOnceFailureRateCrossesThresholdAfterMinimumCalls() {
+        breaker.onResult(true, 1_000);
+        breaker.onResult(false, 1_000);
+        breaker.onResult(false, 1_000);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        breaker.onResult(false, 1_000);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void countsSlowCallsAsFailures() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(true, Duration.ofMillis(500).toNanos());
+        }
+
+        assertThat(breaker.isOpen()).isTrue();
+    }
+
+    @Test
+    void closesAfterSuccessfulTrialCallsInHalfOpen() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(false, 1_000);
+        }
+        Thread.sleep(60);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        breaker.onResult(true, 1_000);
+        breaker.onResult(true, 1_000);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(window.size()).isZero();
+    }
+}
@@ -0,0 +1,173 @@
+package com.realtime.realtimedatapipeline.client;
+
+import com.realtime.realtimedatapipeline.config.FinnhubProperties;
+import com.realtime.realtimedatapipeline.model.CompanyProfile;
+import com.realtime.realtimedatapipeline.repository.CompanyProfileRepository;
+import com.realtime.realtimedatapipeline.snapshot.SnapshotHeader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CompanyProfileCacheTest {
+
+    private final FinnhubApiClient client = mock(FinnhubApiClient.class);
+    private final CompanyProfileRepository repository = mock(CompanyProfileRepository.class);
+    private final FinnhubProperties properties = new FinnhubProperties();
+    // Name the profile API returns per symbol, and how long it takes
+    private final Map<String, String> profiles = new ConcurrentHashMap<>();
+    private volatile Duration apiDelay = Duration.ZERO;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    CompanyProfileCacheTest() {
+        when(repository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of()));
+        when(client.fetchStockName(anyString())).thenAnswer(invocation -> {
+            String symbol = invocation.getArgument(0);
+            return Mono.delay(apiDelay)
+                    .then(Mono.fromSupplier(() -> profiles.get(symbol)))
+                    .switchIfEmpty(Mono.error(new IllegalStateException("no profile for " + symbol)))
+                    .doOnSubscribe(subscription -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                    .doOnTerminate(inFlight::decrementAndGet);
+        });
+    }
+
+    @Test
+    void anEntryPastRefreshAfterIsServedWhileItReloads() throws Exception {
+        properties.getProfileCache().setRefreshAfter(Duration.ofMillis(100));
+        CompanyProfileCache cache = cache();
+        profiles.put("AAPL", "Apple");
+        assertThat(cache.getName("AAPL")).isEqualTo("Apple");
+
+        profiles.put("AAPL", "Apple Inc");
+        apiDelay = Duration.ofMillis(200);
+        Thread.sleep(150);
+        // The old name comes back at once; the reload happens behind it
+        long start = System.nanoTime();
+        assertThat(cache.getName("AAPL")).isEqualTo("Apple");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(100));
+
+        verify(repository, timeout(2_000)).save(argThat(profile -> "Apple Inc".equals(profile.getName())));
+        awaitName(cache, "AAPL", "Apple Inc");
+        assertThat(cache.getStatistics()).containsEntry("apiLoads", 2L);
+    }
+
+    @Test
+    void anExpiredEntryIsNotServedAndALoadFailureFallsBackToTheSymbol() throws Exception {
+        properties.getProfileCache().setRefreshAfter(Duration.ofMillis(50));
+        properties.getProfileCache().setExpireAfter(Duration.ofMillis(100));
+        CompanyProfileCache cache = cache();
+        profiles.put("MSFT", "Microsoft");
+        assertThat(cache.getName("MSFT")).isEqualTo("Microsoft");
+
+        profiles.remove("MSFT");
+        Thread.sleep(150);
+
+        assertThat(cache.getName("MSFT")).isEqualTo("MSFT");
+        // A failed load is not cached: the next lookup asks again
+        profiles.put("MSFT", "Microsoft Corp");
+        assertThat(cache.getName("MSFT")).isEqualTo("Microsoft Corp");
+    }
+
+    @Test
+    void aSlowLookupTimesOutToTheSymbolAndLaterCallersShareTheLoad() throws Exception {
+        properties.getProfileCache().setLookupTimeout(Duration.ofMillis(100));
+        CompanyProfileCache cache = cache();
+        profiles.put("TSLA", "Tesla");
+        apiDelay = Duration.ofMillis(400);
+
+        long start = System.nanoTime();
+        assertThat(cache.getName("TSLA")).isEqualTo("TSLA");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(300));
+        assertThat(cache.getName("TSLA")).isEqualTo("TSLA");
+
+        Thread.sleep(400);
+        assertThat(cache.getName("TSLA")).isEqualTo("Tesla");
+        verify(client, times(1)).fetchStockName("TSLA");
+    }
+
+    @Test
+    void aShutdownSnapshotCoversTheWarmUpWithoutTheDatabaseOrTheApi() throws Exception {
+        CompanyProfileCache before = cache();
+        profiles.put("AAPL", "Apple");
+        profiles.put("NVDA", "NVIDIA");
+        before.warmUp(List.of("AAPL", "NVDA")).get(5, TimeUnit.SECONDS);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        before.writeSnapshot(new DataOutputStream(bytes));
+
+        CompanyProfileCache after = cache();
+        after.restoreSnapshot(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+                new SnapshotHeader(System.currentTimeMillis(), true));
+        after.warmUp(List.of("AAPL", "NVDA")).get(5, TimeUnit.SECONDS);
+
+        assertThat(after.getName("NVDA")).isEqualTo("NVIDIA");
+        assertThat(after.getStatistics())
+                .containsEntry("restoredFromSnapshot", 2L)
+                .containsEntry("apiLoads", 0L);
+        // Only the first cache's warm-up read company_profiles
+        verify(repository, times(1)).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void warmUpLoadsMissingSymbolsAndRefreshesStaleRowsWithinTheConcurrencyLimit() throws Exception {
+        properties.getProfileCache().setWarmupConcurrency(8);
+        properties.getProfileCache().setRefreshAfter(Duration.ofHours(1));
+        List<String> symbols = IntStream.range(0, 10_000).mapToObj(i -> "SYM" + i).toList();
+        symbols.forEach(symbol -> profiles.put(symbol, symbol + " Corp"));
+        // Two persisted rows: one fresh, one past refresh-after
+        when(repository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(
+                new CompanyProfile("SYM0", "Fresh Corp", LocalDateTime.now()),
+                new CompanyProfile("SYM1", "Old Corp", LocalDateTime.now().minusHours(2)))));
+        apiDelay = Duration.ofMillis(1);
+        CompanyProfileCache cache = cache();
+
+        cache.warmUp(symbols).get(60, TimeUnit.SECONDS);
+
+        assertThat(maxInFlight.get()).isBetween(2, 8);
+        assertThat(cache.getStatistics())
+                .containsEntry("size", 10_000L)
+                .containsEntry("apiLoads", 9_999L)
+                .containsEntry("restoredFromDatabase", 2L);
+        assertThat(cache.getName("SYM0")).isEqualTo("Fresh Corp");
+        assertThat(cache.getName("SYM1")).isEqualTo("SYM1 Corp");
+        assertThat(cache.getName("SYM9999")).isEqualTo("SYM9999 Corp");
+        verify(client, never()).fetchStockName("SYM0");
+    }
+
+    private static void awaitName(CompanyProfileCache cache, String symbol, String name) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!name.equals(cache.getName(symbol)) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(cache.getName(symbol)).isEqualTo(name);
+    }
+
+    private CompanyProfileCache cache() {
+        return new CompanyProfileCache(client, repository, properties, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,93 @@
+package com.realtime.realtimedatapipeline.client;
+
+import com.realtime.realtimedatapipeline.config.FinnhubProperties;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FinnhubApiClientTest {
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer stub;
+    private FinnhubApiClient client;
+
+    @AfterEach
+    void stop() throws Exception {
+        client.destroy();
+        stub.stop(0);
+    }
+
+    @Test
+    void aFastErrorIsNotHedgedAndReachesTheCaller() throws Exception {
+        startStub(0, 429);
+        client = client(1.0, 10);
+        // The first call on a cold client can outlast the hedge delay on a slow machine
+        warmUp();
+
+        assertThatThrownBy(() -> client.quoteCall("AAPL").block())
+                .isInstanceOf(WebClientResponseException.TooManyRequests.class);
+        // Well past the hedge delay, still only the primary was sent
+        Thread.sleep(300);
+        assertThat(requests).hasValue(1);
+    }
+
+    @Test
+    void aRefusedHedgeStillReportsThePrimarysError() throws Exception {
+        startStub(250, 503);
+        client = client(0.0, 0);
+
+        assertThatThrownBy(() -> client.quoteCall("AAPL").block())
+                .isInstanceOf(WebClientResponseException.ServiceUnavailable.class);
+        assertThat(requests).hasValue(1);
+    }
+
+    /**
+     * Send one call and wait out any hedge it started, then reset the request count
+     */
+    private void warmUp() throws InterruptedException {
+        try {
+            client.quoteCall("AAPL").block();
+        } catch (WebClientResponseException e) {
+            // Expected from the stub
+        }
+        Thread.sleep(300);
+        requests.set(0);
+    }
+
+    private void startStub(long delayMillis, int status) throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.setExecutor(Executors.newFixedThreadPool(4));
+        stub.createContext("/quote", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        stub.start();
+    }
+
+    private FinnhubApiClient client(double maxRatio, int burst) {
+        FinnhubProperties properties = new FinnhubProperties();
+        properties.setApiKey("stub");
+        properties.setBaseUrl("http://127.0.0.1:" + stub.getAddress().getPort());
+        properties.setTimeout(Duration.ofSeconds(5));
+        properties.getHedging().setInitialDelay(Duration.ofMillis(100));
+        properties.getHedging().setMaxRatio(maxRatio);
+        properties.getHedging().setBurst(burst);
+        return new FinnhubApiClient(properties);
+    }
+}
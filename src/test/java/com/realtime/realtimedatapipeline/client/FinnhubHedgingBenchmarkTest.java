@@ -0,0 +1,120 @@
+package com.realtime.realtimedatapipeline.client;
+
+import com.realtime.realtimedatapipeline.config.FinnhubProperties;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fetch-cycle tail latency with and without hedging against a local Finnhub stub where every
+ * {@value #SLOW_EVERY}th response is slow. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class FinnhubHedgingBenchmarkTest {
+
+    private static final List<String> SYMBOLS = List.of("AAPL", "GOOGL", "MSFT", "TSLA", "AMZN", "META", "NFLX", "NVDA");
+    private static final int WARMUP_CYCLES = 10;
+    private static final int MEASURED_CYCLES = 60;
+    private static final int SLOW_EVERY = 25;
+    private static final long SLOW_MILLIS = 800;
+    private static final double MAX_RATIO = 0.10;
+
+    private final AtomicInteger served = new AtomicInteger();
+    private HttpServer stub;
+    private ExecutorService fetchPool;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.setExecutor(Executors.newFixedThreadPool(32));
+        stub.createContext("/quote", exchange -> {
+            try {
+                // A fixed slow tail, so both runs see the same share of slow responses
+                long delay = served.incrementAndGet() % SLOW_EVERY == 0 ? SLOW_MILLIS : 10;
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"c\":190.5,\"d\":1.2,\"dp\":0.63,\"h\":191.0,\"l\":188.9,\"o\":189.4,\"pc\":189.3,\"t\":1700000000}"
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stub.start();
+        fetchPool = Executors.newFixedThreadPool(SYMBOLS.size());
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.stop(0);
+        fetchPool.shutdownNow();
+    }
+
+    @Test
+    void hedgingCutsP99CycleTime() {
+        long unhedgedP99 = p99CycleMillis(client(false));
+        FinnhubApiClient hedging = client(true);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        hedging.bindTo(registry);
+        long hedgedP99 = p99CycleMillis(hedging);
+
+        double requests = SYMBOLS.size() * (WARMUP_CYCLES + MEASURED_CYCLES);
+        double hedged = registry.get("finnhub.requests.hedged").functionCounter().count();
+        double wins = registry.get("finnhub.requests.hedge.wins").functionCounter().count();
+        System.out.printf("Fetch cycle p99 for %d symbols: unhedged %d ms, hedged %d ms; " +
+                        "%.0f hedge attempts (%.1f%% of %.0f requests), %.0f won%n",
+                SYMBOLS.size(), unhedgedP99, hedgedP99, hedged, 100 * hedged / requests, requests, wins);
+        // Unhedged, some cycle waits on a slow response; hedged, none should take half as long
+        assertThat(unhedgedP99).isGreaterThanOrEqualTo(SLOW_MILLIS);
+        assertThat(hedgedP99).isLessThan(SLOW_MILLIS / 2);
+        // The budget caps extra load at max-ratio of requests plus the initial burst
+        assertThat(hedged).isPositive().isLessThanOrEqualTo(MAX_RATIO * requests + SYMBOLS.size());
+    }
+
+    private FinnhubApiClient client(boolean hedging) {
+        FinnhubProperties properties = new FinnhubProperties();
+        properties.setApiKey("stub");
+        properties.setBaseUrl("http://127.0.0.1:" + stub.getAddress().getPort());
+        properties.setTimeout(Duration.ofSeconds(5));
+        properties.getHedging().setEnabled(hedging);
+        properties.getHedging().setMaxRatio(MAX_RATIO);
+        properties.getHedging().setBurst(SYMBOLS.size());
+        return new FinnhubApiClient(properties);
+    }
+
+    private long p99CycleMillis(FinnhubApiClient client) {
+        List<Long> cycles = new ArrayList<>();
+        for (int cycle = 0; cycle < WARMUP_CYCLES + MEASURED_CYCLES; cycle++) {
+            long start = System.nanoTime();
+            CompletableFuture.allOf(SYMBOLS.stream()
+                    .map(symbol -> CompletableFuture.runAsync(() -> client.getStockQuote(symbol), fetchPool))
+                    .toArray(CompletableFuture[]::new)).join();
+            if (cycle >= WARMUP_CYCLES) {
+                cycles.add((System.nanoTime() - start) / 1_000_000);
+            }
+        }
+        long[] sorted = cycles.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(0.99 * sorted.length) - 1];
+    }
+}
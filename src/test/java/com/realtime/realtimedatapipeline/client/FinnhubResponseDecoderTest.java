@@ -0,0 +1,59 @@
+package com.realtime.realtimedatapipeline.client;
+
+import com.realtime.realtimedatapipeline.model.FinnhubQuoteResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FinnhubResponseDecoderTest {
+
+    @Test
+    void decodesQuoteFields() throws IOException {
+        FinnhubQuoteResponse quote = FinnhubResponseDecoder.decodeQuote(body(
+                "{\"c\":190.5,\"d\":1.2,\"dp\":0.63,\"h\":191,\"l\":188.9,\"o\":189.4,\"pc\":189.3,\"t\":1700000000}"));
+
+        assertThat(quote.getCurrentPrice()).isEqualTo(190.5);
+        assertThat(quote.getChange()).isEqualTo(1.2);
+        assertThat(quote.getPercentChange()).isEqualTo(0.63);
+        assertThat(quote.getHighPrice()).isEqualTo(191.0);
+        assertThat(quote.getLowPrice()).isEqualTo(188.9);
+        assertThat(quote.getOpenPrice()).isEqualTo(189.4);
+        assertThat(quote.getPreviousClose()).isEqualTo(189.3);
+        assertThat(quote.getTimestamp()).isEqualTo(1700000000L);
+    }
+
+    @Test
+    void nullAndMissingFieldsStayAbsentAndUnknownFieldsAreSkipped() throws IOException {
+        FinnhubQuoteResponse quote = FinnhubResponseDecoder.decodeQuote(body(
+                "{\"extra\":{\"nested\":[1,2,{\"c\":9}]},\"c\":0,\"d\":null,\"dp\":null}"));
+
+        assertThat(quote.getCurrentPrice()).isEqualTo(0.0);
+        assertThat(quote.getChange()).isNull();
+        assertThat(quote.getPercentChange()).isNull();
+        assertThat(quote.getTimestamp()).isNull();
+    }
+
+    @Test
+    void decodesProfileName() throws IOException {
+        assertThat(FinnhubResponseDecoder.decodeProfileName(body(
+                "{\"country\":\"US\",\"tags\":[\"a\"],\"name\":\"Apple Inc\",\"ticker\":\"AAPL\"}")))
+                .isEqualTo("Apple Inc");
+        assertThat(FinnhubResponseDecoder.decodeProfileName(body("{}"))).isNull();
+    }
+
+    @Test
+    void rejectsNonObjectBodies() {
+        assertThatThrownBy(() -> FinnhubResponseDecoder.decodeQuote(body("[1,2]")))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
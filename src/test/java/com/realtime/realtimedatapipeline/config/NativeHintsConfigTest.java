@@ -0,0 +1,25 @@
+package com.realtime.realtimedatapipeline.config;
+
+import com.realtime.realtimedatapipeline.model.FinnhubQuoteResponse;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NativeHintsConfigTest {
+
+    @Test
+    void registersBindingAndSerdeHints() throws Exception {
+        RuntimeHints hints = new RuntimeHints();
+        new NativeHintsConfig.PipelineRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(StockQuoteEvent.class, "getCurrentPrice")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(FinnhubQuoteResponse.class, "setCurrentPrice")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onConstructor(JsonDeserializer.class.getConstructor())).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onConstructor(ErrorHandlingDeserializer.class.getConstructor())).accepts(hints);
+    }
+}
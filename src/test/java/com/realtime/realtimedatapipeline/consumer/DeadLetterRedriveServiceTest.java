@@ -0,0 +1,133 @@
+package com.realtime.realtimedatapipeline.consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeadLetterRedriveServiceTest {
+
+    private static final String DLT = "stock-quotes-retry-dlt";
+    private static final TopicPartition P0 = new TopicPartition(DLT, 0);
+    private static final TopicPartition P1 = new TopicPartition(DLT, 1);
+
+    @SuppressWarnings("unchecked")
+    private final ConsumerFactory<Object, Object> consumerFactory = mock(ConsumerFactory.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final DeadLetterRedriveService service =
+            new DeadLetterRedriveService(consumerFactory, kafkaTemplate, new RetryMetrics(new SimpleMeterRegistry()));
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void keepsPollingPastAnEmptyFirstPollUntilEveryPartitionReachesItsEndOffset() {
+        GroupConsumer consumer = consumer(Map.of(P0, 2L, P1, 1L));
+        when(consumerFactory.createConsumer(anyString(), anyString())).thenReturn(consumer);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        // The first poll returns nothing, as it does while the fetch is still in flight
+        consumer.schedulePollTask(() -> { });
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(deadLetter(0, 0, "AAPL"));
+            consumer.addRecord(deadLetter(1, 0, "MSFT"));
+        });
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(deadLetter(0, 1, "IBM"));
+            // Dead-lettered after the re-drive captured its end offsets
+            consumer.addRecord(deadLetter(0, 2, "ORCL"));
+        });
+
+        Map<String, Object> result = service.redrive(DLT, 100);
+
+        assertThat(result).containsEntry("redriven", 3).containsEntry("complete", true)
+                .containsEntry("targets", Map.of("stock-quotes-raw", 3));
+        ArgumentCaptor<ProducerRecord<String, Object>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(3)).send(sent.capture());
+        assertThat(sent.getAllValues()).extracting(ProducerRecord::key).containsExactlyInAnyOrder("AAPL", "MSFT", "IBM");
+        assertThat(consumer.groupOffsets)
+                .containsEntry(P0, new OffsetAndMetadata(2))
+                .containsEntry(P1, new OffsetAndMetadata(1));
+    }
+
+    @Test
+    void resumesFromTheCommittedOffsetAndReturnsAtOnceWhenNothingIsLeft() {
+        GroupConsumer consumer = consumer(Map.of(P0, 2L, P1, 0L));
+        consumer.commitSync(Map.of(P0, new OffsetAndMetadata(2)));
+        when(consumerFactory.createConsumer(anyString(), anyString())).thenReturn(consumer);
+
+        Map<String, Object> result = service.redrive(DLT, 100);
+
+        assertThat(result).containsEntry("redriven", 0).containsEntry("complete", true);
+        assertThat(consumer.position(P0)).isEqualTo(2L);
+    }
+
+    private static GroupConsumer consumer(Map<TopicPartition, Long> endOffsets) {
+        GroupConsumer consumer = new GroupConsumer();
+        Node node = new Node(0, "localhost", 9092);
+        consumer.updatePartitions(DLT, List.of(
+                new PartitionInfo(DLT, 0, node, new Node[] {node}, new Node[] {node}),
+                new PartitionInfo(DLT, 1, node, new Node[] {node}, new Node[] {node})));
+        consumer.updateBeginningOffsets(Map.of(P0, 0L, P1, 0L));
+        consumer.updateEndOffsets(endOffsets);
+        return consumer;
+    }
+
+    private static ConsumerRecord<Object, Object> deadLetter(int partition, long offset, String key) {
+        ConsumerRecord<Object, Object> record = new ConsumerRecord<>(DLT, partition, offset, key, "{}");
+        record.headers().add(RetryTopicRouter.ORIGIN_TOPIC_HEADER, "stock-quotes-raw".getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    /**
+     * Keeps the group's committed offsets across assignments, as the broker would, and stays readable
+     * after the service closes it
+     */
+    private static final class GroupConsumer extends MockConsumer<Object, Object> {
+
+        final Map<TopicPartition, OffsetAndMetadata> groupOffsets = new HashMap<>();
+
+        GroupConsumer() {
+            super(OffsetResetStrategy.EARLIEST);
+        }
+
+        @Override
+        public synchronized void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+            groupOffsets.putAll(offsets);
+        }
+
+        @Override
+        public synchronized Map<TopicPartition, OffsetAndMetadata> committed(Set<TopicPartition> partitions) {
+            Map<TopicPartition, OffsetAndMetadata> committed = new HashMap<>(groupOffsets);
+            committed.keySet().retainAll(partitions);
+            return committed;
+        }
+
+        @Override
+        public synchronized void close() {
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.realtime.realtimedatapipeline.consumer;
+
+import com.realtime.realtimedatapipeline.analytics.LeaderboardService;
+import com.realtime.realtimedatapipeline.metrics.QuoteCountService;
+import com.realtime.realtimedatapipeline.metrics.StockMetricsService;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import com.realtime.realtimedatapipeline.producer.LatestQuotePublisher;
+import com.realtime.realtimedatapipeline.repository.StockQuoteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LatestQuoteBootstrapTest {
+
+    private static final String TOPIC = "stock-quotes-latest";
+    private static final TopicPartition P0 = new TopicPartition(TOPIC, 0);
+    private static final TopicPartition P1 = new TopicPartition(TOPIC, 1);
+
+    @SuppressWarnings("unchecked")
+    private final ConsumerFactory<Object, Object> consumerFactory = mock(ConsumerFactory.class);
+    private final StockQuoteRepository repository = mock(StockQuoteRepository.class);
+    private final StockMetricsService metricsService = new StockMetricsService(repository,
+            new QuoteCountService(repository, mock(PlatformTransactionManager.class), 30), new SimpleMeterRegistry(), 10);
+    private final LatestQuotePublisher publisher = mock(LatestQuotePublisher.class);
+    private final LeaderboardService leaderboardService = new LeaderboardService(new SimpleMeterRegistry());
+    private final MockConsumer<Object, Object> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+
+    @Test
+    void readsEveryPartitionUpToTheEndOffsetsSeenAtStartup() {
+        consumer.updateEndOffsets(Map.of(P0, 2L, P1, 1L));
+        LocalDateTime fetchedAt = LocalDateTime.now().minusMinutes(10).truncatedTo(ChronoUnit.MILLIS);
+        // Nothing fetched yet on the first poll; the bootstrap keeps going until the end offsets
+        consumer.schedulePollTask(() -> { });
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(record(P0, 0, quote("AAPL", 190.0, 100L, fetchedAt)));
+            consumer.addRecord(record(P1, 0, quote("MSFT", 410.0, 100L, fetchedAt)));
+        });
+        // A tombstone for a removed symbol is skipped
+        consumer.schedulePollTask(() -> consumer.addRecord(record(P0, 1, null)));
+
+        LatestQuoteBootstrap bootstrap = bootstrap(Duration.ofSeconds(5));
+        bootstrap.start();
+
+        assertThat(bootstrap.isRunning()).isTrue();
+        assertThat(metricsService.getSymbolMetrics("AAPL"))
+                .containsEntry("currentPrice", 190.0)
+                .containsEntry("quoteCount", 0L)
+                // Staleness counts from the quote's fetch, not from the restart
+                .containsEntry("lastUpdate", fetchedAt.toString());
+        assertThat(leaderboardService.getStatistics()).containsEntry("symbols", 2);
+        verify(publisher, times(2)).seed(any(StockQuoteEvent.class));
+    }
+
+    @Test
+    void startsWithWhatWasRestoredWhenTheTopicCannotBeReadToTheEnd() {
+        consumer.updateEndOffsets(Map.of(P0, 5L, P1, 0L));
+        consumer.schedulePollTask(() -> consumer.addRecord(record(P0, 0, quote("AAPL", 190.0, 100L, LocalDateTime.now()))));
+
+        LatestQuoteBootstrap bootstrap = bootstrap(Duration.ofMillis(300));
+        long start = System.nanoTime();
+        bootstrap.start();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        assertThat(bootstrap.isRunning()).isTrue();
+        assertThat(leaderboardService.getStatistics()).containsEntry("symbols", 1);
+        verify(publisher, never()).publish(any());
+    }
+
+    private LatestQuoteBootstrap bootstrap(Duration timeout) {
+        Node node = new Node(0, "localhost", 9092);
+        consumer.updatePartitions(TOPIC, List.of(
+                new PartitionInfo(TOPIC, 0, node, new Node[] {node}, new Node[] {node}),
+                new PartitionInfo(TOPIC, 1, node, new Node[] {node}, new Node[] {node})));
+        consumer.updateBeginningOffsets(Map.of(P0, 0L, P1, 0L));
+        when(consumerFactory.createConsumer(isNull(), eq("latest-quote-bootstrap"), isNull(), any())).thenReturn(consumer);
+        return new LatestQuoteBootstrap(consumerFactory, metricsService, publisher, leaderboardService, TOPIC, timeout);
+    }
+
+    private static ConsumerRecord<Object, Object> record(TopicPartition partition, long offset, StockQuoteEvent quote) {
+        return new ConsumerRecord<>(partition.topic(), partition.partition(), offset,
+                quote != null ? quote.getSymbol() : "TOMB", quote);
+    }
+
+    private static StockQuoteEvent quote(String symbol, double price, long marketTimestamp, LocalDateTime fetchedAt) {
+        return StockQuoteEvent.builder()
+                .symbol(symbol)
+                .stockName(symbol)
+                .currentPrice(price)
+                .percentChange(1.0)
+                .timestamp(fetchedAt)
+                .marketTimestamp(marketTimestamp)
+                .build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.realtime.realtimedatapipeline.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionOffsetTrackerTest {
+
+    private static final TopicPartition P0 = new TopicPartition("stock-quotes", 0);
+    private static final TopicPartition P1 = new TopicPartition("stock-quotes", 1);
+
+    private final List<ConsumerRecord<String, String>> batch = List.of(
+            new ConsumerRecord<>("stock-quotes", 0, 10, "AAPL", "a"),
+            new ConsumerRecord<>("stock-quotes", 0, 11, "MSFT", "b"),
+            new ConsumerRecord<>("stock-quotes", 0, 12, "AAPL", "c"),
+            new ConsumerRecord<>("stock-quotes", 1, 40, "TSLA", "d"),
+            new ConsumerRecord<>("stock-quotes", 1, 41, "TSLA", "e"));
+
+    @Test
+    void commitsEveryPartitionWhenBatchIsComplete() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker(batch);
+        for (int i = 0; i < batch.size(); i++) {
+            tracker.markProcessed(i);
+        }
+
+        assertThat(tracker.isComplete()).isTrue();
+        assertThat(tracker.committableOffsets()).isEqualTo(Map.of(
+                P0, new OffsetAndMetadata(13),
+                P1, new OffsetAndMetadata(42)));
+        assertThat(tracker.firstUnprocessedOffsets()).isEmpty();
+    }
+
+    @Test
+    void commitsOnlyContiguousPrefixPerPartition() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker(batch);
+        tracker.markProcessed(0);
+        tracker.markProcessed(2);   // finished out of order, offset 11 still pending
+        tracker.markProcessed(4);   // partition 1 head still pending
+
+        assertThat(tracker.isComplete()).isFalse();
+        assertThat(tracker.committableOffsets()).isEqualTo(Map.of(P0, new OffsetAndMetadata(11)));
+        assertThat(tracker.firstUnprocessedOffsets()).isEqualTo(Map.of(P0, 11L, P1, 40L));
+    }
+}
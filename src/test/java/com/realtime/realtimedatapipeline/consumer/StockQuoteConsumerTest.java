@@ -0,0 +1,230 @@
+package com.realtime.realtimedatapipeline.consumer;
+
+import com.realtime.realtimedatapipeline.alerts.AlertRuleEngine;
+import com.realtime.realtimedatapipeline.analytics.CorrelationEngine;
+import com.realtime.realtimedatapipeline.analytics.IndicatorEngine;
+import com.realtime.realtimedatapipeline.analytics.LeaderboardService;
+import com.realtime.realtimedatapipeline.config.KafkaConsumerProperties;
+import com.realtime.realtimedatapipeline.metrics.QuoteCountService;
+import com.realtime.realtimedatapipeline.metrics.StockMetricsService;
+import com.realtime.realtimedatapipeline.model.IndicatorSnapshot;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import com.realtime.realtimedatapipeline.producer.AlertPublisher;
+import com.realtime.realtimedatapipeline.producer.AnalyticsPublisher;
+import com.realtime.realtimedatapipeline.producer.LatestQuotePublisher;
+import com.realtime.realtimedatapipeline.repository.StockQuoteRepository;
+import com.realtime.realtimedatapipeline.repository.UpsertResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockQuoteConsumerTest {
+
+    private static final String RETRY_TOPIC = "stock-quotes-retry";
+
+    private final StockQuoteRepository repository = mock(StockQuoteRepository.class);
+    private final StockMetricsService metricsService = mock(StockMetricsService.class);
+    private final QuoteCountService quoteCountService = mock(QuoteCountService.class);
+    private final RetryTopicRouter router = mock(RetryTopicRouter.class);
+    private final LatestQuotePublisher latestQuotePublisher = mock(LatestQuotePublisher.class);
+    private final IndicatorEngine indicatorEngine = mock(IndicatorEngine.class);
+    private final AnalyticsPublisher analyticsPublisher = mock(AnalyticsPublisher.class);
+    private final LeaderboardService leaderboardService = mock(LeaderboardService.class);
+    private final AlertRuleEngine alertRuleEngine = mock(AlertRuleEngine.class);
+    private final KeyOrderedExecutor executor = new KeyOrderedExecutor(lanes(1));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StockQuoteConsumer consumer = new StockQuoteConsumer(repository, metricsService, quoteCountService,
+            executor, router, mock(RetryMetrics.class), latestQuotePublisher, indicatorEngine,
+            analyticsPublisher, mock(CorrelationEngine.class), leaderboardService,
+            alertRuleEngine, mock(AlertPublisher.class), meterRegistry);
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        executor.destroy();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aFailedEffectRetriesThatSymbolWithoutWritingTheLaneAgain() {
+        ReflectionTestUtils.setField(consumer, "stockQuotesRetryTopic", RETRY_TOPIC);
+        when(quoteCountService.recording(any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+        when(repository.upsertAll(any())).thenReturn(new UpsertResult(4, 0, 0, Map.of(), Map.of()));
+        when(router.route(any(), anyString(), any(), anyBoolean(), anyInt())).thenReturn(CompletableFuture.completedFuture(null));
+        List<ConsumerRecord<String, StockQuoteEvent>> records = List.of(
+                record(0, "AAPL"), record(1, "MSFT"), record(2, "AAPL"), record(3, "IBM"));
+        // The second quote's latest-quote publish fails after its row was written
+        doThrow(new IllegalStateException("publish failed"))
+                .when(latestQuotePublisher).publish(argThat(quote -> quote.getSymbol().equals("MSFT")));
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        consumer.consumeStockQuotes(records, acknowledgment, mock(Consumer.class));
+
+        verify(repository, times(1)).upsertAll(any());
+        verify(router).route(eq(records.get(1)), eq(RETRY_TOPIC), any(), eq(true),
+                eq(StockQuoteConsumer.Effect.LATEST_QUOTE.ordinal()));
+        verify(router, times(1)).route(any(), anyString(), any(), anyBoolean(), anyInt());
+        // Quotes before and after the failure get their effects exactly once
+        verify(metricsService, times(4)).updateStockMetrics(any());
+        verify(latestQuotePublisher, times(2)).publish(argThat(quote -> quote.getSymbol().equals("AAPL")));
+        verify(latestQuotePublisher, times(1)).publish(argThat(quote -> quote.getSymbol().equals("IBM")));
+        verify(acknowledgment).acknowledge();
+        assertThat(meterRegistry.counter("stock.events.persisted").count()).isEqualTo(4.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aFailedBatchWriteFallsBackToSingleRowsAndKeepsAFailedSymbolInOrder() {
+        ReflectionTestUtils.setField(consumer, "stockQuotesRetryTopic", RETRY_TOPIC);
+        when(quoteCountService.recording(any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+        when(repository.upsertAll(any()))
+                .thenThrow(new IllegalStateException("batch failed"))
+                .thenReturn(new UpsertResult(1, 0, 0, Map.of(), Map.of()))
+                .thenThrow(new IllegalStateException("row failed"))
+                .thenReturn(new UpsertResult(1, 0, 0, Map.of(), Map.of()));
+        when(router.route(any(), anyString(), any(), anyBoolean(), anyInt())).thenReturn(CompletableFuture.completedFuture(null));
+        List<ConsumerRecord<String, StockQuoteEvent>> records = List.of(
+                record(0, "AAPL"), record(1, "MSFT"), record(2, "MSFT"), record(3, "IBM"));
+
+        consumer.consumeStockQuotes(records, mock(Acknowledgment.class), mock(Consumer.class));
+
+        // One batch attempt, then AAPL, MSFT (fails) and IBM; the second MSFT follows the first
+        verify(repository, times(4)).upsertAll(any());
+        verify(router).route(eq(records.get(1)), eq(RETRY_TOPIC), any(), eq(false), eq(0));
+        verify(router).route(eq(records.get(2)), eq(RETRY_TOPIC), any(), eq(false), eq(0));
+        verify(router, never()).route(eq(records.get(0)), anyString(), any(), anyBoolean(), anyInt());
+        verify(metricsService, times(2)).updateStockMetrics(any());
+        assertThat(meterRegistry.counter("stock.events.persisted").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aRetryResumesAtTheEffectThatFailed() {
+        ReflectionTestUtils.setField(consumer, "stockQuotesRetryTopic", RETRY_TOPIC);
+        when(quoteCountService.recording(any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+        when(repository.upsertAll(any())).thenReturn(new UpsertResult(1, 0, 0, Map.of(), Map.of()));
+        when(router.route(any(), anyString(), any(), anyBoolean(), anyInt())).thenReturn(CompletableFuture.completedFuture(null));
+        ConsumerRecord<String, StockQuoteEvent> record = record(0, "MSFT");
+        IndicatorSnapshot indicators = new IndicatorSnapshot("MSFT", record.value().getMarketTimestamp(), 100.0, 1,
+                null, 100.0, null, null, null, null, null);
+        when(indicatorEngine.onQuote(any())).thenReturn(indicators);
+        when(indicatorEngine.getSnapshot("MSFT")).thenReturn(indicators);
+        doThrow(new IllegalStateException("leaderboard failed")).doNothing().when(leaderboardService).onQuote(any());
+        when(alertRuleEngine.onQuote(any(), any()))
+                .thenThrow(new IllegalStateException("alerts failed"))
+                .thenReturn(List.of());
+
+        consumer.consumeStockQuotes(List.of(record), mock(Acknowledgment.class), mock(Consumer.class));
+        verify(router).route(eq(record), eq(RETRY_TOPIC), any(), eq(true),
+                eq(StockQuoteConsumer.Effect.LEADERBOARD.ordinal()));
+
+        // First retry: the leaderboard takes the quote, then the alert rules fail
+        ConsumerRecord<String, StockQuoteEvent> retry = new ConsumerRecord<>(RETRY_TOPIC, 0, 0, "MSFT", record.value());
+        RetryTopicRouter.markApplied(retry, StockQuoteConsumer.Effect.LEADERBOARD.ordinal());
+        assertThatThrownBy(() -> consumer.retryStockQuote(retry)).hasMessage("alerts failed");
+        assertThat(RetryTopicRouter.effectsApplied(retry)).isEqualTo(StockQuoteConsumer.Effect.ALERTS.ordinal());
+
+        // Second retry: only the alert rules run, with the indicators computed on the first pass
+        consumer.retryStockQuote(retry);
+
+        verify(repository, times(1)).upsertAll(any());
+        verify(metricsService, times(1)).updateStockMetrics(any());
+        verify(indicatorEngine, times(1)).onQuote(any());
+        verify(analyticsPublisher, times(1)).publish(indicators);
+        verify(leaderboardService, times(2)).onQuote(any());
+        verify(alertRuleEngine, times(2)).onQuote(any(), eq(indicators));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aRedrivenDeadLetterResumesAtTheEffectThatFailed() {
+        ConsumerRecord<String, StockQuoteEvent> original = record(0, "MSFT");
+        ConsumerRecord<Object, Object> deadLetter = new ConsumerRecord<>(RETRY_TOPIC + "-dlt", 0, 0, "MSFT", original.value());
+        deadLetter.headers().add(RetryTopicRouter.ORIGIN_TOPIC_HEADER, "stock-quotes".getBytes(StandardCharsets.UTF_8));
+        RetryTopicRouter.markApplied(deadLetter, StockQuoteConsumer.Effect.LEADERBOARD.ordinal());
+        MockConsumer<Object, Object> dltConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        TopicPartition partition = new TopicPartition(deadLetter.topic(), 0);
+        Node node = new Node(0, "localhost", 9092);
+        dltConsumer.updatePartitions(deadLetter.topic(),
+                List.of(new PartitionInfo(deadLetter.topic(), 0, node, new Node[] {node}, new Node[] {node})));
+        dltConsumer.updateBeginningOffsets(Map.of(partition, 0L));
+        dltConsumer.updateEndOffsets(Map.of(partition, 1L));
+        dltConsumer.schedulePollTask(() -> dltConsumer.addRecord(deadLetter));
+        ConsumerFactory<Object, Object> consumerFactory = mock(ConsumerFactory.class);
+        when(consumerFactory.createConsumer(anyString(), anyString())).thenReturn(dltConsumer);
+        KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        when(alertRuleEngine.onQuote(any(), any())).thenReturn(List.of());
+
+        new DeadLetterRedriveService(consumerFactory, kafkaTemplate, mock(RetryMetrics.class))
+                .redrive(deadLetter.topic(), 10);
+
+        ArgumentCaptor<ProducerRecord<String, Object>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(sent.capture());
+        assertThat(sent.getValue().topic()).isEqualTo(RETRY_TOPIC);
+        ConsumerRecord<String, StockQuoteEvent> redriven = new ConsumerRecord<>(RETRY_TOPIC, 0, 0, "MSFT", original.value());
+        sent.getValue().headers().forEach(header -> redriven.headers().add(header));
+        assertThat(new String(redriven.headers().lastHeader(RetryTopicRouter.ORIGIN_TOPIC_HEADER).value(),
+                StandardCharsets.UTF_8)).isEqualTo("stock-quotes");
+
+        consumer.retryStockQuote(redriven);
+
+        // Written and counted before it was dead-lettered: only the leaderboard and alerts run
+        verify(repository, never()).upsertAll(any());
+        verify(metricsService, never()).updateStockMetrics(any());
+        verify(latestQuotePublisher, never()).publish(any());
+        verify(indicatorEngine, never()).onQuote(any());
+        verify(leaderboardService, times(1)).onQuote(any());
+        verify(alertRuleEngine, times(1)).onQuote(any(), any());
+    }
+
+    private static KafkaConsumerProperties lanes(int count) {
+        KafkaConsumerProperties properties = new KafkaConsumerProperties();
+        properties.setLanes(count);
+        return properties;
+    }
+
+    private static ConsumerRecord<String, StockQuoteEvent> record(long offset, String symbol) {
+        StockQuoteEvent quote = StockQuoteEvent.builder()
+                .symbol(symbol)
+                .currentPrice(100.0 + offset)
+                .timestamp(LocalDateTime.of(2024, 3, 4, 10, 0).plusSeconds(offset))
+                .marketTimestamp(1_709_546_400L + offset)
+                .build();
+        return new ConsumerRecord<>("stock-quotes", 0, offset, symbol, quote);
+    }
+}
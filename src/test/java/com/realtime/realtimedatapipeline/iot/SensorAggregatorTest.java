@@ -0,0 +1,75 @@
+package com.realtime.realtimedatapipeline.iot;
+
+import com.realtime.realtimedatapipeline.config.IotProperties;
+import com.realtime.realtimedatapipeline.model.SensorReading;
+import com.realtime.realtimedatapipeline.model.SensorWindow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SensorAggregatorTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long T0 = 1_718_000_040_000L; // a window boundary
+
+    private final SensorAggregator aggregator = new SensorAggregator(new IotProperties(), new SimpleMeterRegistry());
+
+    @Test
+    void aggregatesSensorsAndLocationsPerWindowAcrossBatches() {
+        aggregator.add(List.of(
+                reading("s1", "hall", 20.0, 90, T0 + 1_000),
+                reading("s2", "hall", 24.0, 70, T0 + 2_000)));
+        aggregator.add(List.of(
+                reading("s1", "hall", 22.0, 88, T0 + 30_000),
+                reading("s1", "hall", 18.0, 87, T0 + 50_000)));
+
+        SensorWindow sensor = aggregator.getSensor("s1").get("current");
+        assertThat(sensor.windowStart()).isEqualTo(T0);
+        assertThat(sensor.windowEnd()).isEqualTo(T0 + MINUTE);
+        assertThat(sensor.readings()).isEqualTo(3);
+        assertThat(sensor.minTemperature()).isEqualTo(18.0);
+        assertThat(sensor.maxTemperature()).isEqualTo(22.0);
+        assertThat(sensor.avgTemperature()).isCloseTo(20.0, within(1e-9));
+        assertThat(sensor.batteryDrain()).isEqualTo(3);
+
+        SensorWindow location = aggregator.getLocation("hall").get("current");
+        assertThat(location.readings()).isEqualTo(4);
+        assertThat(location.maxTemperature()).isEqualTo(24.0);
+        assertThat(location.minBatteryLevel()).isEqualTo(70);
+        assertThat(location.avgBatteryLevel()).isCloseTo(83.75, within(1e-9));
+        assertThat(location.batteryDrain()).isNull();
+    }
+
+    @Test
+    void rollsWindowsKeepsThePreviousOneAndDropsOlderReadings() {
+        List<SensorReading> batch = new ArrayList<>();
+        batch.add(reading("s1", "hall", 20.0, 90, T0 + 1_000));
+        // Crosses into the next window within one batch
+        batch.add(reading("s1", "hall", 21.0, 89, T0 + MINUTE + 1_000));
+        aggregator.add(batch);
+        // Late, but still within the previous window
+        aggregator.add(List.of(reading("s1", "hall", 30.0, 91, T0 + 5_000)));
+        // Two windows back: dropped
+        aggregator.add(List.of(reading("s1", "hall", 40.0, 95, T0 - MINUTE)));
+
+        Map<String, SensorWindow> windows = aggregator.getSensor("s1");
+        assertThat(windows.get("current").windowStart()).isEqualTo(T0 + MINUTE);
+        assertThat(windows.get("current").readings()).isEqualTo(1);
+        assertThat(windows.get("previous").readings()).isEqualTo(2);
+        assertThat(windows.get("previous").maxTemperature()).isEqualTo(30.0);
+        // Drain goes by reading time, not arrival: 90% at +1s, then 91% at +5s
+        assertThat(windows.get("previous").batteryDrain()).isEqualTo(-1);
+        assertThat(aggregator.getStatistics()).containsEntry("lateReadings", 1L);
+        assertThat(aggregator.getSensor("unknown")).isEmpty();
+    }
+
+    private static SensorReading reading(String sensor, String location, double temperature, int battery, long timestamp) {
+        return new SensorReading(sensor, "thermo", location, temperature, 40.0, null, battery, -70, timestamp);
+    }
+}
@@ -0,0 +1,43 @@
+package com.realtime.realtimedatapipeline.iot;
+
+import com.realtime.realtimedatapipeline.model.SensorReading;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SensorReadingWriterTest {
+
+    @Test
+    void encodesCopyTextRowsWithNullsAndEscapes() {
+        UUID first = UUID.nameUUIDFromBytes("iot-0@1".getBytes(StandardCharsets.UTF_8));
+        UUID second = UUID.nameUUIDFromBytes("iot-0@2".getBytes(StandardCharsets.UTF_8));
+        List<SensorReading> readings = List.of(
+                new SensorReading("s1", "thermo", "hall\tA", 21.5, 40.25, 1013.2, 87, -70, 1_718_000_000_000L),
+                new SensorReading("s\\2", "meter", null, null, null, null, null, null, 1_718_000_000_500L));
+
+        String rows = new String(SensorReadingWriter.encode(List.of(first, second), readings), StandardCharsets.UTF_8);
+
+        assertThat(rows).isEqualTo(
+                first + "\ts1\tthermo\thall\\tA\t21.5\t40.25\t1013.2\t87\t-70\t2024-06-10T06:13:20Z\n" +
+                second + "\ts\\\\2\tmeter\t\\N\t\\N\t\\N\t\\N\t\\N\t\\N\t2024-06-10T06:13:20.500Z\n");
+    }
+
+    @Test
+    void keepsOnlyTheReadingsTheMoveReturned() {
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        List<SensorReading> readings = List.of(
+                new SensorReading("s1", "thermo", "hall", 21.0, null, null, 90, null, 1_718_000_000_000L),
+                new SensorReading("s2", "thermo", "hall", 22.0, null, null, 80, null, 1_718_000_000_000L),
+                new SensorReading("s3", "thermo", "hall", 23.0, null, null, 70, null, 1_718_000_000_000L));
+
+        // A redelivered batch of which only the last reading was not written before
+        assertThat(SensorReadingWriter.inserted(ids, readings, Set.of(ids.get(2)))).containsExactly(readings.get(2));
+        assertThat(SensorReadingWriter.inserted(ids, readings, Set.of())).isEmpty();
+        assertThat(SensorReadingWriter.inserted(ids, readings, Set.copyOf(ids))).isSameAs(readings);
+    }
+}
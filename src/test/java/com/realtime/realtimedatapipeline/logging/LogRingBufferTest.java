@@ -0,0 +1,84 @@
+package com.realtime.realtimedatapipeline.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogRingBufferTest {
+
+    @Test
+    void refusesItemsWhileFullAndAcceptsThemOnceDrained() {
+        LogRingBuffer<Integer> buffer = new LogRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(4)).isFalse();
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drainTo(drained, 3)).isEqualTo(3);
+        assertThat(buffer.offer(5)).isTrue();
+        buffer.drainTo(drained, 10);
+
+        assertThat(drained).containsExactly(0, 1, 2, 3, 5);
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    void roundsTheCapacityUpToTheNextPowerOfTwo() {
+        assertThat(accepted(new LogRingBuffer<>(1))).isEqualTo(1);
+        assertThat(accepted(new LogRingBuffer<>(2))).isEqualTo(2);
+        assertThat(accepted(new LogRingBuffer<>(3))).isEqualTo(4);
+        assertThat(accepted(new LogRingBuffer<>(4))).isEqualTo(4);
+        assertThat(accepted(new LogRingBuffer<>(5))).isEqualTo(8);
+    }
+
+    @Test
+    void concurrentProducersLoseNothingThatWasAccepted() throws Exception {
+        LogRingBuffer<Integer> buffer = new LogRingBuffer<>(1024);
+        int producers = 4;
+        int perProducer = 50_000;
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(producers);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            executor.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    if (buffer.offer(base + i)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+        }
+
+        List<Integer> drained = new ArrayList<>();
+        while (done.getCount() > 0 || buffer.size() > 0) {
+            buffer.drainTo(drained, 256);
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        Set<Integer> unique = new HashSet<>(drained);
+        assertThat(drained).hasSize(accepted.get());
+        assertThat(unique).hasSize(accepted.get());
+    }
+
+    private static int accepted(LogRingBuffer<Integer> buffer) {
+        int accepted = 0;
+        while (buffer.offer(accepted)) {
+            accepted++;
+        }
+        return accepted;
+    }
+}
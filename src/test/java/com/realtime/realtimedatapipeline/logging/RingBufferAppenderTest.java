@@ -0,0 +1,59 @@
+package com.realtime.realtimedatapipeline.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RingBufferAppenderTest {
+
+    private final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+    @Test
+    void filtersByLevelAndLoggerAndAlwaysKeepsWarnings() {
+        LogRingBuffer<ILoggingEvent> buffer = new LogRingBuffer<>(16);
+        RingBufferAppender appender = new RingBufferAppender(buffer, Level.INFO, 0.0, List.of("org.apache.kafka"));
+        appender.setContext(context);
+        appender.start();
+
+        appender.doAppend(event("com.example.Quotes", Level.DEBUG, "debug"));
+        appender.doAppend(event("com.example.Quotes", Level.INFO, "sampled out"));
+        appender.doAppend(event("org.apache.kafka.clients.NetworkClient", Level.WARN, "excluded"));
+        appender.doAppend(event("com.example.Quotes", Level.WARN, "quote {} rejected", "AAPL"));
+
+        List<ILoggingEvent> drained = new ArrayList<>();
+        buffer.drainTo(drained, 16);
+        assertThat(drained).extracting(ILoggingEvent::getFormattedMessage).containsExactly("quote AAPL rejected");
+        assertThat(appender.filtered.sum()).isEqualTo(2);
+        assertThat(appender.sampledOut.sum()).isEqualTo(1);
+        assertThat(appender.captured.sum()).isEqualTo(1);
+    }
+
+    @Test
+    void dropsEventsInsteadOfBlockingWhenTheBufferIsFull() {
+        LogRingBuffer<ILoggingEvent> buffer = new LogRingBuffer<>(2);
+        RingBufferAppender appender = new RingBufferAppender(buffer, Level.INFO, 1.0, List.of());
+        appender.setContext(context);
+        appender.start();
+
+        for (int i = 0; i < 5; i++) {
+            appender.doAppend(event("com.example.Quotes", Level.INFO, "event {}", i));
+        }
+
+        assertThat(appender.captured.sum()).isEqualTo(2);
+        assertThat(appender.dropped.sum()).isEqualTo(3);
+    }
+
+    private LoggingEvent event(String loggerName, Level level, String message, Object... args) {
+        Logger logger = context.getLogger(loggerName);
+        return new LoggingEvent(Logger.class.getName(), logger, level, message, null, args);
+    }
+}
@@ -0,0 +1,200 @@
+package com.realtime.realtimedatapipeline.metrics;
+
+import com.realtime.realtimedatapipeline.config.KafkaConsumerProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsResult;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConsumerLagCollectorTest {
+
+    private static final String GROUP = "stock-quote-consumer-group";
+    private static final TopicPartition P0 = new TopicPartition("stock-quotes", 0);
+    private static final TopicPartition P1 = new TopicPartition("stock-quotes", 1);
+
+    private final KafkaConsumerProperties properties = new KafkaConsumerProperties();
+    private final Admin admin = mock(Admin.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    // Committed and end offsets the admin client reports for P0 and P1
+    private final Map<TopicPartition, Long> committed = new HashMap<>();
+    private final Map<TopicPartition, Long> ends = new HashMap<>();
+
+    ConsumerLagCollectorTest() {
+        KafkaConsumerProperties.Lag lag = properties.getLag();
+        lag.setGroups(List.of(GROUP));
+        lag.setThrottleGroup(GROUP);
+        lag.setThrottleLag(1_000);
+        lag.setMaxThrottleFactor(4);
+        lag.setSampleInterval(Duration.ofSeconds(15));
+        lag.setFlushSize(4);
+
+        ListConsumerGroupOffsetsResult groupOffsets = mock(ListConsumerGroupOffsetsResult.class);
+        when(admin.listConsumerGroupOffsets(GROUP)).thenReturn(groupOffsets);
+        when(groupOffsets.partitionsToOffsetAndMetadata()).thenAnswer(invocation -> {
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            committed.forEach((partition, offset) -> offsets.put(partition, new OffsetAndMetadata(offset)));
+            return KafkaFuture.completedFuture(offsets);
+        });
+        when(admin.listOffsets(anyMap())).thenAnswer(invocation -> {
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> infos = new HashMap<>();
+            ends.forEach((partition, offset) ->
+                    infos.put(partition, new ListOffsetsResult.ListOffsetsResultInfo(offset, -1L, Optional.empty())));
+            ListOffsetsResult result = mock(ListOffsetsResult.class);
+            when(result.all()).thenReturn(KafkaFuture.completedFuture(infos));
+            return result;
+        });
+    }
+
+    @Test
+    void lagMapsToOneMoreSkippedCyclePerMultipleOfTheThrottleLag() {
+        ConsumerLagCollector collector = collector();
+        assertThat(collector.throttleFactor()).isEqualTo(1);
+
+        assertThat(factorAtLag(collector, 999)).isEqualTo(1);
+        assertThat(factorAtLag(collector, 1_000)).isEqualTo(2);
+        assertThat(factorAtLag(collector, 1_999)).isEqualTo(2);
+        assertThat(factorAtLag(collector, 2_500)).isEqualTo(3);
+        assertThat(collector.getLag()).containsEntry(GROUP + "/stock-quotes", 2_500L);
+    }
+
+    @Test
+    void theFactorIsCappedAtTheMaximum() {
+        ConsumerLagCollector collector = collector();
+
+        assertThat(factorAtLag(collector, 3_999)).isEqualTo(4);
+        assertThat(factorAtLag(collector, 1_000_000)).isEqualTo(4);
+    }
+
+    @Test
+    void aStaleSampleFallsBackToOne() throws InterruptedException {
+        properties.getLag().setSampleInterval(Duration.ofMillis(20));
+        ConsumerLagCollector collector = collector();
+        assertThat(factorAtLag(collector, 5_000)).isEqualTo(4);
+
+        // Three intervals without a successful sample of the throttle group
+        when(admin.listConsumerGroupOffsets(GROUP)).thenThrow(new IllegalStateException("broker down"));
+        Thread.sleep(80);
+        collector.sample();
+
+        assertThat(collector.throttleFactor()).isEqualTo(1);
+        assertThat(collector.getStatistics()).containsEntry("sampleFailures", 1L);
+    }
+
+    @Test
+    void aZeroThrottleLagDisablesThrottling() {
+        properties.getLag().setThrottleLag(0);
+        ConsumerLagCollector collector = collector();
+
+        assertThat(factorAtLag(collector, 1_000_000)).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void samplesAreWrittenInOneBatchOnceTheFlushSizeIsBuffered() throws Exception {
+        ConsumerLagCollector collector = collector();
+        committed.put(P0, 100L);
+        ends.put(P0, 150L);
+        committed.put(P1, 200L);
+        ends.put(P1, 200L);
+
+        collector.sample();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertThat(collector.getStatistics()).containsEntry("samplesPending", 2);
+
+        collector.sample();
+        ArgumentCaptor<List<Object>> batch = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Object>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(eq("INSERT INTO monitoring.kafka_consumer_lag " +
+                "(consumer_group, topic, partition_id, current_offset, log_end_offset, lag, timestamp) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)"), batch.capture(), eq(4), setter.capture());
+        assertThat(batch.getValue()).hasSize(4);
+        assertThat(collector.getStatistics())
+                .containsEntry("samplesWritten", 4L)
+                .containsEntry("samplesPending", 0);
+
+        PreparedStatement statement = mock(PreparedStatement.class);
+        Object p0 = batch.getValue().stream()
+                .filter(sample -> ReflectionTestUtils.invokeMethod(sample, "partition").equals(0))
+                .findFirst().orElseThrow();
+        setter.getValue().setValues(statement, p0);
+        verify(statement).setString(1, GROUP);
+        verify(statement).setString(2, "stock-quotes");
+        verify(statement).setInt(3, 0);
+        verify(statement).setLong(4, 100L);
+        verify(statement).setLong(5, 150L);
+        verify(statement).setLong(6, 50L);
+        verify(statement).setTimestamp(eq(7), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aFailedFlushKeepsTheSamplesForTheNextOne() {
+        ConsumerLagCollector collector = collector();
+        committed.put(P0, 100L);
+        ends.put(P0, 150L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new IllegalStateException("monitoring schema missing"))
+                .thenReturn(new int[0][]);
+
+        collector.sample();
+        collector.flush();
+        assertThat(collector.getStatistics())
+                .containsEntry("samplesWritten", 0L)
+                .containsEntry("samplesPending", 1);
+
+        collector.flush();
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertThat(collector.getStatistics())
+                .containsEntry("samplesWritten", 1L)
+                .containsEntry("samplesPending", 0);
+    }
+
+    private ConsumerLagCollector collector() {
+        ConsumerLagCollector collector = new ConsumerLagCollector(properties, mock(KafkaAdmin.class), jdbcTemplate,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(collector, "admin", admin);
+        return collector;
+    }
+
+    /**
+     * Sample the throttle group with the given total lag, split over two partitions
+     */
+    private int factorAtLag(ConsumerLagCollector collector, long lag) {
+        committed.put(P0, 0L);
+        ends.put(P0, lag / 2);
+        committed.put(P1, 0L);
+        ends.put(P1, lag - lag / 2);
+        collector.sample();
+        return collector.throttleFactor();
+    }
+}
@@ -0,0 +1,204 @@
+package com.realtime.realtimedatapipeline.metrics;
+
+import com.realtime.realtimedatapipeline.repository.StockQuoteRepository;
+import com.realtime.realtimedatapipeline.repository.UpsertResult;
+import com.realtime.realtimedatapipeline.snapshot.SnapshotHeader;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QuoteCountServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final LocalDate OLD_DAY = TODAY.minusDays(60);
+
+    private final StockQuoteRepository repository = mock(StockQuoteRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    // Exact per-symbol counts the table holds for each day
+    private final Map<LocalDate, Map<String, Long>> table = new HashMap<>();
+
+    QuoteCountServiceTest() {
+        when(repository.countBySymbolBetween(any(), any())).thenAnswer(invocation -> {
+            LocalDateTime from = invocation.getArgument(0);
+            List<Object[]> rows = new ArrayList<>();
+            table.getOrDefault(from.toLocalDate(), Map.of()).forEach((symbol, count) -> rows.add(new Object[] {symbol, count}));
+            return rows;
+        });
+    }
+
+    @Test
+    void seedsEveryDayOnceThenReconcilesOnlyTheRetainedDays() {
+        table.put(OLD_DAY, Map.of("AAPL", 5L));
+        table.put(TODAY, Map.of("AAPL", 2L, "MSFT", 3L));
+        when(repository.findOldestTimestamp()).thenReturn(OLD_DAY.atTime(9, 30));
+        QuoteCountService service = new QuoteCountService(repository, transactionManager, 30);
+
+        service.reconcile();
+        verify(repository).countBySymbolBetween(OLD_DAY.plusDays(1).atStartOfDay(), OLD_DAY.plusDays(2).atStartOfDay());
+        clearInvocations(repository);
+        assertThat(service.getTotal()).isEqualTo(10);
+        assertThat(service.getCountsBySymbol()).containsEntry("AAPL", 7L).containsEntry("MSFT", 3L);
+        assertThat(service.getCountsByDay()).containsOnlyKeys(TODAY.toString()).containsEntry(TODAY.toString(), 5L);
+
+        // Counted and inserted in step: the next reconcile finds nothing to correct
+        service.recording(() -> {
+            table.put(TODAY, Map.of("AAPL", 3L, "MSFT", 3L));
+            service.recordInserted(inserted(TODAY, "AAPL", 1));
+            return null;
+        });
+        service.reconcile();
+        assertThat(service.getTotal()).isEqualTo(11);
+        assertThat(service.getCount("AAPL")).isEqualTo(8);
+
+        verify(repository, never()).countBySymbolBetween(eq(OLD_DAY.atStartOfDay()), any());
+        verify(repository, never()).findOldestTimestamp();
+    }
+
+    @Test
+    void archivedDaysLeaveTheCounts() {
+        table.put(OLD_DAY, Map.of("AAPL", 5L, "MSFT", 1L));
+        when(repository.findOldestTimestamp()).thenReturn(OLD_DAY.atStartOfDay());
+        QuoteCountService service = new QuoteCountService(repository, transactionManager, 30);
+        service.reconcile();
+
+        service.recordDeleted(OLD_DAY, Map.of("AAPL", 5L, "MSFT", 1L));
+
+        assertThat(service.getTotal()).isZero();
+        assertThat(service.getCountsBySymbol()).containsEntry("AAPL", 0L).containsEntry("MSFT", 0L);
+    }
+
+    @Test
+    void aShutdownSnapshotStillReconcilesTheRetainedDaysAndAPeriodicOneRecounts() throws IOException {
+        table.put(OLD_DAY, Map.of("AAPL", 5L));
+        table.put(TODAY, Map.of("AAPL", 2L));
+        when(repository.findOldestTimestamp()).thenReturn(OLD_DAY.atStartOfDay());
+        QuoteCountService before = new QuoteCountService(repository, transactionManager, 30);
+        before.reconcile();
+        byte[] snapshot = write(before);
+
+        // A row written after the snapshot was taken
+        table.put(TODAY, Map.of("AAPL", 3L));
+
+        QuoteCountService afterShutdown = restore(snapshot, true);
+        afterShutdown.reconcile();
+        assertThat(afterShutdown.getTotal()).isEqualTo(8);
+
+        QuoteCountService afterCrash = restore(snapshot, false);
+        table.put(OLD_DAY, Map.of("AAPL", 4L));
+        afterCrash.reconcile();
+        assertThat(afterCrash.getTotal()).isEqualTo(7);
+    }
+
+    @Test
+    void aReconcileWaitsForWritesInFlight() throws Exception {
+        when(repository.findOldestTimestamp()).thenReturn(null);
+        QuoteCountService service = new QuoteCountService(repository, transactionManager, 30);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> write = CompletableFuture.runAsync(() -> service.recording(() -> {
+            writing.countDown();
+            await(release);
+            // Committed, and not recorded yet
+            table.put(TODAY, Map.of("IBM", 1L));
+            service.recordInserted(inserted(TODAY, "IBM", 1));
+            return null;
+        }));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> reconcile = CompletableFuture.runAsync(service::reconcile);
+        Thread.sleep(100);
+        assertThat(reconcile).isNotDone();
+
+        release.countDown();
+        write.get(5, TimeUnit.SECONDS);
+        reconcile.get(5, TimeUnit.SECONDS);
+        assertThat(service.getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    void writesGoOnDuringTheCountAndAreKept() throws Exception {
+        table.put(TODAY, Map.of("AAPL", 2L));
+        when(repository.findOldestTimestamp()).thenReturn(null);
+        QuoteCountService service = new QuoteCountService(repository, transactionManager, 30);
+        CountDownLatch counting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            // The snapshot's rows, then a count that takes a while
+            List<Object[]> rows = new ArrayList<>();
+            table.get(TODAY).forEach((symbol, count) -> rows.add(new Object[] {symbol, count}));
+            counting.countDown();
+            await(release);
+            return rows;
+        }).when(repository).countBySymbolBetween(eq(TODAY.atStartOfDay()), any());
+
+        CompletableFuture<Void> reconcile = CompletableFuture.runAsync(service::reconcile);
+        assertThat(counting.await(5, TimeUnit.SECONDS)).isTrue();
+        // Committed after the snapshot: not in the count, but recorded
+        CompletableFuture<Void> write = CompletableFuture.runAsync(() -> service.recording(() -> {
+            table.put(TODAY, Map.of("AAPL", 3L));
+            service.recordInserted(inserted(TODAY, "AAPL", 1));
+            return null;
+        }));
+        write.get(5, TimeUnit.SECONDS);
+        assertThat(reconcile).isNotDone();
+
+        release.countDown();
+        reconcile.get(5, TimeUnit.SECONDS);
+        assertThat(service.getTotal()).isEqualTo(3);
+        assertThat(service.getCountsByDay()).containsEntry(TODAY.toString(), 3L);
+        verify(transactionManager, atLeastOnce()).getTransaction(argThat(definition -> definition.isReadOnly()
+                && definition.getIsolationLevel() == TransactionDefinition.ISOLATION_REPEATABLE_READ));
+    }
+
+    private QuoteCountService restore(byte[] snapshot, boolean shutdown) throws IOException {
+        QuoteCountService service = new QuoteCountService(repository, transactionManager, 30);
+        service.restoreSnapshot(new DataInputStream(new ByteArrayInputStream(snapshot)),
+                new SnapshotHeader(System.currentTimeMillis(), shutdown));
+        return service;
+    }
+
+    private static byte[] write(QuoteCountService service) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        service.writeSnapshot(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static UpsertResult inserted(LocalDate day, String symbol, int count) {
+        return new UpsertResult(count, 0, 0, Map.of(symbol, count), Map.of(day, Map.of(symbol, count)));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.realtime.realtimedatapipeline.metrics;
+
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import com.realtime.realtimedatapipeline.repository.StockQuoteRepository;
+import com.realtime.realtimedatapipeline.symbols.SymbolUniverseChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StockMetricsServiceTest {
+
+    private final StockQuoteRepository repository = mock(StockQuoteRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void registersPerSymbolGaugesOnceAndExportsLatestValues() {
+        StockMetricsService service = new StockMetricsService(repository, new QuoteCountService(repository, mock(PlatformTransactionManager.class), 30), registry, 10);
+
+        service.updateStockMetrics(quote("AAPL", 190.0, 1.5, 1_000L));
+        service.updateStockMetrics(quote("AAPL", 191.0, 2.0, 1_010L));
+
+        assertThat(registry.find("stock.price").tag("symbol", "AAPL").gauges()).hasSize(1);
+        assertThat(registry.get("stock.price").tag("symbol", "AAPL").gauge().value()).isEqualTo(191.0);
+        assertThat(registry.get("stock.price.change.percent").tag("symbol", "AAPL").gauge().value()).isEqualTo(2.0);
+        assertThat(registry.get("stock.quote.staleness.seconds").tag("symbol", "AAPL").gauge().value()).isLessThan(5.0);
+        assertThat(service.getSymbolMetrics("AAPL")).containsEntry("quoteCount", 2L);
+    }
+
+    @Test
+    void capsPerSymbolMeterCardinality() {
+        StockMetricsService service = new StockMetricsService(repository, new QuoteCountService(repository, mock(PlatformTransactionManager.class), 30), registry, 2);
+
+        service.updateStockMetrics(quote("AAPL", 1.0, 0.0, 1L));
+        service.updateStockMetrics(quote("MSFT", 1.0, 0.0, 1L));
+        service.updateStockMetrics(quote("TSLA", 1.0, 0.0, 1L));
+        service.recordPriceAlert("TSLA", 7.5);
+
+        assertThat(registry.find("stock.price").gauges()).hasSize(2);
+        assertThat(registry.get("stock.price.alerts.total").tag("symbol", "_other").tag("direction", "up")
+                .counter().count()).isEqualTo(1.0);
+        assertThat(service.getSymbolMetrics("TSLA")).containsEntry("currentPrice", 1.0);
+    }
+
+    @Test
+    void removedSymbolsReleaseTheirMetersAndTagSlots() {
+        StockMetricsService service = new StockMetricsService(repository, new QuoteCountService(repository, mock(PlatformTransactionManager.class), 30), registry, 1);
+
+        service.updateStockMetrics(quote("AAPL", 1.0, 0.0, 1L));
+        service.onSymbolUniverseChanged(new SymbolUniverseChangedEvent(List.of(), List.of("AAPL"), 2));
+        service.updateStockMetrics(quote("MSFT", 1.0, 0.0, 1L));
+
+        assertThat(registry.find("stock.price").tag("symbol", "AAPL").gauges()).isEmpty();
+        assertThat(registry.find("stock.price").tag("symbol", "MSFT").gauges()).hasSize(1);
+        assertThat(service.getSymbolMetrics("AAPL")).containsEntry("quoteCount", 0L);
+    }
+
+    @Test
+    void tenThousandSymbolsStayWithinTheMeterCap() {
+        StockMetricsService service = new StockMetricsService(repository, new QuoteCountService(repository, mock(PlatformTransactionManager.class), 30), registry, 500);
+        List<String> symbols = IntStream.range(0, 10_000).mapToObj(i -> "SYM" + i).toList();
+
+        symbols.forEach(symbol -> service.updateStockMetrics(quote(symbol, 1.0, 0.0, 1L)));
+        assertThat(registry.find("stock.price").gauges()).hasSize(500);
+        assertThat(registry.get("stock.symbols.tracked").gauge().value()).isEqualTo(10_000.0);
+
+        // Removing the half holding every tag slot hands the slots to symbols still in the universe
+        service.onSymbolUniverseChanged(new SymbolUniverseChangedEvent(List.of(), symbols.subList(0, 5_000), 10_001));
+        assertThat(registry.get("stock.symbols.tracked").gauge().value()).isEqualTo(5_000.0);
+        assertThat(registry.get("stock.symbols.tagged").gauge().value()).isEqualTo(500.0);
+        assertThat(registry.find("stock.price").gauges()).hasSize(500)
+                .allMatch(gauge -> Integer.parseInt(gauge.getId().getTag("symbol").substring(3)) >= 5_000);
+        assertThat(registry.find("stock.price.alerts.total").counters()).hasSize(1_002);
+    }
+
+    @Test
+    void ignoresOlderQuotesAndDoesNotCountDatabaseRefreshes() {
+        StockMetricsService service = new StockMetricsService(repository, new QuoteCountService(repository, mock(PlatformTransactionManager.class), 30), registry, 10);
+        service.updateStockMetrics(quote("NVDA", 120.0, 3.0, 2_000L));
+        service.updateStockMetrics(quote("NVDA", 100.0, -1.0, 1_000L));
+
+        when(repository.findLatestQuoteForEachSymbol()).thenReturn(List.of(quote("NVDA", 120.0, 3.0, 2_000L)));
+        service.refreshDatabaseMetrics();
+
+        assertThat(service.getSymbolMetrics("NVDA"))
+                .containsEntry("currentPrice", 120.0)
+                .containsEntry("quoteCount", 2L);
+    }
+
+    @Test
+    void onlyANewerLiveQuoteAdvancesTheLastUpdate() throws InterruptedException {
+        StockMetricsService service = new StockMetricsService(repository, new QuoteCountService(repository, mock(PlatformTransactionManager.class), 30), registry, 10);
+        when(repository.findLatestQuoteForEachSymbol()).thenReturn(List.of(quote("NVDA", 120.0, 3.0, 2_000L)));
+        service.refreshDatabaseMetrics();
+        assertThat(registry.get("stock.quote.staleness.seconds").tag("symbol", "NVDA").gauge().value()).isNaN();
+
+        service.updateStockMetrics(quote("NVDA", 120.0, 3.0, 2_000L));
+        assertThat(registry.get("stock.quote.staleness.seconds").tag("symbol", "NVDA").gauge().value()).isNaN();
+
+        service.updateStockMetrics(quote("NVDA", 121.0, 3.5, 2_010L));
+        Object lastUpdate = service.getSymbolMetrics("NVDA").get("lastUpdate");
+        Thread.sleep(5);
+        service.updateStockMetrics(quote("NVDA", 121.0, 3.5, 2_010L));
+        service.updateStockMetrics(quote("NVDA", 119.0, 3.0, 2_005L));
+        when(repository.findLatestQuoteForEachSymbol()).thenReturn(List.of(quote("NVDA", 122.0, 4.0, 2_020L)));
+        service.refreshDatabaseMetrics();
+
+        assertThat(service.getSymbolMetrics("NVDA"))
+                .containsEntry("lastUpdate", lastUpdate)
+                .containsEntry("currentPrice", 122.0);
+    }
+
+    private static StockQuoteEvent quote(String symbol, double price, double percentChange, long marketTimestamp) {
+        return StockQuoteEvent.builder()
+                .symbol(symbol)
+                .stockName(symbol)
+                .currentPrice(price)
+                .percentChange(percentChange)
+                .timestamp(LocalDateTime.now())
+                .marketTimestamp(marketTimestamp)
+                .build();
+    }
+}
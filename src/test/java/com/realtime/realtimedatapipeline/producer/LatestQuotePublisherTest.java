@@ -0,0 +1,70 @@
+package com.realtime.realtimedatapipeline.producer;
+
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import com.realtime.realtimedatapipeline.symbols.SymbolUniverseChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LatestQuotePublisherTest {
+
+    private static final String TOPIC = "stock-quotes-latest";
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, StockQuoteEvent> kafkaTemplate = mock(KafkaTemplate.class);
+    private final LatestQuotePublisher publisher = new LatestQuotePublisher(kafkaTemplate);
+
+    LatestQuotePublisherTest() {
+        ReflectionTestUtils.setField(publisher, "stockQuotesLatestTopic", TOPIC);
+        CompletableFuture<SendResult<String, StockQuoteEvent>> sent = CompletableFuture.completedFuture(null);
+        when(kafkaTemplate.send(anyString(), anyString(), any(StockQuoteEvent.class))).thenReturn(sent);
+    }
+
+    @Test
+    void publishesOnlyQuotesNewerThanTheLastOnePerSymbol() {
+        publisher.publish(quote("AAPL", 100L));
+        publisher.publish(quote("AAPL", 90L));
+        publisher.publish(quote("AAPL", 100L));
+        publisher.publish(quote("AAPL", 110L));
+
+        verify(kafkaTemplate, times(2)).send(eq(TOPIC), eq("AAPL"), any(StockQuoteEvent.class));
+        assertThat(publisher.getStatistics())
+                .containsEntry("publishedEvents", 2L)
+                .containsEntry("skippedEvents", 2L);
+    }
+
+    @Test
+    void aSeededQuoteFromTheTopicIsNotPublishedOverByOlderOnes() {
+        publisher.seed(quote("MSFT", 200L));
+        publisher.publish(quote("MSFT", 150L));
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any(StockQuoteEvent.class));
+
+        // A symbol removed and re-added starts over
+        publisher.onSymbolUniverseChanged(new SymbolUniverseChangedEvent(List.of(), List.of("MSFT"), 2));
+        publisher.publish(quote("MSFT", 150L));
+        verify(kafkaTemplate).send(eq(TOPIC), eq("MSFT"), any(StockQuoteEvent.class));
+    }
+
+    private static StockQuoteEvent quote(String symbol, long marketTimestamp) {
+        return StockQuoteEvent.builder()
+                .symbol(symbol)
+                .stockName(symbol)
+                .currentPrice(1.0)
+                .marketTimestamp(marketTimestamp)
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.realtime.realtimedatapipeline.producer;
+
+import com.realtime.realtimedatapipeline.config.IotProperties;
+import com.realtime.realtimedatapipeline.model.IngestResult;
+import com.realtime.realtimedatapipeline.model.SensorReading;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SensorReadingProducerTest {
+
+    private final MockProducer<String, SensorReading> producer =
+            new MockProducer<>(false, new StringSerializer(), new JsonSerializer<>());
+    private final SensorReadingProducer sensorReadingProducer;
+
+    @SuppressWarnings("unchecked")
+    SensorReadingProducerTest() {
+        ProducerFactory<String, SensorReading> producerFactory = mock(ProducerFactory.class);
+        when(producerFactory.copyWithConfigurationOverride(anyMap())).thenReturn(producerFactory);
+        when(producerFactory.createProducer()).thenReturn(producer);
+        IotProperties iotProperties = new IotProperties();
+        iotProperties.setPublishTimeout(Duration.ofMillis(300));
+        sensorReadingProducer = new SensorReadingProducer(producerFactory, iotProperties, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(sensorReadingProducer, "sensorReadingsTopic", "iot-sensor-readings");
+    }
+
+    @Test
+    void reportsTheReadingsKafkaDidNotAcknowledge() {
+        // Kafka acknowledges the first valid reading, fails the second and never answers for the third
+        CompletableFuture<Void> broker = CompletableFuture.runAsync(() -> {
+            while (producer.history().size() < 3) {
+                Thread.onSpinWait();
+            }
+            producer.completeNext();
+            producer.errorNext(new IllegalStateException("broker down"));
+        });
+
+        IngestResult result = sensorReadingProducer.publishAll(Arrays.asList(
+                reading("s1"), null, reading("s2"), reading("s3")));
+        broker.join();
+
+        assertThat(result.accepted()).isEqualTo(1);
+        assertThat(result.rejected()).isEqualTo(1);
+        assertThat(result.failed()).isEqualTo(2);
+        assertThat(result.errors()).containsExactly(
+                "readings[1]: reading is null",
+                "readings[2]: not published: broker down",
+                "readings[3]: not published: no acknowledgement within PT0.3S");
+        assertThat(sensorReadingProducer.getStatistics())
+                .containsEntry("acceptedReadings", 1L)
+                .containsEntry("failedReadings", 2L);
+    }
+
+    private static SensorReading reading(String sensorId) {
+        return new SensorReading(sensorId, "thermo", "hall", 21.0, null, null, 90, null, 1_718_000_000_000L);
+    }
+}
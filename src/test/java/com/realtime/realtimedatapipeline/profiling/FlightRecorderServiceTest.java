@@ -0,0 +1,74 @@
+package com.realtime.realtimedatapipeline.profiling;
+
+import com.realtime.realtimedatapipeline.config.FlightRecorderProperties;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FlightRecorderServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private FlightRecorderService service;
+
+    @AfterEach
+    void closeRecording() {
+        if (service != null) {
+            service.destroy();
+        }
+    }
+
+    @Test
+    void recordsStageEventsAndDumpsThem() throws Exception {
+        service = new FlightRecorderService(properties());
+        assertThat(service.status()).containsEntry("state", "NONE");
+        assertThatThrownBy(service::dump).isInstanceOf(IllegalStateException.class);
+
+        service.start(null);
+        assertThatThrownBy(() -> service.start(null)).isInstanceOf(IllegalStateException.class);
+        PipelineStageEvent.start(PipelineStageEvent.Stage.FETCH, "AAPL").finish(1);
+        PipelineStageEvent.start(PipelineStageEvent.Stage.DECODE, "AAPL").finish(312);
+        PipelineStageEvent.start(PipelineStageEvent.Stage.CONSUME, null).finish(500);
+        service.stop();
+        assertThat(service.status()).containsEntry("state", "STOPPED");
+
+        Path file = service.dump();
+        assertThat(file).startsWith(directory.toAbsolutePath());
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(PipelineStageEvent.NAME))
+                .toList();
+        assertThat(events).extracting(event -> event.getString("stage")).containsExactly("fetch", "decode", "consume");
+        assertThat(events.get(1).getString("symbol")).isEqualTo("AAPL");
+        assertThat(events.get(1).getLong("size")).isEqualTo(312);
+        assertThat(events.get(2).getString("symbol")).isNull();
+        assertThat(service.status()).containsEntry("dumps", 1L);
+    }
+
+    @Test
+    void stageEventsAreNotRecordedBeforeAStart() throws Exception {
+        service = new FlightRecorderService(properties());
+        PipelineStageEvent.start(PipelineStageEvent.Stage.PUBLISH, "MSFT").finish(1);
+
+        service.start("default");
+        service.stop();
+        List<RecordedEvent> events = RecordingFile.readAllEvents(service.dump()).stream()
+                .filter(event -> event.getEventType().getName().equals(PipelineStageEvent.NAME))
+                .toList();
+        assertThat(events).isEmpty();
+    }
+
+    private FlightRecorderProperties properties() {
+        FlightRecorderProperties properties = new FlightRecorderProperties();
+        properties.setDumpDirectory(directory.toString());
+        return properties;
+    }
+}
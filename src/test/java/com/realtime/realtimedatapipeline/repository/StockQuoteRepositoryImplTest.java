@@ -0,0 +1,239 @@
+package com.realtime.realtimedatapipeline.repository;
+
+import com.realtime.realtimedatapipeline.config.PersistenceProperties;
+import com.realtime.realtimedatapipeline.config.PersistenceProperties.ConflictAction;
+import com.realtime.realtimedatapipeline.model.StockQuoteEvent;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * The multi-row upsert against a real Postgres, on the schema Hibernate generates from the entity.
+ * Uses a Postgres container, or an existing empty database given with
+ * {@code -Dpostgres.jdbc-url=jdbc:postgresql://localhost:5432/test} (plus {@code postgres.username}
+ * and {@code postgres.password}); skipped when neither is available.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PersistenceProperties.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIf("postgresAvailable")
+class StockQuoteRepositoryImplTest {
+
+    private static final String JDBC_URL = System.getProperty("postgres.jdbc-url");
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 4);
+
+    static PostgreSQLContainer<?> postgres;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final PersistenceProperties properties = new PersistenceProperties();
+    private JdbcTemplate jdbc;
+    private StockQuoteRepositoryImpl repository;
+
+    static boolean postgresAvailable() {
+        return JDBC_URL != null || DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        if (JDBC_URL == null) {
+            postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+            postgres.start();
+            registry.add("spring.datasource.url", postgres::getJdbcUrl);
+            registry.add("spring.datasource.username", postgres::getUsername);
+            registry.add("spring.datasource.password", postgres::getPassword);
+        } else {
+            registry.add("spring.datasource.url", () -> JDBC_URL);
+            registry.add("spring.datasource.username", () -> System.getProperty("postgres.username", "postgres"));
+            registry.add("spring.datasource.password", () -> System.getProperty("postgres.password", "postgres"));
+        }
+    }
+
+    @AfterAll
+    static void stop() {
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+
+    @BeforeEach
+    void emptyTable() {
+        jdbcTemplate.update("DELETE FROM stock_quotes");
+        jdbc = spy(jdbcTemplate);
+        repository = new StockQuoteRepositoryImpl(jdbc, transactionManager, properties);
+    }
+
+    @Test
+    void newRowsCountAsInsertsChangedOnesAsUpdatesAndIdenticalReplaysAsNeither() {
+        UpsertResult first = repository.upsertAll(List.of(quote("AAPL", 1, 190.0), quote("AAPL", 2, 191.0),
+                quote("MSFT", 1, 410.0)));
+        assertThat(first.getInserted()).isEqualTo(3);
+        assertThat(first.getUpdated()).isZero();
+        assertThat(first.getInsertedBySymbol()).isEqualTo(Map.of("AAPL", 2, "MSFT", 1));
+        assertThat(first.getInsertedByDay()).isEqualTo(Map.of(DAY, Map.of("AAPL", 2, "MSFT", 1)));
+
+        // A replay with a corrected price, an identical replay and a new quote
+        UpsertResult second = repository.upsertAll(List.of(quote("AAPL", 1, 190.5), quote("AAPL", 2, 191.0),
+                quote("MSFT", 2, 411.0)));
+        assertThat(second.getInserted()).isEqualTo(1);
+        assertThat(second.getUpdated()).isEqualTo(1);
+        assertThat(second.getInsertedBySymbol()).isEqualTo(Map.of("MSFT", 1));
+
+        assertThat(count()).isEqualTo(4);
+        assertThat(price("AAPL", 1)).isEqualTo(190.5);
+    }
+
+    @Test
+    void duplicatesOfAKeyInOneBatchCollapseToTheLast() {
+        UpsertResult result = repository.upsertAll(List.of(quote("NVDA", 1, 120.0), quote("NVDA", 1, 121.0)));
+
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(count()).isEqualTo(1);
+        assertThat(price("NVDA", 1)).isEqualTo(121.0);
+    }
+
+    @Test
+    void batchesAreWrittenInStatementsOfAtMostTheBatchSize() {
+        properties.setBatchSize(3);
+        List<StockQuoteEvent> quotes = IntStream.range(0, 10).mapToObj(i -> quote("IBM", i, 180.0 + i)).toList();
+
+        UpsertResult result = repository.upsertAll(quotes);
+
+        assertThat(result.getInserted()).isEqualTo(10);
+        assertThat(count()).isEqualTo(10);
+        // 3 + 3 + 3 + 1 rows
+        verify(jdbc, times(3)).query(argThat((String sql) -> rows(sql) == 3),
+                any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+        verify(jdbc, times(1)).query(argThat((String sql) -> rows(sql) == 1),
+                any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void aFailingLaterBatchRollsBackTheEarlierOnes() {
+        properties.setBatchSize(3);
+        List<StockQuoteEvent> quotes = IntStream.range(0, 7).mapToObj(i -> quote("ORCL", i, 120.0 + i)).toList();
+        doCallRealMethod()
+                .doThrow(new QueryTimeoutException("canceling statement due to statement timeout"))
+                .when(jdbc).query(anyString(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+
+        assertThatThrownBy(() -> repository.upsertAll(quotes)).isInstanceOf(QueryTimeoutException.class);
+
+        // Nothing committed, so writing the quotes again counts every one as inserted
+        assertThat(count()).isZero();
+    }
+
+    @Test
+    void conflictActionNothingKeepsTheStoredRow() {
+        properties.setConflictAction(ConflictAction.NOTHING);
+        repository.upsertAll(List.of(quote("TSLA", 1, 250.0)));
+
+        UpsertResult result = repository.upsertAll(List.of(quote("TSLA", 1, 255.0), quote("TSLA", 2, 256.0)));
+
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getUpdated()).isZero();
+        assertThat(result.getInsertedBySymbol()).isEqualTo(Map.of("TSLA", 1));
+        assertThat(price("TSLA", 1)).isEqualTo(250.0);
+        assertThat(count()).isEqualTo(2);
+        verify(jdbc, times(2)).query(argThat((String sql) -> sql.contains("DO NOTHING")),
+                any(PreparedStatementSetter.class),
+                any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void aMissingUniqueKeyIsAddedAfterDeletingAllButTheNewestDuplicate() {
+        jdbcTemplate.execute("ALTER TABLE stock_quotes DROP CONSTRAINT " + StockQuoteUniqueKeyCheck.CONSTRAINT);
+        insertPlain(quote("AAPL", 1, 190.0), LocalDateTime.of(2024, 3, 4, 10, 1));
+        insertPlain(quote("AAPL", 1, 190.5), LocalDateTime.of(2024, 3, 4, 10, 5));
+        insertPlain(quote("AAPL", 2, 191.0), LocalDateTime.of(2024, 3, 4, 10, 2));
+        StockQuoteUniqueKeyCheck check = new StockQuoteUniqueKeyCheck(jdbcTemplate, transactionManager, properties);
+
+        properties.setRepairUniqueKey(false);
+        assertThatThrownBy(check::afterSingletonsInstantiated).isInstanceOf(IllegalStateException.class);
+        assertThat(count()).isEqualTo(3);
+
+        properties.setRepairUniqueKey(true);
+        check.afterSingletonsInstantiated();
+
+        assertThat(check.exists()).isTrue();
+        assertThat(count()).isEqualTo(2);
+        assertThat(price("AAPL", 1)).isEqualTo(190.5);
+        assertThat(repository.upsertAll(List.of(quote("AAPL", 2, 192.0))).getUpdated()).isEqualTo(1);
+    }
+
+    private void insertPlain(StockQuoteEvent quote, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO stock_quotes (id, symbol, stock_name, current_price, timestamp, " +
+                        "market_timestamp, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                quote.getId(), quote.getSymbol(), quote.getStockName(), quote.getCurrentPrice(),
+                quote.getTimestamp(), quote.getMarketTimestamp(), createdAt);
+    }
+
+    private long count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_quotes", Long.class);
+    }
+
+    private double price(String symbol, int minute) {
+        return jdbcTemplate.queryForObject("SELECT current_price FROM stock_quotes WHERE symbol = ? AND market_timestamp = ?",
+                Double.class, symbol, marketTimestamp(minute));
+    }
+
+    private static int rows(String sql) {
+        int rows = 0;
+        for (int i = sql.indexOf("(?"); i >= 0; i = sql.indexOf("(?", i + 1)) {
+            rows++;
+        }
+        return rows;
+    }
+
+    private static long marketTimestamp(int minute) {
+        return 1_709_546_400L + minute * 60L;
+    }
+
+    private static StockQuoteEvent quote(String symbol, int minute, double price) {
+        return StockQuoteEvent.builder()
+                .symbol(symbol)
+                .stockName(symbol + " Inc")
+                .currentPrice(price)
+                .percentChange(0.5)
+                .timestamp(LocalDateTime.of(DAY, LocalTime.of(10, 0)).plusMinutes(minute))
+                .marketTimestamp(marketTimestamp(minute))
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.realtime.realtimedatapipeline.scheduler;
+
+import com.realtime.realtimedatapipeline.client.CompanyProfileCache;
+import com.realtime.realtimedatapipeline.client.FinnhubApiClient;
+import com.realtime.realtimedatapipeline.config.SchedulingConfig;
+import com.realtime.realtimedatapipeline.config.StockProperties;
+import com.realtime.realtimedatapipeline.metrics.ConsumerLagCollector;
+import com.realtime.realtimedatapipeline.metrics.StockMetricsService;
+import com.realtime.realtimedatapipeline.model.FinnhubQuoteResponse;
+import com.realtime.realtimedatapipeline.producer.StockDataProducer;
+import com.realtime.realtimedatapipeline.symbols.SymbolRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockDataSchedulerTest {
+
+    private final FinnhubApiClient client = mock(FinnhubApiClient.class);
+    private final CompanyProfileCache profileCache = mock(CompanyProfileCache.class);
+    private final StockDataProducer producer = mock(StockDataProducer.class);
+    private final SymbolRegistry registry = mock(SymbolRegistry.class);
+    private final ConsumerLagCollector lagCollector = mock(ConsumerLagCollector.class);
+    private final StockProperties properties = new StockProperties();
+
+    // Calls in progress, the most seen at once, and the threads they ran on
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolTaskExecutor executor;
+
+    StockDataSchedulerTest() {
+        when(lagCollector.throttleFactor()).thenReturn(1);
+        when(profileCache.getName(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(client.getStockQuote(anyString())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            threads.add(Thread.currentThread().getName());
+            try {
+                Thread.sleep(1);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return FinnhubQuoteResponse.of(100.0, 1.0, 1.0, 101.0, 99.0, 100.0, 99.0, 1_709_546_400L);
+        });
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void tenThousandSymbolsAreFetchedOnTheBoundedPool() {
+        properties.setFetchConcurrency(8);
+        properties.setFetchRate(0);
+        when(registry.getSymbols()).thenReturn(symbols(10_000));
+        StockDataScheduler scheduler = scheduler();
+
+        scheduler.fetchAndPublishStockData();
+
+        verify(producer, times(10_000)).publishStockQuote(any());
+        assertThat(maxInFlight.get()).isBetween(2, 8);
+        assertThat(threads).hasSizeLessThanOrEqualTo(8).allMatch(name -> name.startsWith("QuoteFetch-"));
+        assertThat(scheduler.getStatistics())
+                .containsEntry("fetchCount", 1L)
+                .containsEntry("isRunning", false);
+        assertThat((Long) scheduler.getStatistics().get("lastCycleMillis")).isPositive();
+    }
+
+    @Test
+    void requestStartsArePacedToTheFetchRate() {
+        properties.setFetchConcurrency(4);
+        properties.setFetchRate(100);
+        when(registry.getSymbols()).thenReturn(symbols(51));
+        StockDataScheduler scheduler = scheduler();
+
+        long start = System.nanoTime();
+        scheduler.triggerManualFetch();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // 51 starts at 100/s: the last one no earlier than 500 ms after the first
+        verify(producer, times(51)).publishStockQuote(any());
+        assertThat(elapsed).isGreaterThanOrEqualTo(Duration.ofMillis(490));
+    }
+
+    private StockDataScheduler scheduler() {
+        executor = new SchedulingConfig().quoteFetchExecutor(properties);
+        return new StockDataScheduler(client, profileCache, producer, properties, registry,
+                mock(StockMetricsService.class), lagCollector, executor);
+    }
+
+    private static List<String> symbols(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "SYM" + i).toList();
+    }
+}
@@ -0,0 +1,134 @@
+package com.realtime.realtimedatapipeline.snapshot;
+
+import com.realtime.realtimedatapipeline.config.SnapshotProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StateSnapshotServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoresEveryParticipantWrittenOnShutdown() {
+        CounterParticipant counter = new CounterParticipant("counter", 1);
+        NameParticipant names = new NameParticipant();
+        counter.value = 42;
+        names.value = "Apple Inc";
+        StateSnapshotService before = new StateSnapshotService(properties(), List.of(counter, names));
+        before.start();
+        before.stop();
+
+        CounterParticipant restoredCounter = new CounterParticipant("counter", 1);
+        NameParticipant restoredNames = new NameParticipant();
+        StateSnapshotService after = new StateSnapshotService(properties(), List.of(restoredCounter, restoredNames));
+        after.start();
+
+        assertThat(restoredCounter.value).isEqualTo(42);
+        assertThat(restoredCounter.header.shutdown()).isTrue();
+        assertThat(restoredNames.value).isEqualTo("Apple Inc");
+        assertThat(after.getStatistics()).containsEntry("restoredSections", 2);
+    }
+
+    @Test
+    void skipsSectionsOfAnotherVersionAndUnknownSections() {
+        CounterParticipant counter = new CounterParticipant("counter", 1);
+        counter.value = 7;
+        StateSnapshotService before = new StateSnapshotService(properties(), List.of(counter, new NameParticipant()));
+        assertThat(before.write(false)).isTrue();
+
+        CounterParticipant newerLayout = new CounterParticipant("counter", 2);
+        StateSnapshotService after = new StateSnapshotService(properties(), List.of(newerLayout));
+        after.start();
+
+        assertThat(newerLayout.value).isZero();
+        assertThat(after.getStatistics()).containsEntry("restoredSections", 0);
+    }
+
+    @Test
+    void ignoresACorruptSnapshot() throws IOException {
+        CounterParticipant counter = new CounterParticipant("counter", 1);
+        counter.value = 7;
+        StateSnapshotService before = new StateSnapshotService(properties(), List.of(counter));
+        before.write(false);
+        Path file = directory.resolve(StateSnapshotService.FILE_NAME);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(file, bytes);
+
+        CounterParticipant restored = new CounterParticipant("counter", 1);
+        new StateSnapshotService(properties(), List.of(restored)).start();
+
+        assertThat(restored.value).isZero();
+        assertThat(Files.exists(directory.resolve(StateSnapshotService.FILE_NAME + ".tmp"))).isFalse();
+    }
+
+    private SnapshotProperties properties() {
+        SnapshotProperties properties = new SnapshotProperties();
+        properties.setDirectory(directory.toString());
+        return properties;
+    }
+
+    private static final class CounterParticipant implements SnapshotParticipant {
+
+        private final String section;
+        private final int version;
+        long value;
+        SnapshotHeader header;
+
+        CounterParticipant(String section, int version) {
+            this.section = section;
+            this.version = version;
+        }
+
+        @Override
+        public String snapshotSection() {
+            return section;
+        }
+
+        @Override
+        public int snapshotVersion() {
+            return version;
+        }
+
+        @Override
+        public void writeSnapshot(DataOutput out) throws IOException {
+            out.writeLong(value);
+        }
+
+        @Override
+        public void restoreSnapshot(DataInput in, SnapshotHeader header) throws IOException {
+            value = in.readLong();
+            this.header = header;
+        }
+    }
+
+    private static final class NameParticipant implements SnapshotParticipant {
+
+        String value = "";
+
+        @Override
+        public String snapshotSection() {
+            return "names";
+        }
+
+        @Override
+        public void writeSnapshot(DataOutput out) throws IOException {
+            out.writeUTF(value);
+        }
+
+        @Override
+        public void restoreSnapshot(DataInput in, SnapshotHeader header) throws IOException {
+            value = in.readUTF();
+        }
+    }
+}
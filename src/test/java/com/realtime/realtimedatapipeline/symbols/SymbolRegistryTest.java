@@ -0,0 +1,118 @@
+package com.realtime.realtimedatapipeline.symbols;
+
+import com.realtime.realtimedatapipeline.config.StockProperties;
+import com.realtime.realtimedatapipeline.model.TrackedSymbol;
+import com.realtime.realtimedatapipeline.repository.TrackedSymbolRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SymbolRegistryTest {
+
+    private final TrackedSymbolRepository repository = mock(TrackedSymbolRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final StockProperties stockProperties = new StockProperties();
+
+    @Test
+    void seedsAnEmptyRegistryFromConfigurationAndLoadsAPersistedOne() {
+        SymbolRegistry seeded = registry();
+        assertThat(seeded.getSymbols()).isEqualTo(stockProperties.getSymbols());
+        assertThat(seeded.idOf("AAPL")).isZero();
+
+        when(repository.findAllByOrderByIdAsc()).thenReturn(List.of(
+                new TrackedSymbol(0, "IBM", true, LocalDateTime.now()),
+                new TrackedSymbol(1, "ORCL", false, LocalDateTime.now()),
+                new TrackedSymbol(2, "SAP", true, LocalDateTime.now())));
+        SymbolRegistry loaded = registry();
+
+        assertThat(loaded.getSymbols()).containsExactly("IBM", "SAP");
+        assertThat(loaded.idOf("SAP")).isEqualTo(2);
+        assertThat(loaded.idOf("ORCL")).isEqualTo(-1);
+        assertThat(loaded.capacity()).isEqualTo(3);
+    }
+
+    @Test
+    void assignsDenseIdsAcrossTenThousandsOfSymbolsAddedInBatches() {
+        stockProperties.setSymbols(List.of());
+        SymbolRegistry registry = registry();
+
+        long start = System.nanoTime();
+        for (int batch = 0; batch < 20; batch++) {
+            List<String> symbols = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                symbols.add("S" + (batch * 1_000 + i));
+            }
+            assertThat(registry.add(symbols)).hasSize(1_000);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(registry.getSymbols()).hasSize(20_000);
+        assertThat(registry.capacity()).isEqualTo(20_000);
+        assertThat(registry.version()).isEqualTo(20);
+        for (int id = 0; id < 20_000; id += 997) {
+            assertThat(registry.symbolOf(id)).isEqualTo("S" + id);
+            assertThat(registry.idOf("S" + id)).isEqualTo(id);
+        }
+        // Every batch copies the universe once; 20 copies of 20k entries stay far below a second
+        assertThat(elapsedMillis).isLessThan(5_000);
+        assertThatThrownBy(() -> registry.add(List.of("ONEMORE")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("20000");
+    }
+
+    @Test
+    void reAddedSymbolsGetTheirIdBackAndChangesArePublished() {
+        SymbolRegistry registry = registry();
+        int msftId = registry.idOf("MSFT");
+
+        assertThat(registry.remove(List.of("msft", "NOPE"))).containsExactly("MSFT");
+        assertThat(registry.isTracked("MSFT")).isFalse();
+        assertThat(registry.symbolOf(msftId)).isNull();
+        verify(eventPublisher).publishEvent(new SymbolUniverseChangedEvent(List.of(), List.of("MSFT"), 2));
+
+        assertThat(registry.add(List.of(" msft ", "IBM", "AAPL"))).containsExactly("MSFT", "IBM");
+        assertThat(registry.idOf("MSFT")).isEqualTo(msftId);
+        assertThat(registry.idOf("IBM")).isEqualTo(stockProperties.getSymbols().size());
+        verify(eventPublisher).publishEvent(new SymbolUniverseChangedEvent(List.of("MSFT", "IBM"), List.of(), 3));
+    }
+
+    @Test
+    void rejectsMalformedSymbolsWithoutChangingAnything() {
+        SymbolRegistry registry = registry();
+        long version = registry.version();
+        clearInvocations(jdbcTemplate);
+
+        assertThatThrownBy(() -> registry.add(List.of("IBM", "NOT A SYMBOL")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> registry.add(List.of("WAYTOOLONGSYMBOL")))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(registry.version()).isEqualTo(version);
+        assertThat(registry.isTracked("IBM")).isFalse();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    private SymbolRegistry registry() {
+        stockProperties.setMaxSymbols(20_000);
+        SymbolRegistry registry = new SymbolRegistry(repository, jdbcTemplate, eventPublisher, stockProperties,
+                new SimpleMeterRegistry());
+        registry.load();
+        return registry;
+    }
+}
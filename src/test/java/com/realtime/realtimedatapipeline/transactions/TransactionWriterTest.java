@@ -0,0 +1,48 @@
+package com.realtime.realtimedatapipeline.transactions;
+
+import com.realtime.realtimedatapipeline.model.TransactionEvent;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.NavigableMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionWriterTest {
+
+    private static final long HOUR = 1_718_000_000_000L - 1_718_000_000_000L % 3_600_000L;
+
+    @Test
+    void keepsTheFirstEventOfARepeatedTransactionId() {
+        TransactionEvent first = transaction("t1", "u1", "10.00", "COMPLETED", HOUR);
+        TransactionEvent repeat = transaction("t1", "u1", "99.00", "FAILED", HOUR);
+        TransactionEvent other = transaction("t2", "u2", "5.00", "PENDING", HOUR);
+
+        assertThat(TransactionWriter.firstPerTransactionId(List.of(first, repeat, other))).containsExactly(first, other);
+        assertThat(TransactionWriter.insertSql(2)).contains("VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?), (?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT");
+    }
+
+    @Test
+    void rollsUpByHourOfCreation() {
+        NavigableMap<Instant, HourlyDelta> deltas = HourlyDelta.byHour(List.of(
+                transaction("t1", "u1", "10.00", "COMPLETED", HOUR + 60_000),
+                transaction("t2", "u1", "2.50", "DECLINED", HOUR + 120_000),
+                transaction("t3", "u2", "7.50", "PENDING", HOUR + 3_599_999),
+                transaction("t4", "u3", "1.00", "COMPLETED", HOUR + 3_600_000)));
+
+        assertThat(deltas.keySet()).containsExactly(Instant.ofEpochMilli(HOUR), Instant.ofEpochMilli(HOUR + 3_600_000));
+        HourlyDelta first = deltas.firstEntry().getValue();
+        assertThat(first.transactions).isEqualTo(3);
+        assertThat(first.amount).isEqualByComparingTo("20.00");
+        assertThat(first.successful).isEqualTo(1);
+        assertThat(first.failed).isEqualTo(1);
+        assertThat(first.users.estimate()).isEqualTo(2);
+        assertThat(deltas.lastEntry().getValue().transactions).isEqualTo(1);
+    }
+
+    private static TransactionEvent transaction(String id, String user, String amount, String status, long createdAt) {
+        return new TransactionEvent(id, user, new BigDecimal(amount), "USD", "PURCHASE", status, null, createdAt);
+    }
+}